@@ -0,0 +1,34 @@
+package org.camphub.be_camphub.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+
+// Con trỏ keyset (createdAt, id) của danh sách booking, mã hóa base64url để client truyền lại nguyên văn
+public record BookingCursor(LocalDateTime createdAt, UUID id) {
+    // trang đầu: mọi booking đều đứng "trước" mốc này
+    public static final BookingCursor FIRST_PAGE =
+            new BookingCursor(LocalDateTime.of(9999, 12, 31, 0, 0), new UUID(-1L, -1L));
+
+    public static BookingCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return FIRST_PAGE;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new BookingCursor(
+                    LocalDateTime.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
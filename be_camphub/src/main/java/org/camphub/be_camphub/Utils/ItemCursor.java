@@ -0,0 +1,64 @@
+package org.camphub.be_camphub.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import org.camphub.be_camphub.enums.ItemSort;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+
+/*
+ * Con trỏ keyset của danh sách item: (kiểu sắp xếp, phase, khóa sắp xếp, id), mã hóa base64url.
+ * phase 0/1 tách nhóm PENDING_APPROVAL (đứng đầu) khỏi các trạng thái còn lại để mỗi nhóm là một range scan trên index.
+ */
+public record ItemCursor(ItemSort sort, int phase, String key, UUID id) {
+    static final UUID MIN_ID = new UUID(0L, 0L);
+    static final UUID MAX_ID = new UUID(-1L, -1L);
+
+    // vị trí đầu của một phase: mọi item đều đứng "sau" mốc này theo chiều sắp xếp
+    public static ItemCursor start(ItemSort sort, int phase) {
+        return switch (sort) {
+            case NEWEST -> new ItemCursor(
+                    sort, phase, LocalDateTime.of(9999, 12, 31, 0, 0).toString(), MAX_ID);
+            case PRICE_ASC -> new ItemCursor(sort, phase, String.valueOf(-Double.MAX_VALUE), MIN_ID);
+            case PRICE_DESC -> new ItemCursor(sort, phase, String.valueOf(Double.MAX_VALUE), MAX_ID);
+        };
+    }
+
+    public static ItemCursor decode(String cursor, ItemSort sort) {
+        if (cursor == null || cursor.isBlank()) return start(sort, 0);
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 4);
+            ItemCursor decoded = new ItemCursor(
+                    ItemSort.valueOf(parts[0]), Integer.parseInt(parts[1]), parts[2], UUID.fromString(parts[3]));
+            // cursor của kiểu sắp xếp khác không dùng lại được
+            if (decoded.sort != sort) throw new IllegalArgumentException(cursor);
+            // kiểm tra khóa ngay khi decode
+            if (sort == ItemSort.NEWEST) decoded.createdAt();
+            else decoded.price();
+            return decoded;
+        } catch (RuntimeException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+
+    public static ItemCursor of(ItemSort sort, int phase, LocalDateTime createdAt, Double price, UUID id) {
+        return new ItemCursor(sort, phase, sort == ItemSort.NEWEST ? createdAt.toString() : String.valueOf(price), id);
+    }
+
+    public LocalDateTime createdAt() {
+        return LocalDateTime.parse(key);
+    }
+
+    public double price() {
+        return Double.parseDouble(key);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((sort + "|" + phase + "|" + key + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,12 @@
+package org.camphub.be_camphub.booking;
+
+import org.camphub.be_camphub.entity.Booking;
+import org.camphub.be_camphub.enums.BookingStatus;
+
+/**
+ * Điều kiện bổ sung cho một trigger, chạy trước câu UPDATE có điều kiện. Ném AppException để chặn chuyển trạng thái.
+ */
+@FunctionalInterface
+public interface BookingGuard {
+    void check(Booking booking, BookingStatus from, BookingStatus to);
+}
@@ -0,0 +1,236 @@
+package org.camphub.be_camphub.booking;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.camphub.be_camphub.entity.Booking;
+import org.camphub.be_camphub.entity.BookingEvent;
+import org.camphub.be_camphub.enums.BookingStatus;
+import org.camphub.be_camphub.enums.BookingTrigger;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.repository.BookingEventRepository;
+import org.camphub.be_camphub.repository.BookingRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Nơi duy nhất đổi trạng thái booking. Bảng (trạng thái, trigger) -> trạng thái được dựng sẵn bằng EnumMap;
+ * mỗi lần chuyển là một câu UPDATE ... WHERE status = :expected (không khóa, bên thua nhận 0 dòng)
+ * cộng một dòng booking_events trong cùng transaction. Cột status của entity không updatable,
+ * nên save() ở nơi khác không thể ghi đè trạng thái.
+ * Các câu UPDATE theo lô (transitionDue, transitionOwned) tự chuyển trạng thái rồi gọi recordAll để ghi sự kiện.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BookingStateMachine {
+    static final Map<BookingStatus, Map<BookingTrigger, BookingStatus>> TRANSITIONS = buildTransitions();
+    static final Map<BookingTrigger, Set<BookingStatus>> SOURCES = buildSources();
+
+    BookingRepository bookingRepository;
+    BookingEventRepository bookingEventRepository;
+
+    Map<BookingTrigger, List<BookingGuard>> guards = new EnumMap<>(BookingTrigger.class);
+
+    private static Map<BookingStatus, Map<BookingTrigger, BookingStatus>> buildTransitions() {
+        Map<BookingStatus, Map<BookingTrigger, BookingStatus>> table = new EnumMap<>(BookingStatus.class);
+        for (BookingStatus status : BookingStatus.values()) table.put(status, new EnumMap<>(BookingTrigger.class));
+
+        add(table, BookingStatus.PENDING_CONFIRM, BookingTrigger.OWNER_ACCEPT, BookingStatus.WAITING_DELIVERY);
+        add(table, BookingStatus.PENDING_CONFIRM, BookingTrigger.OWNER_REJECT, BookingStatus.PAID_REJECTED);
+
+        add(table, BookingStatus.WAITING_DELIVERY, BookingTrigger.CONFIRM_RECEIVED, BookingStatus.IN_USE);
+        add(
+                table,
+                BookingStatus.WAITING_DELIVERY,
+                BookingTrigger.REQUEST_REFUND,
+                BookingStatus.RETURN_REFUND_REQUESTED);
+
+        add(table, BookingStatus.IN_USE, BookingTrigger.RETURN_DUE, BookingStatus.DUE_FOR_RETURN);
+        add(table, BookingStatus.DUE_FOR_RETURN, BookingTrigger.RETURN_LATE, BookingStatus.LATE_RETURN);
+        add(table, BookingStatus.DUE_FOR_RETURN, BookingTrigger.LESSEE_RETURN, BookingStatus.RETURNED_PENDING_CHECK);
+        add(table, BookingStatus.LATE_RETURN, BookingTrigger.LESSEE_RETURN, BookingStatus.RETURNED_PENDING_CHECK);
+        add(table, BookingStatus.LATE_RETURN, BookingTrigger.MARK_OVERDUE, BookingStatus.OVERDUE);
+
+        add(
+                table,
+                BookingStatus.RETURNED_PENDING_CHECK,
+                BookingTrigger.LESSOR_CONFIRM_RETURN,
+                BookingStatus.WAITING_REFUND);
+        add(
+                table,
+                BookingStatus.RETURNED_PENDING_CHECK,
+                BookingTrigger.OPEN_DISPUTE,
+                BookingStatus.DISPUTE_PENDING_REVIEW);
+        add(table, BookingStatus.WAITING_REFUND, BookingTrigger.SETTLE_RETURN, BookingStatus.COMPLETED);
+        // trả sau hơn 3 ngày trễ: xử lý như không trả đồ
+        add(table, BookingStatus.WAITING_REFUND, BookingTrigger.MARK_OVERDUE, BookingStatus.OVERDUE);
+
+        add(
+                table,
+                BookingStatus.RETURN_REFUND_REQUESTED,
+                BookingTrigger.CONFIRM_REFUND_RETURN,
+                BookingStatus.RETURN_REFUND_PROCESSING);
+        add(
+                table,
+                BookingStatus.RETURN_REFUND_REQUESTED,
+                BookingTrigger.OPEN_DISPUTE,
+                BookingStatus.DISPUTE_PENDING_REVIEW);
+        add(table, BookingStatus.RETURN_REFUND_PROCESSING, BookingTrigger.SETTLE_REFUND, BookingStatus.COMPLETED);
+        add(
+                table,
+                BookingStatus.RETURN_REFUND_PROCESSING,
+                BookingTrigger.RESOLVE_RETURN_REQUEST,
+                BookingStatus.COMPLETED);
+        add(
+                table,
+                BookingStatus.RETURN_REFUND_PROCESSING,
+                BookingTrigger.OPEN_DISPUTE,
+                BookingStatus.DISPUTE_PENDING_REVIEW);
+
+        add(table, BookingStatus.DISPUTE_PENDING_REVIEW, BookingTrigger.RESOLVE_DISPUTE, BookingStatus.COMPLETED);
+        return table;
+    }
+
+    private static void add(
+            Map<BookingStatus, Map<BookingTrigger, BookingStatus>> table,
+            BookingStatus from,
+            BookingTrigger trigger,
+            BookingStatus to) {
+        table.get(from).put(trigger, to);
+    }
+
+    private static Map<BookingTrigger, Set<BookingStatus>> buildSources() {
+        Map<BookingTrigger, Set<BookingStatus>> sources = new EnumMap<>(BookingTrigger.class);
+        for (BookingTrigger trigger : BookingTrigger.values())
+            sources.put(trigger, EnumSet.noneOf(BookingStatus.class));
+        TRANSITIONS.forEach((from, row) ->
+                row.keySet().forEach(trigger -> sources.get(trigger).add(from)));
+        return sources;
+    }
+
+    public void registerGuard(BookingTrigger trigger, BookingGuard guard) {
+        guards.computeIfAbsent(trigger, t -> new CopyOnWriteArrayList<>()).add(guard);
+    }
+
+    public Optional<BookingStatus> target(BookingStatus from, BookingTrigger trigger) {
+        return from == null
+                ? Optional.empty()
+                : Optional.ofNullable(TRANSITIONS.get(from).get(trigger));
+    }
+
+    public boolean canFire(BookingStatus from, BookingTrigger trigger) {
+        return target(from, trigger).isPresent();
+    }
+
+    // Các trạng thái mà trigger có thể bắt đầu từ đó
+    public Set<BookingStatus> sources(BookingTrigger trigger) {
+        return Collections.unmodifiableSet(SOURCES.get(trigger));
+    }
+
+    /**
+     * Chuyển trạng thái do người dùng/luồng nghiệp vụ yêu cầu. Ném INVALID_BOOKING_STATUS nếu bảng không cho phép,
+     * lỗi của guard nếu guard chặn, CONCURRENT_UPDATE nếu luồng khác đã đổi trạng thái trước.
+     */
+    @Transactional
+    public BookingStatus fire(Booking booking, BookingTrigger trigger, UUID actorId) {
+        BookingStatus from = booking.getStatus();
+        BookingStatus to = target(from, trigger).orElseThrow(() -> new AppException(ErrorCode.INVALID_BOOKING_STATUS));
+        runGuards(booking, trigger, from, to);
+        if (bookingRepository.compareAndSetStatus(booking.getId(), from, to) == 0) {
+            throw new AppException(ErrorCode.CONCURRENT_UPDATE);
+        }
+        applied(booking, trigger, from, to, actorId);
+        return to;
+    }
+
+    /**
+     * Như fire nhưng cho scheduler/timer: trả về false thay vì ném lỗi khi không chuyển được
+     * (sai trạng thái, guard chặn hoặc luồng khác đã chuyển trước).
+     */
+    @Transactional
+    public boolean tryFire(Booking booking, BookingTrigger trigger, UUID actorId) {
+        BookingStatus from = booking.getStatus();
+        BookingStatus to = target(from, trigger).orElse(null);
+        if (to == null) return false;
+        try {
+            runGuards(booking, trigger, from, to);
+        } catch (AppException e) {
+            return false;
+        }
+        if (bookingRepository.compareAndSetStatus(booking.getId(), from, to) == 0) return false;
+        applied(booking, trigger, from, to, actorId);
+        return true;
+    }
+
+    // Chuyển theo id khi đã biết trạng thái mong đợi, không cần tải booking (guard không chạy)
+    @Transactional
+    public boolean tryFire(UUID bookingId, BookingStatus expected, BookingTrigger trigger, UUID actorId) {
+        BookingStatus to = target(expected, trigger).orElse(null);
+        if (to == null) return false;
+        if (bookingRepository.compareAndSetStatus(bookingId, expected, to) == 0) return false;
+        bookingEventRepository.save(event(bookingId, trigger, expected, to, actorId, LocalDateTime.now()));
+        return true;
+    }
+
+    // Sự kiện cho các booking vừa được chuyển bằng một câu UPDATE theo lô
+    @Transactional
+    public void recordAll(Collection<UUID> bookingIds, BookingStatus from, BookingTrigger trigger, UUID actorId) {
+        if (bookingIds.isEmpty()) return;
+        BookingStatus to = target(from, trigger).orElseThrow(() -> new IllegalArgumentException(from + " " + trigger));
+        LocalDateTime now = LocalDateTime.now();
+        bookingEventRepository.saveAll(bookingIds.stream()
+                .map(id -> event(id, trigger, from, to, actorId, now))
+                .toList());
+    }
+
+    // Sự kiện tạo booking (insert với trạng thái ban đầu PENDING_CONFIRM)
+    @Transactional
+    public void recordCreated(Collection<Booking> bookings, UUID actorId) {
+        if (bookings.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        bookingEventRepository.saveAll(bookings.stream()
+                .map(b -> event(b.getId(), BookingTrigger.CHECKOUT, null, b.getStatus(), actorId, now))
+                .toList());
+    }
+
+    // ----------------- helpers -----------------
+
+    private void runGuards(Booking booking, BookingTrigger trigger, BookingStatus from, BookingStatus to) {
+        for (BookingGuard guard : guards.getOrDefault(trigger, List.of())) {
+            guard.check(booking, from, to);
+        }
+    }
+
+    private void applied(Booking booking, BookingTrigger trigger, BookingStatus from, BookingStatus to, UUID actorId) {
+        // giữ entity khớp với DB; status không updatable nên không sinh thêm câu UPDATE khi flush
+        booking.setStatus(to);
+        bookingEventRepository.save(event(booking.getId(), trigger, from, to, actorId, LocalDateTime.now()));
+        log.debug("Booking {} {} -> {} ({})", booking.getId(), from, to, trigger);
+    }
+
+    private static BookingEvent event(
+            UUID bookingId,
+            BookingTrigger trigger,
+            BookingStatus from,
+            BookingStatus to,
+            UUID actorId,
+            LocalDateTime createdAt) {
+        return BookingEvent.builder()
+                .bookingId(bookingId)
+                .trigger(trigger)
+                .fromStatus(from)
+                .toStatus(to)
+                .actorId(actorId)
+                .createdAt(createdAt)
+                .build();
+    }
+}
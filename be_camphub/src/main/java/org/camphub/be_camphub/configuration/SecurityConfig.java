@@ -3,6 +3,7 @@ package org.camphub.be_camphub.configuration;
 import javax.crypto.spec.SecretKeySpec;
 
 import org.camphub.be_camphub.handler.JwtAuthConverter;
+import org.camphub.be_camphub.idempotency.IdempotencyFilter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -45,6 +46,9 @@ public class SecurityConfig {
         "/websocket-demo/api/v1/ws/**" // Nếu có context-path
     };
 
+    // các endpoint dưới /accounts đọc tài khoản từ JWT: phải đăng nhập dù /accounts/** đang mở
+    String[] ACCOUNT_SELF_ENDPOINTS = {"/accounts/me/**", "/accounts/top-up", "/accounts/change-password"};
+
     @Value("${jwt.signerKey}")
     @NonFinal
     protected String SIGNER_KEY;
@@ -57,6 +61,8 @@ public class SecurityConfig {
                 // request
                 .authorizeHttpRequests(auth -> auth.requestMatchers(HttpMethod.OPTIONS, "/**")
                         .permitAll()
+                        .requestMatchers(ACCOUNT_SELF_ENDPOINTS)
+                        .authenticated()
                         .requestMatchers(PUBLIC_ENDPOINTS)
                         .permitAll()
                         .requestMatchers("/admin/**")
@@ -86,6 +92,7 @@ public class SecurityConfig {
         config.addAllowedOriginPattern("*"); // hoặc "http://localhost:3000"
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
+        config.addExposedHeader(IdempotencyFilter.REPLAYED_HEADER);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
@@ -11,6 +11,8 @@ import org.camphub.be_camphub.dto.request.account.TopUpRequest;
 import org.camphub.be_camphub.dto.response.ApiResponse;
 import org.camphub.be_camphub.dto.response.account.AccountResponse;
 import org.camphub.be_camphub.dto.response.account.TopUpResponse;
+import org.camphub.be_camphub.dto.response.account.WalletBalanceResponse;
+import org.camphub.be_camphub.idempotency.Idempotent;
 import org.camphub.be_camphub.service.AccountService;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -71,6 +73,17 @@ public class AccountController {
                 .build();
     }
 
+    // Số dư ví theo sổ cái
+    @GetMapping("/me/balance")
+    ApiResponse<WalletBalanceResponse> getMyWalletBalance(@AuthenticationPrincipal Jwt jwt) {
+        UUID accountId = UUID.fromString(jwt.getClaimAsString("userId"));
+        return ApiResponse.<WalletBalanceResponse>builder()
+                .message("Get wallet balance Successfully")
+                .result(accountService.getWalletBalance(accountId))
+                .build();
+    }
+
+    @Idempotent
     @PostMapping("/top-up")
     ApiResponse<TopUpResponse> topUpAccount(@AuthenticationPrincipal Jwt jwt, @RequestBody TopUpRequest request) {
         UUID accountId = UUID.fromString(jwt.getClaimAsString("userId"));
@@ -5,10 +5,20 @@ import java.util.UUID;
 
 import org.camphub.be_camphub.dto.request.booking.BookingCreationRequest;
 import org.camphub.be_camphub.dto.request.booking.LesseeReturnRequest;
+import org.camphub.be_camphub.dto.request.booking.OwnerBulkConfirmationRequest;
 import org.camphub.be_camphub.dto.request.booking.OwnerConfirmationRequest;
 import org.camphub.be_camphub.dto.response.ApiResponse;
+import org.camphub.be_camphub.dto.response.CursorPageResponse;
 import org.camphub.be_camphub.dto.response.booking.BookingResponse;
+import org.camphub.be_camphub.dto.response.booking.CheckoutJobResponse;
+import org.camphub.be_camphub.dto.response.booking.CheckoutQuoteResponse;
+import org.camphub.be_camphub.dto.response.booking.OwnerDecisionResult;
+import org.camphub.be_camphub.enums.BookingStatus;
+import org.camphub.be_camphub.idempotency.Idempotent;
 import org.camphub.be_camphub.service.BookingService;
+import org.camphub.be_camphub.service.CheckoutJobService;
+import org.camphub.be_camphub.service.CheckoutQuoteService;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
@@ -23,7 +33,20 @@ import lombok.experimental.FieldDefaults;
 public class BookingController {
 
     BookingService bookingService;
+    CheckoutQuoteService checkoutQuoteService;
+    CheckoutJobService checkoutJobService;
 
+    @PostMapping("/quote")
+    ApiResponse<CheckoutQuoteResponse> quote(
+            @AuthenticationPrincipal Jwt jwt, @RequestBody BookingCreationRequest request) {
+        UUID lesseeId = UUID.fromString(jwt.getClaim("userId"));
+        return ApiResponse.<CheckoutQuoteResponse>builder()
+                .message("Quote created successfully")
+                .result(checkoutQuoteService.createQuote(lesseeId, request))
+                .build();
+    }
+
+    @Idempotent
     @PostMapping("/checkout")
     ApiResponse<List<BookingResponse>> checkout(
             @AuthenticationPrincipal Jwt jwt, @RequestBody BookingCreationRequest request) {
@@ -35,6 +58,27 @@ public class BookingController {
                 .build();
     }
 
+    // checkout chạy nền: trả 202 kèm jobId, tiến độ/kết quả đẩy qua /user/queue/checkout-jobs
+    @Idempotent
+    @PostMapping("/checkout/async")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    ApiResponse<CheckoutJobResponse> checkoutAsync(
+            @AuthenticationPrincipal Jwt jwt, @RequestBody BookingCreationRequest request) {
+        UUID lesseeId = UUID.fromString(jwt.getClaim("userId"));
+        return ApiResponse.<CheckoutJobResponse>builder()
+                .message("Checkout accepted")
+                .result(checkoutJobService.submit(lesseeId, request))
+                .build();
+    }
+
+    @GetMapping("/checkout-jobs/{jobId}")
+    ApiResponse<CheckoutJobResponse> getCheckoutJob(@AuthenticationPrincipal Jwt jwt, @PathVariable UUID jobId) {
+        UUID lesseeId = UUID.fromString(jwt.getClaim("userId"));
+        return ApiResponse.<CheckoutJobResponse>builder()
+                .result(checkoutJobService.getJob(lesseeId, jobId))
+                .build();
+    }
+
     @PutMapping("/{bookingId}/owner-response")
     ApiResponse<BookingResponse> ownerResponse(
             @AuthenticationPrincipal Jwt jwt, @RequestBody OwnerConfirmationRequest request) {
@@ -46,6 +90,18 @@ public class BookingController {
                 .build();
     }
 
+    @Idempotent
+    @PutMapping("/owner-responses")
+    ApiResponse<List<OwnerDecisionResult>> ownerResponses(
+            @AuthenticationPrincipal Jwt jwt, @RequestBody OwnerBulkConfirmationRequest request) {
+        UUID lessorId = UUID.fromString(jwt.getClaim("userId"));
+        List<OwnerDecisionResult> results = bookingService.ownerRespondBookings(lessorId, request.getDecisions());
+        return ApiResponse.<List<OwnerDecisionResult>>builder()
+                .message("Owner responses processed")
+                .result(results)
+                .build();
+    }
+
     @PutMapping("/{bookingId}/confirm-received")
     ApiResponse<BookingResponse> confirmReceived(@AuthenticationPrincipal Jwt jwt, @PathVariable UUID bookingId) {
         UUID lesseeId = UUID.fromString(jwt.getClaim("userId"));
@@ -85,23 +141,31 @@ public class BookingController {
                 .build();
     }
 
-    //     lấy các đơn thuê mình đi thuê
+    //     lấy các đơn thuê mình đi thuê (phân trang theo cursor, lọc theo status nếu có)
     @GetMapping("/lessee")
-    ApiResponse<List<BookingResponse>> getBookingsByLessee(@AuthenticationPrincipal Jwt jwt) {
+    ApiResponse<CursorPageResponse<BookingResponse>> getBookingsByLessee(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestParam(required = false) List<BookingStatus> status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         UUID lesseeId = UUID.fromString(jwt.getClaim("userId"));
-        return ApiResponse.<List<BookingResponse>>builder()
+        return ApiResponse.<CursorPageResponse<BookingResponse>>builder()
                 .message("Get bookings by lessee")
-                .result(bookingService.getBookingsByLessee(lesseeId))
+                .result(bookingService.getBookingsByLessee(lesseeId, status, cursor, size))
                 .build();
     }
 
     // lấy các đơn thuê mình cho thuê
     @GetMapping("/lessor")
-    ApiResponse<List<BookingResponse>> getBookingsByLessor(@AuthenticationPrincipal Jwt jwt) {
+    ApiResponse<CursorPageResponse<BookingResponse>> getBookingsByLessor(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestParam(required = false) List<BookingStatus> status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         UUID lessorId = UUID.fromString(jwt.getClaim("userId"));
-        return ApiResponse.<List<BookingResponse>>builder()
+        return ApiResponse.<CursorPageResponse<BookingResponse>>builder()
                 .message("Get bookings by lessor")
-                .result(bookingService.getBookingsByLessor(lessorId))
+                .result(bookingService.getBookingsByLessor(lessorId, status, cursor, size))
                 .build();
     }
 
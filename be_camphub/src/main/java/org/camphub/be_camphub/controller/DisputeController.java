@@ -9,6 +9,7 @@ import org.camphub.be_camphub.dto.request.dispute.AdminReviewDisputeRequest;
 import org.camphub.be_camphub.dto.request.dispute.DisputeCreationRequest;
 import org.camphub.be_camphub.dto.response.ApiResponse;
 import org.camphub.be_camphub.dto.response.dispute.DisputeResponse;
+import org.camphub.be_camphub.idempotency.Idempotent;
 import org.camphub.be_camphub.service.DisputeService;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -34,6 +35,7 @@ public class DisputeController {
                 .build();
     }
 
+    @Idempotent
     @PostMapping("/admin-review")
     public ApiResponse<DisputeResponse> adminReviewDispute(
             @AuthenticationPrincipal Jwt jwt, @RequestBody @Valid AdminReviewDisputeRequest request) {
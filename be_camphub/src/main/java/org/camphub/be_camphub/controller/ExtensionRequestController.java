@@ -7,6 +7,7 @@ import org.camphub.be_camphub.dto.request.extension_req.ExtensionReqCreationRequ
 import org.camphub.be_camphub.dto.request.extension_req.ExtensionResponseRequest;
 import org.camphub.be_camphub.dto.response.ApiResponse;
 import org.camphub.be_camphub.dto.response.extension_req.ExtensionReqResponse;
+import org.camphub.be_camphub.idempotency.Idempotent;
 import org.camphub.be_camphub.service.ExtensionRequestService;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -23,6 +24,7 @@ import lombok.experimental.FieldDefaults;
 public class ExtensionRequestController {
     ExtensionRequestService service;
 
+    @Idempotent
     @PostMapping
     ApiResponse<ExtensionReqResponse> createExtensionRequest(
             @RequestBody ExtensionReqCreationRequest request, @AuthenticationPrincipal Jwt jwt) {
@@ -1,6 +1,8 @@
 package org.camphub.be_camphub.controller;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.camphub.be_camphub.dto.request.Item.ItemApproveRequest;
@@ -8,8 +10,16 @@ import org.camphub.be_camphub.dto.request.Item.ItemCreationRequest;
 import org.camphub.be_camphub.dto.request.Item.ItemPatchRequest;
 import org.camphub.be_camphub.dto.request.Item.ItemUpdateRequest;
 import org.camphub.be_camphub.dto.response.ApiResponse;
+import org.camphub.be_camphub.dto.response.CursorPageResponse;
+import org.camphub.be_camphub.dto.response.PageResponse;
+import org.camphub.be_camphub.dto.response.item.ItemAvailabilityResponse;
 import org.camphub.be_camphub.dto.response.item.ItemResponse;
+import org.camphub.be_camphub.dto.response.item.ItemSuggestionResponse;
+import org.camphub.be_camphub.enums.ItemSort;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.service.ItemAvailabilityService;
 import org.camphub.be_camphub.service.ItemService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
@@ -24,6 +34,7 @@ import lombok.experimental.FieldDefaults;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class ItemController {
     ItemService itemService;
+    ItemAvailabilityService itemAvailabilityService;
 
     @GetMapping("/my")
     ApiResponse<List<ItemResponse>> getMyItems(@AuthenticationPrincipal Jwt jwt) {
@@ -51,13 +62,87 @@ public class ItemController {
                 .build();
     }
 
-    @GetMapping
-    ApiResponse<List<ItemResponse>> getAllItems(
-            @RequestParam(required = false) String status, @RequestParam(required = false) UUID categoryId) {
+    // Tìm kiếm toàn văn (không phân biệt dấu), xếp theo độ liên quan
+    @GetMapping("/search")
+    ApiResponse<PageResponse<ItemResponse>> searchItems(
+            @RequestParam String q,
+            @RequestParam(required = false) List<ItemStatus> status,
+            @RequestParam(required = false) UUID categoryId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponse.<PageResponse<ItemResponse>>builder()
+                .message("Search items successfully")
+                .result(itemService.searchItems(q, status, categoryId, page, size))
+                .build();
+    }
 
-        return ApiResponse.<List<ItemResponse>>builder()
+    // Gợi ý khi gõ ô tìm kiếm
+    @GetMapping("/suggest")
+    ApiResponse<List<ItemSuggestionResponse>> suggest(
+            @RequestParam String q, @RequestParam(defaultValue = "8") int limit) {
+        return ApiResponse.<List<ItemSuggestionResponse>>builder()
+                .message("Suggest items successfully")
+                .result(itemService.suggest(q, limit))
+                .build();
+    }
+
+    // Tìm sản phẩm còn trống trong khoảng ngày của chuyến đi: [from, to), to là ngày trả đồ
+    @GetMapping("/available")
+    ApiResponse<PageResponse<ItemResponse>> searchAvailableItems(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "1") int quantity,
+            @RequestParam(required = false) UUID categoryId,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponse.<PageResponse<ItemResponse>>builder()
+                .message("Search available items successfully")
+                .result(itemService.searchAvailableItems(
+                        from, to, quantity, categoryId, minPrice, maxPrice, page, size))
+                .build();
+    }
+
+    // Lịch trống theo ngày cho calendar view, các ngày trong [from, to)
+    @GetMapping("/{id}/availability")
+    ApiResponse<ItemAvailabilityResponse> getAvailability(
+            @PathVariable UUID id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ApiResponse.<ItemAvailabilityResponse>builder()
+                .message("Get item availability successfully")
+                .result(itemAvailabilityService.getAvailability(id, from, to))
+                .build();
+    }
+
+    // danh sách item phân trang theo cursor; status lặp lại hoặc ngăn cách bằng dấu phẩy, rỗng = mọi trạng thái
+    @GetMapping
+    ApiResponse<CursorPageResponse<ItemResponse>> getAllItems(
+            @RequestParam(required = false) List<ItemStatus> status,
+            @RequestParam(required = false) UUID categoryId,
+            @RequestParam(defaultValue = "NEWEST") ItemSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean facets) {
+        CursorPageResponse<ItemResponse> page = itemService.getItems(status, categoryId, sort, cursor, size);
+        if (facets) page.setFacets(itemService.countFacets(status, categoryId, null, null));
+        return ApiResponse.<CursorPageResponse<ItemResponse>>builder()
                 .message("Get all items successfully")
-                .result(itemService.getAllItems(status, categoryId))
+                .result(page)
+                .build();
+    }
+
+    // Số item theo facet cho bộ lọc bất kỳ (trạng thái, danh mục, khoảng giá, khoảng cọc)
+    @GetMapping("/facets")
+    ApiResponse<Map<String, Map<String, Integer>>> getFacets(
+            @RequestParam(required = false) List<ItemStatus> status,
+            @RequestParam(required = false) UUID categoryId,
+            @RequestParam(required = false) String priceBand,
+            @RequestParam(required = false) String depositBand) {
+        return ApiResponse.<Map<String, Map<String, Integer>>>builder()
+                .message("Get item facets successfully")
+                .result(itemService.countFacets(status, categoryId, priceBand, depositBand))
                 .build();
     }
 
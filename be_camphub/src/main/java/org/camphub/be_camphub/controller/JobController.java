@@ -0,0 +1,31 @@
+package org.camphub.be_camphub.controller;
+
+import java.util.List;
+
+import org.camphub.be_camphub.dto.response.ApiResponse;
+import org.camphub.be_camphub.dto.response.job.JobStatsResponse;
+import org.camphub.be_camphub.job.JobExecutor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+@RestController
+@RequestMapping("/admin/jobs")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class JobController {
+    JobExecutor jobExecutor;
+
+    // Thông lượng và độ trễ của các job xử lý theo booking (timer vòng đời, đối soát)
+    @GetMapping("/stats")
+    ApiResponse<List<JobStatsResponse>> getJobStats() {
+        return ApiResponse.<List<JobStatsResponse>>builder()
+                .message("Get job stats successfully")
+                .result(jobExecutor.getStats())
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package org.camphub.be_camphub.controller;
+
+import org.camphub.be_camphub.dto.response.ApiResponse;
+import org.camphub.be_camphub.dto.response.account.SystemWalletBalanceResponse;
+import org.camphub.be_camphub.service.SystemWalletService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+@RestController
+@RequestMapping("/admin/system-wallet")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SystemWalletController {
+    SystemWalletService systemWalletService;
+
+    // Số dư hợp nhất của ví hệ thống (tổng các shard), chỉ admin
+    @GetMapping("/balance")
+    ApiResponse<SystemWalletBalanceResponse> getSystemWalletBalance() {
+        return ApiResponse.<SystemWalletBalanceResponse>builder()
+                .message("Get system wallet balance Successfully")
+                .result(systemWalletService.getBalance())
+                .build();
+    }
+}
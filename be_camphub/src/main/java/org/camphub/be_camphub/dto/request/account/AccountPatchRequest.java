@@ -31,7 +31,8 @@ public class AccountPatchRequest {
 
     Integer trustScore = 100;
 
-    Double coinBalance = 0.0;
+    // null = giữ nguyên; khác số dư hiện tại thì ghi một bút điều chỉnh ADMIN_ADJUSTMENT
+    Double coinBalance;
 
     UserType userType;
 
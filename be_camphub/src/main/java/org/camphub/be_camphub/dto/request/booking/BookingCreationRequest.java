@@ -12,4 +12,5 @@ import lombok.experimental.FieldDefaults;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class BookingCreationRequest {
     List<BookingItemRequest> items;
+    String quoteId; // từ POST /bookings/quote; có thì checkout dùng giá đã khóa
 }
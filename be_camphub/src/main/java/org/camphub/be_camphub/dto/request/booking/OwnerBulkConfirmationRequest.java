@@ -0,0 +1,15 @@
+package org.camphub.be_camphub.dto.request.booking;
+
+import java.util.List;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OwnerBulkConfirmationRequest {
+    List<OwnerConfirmationRequest> decisions;
+}
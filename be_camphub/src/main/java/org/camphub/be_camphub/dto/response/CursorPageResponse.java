@@ -0,0 +1,28 @@
+package org.camphub.be_camphub.dto.response;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CursorPageResponse<T> implements Serializable {
+    int pageSize;
+    boolean hasMore;
+    String nextCursor; // null khi đã hết dữ liệu
+
+    // số đếm theo facet (tên facet -> giá trị -> số bản ghi) cho cùng bộ lọc, chỉ có khi được yêu cầu
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Map<String, Map<String, Integer>> facets;
+
+    @Builder.Default
+    java.util.List<T> data = Collections.emptyList();
+}
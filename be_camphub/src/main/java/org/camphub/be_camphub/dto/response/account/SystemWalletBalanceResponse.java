@@ -0,0 +1,19 @@
+package org.camphub.be_camphub.dto.response.account;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SystemWalletBalanceResponse {
+    UUID accountId;
+    BigDecimal totalBalance;
+    List<BigDecimal> shardBalances;
+}
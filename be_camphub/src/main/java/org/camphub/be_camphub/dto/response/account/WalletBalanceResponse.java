@@ -0,0 +1,17 @@
+package org.camphub.be_camphub.dto.response.account;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class WalletBalanceResponse {
+    UUID accountId;
+    BigDecimal balance;
+}
@@ -0,0 +1,26 @@
+package org.camphub.be_camphub.dto.response.booking;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.camphub.be_camphub.enums.CheckoutJobStatus;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CheckoutJobResponse {
+    UUID jobId;
+    CheckoutJobStatus status;
+    Integer itemCount; // có sau khi đã tính giá
+    Double totalAmount; // tổng tiền thuê + cọc phải trả
+    String error; // tên ErrorCode khi FAILED
+    String message;
+    List<BookingResponse> bookings; // khi SUCCEEDED
+    LocalDateTime updatedAt;
+}
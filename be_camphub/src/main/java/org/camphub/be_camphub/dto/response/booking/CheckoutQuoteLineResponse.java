@@ -0,0 +1,25 @@
+package org.camphub.be_camphub.dto.response.booking;
+
+import java.util.UUID;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CheckoutQuoteLineResponse {
+    UUID cartItemId;
+    UUID itemId;
+    String itemName;
+    Integer quantity;
+    String startDate;
+    String endDate;
+    Long rentalDays;
+    Double pricePerDay;
+    Double depositAmount;
+    Double rentalFee;
+    Double deposit;
+}
@@ -0,0 +1,21 @@
+package org.camphub.be_camphub.dto.response.booking;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CheckoutQuoteResponse {
+    String quoteId; // gửi kèm BookingCreationRequest.quoteId khi checkout
+    Instant expiresAt;
+    List<CheckoutQuoteLineResponse> lines;
+    Double totalRental;
+    Double totalDeposit;
+    Double totalAmount;
+}
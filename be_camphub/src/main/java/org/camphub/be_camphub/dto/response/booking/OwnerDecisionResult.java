@@ -0,0 +1,19 @@
+package org.camphub.be_camphub.dto.response.booking;
+
+import java.util.UUID;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OwnerDecisionResult {
+    UUID bookingId;
+    Boolean success;
+    String error; // tên ErrorCode khi thất bại
+    String message;
+    BookingResponse booking; // trạng thái mới khi thành công
+}
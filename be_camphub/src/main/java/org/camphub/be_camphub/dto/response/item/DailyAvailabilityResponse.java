@@ -0,0 +1,14 @@
+package org.camphub.be_camphub.dto.response.item;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DailyAvailabilityResponse {
+    String date;
+    Integer available; // số đơn vị còn trống trong ngày
+}
@@ -0,0 +1,21 @@
+package org.camphub.be_camphub.dto.response.item;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemAvailabilityResponse {
+    UUID itemId;
+    String from;
+    String to;
+    Integer totalQuantity; // tổng số đơn vị chủ đồ sở hữu
+    Integer availableQuantity; // số đơn vị trống trong toàn bộ khoảng [from, to]
+    List<DailyAvailabilityResponse> days;
+}
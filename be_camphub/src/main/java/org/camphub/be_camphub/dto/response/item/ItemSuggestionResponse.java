@@ -0,0 +1,20 @@
+package org.camphub.be_camphub.dto.response.item;
+
+import java.util.UUID;
+
+import org.camphub.be_camphub.enums.SuggestionType;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemSuggestionResponse {
+    String text; // chuỗi hiển thị (còn nguyên dấu)
+    SuggestionType type;
+    UUID categoryId; // chỉ có với gợi ý CATEGORY
+    int weight; // độ phổ biến: số item đã duyệt + số lượt thuê
+}
@@ -0,0 +1,20 @@
+package org.camphub.be_camphub.dto.response.job;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class JobStatsResponse {
+    String job;
+    long succeeded;
+    long failed;
+    long rejected; // hàng đợi đầy, bên gửi lùi lại rồi gửi lại
+    double throughputPerSecond; // trung bình 60 giây gần nhất
+    double avgLatencyMs; // thời gian chạy một booking (gồm commit)
+    double maxLatencyMs;
+    double avgQueueWaitMs; // thời gian chờ worker rảnh
+}
@@ -7,8 +7,10 @@ import jakarta.persistence.*;
 
 import org.camphub.be_camphub.enums.UserStatus;
 import org.camphub.be_camphub.enums.UserType;
+import org.camphub.be_camphub.index.AccountChangeListener;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -20,6 +22,7 @@ import lombok.experimental.FieldDefaults;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@EntityListeners({AuditingEntityListener.class, AccountChangeListener.class})
 public class Account {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -51,7 +54,8 @@ public class Account {
     @Column(name = "trust_score")
     Integer trustScore = 100;
 
-    @Column(name = "coin_balance")
+    // chỉ được thay đổi qua WalletRepository (UPDATE nguyên tử), lưu entity không ghi đè cột này
+    @Column(name = "coin_balance", updatable = false)
     Double coinBalance = 0.0;
 
     @Enumerated(EnumType.STRING)
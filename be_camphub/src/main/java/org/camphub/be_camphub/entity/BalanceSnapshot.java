@@ -0,0 +1,46 @@
+package org.camphub.be_camphub.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Số dư của một tài khoản gồm mọi bút toán có tx_id < txHorizon; bút toán từ txHorizon trở đi cộng thêm khi đọc.
+// Snapshot cũ (txHorizon null) chia theo created_at < asOf, được chuyển sang mốc transaction lúc khởi động
+@Entity
+@Table(
+        name = "balance_snapshots",
+        indexes = @Index(name = "idx_balance_snapshots_account_as_of", columnList = "account_id, as_of"))
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BalanceSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    UUID id;
+
+    @Column(name = "account_id", nullable = false, updatable = false)
+    UUID accountId;
+
+    // đơn vị nhỏ nhất (PricingEngine.MINOR_PER_COIN)
+    @Column(name = "balance_minor", updatable = false)
+    Long balanceMinor;
+
+    // cột coin (double) cũ, chỉ còn để chuyển sang balance_minor lúc khởi động; snapshot mới ghi 0
+    @Column(name = "balance", updatable = false)
+    Double legacyBalance;
+
+    @Column(name = "as_of", nullable = false, updatable = false)
+    LocalDateTime asOf;
+
+    @Column(name = "created_at", updatable = false)
+    LocalDateTime createdAt;
+
+    @Column(name = "tx_horizon", updatable = false)
+    Long txHorizon;
+}
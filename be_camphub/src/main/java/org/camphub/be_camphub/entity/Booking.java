@@ -7,6 +7,7 @@ import java.util.UUID;
 import jakarta.persistence.*;
 
 import org.camphub.be_camphub.enums.BookingStatus;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
 
@@ -14,7 +15,14 @@ import lombok.*;
 import lombok.experimental.FieldDefaults;
 
 @Entity
-@Table(name = "bookings")
+@DynamicUpdate
+@Table(
+        name = "bookings",
+        indexes = {
+            @Index(name = "idx_bookings_lessee_created", columnList = "lessee_id, created_at, id"),
+            @Index(name = "idx_bookings_lessor_created", columnList = "lessor_id, created_at, id"),
+            @Index(name = "idx_bookings_status_end_date", columnList = "status, end_date")
+        })
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Data
 @AllArgsConstructor
@@ -52,9 +60,24 @@ public class Booking {
     @Column(length = 500)
     String note;
 
+    // chỉ đổi qua BookingStateMachine (UPDATE ... WHERE status = :expected), save() không ghi đè cột này
     @Enumerated(EnumType.STRING)
+    @Column(updatable = false)
     BookingStatus status = BookingStatus.PENDING_CONFIRM;
 
+    // true = booking giữ chỗ qua item_day_reservations; null = booking cũ đã trừ thẳng items.quantity lúc checkout
+    @Column(name = "reserved_per_day", updatable = false)
+    Boolean reservedPerDay;
+
+    // true = giữ chỗ nửa mở [startDate, endDate), ngày trả đồ để trống cho đơn kế tiếp;
+    // null = booking giữ cả ngày endDate, được cắt bớt một lần lúc khởi động (ItemAvailabilityServiceImpl)
+    @Column(name = "reserved_end_exclusive", updatable = false)
+    Boolean reservedEndExclusive;
+
+    // chỉ ghi qua BookingRepository.markReservationReleased, khác null = lịch giữ chỗ đã được trả
+    @Column(name = "reservation_released_at", updatable = false)
+    LocalDateTime reservationReleasedAt;
+
     @CreatedDate
     @Column(name = "created_at")
     LocalDateTime createdAt;
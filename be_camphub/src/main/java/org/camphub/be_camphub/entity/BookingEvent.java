@@ -0,0 +1,56 @@
+package org.camphub.be_camphub.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+import org.camphub.be_camphub.enums.BookingStatus;
+import org.camphub.be_camphub.enums.BookingTrigger;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Nhật ký chuyển trạng thái booking, chỉ insert; seq tăng dần để các read model đọc tiếp từ vị trí đã xử lý
+@Entity
+@Table(
+        name = "booking_events",
+        indexes = {
+            @Index(name = "idx_booking_events_booking_created", columnList = "booking_id, created_at"),
+            @Index(name = "idx_booking_events_seq", columnList = "seq", unique = true)
+        })
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookingEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    UUID id;
+
+    // DB tự cấp khi insert
+    @Column(columnDefinition = "bigserial", insertable = false, updatable = false)
+    Long seq;
+
+    @Column(name = "booking_id", nullable = false, updatable = false)
+    UUID bookingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "trigger_type", nullable = false, updatable = false, length = 40)
+    BookingTrigger trigger;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "from_status", updatable = false, length = 40)
+    BookingStatus fromStatus; // null với sự kiện tạo booking
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "to_status", nullable = false, updatable = false, length = 40)
+    BookingStatus toStatus;
+
+    @Column(name = "actor_id", updatable = false)
+    UUID actorId; // null = hệ thống (timer, job)
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    LocalDateTime createdAt;
+}
@@ -0,0 +1,56 @@
+package org.camphub.be_camphub.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Kết quả của một request có Idempotency-Key; status_code null nghĩa là request đầu tiên vẫn đang chạy
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class IdempotencyRecord {
+    // sha-256 (hex) của người gọi + key, độ dài cố định bất kể client gửi key dài bao nhiêu
+    @Id
+    @Column(length = 64)
+    String id;
+
+    // sha-256 (hex) của method, đường dẫn và body
+    @Column(nullable = false, length = 64)
+    String fingerprint;
+
+    @Column(name = "status_code")
+    Integer statusCode;
+
+    @Column(name = "content_type", length = 100)
+    String contentType;
+
+    @Column(name = "response_body")
+    byte[] responseBody;
+
+    // token của lần chạy đang giữ key; lần thử lại chiếm key thì đổi token nên lần chạy cũ không commit được nữa
+    @Column(name = "lock_token", length = 36)
+    String lockToken;
+
+    // request đang chạy giữ key tới mốc này; quá hạn mà chưa có committed_at (node chết trước khi commit)
+    // thì lần thử lại được chạy
+    @Column(name = "locked_until", nullable = false)
+    LocalDateTime lockedUntil;
+
+    // ghi trong chính transaction nghiệp vụ (IdempotencyFence): khác null = nghiệp vụ đã commit,
+    // key không bao giờ bị chạy lại kể cả khi response chưa kịp lưu
+    @Column(name = "committed_at")
+    LocalDateTime committedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    LocalDateTime createdAt;
+}
@@ -7,6 +7,8 @@ import java.util.UUID;
 import jakarta.persistence.*;
 
 import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.index.ItemChangeListener;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
@@ -14,12 +16,19 @@ import lombok.*;
 import lombok.experimental.FieldDefaults;
 
 @Entity
-@Table(name = "items")
+@Table(
+        name = "items",
+        indexes = {
+            @Index(name = "idx_items_status_created", columnList = "status, created_at, id"),
+            @Index(name = "idx_items_status_price", columnList = "status, price_per_day, id"),
+            @Index(name = "idx_items_category_status_created", columnList = "category_id, status, created_at, id")
+        })
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@EntityListeners(ItemChangeListener.class)
 public class Item {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -46,7 +55,9 @@ public class Item {
     @Column(name = "deposit_amount")
     Double depositAmount;
 
+    // danh sách item nạp ảnh của nhiều item trong một query thay vì từng item
     @ElementCollection
+    @BatchSize(size = 100)
     @CollectionTable(name = "item_media_urls", joinColumns = @JoinColumn(name = "item_id"))
     List<MediaResource> mediaUrls;
 
@@ -63,4 +74,9 @@ public class Item {
     @LastModifiedDate
     @Column(name = "updated_at")
     LocalDateTime updatedAt;
+
+    // khóa lạc quan cho các cập nhật đọc-sửa-ghi qua entity (sửa thông tin, duyệt, khóa)
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0")
+    Long version;
 }
@@ -0,0 +1,39 @@
+package org.camphub.be_camphub.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Entity
+@Table(
+        name = "item_day_reservations",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"item_id", "rental_date"}),
+        indexes = @Index(name = "idx_item_day_reservations_updated_at", columnList = "updated_at"))
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ItemDayReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    UUID id;
+
+    @Column(name = "item_id", nullable = false)
+    UUID itemId;
+
+    @Column(name = "rental_date", nullable = false)
+    LocalDate rentalDate;
+
+    @Column(nullable = false)
+    Integer reserved; // số đơn vị đã được giữ chỗ trong ngày này
+
+    // lần giữ/trả chỗ gần nhất, để node khác biết cần nạp lại lịch của item (CatalogChangeFeed)
+    @Column(name = "updated_at")
+    LocalDateTime updatedAt;
+}
@@ -0,0 +1,31 @@
+package org.camphub.be_camphub.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Quyền chạy một job (hoặc một shard của job) trong cụm; hết expires_at mà không gia hạn thì node khác được giành
+@Entity
+@Table(name = "job_leases")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class JobLease {
+    @Id
+    @Column(length = 100)
+    String name;
+
+    @Column(nullable = false, length = 100)
+    String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    LocalDateTime expiresAt;
+
+    @Column(name = "acquired_at", nullable = false)
+    LocalDateTime acquiredAt;
+}
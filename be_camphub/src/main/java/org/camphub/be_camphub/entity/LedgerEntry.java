@@ -0,0 +1,58 @@
+package org.camphub.be_camphub.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+import org.camphub.be_camphub.enums.TransactionType;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Bút toán sổ cái, chỉ insert: mỗi giao dịch gồm một cặp bút toán (-amount bên chuyển, +amount bên nhận)
+@Entity
+@Table(
+        name = "ledger_entries",
+        indexes = {
+            @Index(name = "idx_ledger_entries_account_created", columnList = "account_id, created_at"),
+            @Index(name = "idx_ledger_entries_account_tx", columnList = "account_id, tx_id"),
+            @Index(name = "idx_ledger_entries_tx", columnList = "tx_id"),
+            @Index(name = "idx_ledger_entries_created", columnList = "created_at")
+        })
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    UUID id;
+
+    @Column(name = "transaction_id", nullable = false, updatable = false)
+    UUID transactionId;
+
+    @Column(name = "account_id", nullable = false, updatable = false)
+    UUID accountId;
+
+    // đơn vị nhỏ nhất (PricingEngine.MINOR_PER_COIN); âm = ghi nợ (tiền ra), dương = ghi có (tiền vào)
+    @Column(name = "amount_minor", updatable = false)
+    Long amountMinor;
+
+    // cột coin (double) cũ, chỉ còn để chuyển sang amount_minor lúc khởi động; bút toán mới ghi 0
+    @Column(name = "amount", updatable = false)
+    Double legacyAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(updatable = false)
+    TransactionType type;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    LocalDateTime createdAt;
+
+    // id transaction Postgres ghi bút toán, do DB điền: snapshot chia bút toán theo mốc này chứ không theo giờ của app,
+    // vì created_at được gán trước khi commit nên có thể commit sau snapshot mà vẫn mang giờ cũ hơn
+    @Column(name = "tx_id", insertable = false, updatable = false, columnDefinition = "bigint default txid_current()")
+    Long txId;
+}
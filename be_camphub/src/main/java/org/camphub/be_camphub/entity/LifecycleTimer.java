@@ -0,0 +1,51 @@
+package org.camphub.be_camphub.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+import org.camphub.be_camphub.enums.TimerType;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Hạn chót kế tiếp của một booking / yêu cầu gia hạn; mỗi (type, reference_id) chỉ có một dòng
+@Entity
+@Table(
+        name = "lifecycle_timers",
+        uniqueConstraints =
+                @UniqueConstraint(
+                        name = "uk_lifecycle_timers_type_ref",
+                        columnNames = {"type", "reference_id"}),
+        indexes = @Index(name = "idx_lifecycle_timers_shard_due_at", columnList = "shard, due_at"))
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LifecycleTimer {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    TimerType type;
+
+    @Column(name = "reference_id", nullable = false)
+    UUID referenceId;
+
+    @Column(name = "due_at", nullable = false)
+    LocalDateTime dueAt;
+
+    @Column(nullable = false)
+    int attempts;
+
+    // shard theo hash(reference_id); mỗi shard do đúng một node nạp và bắn (xem LeaseService)
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    int shard;
+
+    @Column(name = "created_at")
+    LocalDateTime createdAt;
+}
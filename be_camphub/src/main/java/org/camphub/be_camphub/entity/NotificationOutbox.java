@@ -0,0 +1,62 @@
+package org.camphub.be_camphub.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+import org.camphub.be_camphub.enums.NotificationType;
+import org.camphub.be_camphub.enums.ReferenceType;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Thông báo chờ gửi, ghi cùng transaction với thay đổi nghiệp vụ; relay chuyển thành Notification rồi xóa dòng
+@Entity
+@Table(
+        name = "notification_outbox",
+        indexes = @Index(name = "idx_notification_outbox_created_at", columnList = "created_at"))
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NotificationOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    UUID id;
+
+    @Column(name = "receiver_id")
+    UUID receiverId;
+
+    @Column(name = "sender_id")
+    UUID senderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    NotificationType type;
+
+    @Column
+    String title;
+
+    @Column(columnDefinition = "TEXT")
+    String content;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reference_type")
+    ReferenceType referenceType;
+
+    @Column(name = "reference_id")
+    UUID referenceId;
+
+    @Builder.Default
+    @Column(name = "is_broadcast")
+    Boolean isBroadcast = false;
+
+    // số lần relay lỗi; quá ngưỡng thì dòng nằm lại để kiểm tra thủ công
+    @Column(nullable = false)
+    int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    LocalDateTime createdAt;
+}
@@ -0,0 +1,37 @@
+package org.camphub.be_camphub.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Một phần (shard) của ví hệ thống; số dư ví hệ thống = tổng balance các shard
+@Entity
+@Table(name = "system_wallet_shards")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SystemWalletShard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    UUID id;
+
+    @Column(name = "shard_index", unique = true, nullable = false)
+    Integer shardIndex;
+
+    // đơn vị nhỏ nhất (PricingEngine.MINOR_PER_COIN), cộng/trừ số nguyên nên không lệch do làm tròn
+    @Column(name = "balance_minor", nullable = false, columnDefinition = "bigint default 0")
+    Long balanceMinor;
+
+    // cột coin (double) cũ, chỉ còn để chuyển sang balance_minor lúc khởi động; shard mới ghi 0
+    @Column(name = "balance")
+    Double legacyBalance;
+
+    @Column(name = "updated_at")
+    LocalDateTime updatedAt;
+}
@@ -0,0 +1,21 @@
+package org.camphub.be_camphub.enums;
+
+// Sự kiện làm đổi trạng thái booking; bảng chuyển trạng thái nằm ở BookingStateMachine
+public enum BookingTrigger {
+    CHECKOUT, // khách thanh toán, tạo booking
+    OWNER_ACCEPT, // chủ chấp nhận
+    OWNER_REJECT, // chủ từ chối, hoàn tiền
+    CONFIRM_RECEIVED, // khách xác nhận đã nhận đồ
+    RETURN_DUE, // đến ngày trả
+    RETURN_LATE, // trễ hạn trả
+    MARK_OVERDUE, // quá hạn, coi như mất đồ
+    LESSEE_RETURN, // khách gửi trả đồ
+    LESSOR_CONFIRM_RETURN, // chủ xác nhận đã nhận lại đồ
+    SETTLE_RETURN, // chi trả tiền thuê cho chủ, hoàn cọc cho khách
+    REQUEST_REFUND, // khách yêu cầu trả hàng / hoàn tiền trước khi dùng
+    CONFIRM_REFUND_RETURN, // chủ xác nhận đã nhận lại hàng của yêu cầu hoàn tiền
+    SETTLE_REFUND, // hoàn tiền cho yêu cầu trả hàng
+    RESOLVE_RETURN_REQUEST, // admin xử lý xong yêu cầu trả hàng
+    OPEN_DISPUTE, // chủ mở khiếu nại
+    RESOLVE_DISPUTE, // admin xử lý xong khiếu nại
+}
@@ -0,0 +1,8 @@
+package org.camphub.be_camphub.enums;
+
+public enum CheckoutJobStatus {
+    QUEUED, // đã nhận, chờ worker
+    PROCESSING, // đang kiểm tra giá / trừ tiền / tạo booking
+    SUCCEEDED, // đã commit, có danh sách booking
+    FAILED, // rollback, xem error
+}
@@ -0,0 +1,7 @@
+package org.camphub.be_camphub.enums;
+
+public enum ItemSort {
+    NEWEST, // mặc định: PENDING_APPROVAL lên đầu, sau đó mới đăng trước
+    PRICE_ASC, // giá thuê/ngày tăng dần
+    PRICE_DESC, // giá thuê/ngày giảm dần
+}
@@ -0,0 +1,6 @@
+package org.camphub.be_camphub.enums;
+
+public enum SuggestionType {
+    ITEM, // tên sản phẩm
+    CATEGORY, // tên danh mục
+}
@@ -0,0 +1,10 @@
+package org.camphub.be_camphub.enums;
+
+public enum TimerType {
+    BOOKING_DUE, // IN_USE -> DUE_FOR_RETURN vào ngày hẹn trả
+    BOOKING_LATE, // DUE_FOR_RETURN -> LATE_RETURN sau 24h
+    BOOKING_OVERDUE, // LATE_RETURN -> OVERDUE sau 72h, bồi thường cho chủ thuê
+    BOOKING_REFUND, // WAITING_REFUND -> hoàn tiền / trả cọc
+    EXTENSION_EXPIRY, // yêu cầu gia hạn PENDING quá 48h -> EXPIRED
+    RETURN_REFUND, // RETURN_REFUND_PROCESSING -> hoàn tiền tự động
+}
@@ -6,5 +6,7 @@ public enum TransactionType {
     RENTAL_PAYOUT, // payout to owner when rental is completed
     REFUND_DEPOSIT, // refund deposit amount when item is returned
     EXTENSION_PAYMENT,
-    COMPENSATION_PAYOUT
+    COMPENSATION_PAYOUT,
+    TOP_UP, // nạp tiền từ bên ngoài vào ví
+    ADMIN_ADJUSTMENT // admin chỉnh số dư ví (cộng hoặc trừ phần chênh lệch)
 }
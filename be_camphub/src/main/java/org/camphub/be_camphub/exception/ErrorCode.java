@@ -18,6 +18,14 @@ public enum ErrorCode {
     FILE_UPLOAD_FAILED(1002, "File upload failed", HttpStatus.INTERNAL_SERVER_ERROR),
     UNAUTHENTICATED(1003, "Unauthenticated", HttpStatus.UNAUTHORIZED),
     INVALID_AMOUNT(1004, "Invalid amount", HttpStatus.BAD_REQUEST),
+    CONCURRENT_UPDATE(1005, "Data was modified by another request, please try again", HttpStatus.CONFLICT),
+    INVALID_CURSOR(1006, "Invalid page cursor", HttpStatus.BAD_REQUEST),
+    INVALID_IDEMPOTENCY_KEY(1007, "Invalid Idempotency-Key header", HttpStatus.BAD_REQUEST),
+    IDEMPOTENCY_KEY_REUSED(
+            1008, "Idempotency-Key was already used for a different request", HttpStatus.UNPROCESSABLE_ENTITY),
+    IDEMPOTENCY_REQUEST_IN_PROGRESS(
+            1009, "A request with this Idempotency-Key is still being processed", HttpStatus.CONFLICT),
+    INVALID_FACET_FILTER(1010, "Unknown facet filter value", HttpStatus.BAD_REQUEST),
     USERNAME_EXISTED(1011, "Username already exists", HttpStatus.BAD_REQUEST),
     USER_NOT_FOUND(1012, "User not found", HttpStatus.NOT_FOUND),
     INVALID_PASSWORD(1013, "Your password is incorrect", HttpStatus.UNAUTHORIZED),
@@ -39,6 +47,12 @@ public enum ErrorCode {
     BOOKING_NOT_FOUND(6003, "Booking not found", HttpStatus.NOT_FOUND),
     INVALID_BOOKING_STATUS(6004, "Invalid booking status", HttpStatus.BAD_REQUEST),
     BOOKING_NOT_BELONG_TO_USER(6005, "Booking does not belong to user", HttpStatus.FORBIDDEN),
+    INVALID_QUOTE(6006, "Invalid price quote", HttpStatus.BAD_REQUEST),
+    QUOTE_EXPIRED(
+            6007, "Price quote has expired or prices have changed, please request a new quote", HttpStatus.CONFLICT),
+    TOO_MANY_BOOKINGS(6008, "Too many bookings in one request", HttpStatus.BAD_REQUEST),
+    CHECKOUT_BUSY(6009, "Checkout is busy, please try again shortly", HttpStatus.SERVICE_UNAVAILABLE),
+    CHECKOUT_JOB_NOT_FOUND(6010, "Checkout job not found", HttpStatus.NOT_FOUND),
     EXTENSION_ALREADY_PENDING(
             7001, "There is already a pending extension request for this booking", HttpStatus.BAD_REQUEST),
     INVALID_EXTENSION_DATE(7002, "Invalid extension date", HttpStatus.BAD_REQUEST),
@@ -2,6 +2,7 @@ package org.camphub.be_camphub.exception;
 
 import org.camphub.be_camphub.dto.response.ApiResponse;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.authorization.AuthorizationDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -40,6 +41,19 @@ public class GlobalExceptionHandler {
                         .build());
     }
 
+    // optimistic lock conflict (@Version)
+    @ExceptionHandler(value = ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse> handlingOptimisticLockingException(ObjectOptimisticLockingFailureException e) {
+        log.warn("optimistic lock conflict: {}", e.getMessage());
+        ErrorCode errorCode = ErrorCode.CONCURRENT_UPDATE;
+
+        return ResponseEntity.status(errorCode.getHttpStatusCode())
+                .body(ApiResponse.builder()
+                        .status(errorCode.getCode())
+                        .message(errorCode.getMessage())
+                        .build());
+    }
+
     // access denied exception
     @ExceptionHandler(value = AuthorizationDeniedException.class)
     public ResponseEntity<ApiResponse> handlingAccessDeniedException(AuthorizationDeniedException e) {
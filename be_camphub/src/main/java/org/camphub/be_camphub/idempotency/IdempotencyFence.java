@@ -0,0 +1,63 @@
+package org.camphub.be_camphub.idempotency;
+
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.repository.IdempotencyRecordRepository;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ghi dấu "đã commit" của Idempotency-Key ngay trong transaction nghiệp vụ của request đang giữ key.
+ * Spring Boot gắn listener này vào transaction manager; mọi transaction ghi mở trên luồng request (kể cả
+ * REQUIRES_NEW) chạy markCommitted ngay trước commit, nên dấu và dữ liệu nghiệp vụ cùng commit hoặc cùng rollback.
+ * Nhờ đó: key đã có committed_at không bao giờ bị chạy lại; key bị lần thử lại chiếm (token khác) thì lần chạy cũ
+ * không commit được nữa. Transaction mở trên luồng khác (job nền) không được gắn.
+ */
+@Component
+public class IdempotencyFence implements TransactionExecutionListener {
+    private static final ThreadLocal<Claim> CURRENT = new ThreadLocal<>();
+
+    final IdempotencyRecordRepository recordRepository;
+
+    // @Lazy: listener được nạp cùng transaction manager, repository chỉ cần khi có transaction thật
+    public IdempotencyFence(@Lazy IdempotencyRecordRepository recordRepository) {
+        this.recordRepository = recordRepository;
+    }
+
+    record Claim(String id, String token) {}
+
+    // gắn key cho các transaction mở trên luồng hiện tại cho tới unbind()
+    public void bind(String id, String token) {
+        CURRENT.set(new Claim(id, token));
+    }
+
+    public void unbind() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        Claim claim = CURRENT.get();
+        if (claim == null
+                || beginFailure != null
+                || transaction.isReadOnly()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                if (readOnly) return;
+                if (recordRepository.markCommitted(claim.id(), claim.token()) == 0) {
+                    // lần thử lại đã chiếm key sau khi lock hết hạn: không để hai lần chạy cùng commit
+                    throw new AppException(ErrorCode.IDEMPOTENCY_REQUEST_IN_PROGRESS);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,239 @@
+package org.camphub.be_camphub.idempotency;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.camphub.be_camphub.dto.response.ApiResponse;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Áp dụng Idempotency-Key cho các endpoint gắn @Idempotent. Chạy sau Spring Security nên key được tách theo
+ * người gọi. Lần đầu: giữ key, chạy request (transaction ghi trên luồng này đánh dấu key đã commit qua
+ * IdempotencyFence), lưu status + body nếu thành công. Request lỗi chưa commit gì thì key được trả lại để lần thử
+ * sau chạy thật; đã commit một phần thì lưu luôn response lỗi để lần gửi lại không chạy lại.
+ * Lần gửi lại cùng key và cùng request: trả nguyên response đã lưu, không chạm tới ví hay tồn kho.
+ */
+@Slf4j
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+
+    final IdempotencyStore store;
+    final IdempotencyFence fence;
+    final RequestMappingHandlerMapping handlerMapping;
+    final ObjectMapper objectMapper;
+
+    public IdempotencyFilter(
+            IdempotencyStore store,
+            IdempotencyFence fence,
+            @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+            ObjectMapper objectMapper) {
+        this.store = store;
+        this.fence = fence;
+        this.handlerMapping = handlerMapping;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(HEADER) == null || "GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!isIdempotent(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, ErrorCode.INVALID_IDEMPOTENCY_KEY);
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String id = sha256(caller() + "\n" + key);
+        String fingerprint = fingerprint(cachedRequest);
+
+        IdempotencyStore.Attempt attempt = store.begin(id, fingerprint);
+        switch (attempt.outcome()) {
+            case REPLAY -> replay(response, attempt.response());
+            case MISMATCH -> writeError(response, ErrorCode.IDEMPOTENCY_KEY_REUSED);
+            case IN_PROGRESS -> writeError(response, ErrorCode.IDEMPOTENCY_REQUEST_IN_PROGRESS);
+            case STARTED -> execute(cachedRequest, response, chain, id, attempt.token(), fingerprint);
+        }
+    }
+
+    private void execute(
+            CachedBodyRequest request,
+            HttpServletResponse response,
+            FilterChain chain,
+            String id,
+            String token,
+            String fingerprint)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean finished = false;
+        try {
+            fence.bind(id, token);
+            try {
+                chain.doFilter(request, wrapper);
+            } finally {
+                fence.unbind();
+            }
+            int status = wrapper.getStatus();
+            // lỗi sau khi đã commit một phần: release không xóa được key, lưu response lỗi để lần gửi lại trả nguyên
+            if ((status >= 200 && status < 300) || !store.release(id, token)) {
+                store.complete(
+                        id, token, fingerprint, status, wrapper.getContentType(), wrapper.getContentAsByteArray());
+            }
+            finished = true;
+        } finally {
+            if (!finished) {
+                try {
+                    // chưa commit gì thì lần thử sau chạy thật; đã commit thì key ở lại IN_PROGRESS tới khi hết hạn
+                    store.release(id, token);
+                } catch (Exception e) {
+                    log.warn("Failed to release idempotency key {}: {}", id, e.getMessage());
+                }
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private boolean isIdempotent(HttpServletRequest request) {
+        try {
+            HandlerExecutionChain handler = handlerMapping.getHandler(request);
+            return handler != null
+                    && handler.getHandler() instanceof HandlerMethod method
+                    && method.hasMethodAnnotation(Idempotent.class);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void replay(HttpServletResponse response, IdempotencyStore.StoredResponse stored) throws IOException {
+        response.setStatus(stored.statusCode());
+        if (stored.contentType() != null) response.setContentType(stored.contentType());
+        response.setHeader(REPLAYED_HEADER, "true");
+        byte[] body = stored.body() != null ? stored.body() : new byte[0];
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private void writeError(HttpServletResponse response, ErrorCode errorCode) throws IOException {
+        response.setStatus(errorCode.getHttpStatusCode().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(
+                response.getOutputStream(),
+                ApiResponse.builder()
+                        .status(errorCode.getCode())
+                        .message(errorCode.getMessage())
+                        .build());
+    }
+
+    private static String caller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private static String fingerprint(CachedBodyRequest request) {
+        String target = request.getMethod() + " " + request.getRequestURI()
+                + (request.getQueryString() != null ? "?" + request.getQueryString() : "") + "\n";
+        MessageDigest digest = sha256();
+        digest.update(target.getBytes(StandardCharsets.UTF_8));
+        digest.update(request.body);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String sha256(String value) {
+        return HexFormat.of().formatHex(sha256().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Đọc body một lần để vừa tính fingerprint vừa cho controller đọc lại
+    static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : "UTF-8";
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), Charset.forName(encoding)));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.camphub.be_camphub.idempotency;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.annotation.PostConstruct;
+
+import org.camphub.be_camphub.entity.IdempotencyRecord;
+import org.camphub.be_camphub.repository.IdempotencyRecordRepository;
+import org.camphub.be_camphub.service.LeaseService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lưu key, fingerprint và response đã serialize trong bảng idempotency_keys (nguồn sự thật cho cả cụm),
+ * kèm một LRU nhỏ trong bộ nhớ cho response đã hoàn tất để lần gửi lại trả ngay không cần tới DB.
+ * Bản ghi hết hạn sau TTL và được dọn định kỳ trên một node.
+ * Key đang chạy chỉ bị lần thử lại chiếm khi quá lock-seconds mà nghiệp vụ chưa commit (IdempotencyFence);
+ * đã commit mà chưa có response thì lần thử lại nhận IN_PROGRESS, không bao giờ chạy lại nghiệp vụ.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class IdempotencyStore {
+    static final Duration PURGE_INTERVAL = Duration.ofMinutes(30);
+
+    IdempotencyRecordRepository recordRepository;
+    LeaseService leaseService;
+
+    @NonFinal
+    @Value("${idempotency.ttl-hours:24}")
+    long ttlHours;
+
+    @NonFinal
+    @Value("${idempotency.lock-seconds:60}")
+    long lockSeconds;
+
+    @NonFinal
+    @Value("${idempotency.cache-size:10000}")
+    int cacheSize;
+
+    // LRU theo thứ tự truy cập; chỉ giữ response đã hoàn tất
+    @NonFinal
+    Map<String, StoredResponse> completed;
+
+    public enum Outcome {
+        STARTED,
+        REPLAY,
+        IN_PROGRESS,
+        MISMATCH
+    }
+
+    public record StoredResponse(
+            String fingerprint, int statusCode, String contentType, byte[] body, LocalDateTime expiresAt) {}
+
+    // token chỉ có khi STARTED: định danh lần chạy này cho IdempotencyFence, complete và release
+    public record Attempt(Outcome outcome, StoredResponse response, String token) {
+        static Attempt of(Outcome outcome) {
+            return new Attempt(outcome, null, null);
+        }
+
+        static Attempt started(String token) {
+            return new Attempt(Outcome.STARTED, null, token);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        int capacity = Math.max(1, cacheSize);
+        completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public Attempt begin(String id, String fingerprint) {
+        StoredResponse cached = cached(id);
+        if (cached != null) return replayOrMismatch(cached, fingerprint);
+
+        String token = UUID.randomUUID().toString();
+        if (tryStart(id, fingerprint, token)) {
+            return Attempt.started(token);
+        }
+        IdempotencyRecord existing = recordRepository.findById(id).orElse(null);
+        if (existing == null) {
+            // vừa bị dọn hoặc vừa được trả: thử giữ lại một lần
+            return tryStart(id, fingerprint, token) ? Attempt.started(token) : Attempt.of(Outcome.IN_PROGRESS);
+        }
+        if (!existing.getFingerprint().equals(fingerprint)) return Attempt.of(Outcome.MISMATCH);
+        if (existing.getStatusCode() == null) return Attempt.of(Outcome.IN_PROGRESS);
+
+        StoredResponse stored = new StoredResponse(
+                existing.getFingerprint(),
+                existing.getStatusCode(),
+                existing.getContentType(),
+                existing.getResponseBody(),
+                existing.getExpiresAt());
+        cache(id, stored);
+        return new Attempt(Outcome.REPLAY, stored, null);
+    }
+
+    public void complete(String id, String token, String fingerprint, int statusCode, String contentType, byte[] body) {
+        // 0 = lần chạy này đã bị chiếm key (không commit gì), response của nó không phải kết quả của key
+        if (recordRepository.complete(id, token, fingerprint, statusCode, contentType, body) == 0) return;
+        cache(
+                id,
+                new StoredResponse(
+                        fingerprint,
+                        statusCode,
+                        contentType,
+                        body,
+                        LocalDateTime.now().plusHours(ttlHours)));
+    }
+
+    /**
+     * Trả key khi request lỗi. Trả về false nếu nghiệp vụ đã commit một phần (key phải giữ lại, không chạy lại).
+     */
+    public boolean release(String id, String token) {
+        return recordRepository.release(id, token) > 0;
+    }
+
+    private boolean tryStart(String id, String fingerprint, String token) {
+        return recordRepository
+                .tryStart(
+                        id,
+                        fingerprint,
+                        token,
+                        lockSeconds,
+                        Duration.ofHours(ttlHours).toSeconds())
+                .isPresent();
+    }
+
+    @Scheduled(cron = "0 45 * * * *")
+    public void purgeExpired() {
+        leaseService.runExclusive("idempotency:purge", PURGE_INTERVAL, () -> {
+            int deleted = recordRepository.deleteExpired();
+            if (deleted > 0) log.info("Purged {} expired idempotency keys", deleted);
+        });
+    }
+
+    private static Attempt replayOrMismatch(StoredResponse stored, String fingerprint) {
+        return stored.fingerprint().equals(fingerprint)
+                ? new Attempt(Outcome.REPLAY, stored, null)
+                : Attempt.of(Outcome.MISMATCH);
+    }
+
+    private synchronized StoredResponse cached(String id) {
+        StoredResponse stored = completed.get(id);
+        if (stored != null && stored.expiresAt().isBefore(LocalDateTime.now())) {
+            completed.remove(id);
+            return null;
+        }
+        return stored;
+    }
+
+    private synchronized void cache(String id, StoredResponse stored) {
+        completed.put(id, stored);
+    }
+}
@@ -0,0 +1,14 @@
+package org.camphub.be_camphub.idempotency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Đánh dấu endpoint hỗ trợ header Idempotency-Key: các lần gửi lại cùng key (cùng người gọi, cùng request)
+ * nhận lại đúng response lần đầu mà không chạy lại nghiệp vụ. Request không có header xử lý như bình thường.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {}
@@ -0,0 +1,28 @@
+package org.camphub.be_camphub.index;
+
+import jakarta.persistence.PostUpdate;
+
+import org.camphub.be_camphub.Utils.TransactionUtils;
+import org.camphub.be_camphub.entity.Account;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * JPA listener của Account: tên, avatar và điểm uy tín của chủ đồ được hiển thị trong read model danh mục,
+ * nên đẩy thay đổi vào đó sau khi transaction commit.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class AccountChangeListener {
+    ObjectProvider<CatalogReadModel> catalogReadModel;
+
+    @PostUpdate
+    void onAccountChanged(Account account) {
+        TransactionUtils.afterCommit(() -> catalogReadModel.ifAvailable(model -> model.onAccountChanged(account)));
+    }
+}
@@ -0,0 +1,87 @@
+package org.camphub.be_camphub.index;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.Account;
+import org.camphub.be_camphub.entity.Category;
+import org.camphub.be_camphub.repository.AccountRepository;
+import org.camphub.be_camphub.repository.CategoryRepository;
+import org.camphub.be_camphub.repository.ItemDayReservationRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Đưa thay đổi ghi ở node khác vào các chỉ mục trong bộ nhớ của node này. Listener sau commit chỉ chạy trên node
+ * đã ghi, nên mỗi vài giây đọc các item (updated_at), lịch giữ chỗ, chủ đồ và danh mục đổi từ watermark rồi làm mới
+ * đúng các phần đó. Mỗi lượt lùi watermark thêm catalog.sync.overlap-ms để không sót transaction commit muộn
+ * hoặc đồng hồ lệch giữa các node; làm mới lặp lại một item là vô hại.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CatalogChangeFeed {
+    ItemRepository itemRepository;
+    ItemDayReservationRepository reservationRepository;
+    AccountRepository accountRepository;
+    CategoryRepository categoryRepository;
+    ItemAvailabilityIndex availabilityIndex;
+    ItemSearchIndex searchIndex;
+    ItemSuggestIndex suggestIndex;
+    CatalogReadModel catalogReadModel;
+    ItemFacetIndex facetIndex;
+
+    @NonFinal
+    @Value("${catalog.sync.overlap-ms:10000}")
+    long overlapMs;
+
+    @NonFinal
+    volatile LocalDateTime watermark = LocalDateTime.now();
+
+    @Scheduled(
+            fixedDelayString = "${catalog.sync.interval-ms:5000}",
+            initialDelayString = "${catalog.sync.interval-ms:5000}")
+    public void poll() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = watermark.minus(Duration.ofMillis(overlapMs));
+        try {
+            Set<UUID> reservationsChanged = new HashSet<>(reservationRepository.findItemIdsUpdatedSince(since));
+            Set<UUID> itemsChanged = new HashSet<>(itemRepository.findIdsUpdatedSince(since));
+            List<Account> accounts = accountRepository.findAllByUpdatedAtGreaterThanEqual(since);
+            List<Category> categories = categoryRepository.findAllByUpdatedAtGreaterThanEqual(since);
+
+            itemsChanged.forEach(itemId -> {
+                searchIndex.refresh(itemId);
+                suggestIndex.refresh(itemId);
+                catalogReadModel.refresh(itemId);
+                facetIndex.refresh(itemId);
+            });
+            // reload đọc cả item nên cũng áp luôn số lượng/giá/trạng thái mới
+            itemsChanged.addAll(reservationsChanged);
+            itemsChanged.forEach(availabilityIndex::reload);
+            accounts.forEach(catalogReadModel::onAccountChanged);
+            categories.forEach(category -> {
+                searchIndex.onCategoryChanged(category);
+                suggestIndex.onCategoryChanged(category);
+                catalogReadModel.onCategoryChanged(category);
+            });
+            watermark = startedAt;
+        } catch (Exception e) {
+            // giữ watermark cũ: lượt sau đọc lại từ đó
+            log.warn("Catalog change feed failed since {}: {}", since, e.toString());
+        }
+    }
+}
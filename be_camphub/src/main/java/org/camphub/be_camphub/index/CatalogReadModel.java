@@ -0,0 +1,415 @@
+package org.camphub.be_camphub.index;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import jakarta.annotation.PreDestroy;
+
+import org.camphub.be_camphub.Utils.ItemCursor;
+import org.camphub.be_camphub.dto.response.CursorPageResponse;
+import org.camphub.be_camphub.dto.response.item.ItemResponse;
+import org.camphub.be_camphub.entity.Account;
+import org.camphub.be_camphub.entity.Category;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemSort;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.mapper.ItemMapper;
+import org.camphub.be_camphub.repository.AccountRepository;
+import org.camphub.be_camphub.repository.CategoryRepository;
+import org.camphub.be_camphub.repository.ItemLogsRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read model của danh mục sản phẩm nằm trong JVM: mỗi item đã duyệt giữ sẵn ItemResponse (kèm ảnh),
+ * thông tin chủ đồ và tên danh mục giữ riêng theo id để đổi tên/avatar/điểm uy tín chỉ sửa một chỗ.
+ * GET /items (khi chỉ lọc các trạng thái đã duyệt) và GET /items/{id} đọc từ đây, không chạm Postgres;
+ * thứ tự và cursor giống hệt các range scan trong ItemRepository nên hai đường đọc dùng chung cursor.
+ * Cập nhật sau commit từ thay đổi của item, account và category; thay đổi ghi ở node khác đến qua
+ * CatalogChangeFeed sau vài giây; dựng lại từ DB mỗi đêm.
+ * Trạng thái được ghi định kỳ ra snapshot nhị phân (CatalogSnapshotStore): khi khởi động, nếu đọc được snapshot thì
+ * phục vụ ngay từ đó rồi chỉ nạp lại các item có ItemLog/updatedAt sau watermark, không có thì dựng lại từ DB.
+ * Giới hạn catalog.read-model.max-items: vượt ngưỡng thì danh sách quay về đọc DB, chi tiết vẫn đọc được phần đã nạp.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CatalogReadModel {
+    // các trạng thái của item đã được duyệt và còn hiển thị trên danh mục
+    public static final Set<ItemStatus> VISIBLE = Collections.unmodifiableSet(EnumSet.of(
+            ItemStatus.AVAILABLE,
+            ItemStatus.RENTED_PENDING_CONFIRM,
+            ItemStatus.RENTED,
+            ItemStatus.RETURN_PENDING_CHECK));
+
+    // Postgres so sánh uuid theo từng byte (không dấu), UUID.compareTo của Java so sánh có dấu
+    static final Comparator<UUID> PG_UUID_ORDER = Comparator.comparing(
+                    UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+    static final Comparator<Entry> NEWEST_ORDER = Comparator.comparing(Entry::createdAt, Comparator.reverseOrder())
+            .thenComparing(Entry::id, PG_UUID_ORDER.reversed());
+    // item sửa trong transaction bắt đầu trước snapshot có thể commit sau đó: replay lùi thêm một khoảng
+    static final Duration SNAPSHOT_SETTLE = Duration.ofMinutes(5);
+    static final Comparator<Entry> PRICE_ORDER =
+            Comparator.comparing(Entry::pricePerDay).thenComparing(Entry::id, PG_UUID_ORDER);
+
+    ItemRepository itemRepository;
+    AccountRepository accountRepository;
+    CategoryRepository categoryRepository;
+    ItemLogsRepository itemLogsRepository;
+    ItemMapper itemMapper;
+    TransactionTemplate transactionTemplate;
+    CatalogSnapshotStore snapshotStore;
+
+    ReadWriteLock lock = new ReentrantReadWriteLock();
+    Map<UUID, Entry> items = new HashMap<>();
+    NavigableSet<Entry> newest = new TreeSet<>(NEWEST_ORDER);
+    NavigableSet<Entry> byPrice = new TreeSet<>(PRICE_ORDER);
+    Map<UUID, Owner> owners = new HashMap<>();
+    Map<UUID, String> categoryNames = new HashMap<>();
+
+    @NonFinal
+    @Value("${catalog.read-model.max-items:100000}")
+    int maxItems;
+
+    @NonFinal
+    @Value("${catalog.snapshot.enabled:true}")
+    boolean snapshotEnabled;
+
+    // false khi chưa dựng xong hoặc bị cắt do vượt ngưỡng: danh sách phải đọc DB
+    @NonFinal
+    volatile boolean complete;
+
+    // đã có dữ liệu (từ snapshot hoặc DB) thì mới được ghi snapshot
+    @NonFinal
+    volatile boolean loaded;
+
+    // Khởi động: ưu tiên snapshot trên đĩa, replay phần thay đổi sau watermark; không có snapshot thì dựng từ DB
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Optional<CatalogSnapshotStore.Stored> stored = snapshotEnabled ? snapshotStore.read() : Optional.empty();
+        if (stored.isEmpty()) {
+            rebuild();
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        install(stored.get().snapshot());
+        int replayed = replaySince(stored.get().watermark());
+        log.info(
+                "Catalog read model restored from snapshot: {} items, {} replayed since {} in {} ms",
+                stored.get().snapshot().entries().size(),
+                replayed,
+                stored.get().watermark(),
+                System.currentTimeMillis() - startedAt);
+    }
+
+    @Scheduled(cron = "0 30 0 * * *")
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        Snapshot snapshot = readOnly().execute(status -> load());
+        install(snapshot);
+        log.info(
+                "Catalog read model rebuilt: {} items (complete={}) in {} ms",
+                snapshot.entries().size(),
+                snapshot.complete(),
+                System.currentTimeMillis() - startedAt);
+        saveSnapshot();
+    }
+
+    // Ghi snapshot định kỳ và khi tắt node (rolling deploy) để lần khởi động sau replay ít nhất có thể
+    @PreDestroy
+    @Scheduled(
+            fixedDelayString = "${catalog.snapshot.interval-ms:600000}",
+            initialDelayString = "${catalog.snapshot.interval-ms:600000}")
+    public void saveSnapshot() {
+        if (!snapshotEnabled || !loaded) return;
+        LocalDateTime watermark = LocalDateTime.now().minus(SNAPSHOT_SETTLE);
+        Snapshot snapshot;
+        lock.readLock().lock();
+        try {
+            snapshot = new Snapshot(
+                    new ArrayList<>(items.values()), new HashMap<>(owners), new HashMap<>(categoryNames), complete);
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            snapshotStore.write(snapshot, watermark);
+        } catch (IOException e) {
+            log.warn("Failed to write catalog snapshot: {}", e.toString());
+        }
+    }
+
+    // ----------------- incremental updates -----------------
+
+    // Nạp lại item từ DB (entity trong listener có thể chưa nạp ảnh) rồi thay bản cũ
+    public void refresh(UUID itemId) {
+        Optional<Loaded> loaded = readOnly().execute(status -> itemRepository
+                .findById(itemId)
+                .filter(item -> VISIBLE.contains(item.getStatus()))
+                .map(this::loadOne));
+
+        lock.writeLock().lock();
+        try {
+            remove(itemId);
+            if (loaded.isEmpty()) return;
+            if (items.size() >= maxItems) {
+                complete = false;
+                return;
+            }
+            Loaded l = loaded.get();
+            if (l.owner() != null) owners.putIfAbsent(l.entry().ownerId(), l.owner());
+            if (l.categoryName() != null) categoryNames.putIfAbsent(l.entry().categoryId(), l.categoryName());
+            put(l.entry());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onAccountChanged(Account account) {
+        lock.writeLock().lock();
+        try {
+            owners.computeIfPresent(account.getId(), (id, old) -> Owner.of(account));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void onCategoryChanged(Category category) {
+        lock.writeLock().lock();
+        try {
+            categoryNames.put(category.getId(), category.getName());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ----------------- reads -----------------
+
+    public Optional<ItemResponse> find(UUID itemId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = items.get(itemId);
+            return entry == null ? Optional.empty() : Optional.of(toResponse(entry));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Danh sách chỉ phục vụ được khi mọi trạng thái được lọc đều là trạng thái đã duyệt
+    public boolean covers(List<ItemStatus> statuses) {
+        return complete && statuses != null && !statuses.isEmpty() && VISIBLE.containsAll(statuses);
+    }
+
+    public CursorPageResponse<ItemResponse> page(
+            List<ItemStatus> statuses, UUID categoryId, ItemSort sort, String cursor, int pageSize) {
+        ItemCursor after = ItemCursor.decode(cursor, sort);
+        // chỉ có một phase vì không lọc PENDING_APPROVAL
+        if (after.phase() != 0) throw new AppException(ErrorCode.INVALID_CURSOR);
+        Set<ItemStatus> wanted = EnumSet.copyOf(statuses);
+
+        lock.readLock().lock();
+        try {
+            Iterable<Entry> range =
+                    switch (sort) {
+                        case NEWEST -> newest.tailSet(probe(after.createdAt(), null, after.id()), false);
+                        case PRICE_ASC -> byPrice.tailSet(probe(null, after.price(), after.id()), false);
+                        case PRICE_DESC -> byPrice.descendingSet()
+                                .tailSet(probe(null, after.price(), after.id()), false);
+                    };
+            List<Entry> rows = new ArrayList<>(pageSize + 1);
+            for (Entry entry : range) {
+                if (!wanted.contains(entry.status())) continue;
+                if (categoryId != null && !categoryId.equals(entry.categoryId())) continue;
+                rows.add(entry);
+                if (rows.size() > pageSize) break;
+            }
+
+            boolean hasMore = rows.size() > pageSize;
+            List<Entry> page = hasMore ? rows.subList(0, pageSize) : rows;
+            String nextCursor = null;
+            if (hasMore) {
+                Entry last = page.get(page.size() - 1);
+                nextCursor = ItemCursor.of(sort, 0, last.createdAt(), last.pricePerDay(), last.id())
+                        .encode();
+            }
+            return CursorPageResponse.<ItemResponse>builder()
+                    .pageSize(pageSize)
+                    .hasMore(hasMore)
+                    .nextCursor(nextCursor)
+                    .data(page.stream().map(this::toResponse).toList())
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ----------------- helpers -----------------
+
+    private void install(Snapshot snapshot) {
+        lock.writeLock().lock();
+        try {
+            items.clear();
+            newest.clear();
+            byPrice.clear();
+            owners.clear();
+            owners.putAll(snapshot.owners());
+            categoryNames.clear();
+            categoryNames.putAll(snapshot.categoryNames());
+            snapshot.entries().forEach(this::put);
+            complete = snapshot.complete();
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Nạp lại các item đổi sau watermark; chủ đồ và danh mục ít và rẻ nên nạp lại toàn bộ
+    private int replaySince(LocalDateTime watermark) {
+        Set<UUID> changed = new HashSet<>(itemLogsRepository.findItemIdsLoggedSince(watermark));
+        changed.addAll(itemRepository.findIdsUpdatedSince(watermark));
+        changed.forEach(this::refresh);
+
+        Set<UUID> ownerIds;
+        lock.readLock().lock();
+        try {
+            ownerIds = Set.copyOf(owners.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Account> accounts = accountRepository.findAllById(ownerIds);
+        List<Category> categories = categoryRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            accounts.forEach(account -> owners.put(account.getId(), Owner.of(account)));
+            categories.forEach(category -> categoryNames.put(category.getId(), category.getName()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return changed.size();
+    }
+
+    private Snapshot load() {
+        List<Item> visible = itemRepository.findAllByStatusIn(VISIBLE);
+        boolean fits = visible.size() <= maxItems;
+        if (!fits) {
+            // giữ các item mới nhất cho trang chi tiết
+            visible = visible.stream()
+                    .sorted(Comparator.comparing(Item::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                    .limit(maxItems)
+                    .toList();
+        }
+        Set<UUID> ownerIds = visible.stream().map(Item::getOwnerId).collect(Collectors.toSet());
+        Map<UUID, Owner> ownerMap =
+                accountRepository.findAllById(ownerIds).stream().collect(Collectors.toMap(Account::getId, Owner::of));
+        Map<UUID, String> names =
+                categoryRepository.findAll().stream().collect(Collectors.toMap(Category::getId, Category::getName));
+        return new Snapshot(visible.stream().map(this::toEntry).toList(), ownerMap, names, fits);
+    }
+
+    private Loaded loadOne(Item item) {
+        Owner owner =
+                accountRepository.findById(item.getOwnerId()).map(Owner::of).orElse(null);
+        String categoryName = item.getCategoryId() == null
+                ? null
+                : categoryRepository
+                        .findById(item.getCategoryId())
+                        .map(Category::getName)
+                        .orElse(null);
+        return new Loaded(toEntry(item), owner, categoryName);
+    }
+
+    private Entry toEntry(Item item) {
+        ItemResponse base = itemMapper.entityToResponse(item);
+        if (base.getMediaUrls() != null) base.setMediaUrls(List.copyOf(base.getMediaUrls()));
+        return new Entry(
+                item.getId(),
+                item.getOwnerId(),
+                item.getCategoryId(),
+                item.getStatus(),
+                item.getCreatedAt(),
+                item.getPricePerDay(),
+                base);
+    }
+
+    // gọi khi đang giữ write lock
+    private void put(Entry entry) {
+        items.put(entry.id(), entry);
+        // DB bỏ qua dòng có khóa sắp xếp null trong range scan, ở đây cũng vậy
+        if (entry.createdAt() != null) newest.add(entry);
+        if (entry.pricePerDay() != null) byPrice.add(entry);
+    }
+
+    private void remove(UUID itemId) {
+        Entry old = items.remove(itemId);
+        if (old == null) return;
+        if (old.createdAt() != null) newest.remove(old);
+        if (old.pricePerDay() != null) byPrice.remove(old);
+    }
+
+    // bản sao mới cho mỗi lần đọc: người gọi có thể sửa response mà không làm bẩn read model
+    private ItemResponse toResponse(Entry entry) {
+        ItemResponse response = entry.base().toBuilder().build();
+        Owner owner = owners.get(entry.ownerId());
+        if (owner != null) {
+            response.setOwnerName(owner.name());
+            response.setOwnerAvatar(owner.avatar());
+            response.setOwnerTrustScore(owner.trustScore());
+        }
+        response.setCategoryName(categoryNames.get(entry.categoryId()));
+        return response;
+    }
+
+    private TransactionTemplate readOnly() {
+        TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        template.setReadOnly(true);
+        // có thể được gọi trong afterCommit của transaction khác
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private static Entry probe(LocalDateTime createdAt, Double price, UUID id) {
+        return new Entry(id, null, null, null, createdAt, price, null);
+    }
+
+    record Entry(
+            UUID id,
+            UUID ownerId,
+            UUID categoryId,
+            ItemStatus status,
+            LocalDateTime createdAt,
+            Double pricePerDay,
+            ItemResponse base) {}
+
+    record Owner(String name, String avatar, String trustScore) {
+        static Owner of(Account account) {
+            return new Owner(
+                    account.getFirstname() + " " + account.getLastname(),
+                    account.getAvatar(),
+                    String.valueOf(account.getTrustScore()));
+        }
+    }
+
+    record Snapshot(List<Entry> entries, Map<UUID, Owner> owners, Map<UUID, String> categoryNames, boolean complete) {}
+
+    private record Loaded(Entry entry, Owner owner, String categoryName) {}
+}
@@ -0,0 +1,243 @@
+package org.camphub.be_camphub.index;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.camphub.be_camphub.dto.response.MediaResourceResponse;
+import org.camphub.be_camphub.dto.response.item.ItemResponse;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lưu/đọc snapshot nhị phân của CatalogReadModel để node khởi động lại không phải đọc toàn bộ item, ảnh và chủ đồ từ DB.
+ * File gồm header (magic, version, watermark), danh mục, chủ đồ, item và CRC32 ở cuối; ghi ra file tạm rồi đổi tên
+ * nguyên tử, đọc bằng memory-map. File hỏng hoặc khác version thì bỏ qua để dựng lại từ DB.
+ */
+@Slf4j
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CatalogSnapshotStore {
+    static final int MAGIC = 0x43415447; // "CATG"
+    static final int VERSION = 1;
+
+    @NonFinal
+    @Value("${catalog.snapshot.path:data/catalog.snapshot}")
+    String path;
+
+    // Trạng thái đọc lại được: read model + mốc thời gian cần replay thay đổi từ đó
+    public record Stored(CatalogReadModel.Snapshot snapshot, LocalDateTime watermark) {}
+
+    public void write(CatalogReadModel.Snapshot snapshot, LocalDateTime watermark) throws IOException {
+        Path target = Path.of(path).toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (OutputStream file = Files.newOutputStream(tmp);
+                    DataOutputStream out = new DataOutputStream(
+                            new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeDateTime(out, watermark);
+                out.writeBoolean(snapshot.complete());
+
+                out.writeInt(snapshot.categoryNames().size());
+                for (Map.Entry<UUID, String> category : snapshot.categoryNames().entrySet()) {
+                    writeUuid(out, category.getKey());
+                    writeString(out, category.getValue());
+                }
+
+                out.writeInt(snapshot.owners().size());
+                for (Map.Entry<UUID, CatalogReadModel.Owner> owner :
+                        snapshot.owners().entrySet()) {
+                    writeUuid(out, owner.getKey());
+                    writeString(out, owner.getValue().name());
+                    writeString(out, owner.getValue().avatar());
+                    writeString(out, owner.getValue().trustScore());
+                }
+
+                out.writeInt(snapshot.entries().size());
+                for (CatalogReadModel.Entry entry : snapshot.entries()) writeEntry(out, entry);
+
+                out.flush();
+                // CRC của toàn bộ nội dung phía trước, không tính chính nó
+                new DataOutputStream(file).writeLong(crc.getValue());
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public Optional<Stored> read() {
+        Path source = Path.of(path).toAbsolutePath();
+        if (!Files.isRegularFile(source)) return Optional.empty();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 16 || size > Integer.MAX_VALUE) throw new IOException("unexpected size " + size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - Long.BYTES));
+            if (crc.getValue() != buffer.getLong((int) size - Long.BYTES)) throw new IOException("checksum mismatch");
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) throw new IOException("unknown format");
+            LocalDateTime watermark = readDateTime(buffer);
+            boolean complete = buffer.get() != 0;
+
+            int categoryCount = buffer.getInt();
+            Map<UUID, String> categoryNames = new HashMap<>(categoryCount * 2);
+            for (int i = 0; i < categoryCount; i++) categoryNames.put(readUuid(buffer), readString(buffer));
+
+            int ownerCount = buffer.getInt();
+            Map<UUID, CatalogReadModel.Owner> owners = new HashMap<>(ownerCount * 2);
+            for (int i = 0; i < ownerCount; i++) {
+                owners.put(
+                        readUuid(buffer),
+                        new CatalogReadModel.Owner(readString(buffer), readString(buffer), readString(buffer)));
+            }
+
+            int itemCount = buffer.getInt();
+            List<CatalogReadModel.Entry> entries = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) entries.add(readEntry(buffer));
+
+            return Optional.of(
+                    new Stored(new CatalogReadModel.Snapshot(entries, owners, categoryNames, complete), watermark));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable catalog snapshot {}: {}", source, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    // ----------------- entry -----------------
+
+    private static void writeEntry(DataOutputStream out, CatalogReadModel.Entry entry) throws IOException {
+        writeUuid(out, entry.id());
+        writeUuid(out, entry.ownerId());
+        writeUuid(out, entry.categoryId());
+        writeString(out, entry.status().name());
+        writeDateTime(out, entry.createdAt());
+        out.writeBoolean(entry.pricePerDay() != null);
+        if (entry.pricePerDay() != null) out.writeDouble(entry.pricePerDay());
+
+        ItemResponse base = entry.base();
+        writeString(out, base.getOwnerId());
+        writeString(out, base.getName());
+        writeString(out, base.getDescription());
+        writeDecimal(out, base.getPrice());
+        out.writeBoolean(base.getQuantity() != null);
+        if (base.getQuantity() != null) out.writeInt(base.getQuantity());
+        writeDecimal(out, base.getDepositAmount());
+        writeString(out, base.getStatus());
+        writeString(out, base.getRejectionReason());
+        List<MediaResourceResponse> media = base.getMediaUrls();
+        out.writeInt(media == null ? -1 : media.size());
+        if (media != null) {
+            for (MediaResourceResponse m : media) {
+                writeString(out, m.getUrl());
+                writeString(out, m.getType());
+            }
+        }
+    }
+
+    private static CatalogReadModel.Entry readEntry(ByteBuffer in) {
+        UUID id = readUuid(in);
+        UUID ownerId = readUuid(in);
+        UUID categoryId = readUuid(in);
+        ItemStatus status = ItemStatus.valueOf(readString(in));
+        LocalDateTime createdAt = readDateTime(in);
+        Double pricePerDay = in.get() != 0 ? in.getDouble() : null;
+
+        ItemResponse base = ItemResponse.builder()
+                .id(id)
+                .categoryId(categoryId)
+                .ownerId(readString(in))
+                .name(readString(in))
+                .description(readString(in))
+                .price(readDecimal(in))
+                .quantity(in.get() != 0 ? in.getInt() : null)
+                .depositAmount(readDecimal(in))
+                .status(readString(in))
+                .rejectionReason(readString(in))
+                .build();
+        int mediaCount = in.getInt();
+        if (mediaCount >= 0) {
+            List<MediaResourceResponse> media = new ArrayList<>(mediaCount);
+            for (int i = 0; i < mediaCount; i++) {
+                media.add(new MediaResourceResponse(readString(in), readString(in)));
+            }
+            base.setMediaUrls(List.copyOf(media));
+        }
+        return new CatalogReadModel.Entry(id, ownerId, categoryId, status, createdAt, pricePerDay, base);
+    }
+
+    // ----------------- primitives (null được mã hóa bằng cờ / độ dài -1) -----------------
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeBoolean(id != null);
+        if (id == null) return;
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return in.get() != 0 ? new UUID(in.getLong(), in.getLong()) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        writeString(out, value == null ? null : value.toString());
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer in) {
+        String value = readString(in);
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value == null) return;
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value.getNano());
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        return in.get() != 0 ? LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC) : null;
+    }
+}
@@ -0,0 +1,210 @@
+package org.camphub.be_camphub.index;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.entity.ItemDayReservation;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.repository.ItemDayReservationRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Chỉ mục trong bộ nhớ cho tìm kiếm "còn trống trong khoảng ngày" trên toàn catalog.
+ * Mỗi sản phẩm AVAILABLE giữ một mảng đếm số đơn vị đã giữ theo ngày trong cửa sổ HORIZON_DAYS kể từ baseDay;
+ * mảng chỉ được cấp phát khi sản phẩm có giữ chỗ nên sản phẩm chưa có đơn gần như không tốn bộ nhớ.
+ * Được cập nhật tăng dần sau commit từ ItemAvailabilityService và ItemChangeListener; giữ chỗ trên node khác
+ * đến qua CatalogChangeFeed (reload cả lịch của item). Dựng lại lúc khởi động và mỗi ngày để trượt cửa sổ.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ItemAvailabilityIndex {
+    public static final int HORIZON_DAYS = 366;
+
+    ItemRepository itemRepository;
+    ItemDayReservationRepository reservationRepository;
+
+    Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    @NonFinal
+    volatile long baseDay = LocalDate.now().toEpochDay();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 5 0 * * *") // trượt cửa sổ mỗi ngày lúc 00:05
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        long newBase = today.toEpochDay();
+
+        Map<UUID, Entry> fresh = new ConcurrentHashMap<>();
+        for (Item item : itemRepository.findAllByStatus(ItemStatus.AVAILABLE)) {
+            fresh.put(item.getId(), Entry.of(item));
+        }
+        for (ItemDayReservation r :
+                reservationRepository.findAllByRentalDateBetween(today, today.plusDays(HORIZON_DAYS - 1))) {
+            Entry entry = fresh.get(r.getItemId());
+            if (entry != null) {
+                entry.add((int) (r.getRentalDate().toEpochDay() - newBase), r.getReserved());
+            }
+        }
+
+        baseDay = newBase;
+        entries.clear();
+        entries.putAll(fresh);
+        log.info(
+                "Item availability index rebuilt: {} items in {} ms",
+                fresh.size(),
+                System.currentTimeMillis() - startedAt);
+    }
+
+    // ----------------- incremental updates -----------------
+
+    public void onItemChanged(Item item) {
+        if (item.getStatus() != ItemStatus.AVAILABLE) {
+            entries.remove(item.getId());
+            return;
+        }
+        Entry existing = entries.get(item.getId());
+        if (existing != null) {
+            existing.update(item);
+            return;
+        }
+
+        // sản phẩm vừa được duyệt / mở khóa: nạp lại lịch giữ chỗ hiện có từ DB
+        entries.putIfAbsent(item.getId(), load(item));
+    }
+
+    // Nạp lại một sản phẩm từ DB sau các UPDATE hàng loạt (không kích hoạt entity listener)
+    public void refresh(UUID itemId) {
+        itemRepository.findById(itemId).ifPresentOrElse(this::onItemChanged, () -> entries.remove(itemId));
+    }
+
+    // Thay cả lịch giữ chỗ của sản phẩm bằng bản trong DB: giữ/trả chỗ ở node khác không đi qua onReserved/onReleased
+    public void reload(UUID itemId) {
+        itemRepository
+                .findById(itemId)
+                .filter(item -> item.getStatus() == ItemStatus.AVAILABLE)
+                .ifPresentOrElse(item -> entries.put(itemId, load(item)), () -> entries.remove(itemId));
+    }
+
+    public void onReserved(UUID itemId, LocalDate from, LocalDate to, int quantity) {
+        apply(itemId, from, to, quantity);
+    }
+
+    public void onReleased(UUID itemId, LocalDate from, LocalDate to, int quantity) {
+        apply(itemId, from, to, -quantity);
+    }
+
+    // ----------------- query -----------------
+
+    /**
+     * Id các sản phẩm còn ít nhất minQuantity đơn vị trống trong mọi ngày của [from, to) (to = ngày trả đồ),
+     * lọc thêm theo danh mục và khoảng giá, sắp theo giá tăng dần.
+     * Trả về null nếu khoảng ngày nằm ngoài cửa sổ của chỉ mục.
+     */
+    public List<UUID> findAvailable(
+            LocalDate from, LocalDate to, int minQuantity, UUID categoryId, Double minPrice, Double maxPrice) {
+        long base = baseDay;
+        int fromIdx = (int) (from.toEpochDay() - base);
+        int toIdx = (int) (to.toEpochDay() - base); // không tính ngày này
+        if (fromIdx < 0 || toIdx > HORIZON_DAYS || toIdx <= fromIdx) return null;
+
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (categoryId != null && !categoryId.equals(entry.categoryId)) continue;
+            if (minPrice != null && entry.pricePerDay < minPrice) continue;
+            if (maxPrice != null && entry.pricePerDay > maxPrice) continue;
+            if (entry.capacity - entry.maxReserved(fromIdx, toIdx) >= minQuantity) {
+                matches.add(entry);
+            }
+        }
+        matches.sort(Comparator.comparingDouble((Entry e) -> e.pricePerDay));
+        return matches.stream().map(e -> e.itemId).toList();
+    }
+
+    private Entry load(Item item) {
+        long base = baseDay;
+        LocalDate from = LocalDate.ofEpochDay(base);
+        Entry entry = Entry.of(item);
+        reservationRepository
+                .findAllByItemIdAndRentalDateBetweenOrderByRentalDate(
+                        item.getId(), from, from.plusDays(HORIZON_DAYS - 1))
+                .forEach(r -> entry.add((int) (r.getRentalDate().toEpochDay() - base), r.getReserved()));
+        return entry;
+    }
+
+    // cùng quy ước nửa mở [from, to) với ItemDayReservationRepository.reserveRange
+    private void apply(UUID itemId, LocalDate from, LocalDate to, int delta) {
+        Entry entry = entries.get(itemId);
+        if (entry == null) return;
+        long base = baseDay;
+        int fromIdx = (int) Math.max(0, from.toEpochDay() - base);
+        int toIdx = (int) Math.min(HORIZON_DAYS, to.toEpochDay() - base);
+        for (int i = fromIdx; i < toIdx; i++) {
+            entry.add(i, delta);
+        }
+    }
+
+    private static final class Entry {
+        final UUID itemId;
+        volatile UUID categoryId;
+        volatile double pricePerDay;
+        volatile int capacity;
+        volatile int[] reserved; // null = chưa có giữ chỗ nào trong cửa sổ
+
+        private Entry(UUID itemId) {
+            this.itemId = itemId;
+        }
+
+        static Entry of(Item item) {
+            Entry entry = new Entry(item.getId());
+            entry.update(item);
+            return entry;
+        }
+
+        void update(Item item) {
+            categoryId = item.getCategoryId();
+            pricePerDay = item.getPricePerDay() != null ? item.getPricePerDay() : 0.0;
+            capacity = item.getQuantity() != null ? item.getQuantity() : 0;
+        }
+
+        synchronized void add(int dayIdx, int delta) {
+            if (dayIdx < 0 || dayIdx >= HORIZON_DAYS) return;
+            int[] days = reserved;
+            if (days == null) {
+                if (delta <= 0) return;
+                days = new int[HORIZON_DAYS];
+            }
+            days[dayIdx] = Math.max(0, days[dayIdx] + delta);
+            reserved = days;
+        }
+
+        // ngày lớn nhất trong [fromIdx, toIdx)
+        int maxReserved(int fromIdx, int toIdx) {
+            int[] days = reserved;
+            if (days == null) return 0;
+            int max = 0;
+            for (int i = fromIdx; i < toIdx; i++) {
+                if (days[i] > max) max = days[i];
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.camphub.be_camphub.index;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+
+import org.camphub.be_camphub.Utils.TransactionUtils;
+import org.camphub.be_camphub.entity.Item;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * JPA listener của Item: đẩy thay đổi (trạng thái, số lượng, giá, danh mục, tên/mô tả) vào các chỉ mục trong bộ nhớ
+ * sau khi transaction commit. Dùng ObjectProvider để tránh vòng phụ thuộc với EntityManagerFactory.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ItemChangeListener {
+    ObjectProvider<ItemAvailabilityIndex> availabilityIndex;
+    ObjectProvider<ItemSearchIndex> searchIndex;
+    ObjectProvider<ItemSuggestIndex> suggestIndex;
+    ObjectProvider<CatalogReadModel> catalogReadModel;
+    ObjectProvider<ItemFacetIndex> facetIndex;
+
+    @PostPersist
+    @PostUpdate
+    void onItemChanged(Item item) {
+        TransactionUtils.afterCommit(() -> {
+            availabilityIndex.ifAvailable(index -> index.onItemChanged(item));
+            searchIndex.ifAvailable(index -> index.onItemChanged(item));
+            suggestIndex.ifAvailable(index -> index.onItemChanged(item));
+            catalogReadModel.ifAvailable(model -> model.refresh(item.getId()));
+            facetIndex.ifAvailable(index -> index.onItemChanged(item));
+        });
+    }
+}
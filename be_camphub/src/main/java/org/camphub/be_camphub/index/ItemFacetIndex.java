@@ -0,0 +1,254 @@
+package org.camphub.be_camphub.index;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Đếm facet (trạng thái, danh mục, khoảng giá thuê, khoảng tiền cọc) cho màn hình duyệt danh mục bằng bitmap.
+ * Mỗi item có một doc id nhỏ, liên tiếp (id được tái sử dụng khi item bị gỡ) nên mỗi giá trị facet là một BitSet gọn;
+ * số đếm của một giá trị = cardinality của (bitmap giá trị AND bitmap các bộ lọc của facet khác),
+ * nên chọn một danh mục vẫn thấy số lượng của các danh mục còn lại.
+ * Cập nhật sau commit khi item được tạo, sửa, duyệt, khóa, xóa (ItemChangeListener) và qua UPDATE hàng loạt;
+ * thay đổi ghi ở node khác đến qua CatalogChangeFeed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ItemFacetIndex {
+    public static final String STATUS = "status";
+    public static final String CATEGORY = "categoryId";
+    public static final String PRICE_BAND = "priceBand";
+    public static final String DEPOSIT_BAND = "depositBand";
+    static final String UNKNOWN_BAND = "unknown";
+
+    // cận dưới của các khoảng (VND); khoảng cuối không có cận trên
+    static final double[] PRICE_BOUNDS = {50_000, 100_000, 200_000, 500_000};
+    static final double[] DEPOSIT_BOUNDS = {200_000, 500_000, 1_000_000, 2_000_000};
+    static final List<String> PRICE_BANDS = bandKeys(PRICE_BOUNDS);
+    static final List<String> DEPOSIT_BANDS = bandKeys(DEPOSIT_BOUNDS);
+
+    ItemRepository itemRepository;
+
+    ReadWriteLock lock = new ReentrantReadWriteLock();
+    Map<UUID, Integer> docIds = new HashMap<>();
+    Map<Integer, Doc> docs = new HashMap<>();
+    Deque<Integer> freeIds = new ArrayDeque<>();
+    BitSet live = new BitSet();
+    Map<ItemStatus, BitSet> byStatus = new EnumMap<>(ItemStatus.class);
+    Map<UUID, BitSet> byCategory = new HashMap<>();
+    Map<String, BitSet> byPriceBand = new HashMap<>();
+    Map<String, BitSet> byDepositBand = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 40 0 * * *")
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        List<Item> all = itemRepository.findAll();
+
+        lock.writeLock().lock();
+        try {
+            docIds.clear();
+            docs.clear();
+            freeIds.clear();
+            live.clear();
+            byStatus.clear();
+            byCategory.clear();
+            byPriceBand.clear();
+            byDepositBand.clear();
+            for (Item item : all) add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Item facet index rebuilt: {} items in {} ms", all.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    // ----------------- incremental updates -----------------
+
+    public void onItemChanged(Item item) {
+        lock.writeLock().lock();
+        try {
+            remove(item.getId());
+            add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // UPDATE hàng loạt (trạng thái, số lượng mất): nạp lại item từ DB
+    public void refresh(UUID itemId) {
+        itemRepository.findById(itemId).ifPresentOrElse(this::onItemChanged, () -> {
+            lock.writeLock().lock();
+            try {
+                remove(itemId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // ----------------- query -----------------
+
+    /**
+     * Số item theo từng giá trị của mỗi facet (tên facet -> giá trị -> số item) với bộ lọc đã chọn.
+     * Bộ lọc null/rỗng = không lọc theo facet đó; giá trị có 0 item vẫn được trả về để UI hiển thị đủ lựa chọn.
+     */
+    public Map<String, Map<String, Integer>> count(
+            Collection<ItemStatus> statuses, UUID categoryId, String priceBand, String depositBand) {
+        validateBand(PRICE_BANDS, priceBand);
+        validateBand(DEPOSIT_BANDS, depositBand);
+
+        lock.readLock().lock();
+        try {
+            BitSet statusFilter = null;
+            if (statuses != null && !statuses.isEmpty()) {
+                statusFilter = new BitSet();
+                for (ItemStatus status : statuses) statusFilter.or(bitmap(byStatus, status));
+            }
+            BitSet categoryFilter = categoryId == null ? null : bitmap(byCategory, categoryId);
+            BitSet priceFilter = priceBand == null ? null : bitmap(byPriceBand, priceBand);
+            BitSet depositFilter = depositBand == null ? null : bitmap(byDepositBand, depositBand);
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            facets.put(
+                    STATUS,
+                    counts(
+                            intersect(categoryFilter, priceFilter, depositFilter),
+                            EnumSet.allOf(ItemStatus.class),
+                            status -> bitmap(byStatus, status),
+                            Enum::name));
+            facets.put(
+                    CATEGORY,
+                    counts(
+                            intersect(statusFilter, priceFilter, depositFilter),
+                            byCategory.keySet(),
+                            id -> bitmap(byCategory, id),
+                            UUID::toString));
+            facets.put(
+                    PRICE_BAND,
+                    counts(
+                            intersect(statusFilter, categoryFilter, depositFilter),
+                            PRICE_BANDS,
+                            band -> bitmap(byPriceBand, band),
+                            band -> band));
+            facets.put(
+                    DEPOSIT_BAND,
+                    counts(
+                            intersect(statusFilter, categoryFilter, priceFilter),
+                            DEPOSIT_BANDS,
+                            band -> bitmap(byDepositBand, band),
+                            band -> band));
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ----------------- helpers (gọi khi đang giữ lock) -----------------
+
+    private <K> Map<String, Integer> counts(
+            BitSet base, Collection<K> values, Function<K, BitSet> bitmapOf, Function<K, String> label) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (K value : values) {
+            BitSet matched = (BitSet) bitmapOf.apply(value).clone();
+            matched.and(base);
+            counts.put(label.apply(value), matched.cardinality());
+        }
+        return counts;
+    }
+
+    // giao của các bộ lọc khác null; không có bộ lọc nào thì là mọi item
+    private BitSet intersect(BitSet... filters) {
+        BitSet result = (BitSet) live.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) result.and(filter);
+        }
+        return result;
+    }
+
+    private void add(Item item) {
+        if (item.getId() == null || item.getStatus() == null) return;
+        int docId = freeIds.isEmpty() ? docIds.size() : freeIds.pop();
+        Doc doc = new Doc(
+                item.getStatus(),
+                item.getCategoryId(),
+                band(PRICE_BOUNDS, PRICE_BANDS, item.getPricePerDay()),
+                band(DEPOSIT_BOUNDS, DEPOSIT_BANDS, item.getDepositAmount()));
+        docIds.put(item.getId(), docId);
+        docs.put(docId, doc);
+        live.set(docId);
+        byStatus.computeIfAbsent(doc.status(), s -> new BitSet()).set(docId);
+        if (doc.categoryId() != null)
+            byCategory.computeIfAbsent(doc.categoryId(), c -> new BitSet()).set(docId);
+        byPriceBand.computeIfAbsent(doc.priceBand(), b -> new BitSet()).set(docId);
+        byDepositBand.computeIfAbsent(doc.depositBand(), b -> new BitSet()).set(docId);
+    }
+
+    private void remove(UUID itemId) {
+        Integer docId = docIds.remove(itemId);
+        if (docId == null) return;
+        Doc doc = docs.remove(docId);
+        live.clear(docId);
+        clear(byStatus, doc.status(), docId);
+        if (doc.categoryId() != null) clear(byCategory, doc.categoryId(), docId);
+        clear(byPriceBand, doc.priceBand(), docId);
+        clear(byDepositBand, doc.depositBand(), docId);
+        freeIds.push(docId);
+    }
+
+    // bỏ bit; bitmap rỗng thì bỏ luôn giá trị (danh mục không còn item nào)
+    private static <K> void clear(Map<K, BitSet> bitmaps, K key, int docId) {
+        BitSet bitmap = bitmaps.get(key);
+        if (bitmap == null) return;
+        bitmap.clear(docId);
+        if (bitmap.isEmpty()) bitmaps.remove(key);
+    }
+
+    private static <K> BitSet bitmap(Map<K, BitSet> bitmaps, K key) {
+        BitSet bitmap = bitmaps.get(key);
+        return bitmap != null ? bitmap : new BitSet();
+    }
+
+    private static String band(double[] bounds, List<String> keys, Double value) {
+        if (value == null) return UNKNOWN_BAND;
+        int i = 0;
+        while (i < bounds.length && value >= bounds[i]) i++;
+        return keys.get(i);
+    }
+
+    // "0-50000", "50000-100000", ..., "500000+" và "unknown" cho item chưa có giá
+    private static List<String> bandKeys(double[] bounds) {
+        List<String> keys = new ArrayList<>();
+        long lower = 0;
+        for (double bound : bounds) {
+            keys.add(lower + "-" + (long) bound);
+            lower = (long) bound;
+        }
+        keys.add(lower + "+");
+        keys.add(UNKNOWN_BAND);
+        return List.copyOf(keys);
+    }
+
+    private static void validateBand(List<String> keys, String band) {
+        if (band != null && !keys.contains(band)) throw new AppException(ErrorCode.INVALID_FACET_FILTER);
+    }
+
+    private record Doc(ItemStatus status, UUID categoryId, String priceBand, String depositBand) {}
+}
@@ -0,0 +1,272 @@
+package org.camphub.be_camphub.index;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.camphub.be_camphub.entity.Category;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.repository.CategoryRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Chỉ mục đảo ngược trong bộ nhớ cho tìm kiếm toàn văn trên tên, mô tả và tên danh mục của item.
+ * Token được gập dấu (TextAnalyzer) nên "leu" khớp "Lều"; khi từ khóa có dấu và khớp đúng dấu thì được cộng điểm.
+ * Xếp hạng BM25 có trọng số theo trường (tên > danh mục > mô tả); mọi từ khóa đều phải khớp,
+ * từ cuối cùng khớp theo tiền tố để gõ dở vẫn ra kết quả.
+ * Cập nhật tăng dần sau commit (ItemChangeListener, UPDATE trạng thái hàng loạt, đổi tên danh mục),
+ * dựng lại lúc khởi động và mỗi đêm.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ItemSearchIndex {
+    static final float NAME_WEIGHT = 3f;
+    static final float CATEGORY_WEIGHT = 2f;
+    static final float DESCRIPTION_WEIGHT = 1f;
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+    static final double EXACT_ACCENT_BOOST = 1.25;
+    static final double PREFIX_PENALTY = 0.8;
+    static final int MAX_PREFIX_TERMS = 64;
+
+    ItemRepository itemRepository;
+    CategoryRepository categoryRepository;
+
+    // ghi hiếm (sửa item), đọc nhiều (tìm kiếm)
+    ReadWriteLock lock = new ReentrantReadWriteLock();
+    Map<UUID, Doc> docs = new HashMap<>();
+    NavigableMap<String, Map<UUID, Float>> postings = new TreeMap<>(); // token đã gập dấu -> item -> tf có trọng số
+    Map<UUID, String> categoryNames = new HashMap<>();
+
+    @NonFinal
+    double totalLength;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 10 0 * * *")
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        Map<UUID, String> names = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) names.put(category.getId(), category.getName());
+        List<Item> items = itemRepository.findAll();
+
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            postings.clear();
+            totalLength = 0;
+            categoryNames.clear();
+            categoryNames.putAll(names);
+            for (Item item : items) add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Item search index rebuilt: {} items in {} ms", items.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    // ----------------- incremental updates -----------------
+
+    public void onItemChanged(Item item) {
+        lock.writeLock().lock();
+        try {
+            remove(item.getId());
+            add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // UPDATE trạng thái hàng loạt: nội dung không đổi, chỉ cập nhật trạng thái để lọc
+    public void onStatusChanged(UUID itemId, ItemStatus status) {
+        lock.writeLock().lock();
+        try {
+            if (status == ItemStatus.DELETED) {
+                remove(itemId);
+                return;
+            }
+            Doc doc = docs.get(itemId);
+            if (doc != null) doc.status = status;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Nạp lại một item từ DB khi không biết trạng thái mới (trừ kho hàng loạt)
+    public void refresh(UUID itemId) {
+        itemRepository.findById(itemId).ifPresentOrElse(this::onItemChanged, () -> {
+            lock.writeLock().lock();
+            try {
+                remove(itemId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // Đổi tên danh mục: đánh chỉ mục lại các item thuộc danh mục đó
+    public void onCategoryChanged(Category category) {
+        List<UUID> affected;
+        lock.readLock().lock();
+        try {
+            if (Objects.equals(categoryNames.get(category.getId()), category.getName())) return;
+            affected = docs.values().stream()
+                    .filter(d -> category.getId().equals(d.categoryId))
+                    .map(d -> d.itemId)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Item> items = itemRepository.findAllById(affected);
+        lock.writeLock().lock();
+        try {
+            categoryNames.put(category.getId(), category.getName());
+            for (Item item : items) {
+                remove(item.getId());
+                add(item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ----------------- query -----------------
+
+    /**
+     * Id các item khớp mọi từ khóa trong query, lọc theo trạng thái/danh mục, xếp theo điểm giảm dần
+     * (bằng điểm thì item mới hơn trước).
+     */
+    public List<UUID> search(String query, Set<ItemStatus> statuses, UUID categoryId) {
+        List<String> raw = TextAnalyzer.tokens(query);
+        if (raw.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            if (docs.isEmpty()) return List.of();
+            double avgLength = totalLength / docs.size();
+            Map<UUID, Double> scores = null;
+            for (int i = 0; i < raw.size(); i++) {
+                String exact = raw.get(i);
+                boolean accented = !exact.equals(TextAnalyzer.fold(exact));
+                Map<UUID, Double> termScores =
+                        scoreToken(TextAnalyzer.fold(exact), i == raw.size() - 1, accented ? exact : null, avgLength);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // AND: chỉ giữ item khớp cả từ khóa này
+                    Map<UUID, Double> current = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<UUID, Double> e : termScores.entrySet()) {
+                        Double previous = current.get(e.getKey());
+                        if (previous != null) scores.put(e.getKey(), previous + e.getValue());
+                    }
+                }
+                if (scores.isEmpty()) return List.of();
+            }
+
+            List<Map.Entry<UUID, Double>> hits = new ArrayList<>();
+            for (Map.Entry<UUID, Double> e : scores.entrySet()) {
+                Doc doc = docs.get(e.getKey());
+                if (statuses != null && !statuses.isEmpty() && !statuses.contains(doc.status)) continue;
+                if (categoryId != null && !categoryId.equals(doc.categoryId)) continue;
+                hits.add(e);
+            }
+            hits.sort(Map.Entry.<UUID, Double>comparingByValue()
+                    .reversed()
+                    .thenComparing(e -> docs.get(e.getKey()).createdAt, Comparator.reverseOrder()));
+            return hits.stream().map(Map.Entry::getKey).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ----------------- helpers (gọi khi đang giữ lock) -----------------
+
+    // Điểm BM25 của một từ khóa cho từng item; từ cuối khớp thêm theo tiền tố (điểm thấp hơn khớp trọn từ)
+    private Map<UUID, Double> scoreToken(String folded, boolean prefix, String accented, double avgLength) {
+        Map<UUID, Double> scores = new HashMap<>();
+        Map<String, Map<UUID, Float>> terms = prefix
+                ? postings.subMap(folded, true, folded + Character.MAX_VALUE, false)
+                : postings.containsKey(folded) ? Map.of(folded, postings.get(folded)) : Map.of();
+        int expanded = 0;
+        for (Map.Entry<String, Map<UUID, Float>> term : terms.entrySet()) {
+            if (expanded++ >= MAX_PREFIX_TERMS) break;
+            Map<UUID, Float> posting = term.getValue();
+            double idf = Math.log(1 + (docs.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+            double factor = term.getKey().equals(folded) ? 1.0 : PREFIX_PENALTY;
+            for (Map.Entry<UUID, Float> p : posting.entrySet()) {
+                Doc doc = docs.get(p.getKey());
+                double tf = p.getValue();
+                double score = factor * idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * doc.length / avgLength));
+                if (accented != null && doc.exactTokens.contains(accented)) score *= EXACT_ACCENT_BOOST;
+                // một item chỉ lấy điểm cao nhất trong các từ mở rộng từ cùng tiền tố
+                scores.merge(p.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private void add(Item item) {
+        if (item.getId() == null || item.getStatus() == ItemStatus.DELETED) return;
+        Doc doc = new Doc(item.getId());
+        doc.status = item.getStatus();
+        doc.categoryId = item.getCategoryId();
+        doc.createdAt = item.getCreatedAt() != null ? item.getCreatedAt() : LocalDateTime.MIN;
+        Map<String, Float> tf = new HashMap<>();
+        collect(doc, tf, item.getName(), NAME_WEIGHT);
+        collect(doc, tf, categoryNames.get(item.getCategoryId()), CATEGORY_WEIGHT);
+        collect(doc, tf, item.getDescription(), DESCRIPTION_WEIGHT);
+        doc.terms = tf.keySet();
+
+        tf.forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(doc.itemId, weight));
+        docs.put(doc.itemId, doc);
+        totalLength += doc.length;
+    }
+
+    private void collect(Doc doc, Map<String, Float> tf, String text, float weight) {
+        for (String token : TextAnalyzer.tokens(text)) {
+            tf.merge(TextAnalyzer.fold(token), weight, Float::sum);
+            doc.exactTokens.add(token);
+            doc.length += weight;
+        }
+    }
+
+    private void remove(UUID itemId) {
+        Doc doc = docs.remove(itemId);
+        if (doc == null) return;
+        totalLength -= doc.length;
+        for (String term : doc.terms) {
+            Map<UUID, Float> posting = postings.get(term);
+            if (posting == null) continue;
+            posting.remove(itemId);
+            if (posting.isEmpty()) postings.remove(term);
+        }
+    }
+
+    private static final class Doc {
+        final UUID itemId;
+        final Set<String> exactTokens = new HashSet<>();
+        ItemStatus status;
+        UUID categoryId;
+        LocalDateTime createdAt;
+        Set<String> terms = Set.of();
+        float length;
+
+        Doc(UUID itemId) {
+            this.itemId = itemId;
+        }
+    }
+}
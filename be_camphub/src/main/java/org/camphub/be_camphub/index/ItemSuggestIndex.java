@@ -0,0 +1,330 @@
+package org.camphub.be_camphub.index;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.camphub.be_camphub.entity.Category;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.enums.SuggestionType;
+import org.camphub.be_camphub.repository.BookingRepository;
+import org.camphub.be_camphub.repository.CategoryRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gợi ý khi gõ (autocomplete) cho tên sản phẩm và tên danh mục.
+ * Mỗi gợi ý được đưa vào trie theo chuỗi đã gập dấu, bắt đầu từ từng từ ("lều cắm trại" khớp cả "cam tr");
+ * mỗi nút giữ sẵn top-K gợi ý phổ biến nhất của cây con nên truy vấn chỉ là đi xuống theo tiền tố.
+ * Độ phổ biến = số item đã duyệt cùng tên/cùng danh mục + số lượt thuê (lượt thuê cập nhật khi dựng lại mỗi đêm).
+ * Item vào/ra khỏi trie theo trạng thái sau commit, chỉ tính lại top-K trên các đường đi bị ảnh hưởng.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ItemSuggestIndex {
+    public static final int MAX_SUGGESTIONS = 10;
+    static final int MAX_KEY_LENGTH = 48;
+    static final int MAX_WORD_STARTS = 8;
+    static final Comparator<Entry> RANK =
+            Comparator.comparingInt((Entry e) -> -e.weight).thenComparing(e -> e.text);
+
+    ItemRepository itemRepository;
+    CategoryRepository categoryRepository;
+    BookingRepository bookingRepository;
+
+    ReadWriteLock lock = new ReentrantReadWriteLock();
+    Map<String, Entry> entries = new HashMap<>();
+    Map<UUID, ItemRef> items = new HashMap<>();
+    Map<UUID, String> categoryNames = new HashMap<>();
+    Map<UUID, Integer> rentals = new HashMap<>();
+
+    @NonFinal
+    Node root = new Node();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 20 0 * * *")
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (Object[] row : bookingRepository.countPerItem()) {
+            counts.put((UUID) row[0], ((Number) row[1]).intValue());
+        }
+        List<Category> categories = categoryRepository.findAllByIsDeletedFalse();
+        List<Item> all = itemRepository.findAll();
+
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            items.clear();
+            categoryNames.clear();
+            rentals.clear();
+            rentals.putAll(counts);
+            root = new Node();
+            for (Category category : categories) categoryNames.put(category.getId(), category.getName());
+            for (Item item : all) add(item, false);
+            // trie dựng xong mới tính top-K một lượt từ lá lên gốc
+            rankSubtree(root);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info(
+                "Item suggest index rebuilt: {} suggestions in {} ms",
+                entries.size(),
+                System.currentTimeMillis() - startedAt);
+    }
+
+    // ----------------- incremental updates -----------------
+
+    public void onItemChanged(Item item) {
+        lock.writeLock().lock();
+        try {
+            remove(item.getId());
+            add(item, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // UPDATE trạng thái hàng loạt: chỉ cần nạp lại item khi nó vừa trở nên hiển thị
+    public void onStatusChanged(UUID itemId, ItemStatus status) {
+        if (CatalogReadModel.VISIBLE.contains(status)) {
+            boolean indexed;
+            lock.readLock().lock();
+            try {
+                indexed = items.containsKey(itemId);
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (!indexed) itemRepository.findById(itemId).ifPresent(this::onItemChanged);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Nạp lại một item từ DB khi không biết trạng thái mới (trừ kho hàng loạt)
+    public void refresh(UUID itemId) {
+        itemRepository.findById(itemId).ifPresentOrElse(this::onItemChanged, () -> {
+            lock.writeLock().lock();
+            try {
+                remove(itemId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // Đổi tên / xóa danh mục: đưa gợi ý danh mục ra khỏi trie rồi đánh lại theo tên mới
+    public void onCategoryChanged(Category category) {
+        lock.writeLock().lock();
+        try {
+            String key = categoryKey(category.getId());
+            Entry current = entries.remove(key);
+            if (current != null) unindex(current);
+            if (Boolean.TRUE.equals(category.getIsDeleted())) {
+                categoryNames.remove(category.getId());
+                return;
+            }
+            categoryNames.put(category.getId(), category.getName());
+            int weight = items.values().stream()
+                    .filter(ref -> category.getId().equals(ref.categoryId()))
+                    .mapToInt(ItemRef::weight)
+                    .sum();
+            if (weight > 0) {
+                Entry entry = new Entry(SuggestionType.CATEGORY, category.getId(), category.getName());
+                entries.put(key, entry);
+                entry.weight = weight;
+                index(entry, true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ----------------- query -----------------
+
+    // Top gợi ý cho tiền tố đã gõ, xếp theo độ phổ biến
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = keyOf(prefix);
+        if (key.isEmpty()) return List.of();
+        int k = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) node = node.children.get(key.charAt(i));
+            if (node == null) return List.of();
+            return node.top.stream()
+                    .limit(k)
+                    .map(e -> new Suggestion(e.text, e.type, e.categoryId, e.weight))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public record Suggestion(String text, SuggestionType type, UUID categoryId, int weight) {}
+
+    // ----------------- helpers (gọi khi đang giữ write lock) -----------------
+
+    private void add(Item item, boolean rank) {
+        if (item.getId() == null || !CatalogReadModel.VISIBLE.contains(item.getStatus())) return;
+        String nameKey = keyOf(item.getName());
+        if (nameKey.isEmpty()) return;
+        int weight = 1 + rentals.getOrDefault(item.getId(), 0);
+        items.put(item.getId(), new ItemRef(nameKey, item.getCategoryId(), weight));
+
+        adjust("I:" + nameKey, SuggestionType.ITEM, null, item.getName().strip(), weight, rank);
+        String categoryName = categoryNames.get(item.getCategoryId());
+        if (categoryName != null) {
+            adjust(
+                    categoryKey(item.getCategoryId()),
+                    SuggestionType.CATEGORY,
+                    item.getCategoryId(),
+                    categoryName,
+                    weight,
+                    rank);
+        }
+    }
+
+    private void remove(UUID itemId) {
+        ItemRef ref = items.remove(itemId);
+        if (ref == null) return;
+        adjust("I:" + ref.nameKey(), SuggestionType.ITEM, null, null, -ref.weight(), true);
+        if (ref.categoryId() != null) {
+            adjust(categoryKey(ref.categoryId()), SuggestionType.CATEGORY, ref.categoryId(), null, -ref.weight(), true);
+        }
+    }
+
+    private void adjust(String key, SuggestionType type, UUID categoryId, String text, int delta, boolean rank) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (delta <= 0) return;
+            entry = new Entry(type, categoryId, text);
+            entries.put(key, entry);
+            entry.weight = delta;
+            index(entry, rank);
+            return;
+        }
+        entry.weight += delta;
+        if (entry.weight <= 0) {
+            entries.remove(key);
+            unindex(entry);
+        } else if (rank) {
+            // trọng số đổi: thứ hạng trên mọi đường đi của gợi ý có thể đổi
+            for (String path : paths(entry.folded)) rerank(path);
+        }
+    }
+
+    private void index(Entry entry, boolean rank) {
+        for (String path : paths(entry.folded)) {
+            Node node = root;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.children.computeIfAbsent(path.charAt(i), c -> new Node());
+            }
+            node.entries.add(entry);
+            if (rank) rerank(path);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        for (String path : paths(entry.folded)) {
+            Node node = root;
+            for (int i = 0; i < path.length() && node != null; i++) node = node.children.get(path.charAt(i));
+            if (node != null) node.entries.remove(entry);
+            rerank(path);
+        }
+    }
+
+    // Tính lại top-K từ nút sâu nhất của đường đi lên gốc, cắt bỏ các nút đã rỗng
+    private void rerank(String path) {
+        Node[] nodes = new Node[path.length() + 1];
+        nodes[0] = root;
+        int depth = 0;
+        while (depth < path.length() && nodes[depth].children.containsKey(path.charAt(depth))) {
+            nodes[depth + 1] = nodes[depth].children.get(path.charAt(depth));
+            depth++;
+        }
+        for (int d = depth; d >= 0; d--) {
+            Node node = nodes[d];
+            if (d > 0 && node.entries.isEmpty() && node.children.isEmpty()) {
+                nodes[d - 1].children.remove(path.charAt(d - 1));
+                continue;
+            }
+            rank(node);
+        }
+    }
+
+    private void rankSubtree(Node node) {
+        for (Node child : node.children.values()) rankSubtree(child);
+        rank(node);
+    }
+
+    private void rank(Node node) {
+        node.top = Stream.concat(
+                        node.entries.stream(), node.children.values().stream().flatMap(c -> c.top.stream()))
+                .distinct()
+                .sorted(RANK)
+                .limit(MAX_SUGGESTIONS)
+                .toList();
+    }
+
+    // Khóa trie: chuỗi gập dấu tính từ đầu mỗi từ
+    private static List<String> paths(String folded) {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < folded.length() && paths.size() < MAX_WORD_STARTS; i++) {
+            if (i == 0 || folded.charAt(i - 1) == ' ') paths.add(folded.substring(i));
+        }
+        return paths;
+    }
+
+    private static String keyOf(String text) {
+        String key = String.join(
+                " ", TextAnalyzer.tokens(text).stream().map(TextAnalyzer::fold).toList());
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    private static String categoryKey(UUID categoryId) {
+        return "C:" + categoryId;
+    }
+
+    private record ItemRef(String nameKey, UUID categoryId, int weight) {}
+
+    private static final class Entry {
+        final SuggestionType type;
+        final UUID categoryId;
+        final String text;
+        final String folded;
+        int weight;
+
+        Entry(SuggestionType type, UUID categoryId, String text) {
+            this.type = type;
+            this.categoryId = categoryId;
+            this.text = text;
+            this.folded = keyOf(text);
+        }
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<>(4);
+        final Set<Entry> entries = new HashSet<>(2);
+        List<Entry> top = List.of();
+    }
+}
@@ -0,0 +1,39 @@
+package org.camphub.be_camphub.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa văn bản tiếng Việt cho các chỉ mục tìm kiếm: chữ thường, tách token theo ký tự không phải chữ/số,
+ * và "gập" dấu (lều -> leu, đèn -> den) để gõ có dấu hay không dấu đều khớp.
+ */
+public final class TextAnalyzer {
+    static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private TextAnalyzer() {}
+
+    // Token chữ thường còn nguyên dấu
+    public static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) return tokens;
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        for (String token : SEPARATOR.split(normalized)) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    // Bỏ dấu thanh/dấu mũ; đ không tách được bằng NFD nên thay riêng
+    public static String fold(String token) {
+        String decomposed = Normalizer.normalize(token, Normalizer.Form.NFD);
+        return COMBINING_MARKS
+                .matcher(decomposed)
+                .replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D');
+    }
+}
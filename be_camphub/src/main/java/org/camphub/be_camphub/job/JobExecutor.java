@@ -0,0 +1,186 @@
+package org.camphub.be_camphub.job;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.camphub.be_camphub.dto.response.job.JobStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Worker pool có giới hạn cho các job xử lý theo từng booking: mỗi đơn vị việc chạy trong một transaction ngắn
+ * riêng nên một đơn lỗi hoặc chậm không kéo cả lô. Hàng đợi đầy thì việc bị từ chối (future lỗi với
+ * RejectedExecutionException) để bên gửi tự lùi lại và gửi lại sau, không bao giờ chạy trên luồng gửi.
+ * Ghi lại thông lượng và độ trễ theo từng job để theo dõi khi xả backlog.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class JobExecutor {
+    TransactionTemplate transactionTemplate;
+
+    Map<String, JobStats> stats = new ConcurrentHashMap<>();
+
+    @NonFinal
+    @Value("${jobs.workers:8}")
+    int workers;
+
+    @NonFinal
+    @Value("${jobs.queue-capacity:1000}")
+    int queueCapacity;
+
+    @NonFinal
+    @Value("${jobs.chunk-size:200}")
+    int chunkSize;
+
+    @NonFinal
+    @Value("${jobs.max-attempts:3}")
+    int maxAttempts;
+
+    @NonFinal
+    @Value("${jobs.retry-backoff-ms:500}")
+    long retryBackoffMs;
+
+    @NonFinal
+    ThreadPoolExecutor pool;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        pool = new ThreadPoolExecutor(
+                Math.max(1, workers),
+                Math.max(1, workers),
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "job-worker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    // Chạy work trong một transaction riêng trên worker pool; future lỗi nếu transaction rollback
+    public CompletableFuture<Void> submit(String job, Runnable work) {
+        JobStats jobStats = stats.computeIfAbsent(job, JobStats::new);
+        long enqueuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.runAsync(
+                    () -> {
+                        long startedAt = System.nanoTime();
+                        boolean success = false;
+                        try {
+                            transactionTemplate.executeWithoutResult(tx -> work.run());
+                            success = true;
+                        } finally {
+                            jobStats.record(success, startedAt - enqueuedAt, System.nanoTime() - startedAt);
+                        }
+                    },
+                    pool);
+        } catch (RejectedExecutionException e) {
+            jobStats.rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /*
+     * Chạy work cho từng key: chia thành chunk (không lớn hơn hàng đợi), mỗi chunk chạy song song trên pool và
+     * đợi xong trước chunk sau (giới hạn số việc đang bay). Các key lỗi hoặc bị từ chối vì hàng đợi đầy được gom
+     * lại, chờ backoff rồi chạy lại, tối đa maxAttempts lượt.
+     */
+    public BatchResult runBatch(String job, List<UUID> keys, Consumer<UUID> work) {
+        long startedAt = System.nanoTime();
+        List<UUID> pending = keys;
+        int succeeded = 0;
+        int step = Math.max(1, Math.min(chunkSize, queueCapacity));
+        for (int attempt = 1; attempt <= maxAttempts && !pending.isEmpty(); attempt++) {
+            if (attempt > 1 && !sleep(retryBackoffMs << (attempt - 2))) break;
+
+            int round = attempt;
+            List<UUID> failed = Collections.synchronizedList(new ArrayList<>());
+            for (int from = 0; from < pending.size(); from += step) {
+                List<UUID> chunk = pending.subList(from, Math.min(from + step, pending.size()));
+                CompletableFuture.allOf(chunk.stream()
+                                .map(key -> submit(job, () -> work.accept(key)).exceptionally(e -> {
+                                    log.warn("Job {} failed for {} (attempt {}): {}", job, key, round, rootMessage(e));
+                                    failed.add(key);
+                                    return null;
+                                }))
+                                .toArray(CompletableFuture[]::new))
+                        .join();
+            }
+            succeeded += pending.size() - failed.size();
+            pending = failed;
+        }
+
+        BatchResult result = new BatchResult(succeeded, pending, (System.nanoTime() - startedAt) / 1_000_000);
+        if (!keys.isEmpty()) {
+            log.info(
+                    "Job {}: {} ok, {} failed in {} ms ({} bookings/s)",
+                    job,
+                    result.succeeded(),
+                    result.failed().size(),
+                    result.elapsedMs(),
+                    String.format("%.1f", result.throughputPerSecond()));
+        }
+        return result;
+    }
+
+    public List<JobStatsResponse> getStats() {
+        return stats.values().stream()
+                .map(JobStats::snapshot)
+                .sorted(Comparator.comparing(JobStatsResponse::getJob))
+                .toList();
+    }
+
+    public record BatchResult(int succeeded, List<UUID> failed, long elapsedMs) {
+        public double throughputPerSecond() {
+            return elapsedMs == 0 ? succeeded : succeeded * 1000.0 / elapsedMs;
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage();
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
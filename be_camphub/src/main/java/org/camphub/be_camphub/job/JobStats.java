@@ -0,0 +1,61 @@
+package org.camphub.be_camphub.job;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.camphub.be_camphub.dto.response.job.JobStatsResponse;
+
+// Số liệu của một loại job: đếm, độ trễ và thông lượng theo cửa sổ trượt 60 giây (mỗi giây một ô)
+class JobStats {
+    static final int WINDOW_SECONDS = 60;
+
+    final String job;
+    final LongAdder succeeded = new LongAdder();
+    final LongAdder failed = new LongAdder();
+    // bị từ chối vì hàng đợi đầy (không chạy, bên gửi tự gửi lại)
+    final LongAdder rejected = new LongAdder();
+    final LongAdder latencyNanos = new LongAdder();
+    final LongAdder queueWaitNanos = new LongAdder();
+    final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+    final AtomicLongArray slotSecond = new AtomicLongArray(WINDOW_SECONDS);
+    final AtomicLongArray slotCount = new AtomicLongArray(WINDOW_SECONDS);
+
+    JobStats(String job) {
+        this.job = job;
+    }
+
+    void record(boolean success, long queueWait, long latency) {
+        (success ? succeeded : failed).increment();
+        queueWaitNanos.add(queueWait);
+        latencyNanos.add(latency);
+        maxLatencyNanos.accumulate(latency);
+
+        long second = System.currentTimeMillis() / 1000;
+        int slot = (int) (second % WINDOW_SECONDS);
+        long seen = slotSecond.get(slot);
+        if (seen != second && slotSecond.compareAndSet(slot, seen, second)) {
+            slotCount.set(slot, 0);
+        }
+        slotCount.incrementAndGet(slot);
+    }
+
+    JobStatsResponse snapshot() {
+        long now = System.currentTimeMillis() / 1000;
+        long recent = 0;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            if (now - slotSecond.get(i) < WINDOW_SECONDS) recent += slotCount.get(i);
+        }
+        long total = succeeded.sum() + failed.sum();
+        return JobStatsResponse.builder()
+                .job(job)
+                .succeeded(succeeded.sum())
+                .failed(failed.sum())
+                .rejected(rejected.sum())
+                .throughputPerSecond((double) recent / WINDOW_SECONDS)
+                .avgLatencyMs(total == 0 ? 0 : latencyNanos.sum() / 1e6 / total)
+                .maxLatencyMs(maxLatencyNanos.get() / 1e6)
+                .avgQueueWaitMs(total == 0 ? 0 : queueWaitNanos.sum() / 1e6 / total)
+                .build();
+    }
+}
@@ -37,6 +37,7 @@ public interface AccountMapper {
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "deletedAt", ignore = true)
     @Mapping(target = "updatedAt", expression = "java(java.time.LocalDateTime.now())")
+    @Mapping(target = "coinBalance", ignore = true)
     void updateRequestToEntity(@MappingTarget Account account, AccountUpdateRequest request);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
@@ -45,6 +46,7 @@ public interface AccountMapper {
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "deletedAt", ignore = true)
     @Mapping(target = "updatedAt", expression = "java(java.time.LocalDateTime.now())")
+    @Mapping(target = "coinBalance", ignore = true)
     void patchRequestToEntity(@MappingTarget Account account, AccountPatchRequest request);
 
     AccountResponse entityToResponse(Account account);
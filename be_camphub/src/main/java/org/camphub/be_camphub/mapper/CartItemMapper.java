@@ -14,10 +14,8 @@ public interface CartItemMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "cartId", source = "cartId")
-    @Mapping(
-            target = "subtotal",
-            expression =
-                    "java(request.getPrice().multiply(new java.math.BigDecimal(request.getQuantity() * request.getRentalDays())))")
+    // subtotal do CartServiceImpl tính qua PricingEngine
+    @Mapping(target = "subtotal", ignore = true)
     CartItem creationRequestToEntity(CartItemCreationRequest request, UUID cartId);
 
     @Mapping(target = "itemName", ignore = true)
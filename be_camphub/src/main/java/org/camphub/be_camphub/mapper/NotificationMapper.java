@@ -3,6 +3,7 @@ package org.camphub.be_camphub.mapper;
 import org.camphub.be_camphub.dto.request.notification.NotificationCreationRequest;
 import org.camphub.be_camphub.dto.response.notification.NotificationResponse;
 import org.camphub.be_camphub.entity.Notification;
+import org.camphub.be_camphub.entity.NotificationOutbox;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -11,5 +12,15 @@ public interface NotificationMapper {
     @Mapping(target = "isRead", expression = "java(false)")
     Notification toEntity(NotificationCreationRequest request);
 
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "isRead", expression = "java(false)")
+    @Mapping(target = "readAt", ignore = true)
+    Notification toEntity(NotificationOutbox outbox);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "attempts", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    NotificationOutbox toOutbox(NotificationCreationRequest request);
+
     NotificationResponse toResponse(Notification entity);
 }
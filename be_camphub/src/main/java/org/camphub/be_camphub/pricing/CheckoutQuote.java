@@ -0,0 +1,48 @@
+package org.camphub.be_camphub.pricing;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Bảng giá checkout đã tính xong (đơn vị minor): mỗi dòng là một cart item được chọn kèm đơn giá lấy từ Item,
+ * đủ để tạo booking mà không cần tải lại cart/item/account. quoteId null nghĩa là tính tại chỗ, không khóa giá.
+ */
+@Value
+@Builder(toBuilder = true)
+public class CheckoutQuote {
+    String quoteId;
+    UUID lesseeId;
+    String lesseeName;
+    Instant expiresAt;
+    long totalRentalMinor;
+    long totalDepositMinor;
+    List<Line> lines;
+
+    public long getTotalMinor() {
+        return totalRentalMinor + totalDepositMinor;
+    }
+
+    @Value
+    @Builder
+    public static class Line {
+        UUID cartItemId;
+        UUID itemId;
+        String itemName;
+        UUID lessorId;
+        String lessorName;
+        int quantity;
+        LocalDate startDate;
+        LocalDate endDate;
+        long rentalDays;
+        String note;
+        long pricePerDayMinor;
+        long depositPerUnitMinor;
+        long rentalFeeMinor;
+        long depositMinor;
+    }
+}
@@ -0,0 +1,134 @@
+package org.camphub.be_camphub.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+import org.camphub.be_camphub.entity.Booking;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+
+/**
+ * Nguồn duy nhất cho mọi phép tính tiền của đơn thuê. Số tiền là long theo đơn vị nhỏ nhất (1 coin = 100 minor),
+ * mọi phép tính là số nguyên chính xác, không cấp phát và báo ArithmeticException khi tràn số.
+ * Double/BigDecimal chỉ xuất hiện ở biên (entity, ví, sổ cái) qua toMinor / toCoins / toDecimal.
+ *
+ * Quy ước: số ngày thuê = số đêm giữa ngày nhận và ngày trả (endDate - startDate), đúng với số ngày
+ * khách đã trả tiền lúc checkout; phí gia hạn tính thêm theo cùng đơn giá nên phí thuê của booking đã gia hạn
+ * = phí ban đầu + phí gia hạn. Tỉ lệ (phạt, bồi thường) quy về basis point, làm tròn nửa lên.
+ */
+public final class PricingEngine {
+    public static final int MINOR_PER_COIN = 100;
+    public static final int BPS_SCALE = 10_000;
+
+    // Trả trễ 1, 2, 3 ngày: trừ 10%, 25%, 50% tiền cọc; từ ngày thứ 4 mất toàn bộ cọc
+    static final int[] LATE_PENALTY_BPS = {0, 1_000, 2_500, 5_000};
+    public static final int FORFEIT_AFTER_LATE_DAYS = LATE_PENALTY_BPS.length;
+
+    private PricingEngine() {}
+
+    // ----------------- biên: chuyển đổi -----------------
+
+    public static long toMinor(double coins) {
+        if (Double.isNaN(coins) || Double.isInfinite(coins)) throw new AppException(ErrorCode.INVALID_AMOUNT);
+        return Math.round(coins * MINOR_PER_COIN);
+    }
+
+    public static long toMinorOrZero(Double coins) {
+        return coins == null ? 0L : toMinor(coins.doubleValue());
+    }
+
+    public static long toMinor(BigDecimal coins) {
+        return coins == null
+                ? 0L
+                : coins.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static double toCoins(long minor) {
+        return (double) minor / MINOR_PER_COIN;
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, 2);
+    }
+
+    // ----------------- phí thuê / cọc / gia hạn -----------------
+
+    public static long rentalDays(LocalDate startDate, LocalDate endDate) {
+        return endDate.toEpochDay() - startDate.toEpochDay();
+    }
+
+    public static long rentalFee(long pricePerDayMinor, int quantity, long days) {
+        requireNonNegative(pricePerDayMinor);
+        requireNonNegative(quantity);
+        requireNonNegative(days);
+        return Math.multiplyExact(Math.multiplyExact(pricePerDayMinor, quantity), days);
+    }
+
+    public static long deposit(long depositPerUnitMinor, int quantity) {
+        requireNonNegative(depositPerUnitMinor);
+        requireNonNegative(quantity);
+        return Math.multiplyExact(depositPerUnitMinor, quantity);
+    }
+
+    public static long extensionFee(long pricePerDayMinor, int quantity, int additionalDays) {
+        return rentalFee(pricePerDayMinor, quantity, additionalDays);
+    }
+
+    public static long rentalFee(Booking booking) {
+        return rentalFee(
+                toMinorOrZero(booking.getPricePerDay()),
+                quantityOf(booking),
+                rentalDays(booking.getStartDate(), booking.getEndDate()));
+    }
+
+    public static long deposit(Booking booking) {
+        return deposit(toMinorOrZero(booking.getDepositAmount()), quantityOf(booking));
+    }
+
+    // Tổng khách đã trả vào ví hệ thống cho booking (thuê + cọc, gồm cả các lần gia hạn đã duyệt)
+    public static long totalPaid(Booking booking) {
+        return Math.addExact(rentalFee(booking), deposit(booking));
+    }
+
+    public static long extensionFee(Booking booking, int additionalDays) {
+        return extensionFee(toMinorOrZero(booking.getPricePerDay()), quantityOf(booking), additionalDays);
+    }
+
+    // ----------------- phạt / bồi thường (phần bị giữ lại từ cọc) -----------------
+
+    public static int toBps(double rate) {
+        if (Double.isNaN(rate)) throw new AppException(ErrorCode.INVALID_AMOUNT);
+        long bps = Math.round(rate * BPS_SCALE);
+        return (int) Math.max(0, Math.min(BPS_SCALE, bps));
+    }
+
+    // amount * bps / 10000, làm tròn nửa lên
+    public static long applyRate(long amountMinor, int rateBps) {
+        requireNonNegative(amountMinor);
+        if (rateBps < 0 || rateBps > BPS_SCALE) throw new AppException(ErrorCode.INVALID_AMOUNT);
+        return Math.addExact(Math.multiplyExact(amountMinor, rateBps), BPS_SCALE / 2) / BPS_SCALE;
+    }
+
+    public static int latePenaltyBps(long daysLate) {
+        if (daysLate <= 0) return 0;
+        return daysLate < FORFEIT_AFTER_LATE_DAYS ? LATE_PENALTY_BPS[(int) daysLate] : BPS_SCALE;
+    }
+
+    public static long latePenalty(long depositMinor, long daysLate) {
+        return applyRate(depositMinor, latePenaltyBps(daysLate));
+    }
+
+    // Bồi thường hư hỏng theo tỉ lệ của loại hư hỏng, không vượt quá tiền cọc
+    public static long compensation(long depositMinor, double rate) {
+        return applyRate(depositMinor, toBps(rate));
+    }
+
+    private static int quantityOf(Booking booking) {
+        return booking.getQuantity() != null ? booking.getQuantity() : 1;
+    }
+
+    private static void requireNonNegative(long value) {
+        if (value < 0) throw new AppException(ErrorCode.INVALID_AMOUNT);
+    }
+}
@@ -1,5 +1,6 @@
 package org.camphub.be_camphub.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,4 +23,6 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
 
     @Query("SELECT a FROM Account a WHERE a.userType = org.camphub.be_camphub.enums.UserType.ADMIN")
     List<Account> findAllAdmins();
+
+    List<Account> findAllByUpdatedAtGreaterThanEqual(LocalDateTime since);
 }
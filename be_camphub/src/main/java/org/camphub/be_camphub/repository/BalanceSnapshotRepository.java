@@ -0,0 +1,59 @@
+package org.camphub.be_camphub.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, UUID> {
+    Optional<BalanceSnapshot> findFirstByAccountIdOrderByAsOfDesc(UUID accountId);
+
+    @Query("SELECT MAX(s.txHorizon) FROM BalanceSnapshot s")
+    Optional<Long> findLatestTxHorizon();
+
+    // snapshot mới nhất của từng tài khoản
+    @Query("SELECT s FROM BalanceSnapshot s WHERE s.asOf = "
+            + "(SELECT MAX(s2.asOf) FROM BalanceSnapshot s2 WHERE s2.accountId = s.accountId)")
+    List<BalanceSnapshot> findLatestPerAccount();
+
+    // Chuyển snapshot cũ (chia theo created_at) sang mốc transaction: snapshot mới của mọi tài khoản có snapshot hoặc
+    // bút toán = snapshot cũ gần nhất + bút toán từ asOf của nó có tx_id < :txHorizon
+    @Modifying
+    @Query(
+            value =
+                    """
+	INSERT INTO balance_snapshots (id, account_id, balance_minor, balance, as_of, created_at, tx_horizon)
+	SELECT gen_random_uuid(), a.account_id,
+		COALESCE(s.balance_minor, 0) + COALESCE((
+			SELECT SUM(e.amount_minor) FROM ledger_entries e
+			WHERE e.account_id = a.account_id AND e.tx_id < :txHorizon
+				AND (s.as_of IS NULL OR e.created_at >= s.as_of)), 0),
+		0, now(), now(), :txHorizon
+	FROM (SELECT account_id FROM balance_snapshots UNION SELECT account_id FROM ledger_entries) a
+	LEFT JOIN LATERAL (
+		SELECT bs.balance_minor, bs.as_of FROM balance_snapshots bs
+		WHERE bs.account_id = a.account_id ORDER BY bs.as_of DESC LIMIT 1) s ON true
+	""",
+            nativeQuery = true)
+    int migrateLegacySnapshots(@Param("txHorizon") long txHorizon);
+
+    boolean existsByTxHorizonIsNotNull();
+
+    // Chuyển số dư coin (double) cũ sang balance_minor; chạy lại chỉ chạm các dòng chưa chuyển
+    @Modifying
+    @Query(
+            value =
+                    """
+	UPDATE balance_snapshots SET balance_minor = CAST(ROUND(CAST(balance AS numeric) * 100) AS bigint)
+	WHERE balance_minor IS NULL
+	""",
+            nativeQuery = true)
+    int migrateLegacyBalances();
+}
@@ -0,0 +1,25 @@
+package org.camphub.be_camphub.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.BookingEvent;
+import org.camphub.be_camphub.enums.BookingTrigger;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BookingEventRepository extends JpaRepository<BookingEvent, UUID> {
+    List<BookingEvent> findByBookingIdOrderByCreatedAtAsc(UUID bookingId);
+
+    // Đọc luồng sự kiện theo seq, tiếp tục từ vị trí read model đã xử lý
+    List<BookingEvent> findBySeqGreaterThanOrderBySeqAsc(long afterSeq, Pageable pageable);
+
+    @Query("SELECT MAX(e.createdAt) FROM BookingEvent e WHERE e.bookingId = :bookingId AND e.trigger = :trigger")
+    Optional<LocalDateTime> findLatestAt(@Param("bookingId") UUID bookingId, @Param("trigger") BookingTrigger trigger);
+}
@@ -1,12 +1,22 @@
 package org.camphub.be_camphub.repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import org.camphub.be_camphub.entity.Booking;
 import org.camphub.be_camphub.enums.BookingStatus;
+import org.camphub.be_camphub.repository.projection.BookingListView;
+import org.camphub.be_camphub.repository.projection.BookingTransitionView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, UUID> {
@@ -17,4 +27,140 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
     List<Booking> findByStatus(BookingStatus status);
 
     List<Booking> findAllByStatus(BookingStatus status);
+
+    // Đổi trạng thái chỉ khi booking vẫn đang ở trạng thái mong đợi; trả về 0 nếu đã bị luồng khác đổi trước
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :next, b.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE b.id = :id AND b.status = :expected")
+    int compareAndSetStatus(
+            @Param("id") UUID id, @Param("expected") BookingStatus expected, @Param("next") BookingStatus next);
+
+    // đánh dấu booking đã trả lịch giữ chỗ; 0 = đã trả trước đó (release chỉ được trừ bộ đếm một lần)
+    @Modifying
+    @Query("UPDATE Booking b SET b.reservationReleasedAt = CURRENT_TIMESTAMP "
+            + "WHERE b.id = :id AND b.reservationReleasedAt IS NULL")
+    int markReservationReleased(@Param("id") UUID id);
+
+    // đánh dấu mọi booking cũ đã được chuyển sang mô hình giữ chỗ theo ngày (chạy sau backfill)
+    @Modifying
+    @Query("UPDATE Booking b SET b.reservedPerDay = true WHERE b.reservedPerDay IS NULL")
+    int markLegacyReservationsMigrated();
+
+    // đánh dấu mọi booking đã giữ chỗ theo khoảng nửa mở [startDate, endDate) (chạy sau trimInclusiveEndDays)
+    @Modifying
+    @Query("UPDATE Booking b SET b.reservedEndExclusive = true WHERE b.reservedEndExclusive IS NULL")
+    int markReservationsEndExclusive();
+
+    /*
+     * Chuyển các booking của chủ :lessorId đang ở :fromStatus sang :toStatus trong một câu lệnh,
+     * trả về id các dòng thực sự được chuyển (dòng đã bị luồng khác đổi trạng thái thì không có trong kết quả).
+     */
+    @Transactional
+    @Query(
+            value =
+                    """
+	UPDATE bookings
+	SET status = :toStatus, updated_at = now()
+	WHERE id IN (:ids) AND lessor_id = :lessorId AND status = :fromStatus
+	RETURNING id
+	""",
+            nativeQuery = true)
+    List<UUID> transitionOwned(
+            @Param("ids") Collection<UUID> ids,
+            @Param("lessorId") UUID lessorId,
+            @Param("fromStatus") String fromStatus,
+            @Param("toStatus") String toStatus);
+
+    // Trang keyset (createdAt desc, id desc) các booking mình đi thuê, kèm tên item/hai bên và cờ đã review
+    @Query(
+            """
+	select new org.camphub.be_camphub.repository.projection.BookingListView(
+		b, i.name, lessor.lastname, lessor.firstname, lessee.lastname, lessee.firstname,
+		case when exists (
+		select 1 from Review r where r.bookingId = b.id and r.reviewerId = b.lesseeId
+		) then true else false end)
+	from Booking b
+	join Item i on i.id = b.itemId
+	join Account lessor on lessor.id = b.lessorId
+	join Account lessee on lessee.id = b.lesseeId
+	where b.lesseeId = :userId
+	and b.status in :statuses
+	and (b.createdAt < :cursorAt or (b.createdAt = :cursorAt and b.id < :cursorId))
+	order by b.createdAt desc, b.id desc
+	""")
+    List<BookingListView> findLesseePage(
+            @Param("userId") UUID lesseeId,
+            @Param("statuses") Collection<BookingStatus> statuses,
+            @Param("cursorAt") LocalDateTime cursorAt,
+            @Param("cursorId") UUID cursorId,
+            Pageable pageable);
+
+    // Như trên nhưng cho các booking mình cho thuê
+    @Query(
+            """
+	select new org.camphub.be_camphub.repository.projection.BookingListView(
+		b, i.name, lessor.lastname, lessor.firstname, lessee.lastname, lessee.firstname,
+		case when exists (
+		select 1 from Review r where r.bookingId = b.id and r.reviewerId = b.lesseeId
+		) then true else false end)
+	from Booking b
+	join Item i on i.id = b.itemId
+	join Account lessor on lessor.id = b.lessorId
+	join Account lessee on lessee.id = b.lesseeId
+	where b.lessorId = :userId
+	and b.status in :statuses
+	and (b.createdAt < :cursorAt or (b.createdAt = :cursorAt and b.id < :cursorId))
+	order by b.createdAt desc, b.id desc
+	""")
+    List<BookingListView> findLessorPage(
+            @Param("userId") UUID lessorId,
+            @Param("statuses") Collection<BookingStatus> statuses,
+            @Param("cursorAt") LocalDateTime cursorAt,
+            @Param("cursorId") UUID cursorId,
+            Pageable pageable);
+
+    /*
+     * Chuyển tối đa :limit booking đang ở :fromStatus có end_date <= :threshold sang :toStatus trong một câu lệnh.
+     * Dòng đang bị transaction khác khóa thì bỏ qua (lượt sau xử lý), nên nhiều instance chạy song song không đụng nhau.
+     */
+    @Transactional
+    @Query(
+            value =
+                    """
+	UPDATE bookings b
+	SET status = :toStatus, updated_at = now()
+	WHERE b.status = :fromStatus
+	AND b.id IN (
+		SELECT id FROM bookings
+		WHERE status = :fromStatus AND end_date <= :threshold
+		ORDER BY end_date, id
+		LIMIT :limit
+		FOR UPDATE SKIP LOCKED)
+	RETURNING b.id AS "id", b.item_id AS "itemId", b.lessee_id AS "lesseeId", b.lessor_id AS "lessorId"
+	""",
+            nativeQuery = true)
+    List<BookingTransitionView> transitionDue(
+            @Param("fromStatus") String fromStatus,
+            @Param("toStatus") String toStatus,
+            @Param("threshold") LocalDate threshold,
+            @Param("limit") int limit);
+
+    // Trang keyset (end_date, id) các booking :status có end_date <= :threshold, dùng index (status, end_date)
+    @Query(
+            """
+	select b from Booking b
+	where b.status = :status and b.endDate <= :threshold
+	and (b.endDate > :afterEndDate or (b.endDate = :afterEndDate and b.id > :afterId))
+	order by b.endDate, b.id
+	""")
+    List<Booking> findDueAfter(
+            @Param("status") BookingStatus status,
+            @Param("threshold") LocalDate threshold,
+            @Param("afterEndDate") LocalDate afterEndDate,
+            @Param("afterId") UUID afterId,
+            Pageable pageable);
+
+    // [itemId, số booking] của mọi item từng được thuê; dùng làm độ phổ biến cho gợi ý tìm kiếm
+    @Query("SELECT b.itemId, COUNT(b) FROM Booking b GROUP BY b.itemId")
+    List<Object[]> countPerItem();
 }
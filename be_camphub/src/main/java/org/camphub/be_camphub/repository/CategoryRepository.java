@@ -1,5 +1,6 @@
 package org.camphub.be_camphub.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,4 +14,6 @@ public interface CategoryRepository extends JpaRepository<Category, UUID> {
     List<Category> findAllByIsDeletedFalse();
 
     Optional<Category> findByIdAndIsDeletedFalse(UUID id);
+
+    List<Category> findAllByUpdatedAtGreaterThanEqual(LocalDateTime since);
 }
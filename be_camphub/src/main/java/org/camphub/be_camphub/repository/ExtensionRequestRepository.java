@@ -7,6 +7,7 @@ import java.util.UUID;
 import org.camphub.be_camphub.entity.ExtensionRequest;
 import org.camphub.be_camphub.enums.ExtensionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -17,6 +18,12 @@ public interface ExtensionRequestRepository extends JpaRepository<ExtensionReque
 
     boolean existsByBookingIdAndStatus(UUID bookingId, ExtensionStatus status);
 
+    // Đổi trạng thái chỉ khi yêu cầu vẫn ở trạng thái mong đợi; trả về 0 nếu đã bị luồng khác xử lý trước
+    @Modifying
+    @Query("UPDATE ExtensionRequest er SET er.status = :next WHERE er.id = :id AND er.status = :expected")
+    int compareAndSetStatus(
+            @Param("id") UUID id, @Param("expected") ExtensionStatus expected, @Param("next") ExtensionStatus next);
+
     @Query(
             """
 	SELECT er FROM ExtensionRequest er
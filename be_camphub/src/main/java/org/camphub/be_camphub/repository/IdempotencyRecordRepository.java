@@ -0,0 +1,80 @@
+package org.camphub.be_camphub.repository;
+
+import java.util.Optional;
+
+import org.camphub.be_camphub.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    // Giữ key cho request này nếu key mới, đã hết hạn, hoặc lần chạy trước bỏ dở quá locked_until mà chưa commit gì.
+    // Chiếm key thì đổi lock_token: markCommitted của lần chạy cũ không còn khớp nên transaction của nó bị rollback.
+    // Dòng chưa có lock_token (ghi trước khi có committed_at) không biết đã commit hay chưa nên chỉ chờ hết hạn.
+    @Transactional
+    @Query(
+            value =
+                    """
+	INSERT INTO idempotency_keys (id, fingerprint, lock_token, locked_until, expires_at, created_at)
+	VALUES (:id, :fingerprint, :token, now() + make_interval(secs => :lockSeconds),
+		now() + make_interval(secs => :ttlSeconds), now())
+	ON CONFLICT (id) DO UPDATE
+	SET fingerprint = EXCLUDED.fingerprint, lock_token = EXCLUDED.lock_token, locked_until = EXCLUDED.locked_until,
+	expires_at = EXCLUDED.expires_at, created_at = EXCLUDED.created_at, committed_at = NULL,
+	status_code = NULL, content_type = NULL, response_body = NULL
+	WHERE idempotency_keys.expires_at < now()
+	OR (idempotency_keys.status_code IS NULL AND idempotency_keys.committed_at IS NULL
+		AND idempotency_keys.lock_token IS NOT NULL AND idempotency_keys.locked_until < now())
+	RETURNING id
+	""",
+            nativeQuery = true)
+    Optional<String> tryStart(
+            @Param("id") String id,
+            @Param("fingerprint") String fingerprint,
+            @Param("token") String token,
+            @Param("lockSeconds") double lockSeconds,
+            @Param("ttlSeconds") double ttlSeconds);
+
+    // Chạy trong transaction nghiệp vụ ngay trước commit; 0 = key đã bị lần thử lại chiếm, phải rollback
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(
+            """
+	UPDATE IdempotencyRecord r SET r.committedAt = COALESCE(r.committedAt, CURRENT_TIMESTAMP)
+	WHERE r.id = :id AND r.lockToken = :token
+	""")
+    int markCommitted(@Param("id") String id, @Param("token") String token);
+
+    @Transactional
+    @Modifying
+    @Query(
+            """
+	UPDATE IdempotencyRecord r
+	SET r.statusCode = :statusCode, r.contentType = :contentType, r.responseBody = :body
+	WHERE r.id = :id AND r.lockToken = :token AND r.fingerprint = :fingerprint
+	""")
+    int complete(
+            @Param("id") String id,
+            @Param("token") String token,
+            @Param("fingerprint") String fingerprint,
+            @Param("statusCode") int statusCode,
+            @Param("contentType") String contentType,
+            @Param("body") byte[] body);
+
+    // Request lỗi chưa commit gì: trả key để lần thử lại được chạy thật; 0 = đã commit (hoặc bị chiếm), giữ lại
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r "
+            + "WHERE r.id = :id AND r.lockToken = :token AND r.statusCode IS NULL AND r.committedAt IS NULL")
+    int release(@Param("id") String id, @Param("token") String token);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE expires_at < now()", nativeQuery = true)
+    int deleteExpired();
+}
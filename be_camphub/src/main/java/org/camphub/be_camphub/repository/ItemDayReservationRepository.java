@@ -0,0 +1,130 @@
+package org.camphub.be_camphub.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.ItemDayReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ItemDayReservationRepository extends JpaRepository<ItemDayReservation, UUID> {
+    List<ItemDayReservation> findAllByItemIdAndRentalDateBetweenOrderByRentalDate(
+            UUID itemId, LocalDate from, LocalDate to);
+
+    List<ItemDayReservation> findAllByRentalDateBetween(LocalDate from, LocalDate to);
+
+    // khoảng nửa mở [from, to)
+    @Query("SELECT COALESCE(MAX(r.reserved), 0) FROM ItemDayReservation r "
+            + "WHERE r.itemId = :itemId AND r.rentalDate >= :from AND r.rentalDate < :to")
+    int findMaxReserved(@Param("itemId") UUID itemId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // id các item có lịch giữ chỗ đổi từ :since (kể cả do node khác ghi)
+    @Query("SELECT DISTINCT r.itemId FROM ItemDayReservation r WHERE r.updatedAt >= :since")
+    List<UUID> findItemIdsUpdatedSince(@Param("since") LocalDateTime since);
+
+    // Giữ chỗ cho mọi ngày trong khoảng nửa mở [from, to) bằng một câu lệnh duy nhất: ngày to là ngày trả đồ,
+    // không bị giữ nên đơn sau có thể nhận đồ đúng ngày đó (khớp với PricingEngine.rentalDays = to - from đêm).
+    // Capacity là tổng kho đọc ngay trong câu lệnh nên không bị cũ khi kho vừa bị trừ (mất đồ).
+    // Ngày nào vượt capacity sẽ không được cập nhật -> số dòng trả về < số ngày thì caller phải rollback.
+    @Modifying
+    @Query(
+            value =
+                    """
+	INSERT INTO item_day_reservations (id, item_id, rental_date, reserved, updated_at)
+	SELECT gen_random_uuid(), :itemId, CAST(d AS date), :quantity, now()
+	FROM generate_series(CAST(:from AS date), CAST(:to AS date) - 1, interval '1 day') AS d
+	WHERE :quantity <= (SELECT i.quantity FROM items i WHERE i.id = :itemId)
+	ON CONFLICT (item_id, rental_date) DO UPDATE
+	SET reserved = item_day_reservations.reserved + EXCLUDED.reserved, updated_at = EXCLUDED.updated_at
+	WHERE item_day_reservations.reserved + EXCLUDED.reserved
+		<= (SELECT i.quantity FROM items i WHERE i.id = item_day_reservations.item_id)
+	""",
+            nativeQuery = true)
+    int reserveRange(
+            @Param("itemId") UUID itemId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to,
+            @Param("quantity") int quantity);
+
+    // trả chỗ đã giữ trong khoảng nửa mở [from, to), cùng quy ước với reserveRange
+    @Modifying
+    @Query(
+            value =
+                    """
+	UPDATE item_day_reservations
+	SET reserved = GREATEST(reserved - :quantity, 0), updated_at = now()
+	WHERE item_id = :itemId AND rental_date >= :from AND rental_date < :to
+	""",
+            nativeQuery = true)
+    int releaseRange(
+            @Param("itemId") UUID itemId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to,
+            @Param("quantity") int quantity);
+
+    // ---- chuyển booking cũ (trừ thẳng items.quantity lúc checkout) sang giữ chỗ theo ngày ----
+
+    // trả lại kho đã bị trừ cho các booking cũ còn đang giữ đồ
+    @Modifying
+    @Query(
+            value =
+                    """
+	UPDATE items i
+	SET quantity = i.quantity + s.qty, updated_at = now()
+	FROM (
+		SELECT b.item_id, SUM(b.quantity) AS qty
+		FROM bookings b
+		WHERE b.reserved_per_day IS NULL AND b.status IN (:statuses)
+		GROUP BY b.item_id
+	) s
+	WHERE i.id = s.item_id
+	""",
+            nativeQuery = true)
+    int restoreLegacyStock(@Param("statuses") Collection<String> statuses);
+
+    // giữ chỗ cho đúng các ngày của booking cũ; không kiểm tra capacity vì đơn đã thanh toán từ trước
+    @Modifying
+    @Query(
+            value =
+                    """
+	INSERT INTO item_day_reservations (id, item_id, rental_date, reserved, updated_at)
+	SELECT gen_random_uuid(), b.item_id, CAST(d AS date), SUM(b.quantity), now()
+	FROM bookings b,
+		generate_series(CAST(b.start_date AS date), CAST(b.end_date AS date) - 1, interval '1 day') AS d
+	WHERE b.reserved_per_day IS NULL AND b.status IN (:statuses)
+		AND b.start_date IS NOT NULL AND b.end_date IS NOT NULL
+	GROUP BY b.item_id, CAST(d AS date)
+	ON CONFLICT (item_id, rental_date) DO UPDATE
+	SET reserved = item_day_reservations.reserved + EXCLUDED.reserved, updated_at = EXCLUDED.updated_at
+	""",
+            nativeQuery = true)
+    int backfillLegacyReservations(@Param("statuses") Collection<String> statuses);
+
+    // booking giữ chỗ trước khi chuyển sang khoảng nửa mở còn giữ cả ngày trả đồ: trả lại đúng ngày end_date đó.
+    // Chỉ chạm booking reserved_end_exclusive IS NULL chưa trả lịch, caller đánh dấu ngay sau trong cùng transaction.
+    @Modifying
+    @Query(
+            value =
+                    """
+	UPDATE item_day_reservations r
+	SET reserved = GREATEST(r.reserved - s.qty, 0), updated_at = now()
+	FROM (
+		SELECT b.item_id, b.end_date, SUM(b.quantity) AS qty
+		FROM bookings b
+		WHERE b.reserved_per_day = true AND b.reserved_end_exclusive IS NULL
+			AND b.reservation_released_at IS NULL AND b.status IN (:statuses)
+			AND b.start_date IS NOT NULL AND b.end_date IS NOT NULL
+		GROUP BY b.item_id, b.end_date
+	) s
+	WHERE r.item_id = s.item_id AND r.rental_date = s.end_date
+	""",
+            nativeQuery = true)
+    int trimInclusiveEndDays(@Param("statuses") Collection<String> statuses);
+}
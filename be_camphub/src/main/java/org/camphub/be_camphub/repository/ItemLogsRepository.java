@@ -1,10 +1,13 @@
 package org.camphub.be_camphub.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 import org.camphub.be_camphub.entity.ItemLog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -14,4 +17,8 @@ public interface ItemLogsRepository extends JpaRepository<ItemLog, UUID> {
     List<ItemLog> findAllByItemIdOrderByCreatedAtDesc(UUID itemId);
 
     List<ItemLog> findAllByAccountIdOrderByCreatedAtDesc(UUID accountId);
+
+    // id các item có thao tác được ghi log từ :since, dùng để replay sau khi nạp snapshot danh mục
+    @Query("SELECT DISTINCT l.itemId FROM ItemLog l WHERE l.createdAt >= :since")
+    List<UUID> findItemIdsLoggedSince(@Param("since") LocalDateTime since);
 }
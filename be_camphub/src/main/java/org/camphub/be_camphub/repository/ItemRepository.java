@@ -1,13 +1,109 @@
 package org.camphub.be_camphub.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.repository.projection.ItemListView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, UUID> {
     List<Item> findAllByOwnerId(UUID ownerId);
+
+    List<Item> findAllByStatus(ItemStatus status);
+
+    List<Item> findAllByStatusIn(Collection<ItemStatus> statuses);
+
+    @Query("SELECT i.id FROM Item i WHERE i.updatedAt >= :since")
+    List<UUID> findIdsUpdatedSince(@Param("since") LocalDateTime since);
+
+    boolean existsByIdInAndStatusIn(Collection<UUID> ids, Collection<ItemStatus> statuses);
+
+    // Trang keyset (createdAt desc, id desc), kèm thông tin chủ và tên danh mục; index (status, created_at, id)
+    @Query(
+            """
+	select new org.camphub.be_camphub.repository.projection.ItemListView(
+		i, o.lastname, o.firstname, o.avatar, o.trustScore, c.name)
+	from Item i
+	left join Account o on o.id = i.ownerId
+	left join Category c on c.id = i.categoryId
+	where i.status in :statuses
+	and (:categoryId is null or i.categoryId = :categoryId)
+	and (i.createdAt < :cursorAt or (i.createdAt = :cursorAt and i.id < :cursorId))
+	order by i.createdAt desc, i.id desc
+	""")
+    List<ItemListView> findPageNewest(
+            @Param("statuses") Collection<ItemStatus> statuses,
+            @Param("categoryId") UUID categoryId,
+            @Param("cursorAt") LocalDateTime cursorAt,
+            @Param("cursorId") UUID cursorId,
+            Pageable pageable);
+
+    // Trang keyset (pricePerDay asc, id asc); item chưa có giá không có thứ tự theo giá nên không nằm trong danh sách
+    @Query(
+            """
+	select new org.camphub.be_camphub.repository.projection.ItemListView(
+		i, o.lastname, o.firstname, o.avatar, o.trustScore, c.name)
+	from Item i
+	left join Account o on o.id = i.ownerId
+	left join Category c on c.id = i.categoryId
+	where i.status in :statuses
+	and (:categoryId is null or i.categoryId = :categoryId)
+	and (i.pricePerDay > :cursorPrice or (i.pricePerDay = :cursorPrice and i.id > :cursorId))
+	order by i.pricePerDay asc, i.id asc
+	""")
+    List<ItemListView> findPageByPriceAsc(
+            @Param("statuses") Collection<ItemStatus> statuses,
+            @Param("categoryId") UUID categoryId,
+            @Param("cursorPrice") double cursorPrice,
+            @Param("cursorId") UUID cursorId,
+            Pageable pageable);
+
+    // Như trên, (pricePerDay desc, id desc)
+    @Query(
+            """
+	select new org.camphub.be_camphub.repository.projection.ItemListView(
+		i, o.lastname, o.firstname, o.avatar, o.trustScore, c.name)
+	from Item i
+	left join Account o on o.id = i.ownerId
+	left join Category c on c.id = i.categoryId
+	where i.status in :statuses
+	and (:categoryId is null or i.categoryId = :categoryId)
+	and (i.pricePerDay < :cursorPrice or (i.pricePerDay = :cursorPrice and i.id < :cursorId))
+	order by i.pricePerDay desc, i.id desc
+	""")
+    List<ItemListView> findPageByPriceDesc(
+            @Param("statuses") Collection<ItemStatus> statuses,
+            @Param("categoryId") UUID categoryId,
+            @Param("cursorPrice") double cursorPrice,
+            @Param("cursorId") UUID cursorId,
+            Pageable pageable);
+
+    // Cập nhật trạng thái bằng một câu UPDATE, không đọc-sửa-ghi qua entity
+    @Modifying
+    @Query("UPDATE Item i SET i.status = :status, i.updatedAt = CURRENT_TIMESTAMP, "
+            + "i.version = COALESCE(i.version, 0) + 1 WHERE i.id = :id")
+    int updateStatus(@Param("id") UUID id, @Param("status") ItemStatus status);
+
+    // Trừ kho các đơn vị bị mất (không âm) và chuyển trạng thái theo số lượng còn lại, nguyên tử trong DB
+    @Modifying
+    @Query("UPDATE Item i SET "
+            + "i.quantity = CASE WHEN i.quantity > :lost THEN i.quantity - :lost ELSE 0 END, "
+            + "i.status = CASE WHEN i.quantity > :lost THEN :inStock ELSE :outOfStock END, "
+            + "i.updatedAt = CURRENT_TIMESTAMP, i.version = COALESCE(i.version, 0) + 1 "
+            + "WHERE i.id = :id")
+    int writeOffQuantity(
+            @Param("id") UUID id,
+            @Param("lost") int lost,
+            @Param("inStock") ItemStatus inStock,
+            @Param("outOfStock") ItemStatus outOfStock);
 }
@@ -0,0 +1,74 @@
+package org.camphub.be_camphub.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.camphub.be_camphub.entity.JobLease;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Lease dùng đồng hồ của Postgres (now()) nên không phụ thuộc lệch giờ giữa các node.
+ * Mọi thao tác chạy trong transaction riêng: lease phải hiển thị với node khác ngay, kể cả khi được gọi
+ * từ bên trong một transaction nghiệp vụ dài.
+ */
+@Repository
+public interface JobLeaseRepository extends org.springframework.data.repository.Repository<JobLease, String> {
+    // Giành lease nếu chưa ai giữ, đã hết hạn hoặc chính owner đang giữ; rỗng nghĩa là node khác đang giữ
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(
+            value =
+                    """
+	INSERT INTO job_leases (name, owner, expires_at, acquired_at)
+	VALUES (:name, :owner, now() + make_interval(secs => :ttlSeconds), now())
+	ON CONFLICT (name) DO UPDATE
+	SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at,
+	acquired_at = CASE WHEN job_leases.owner = EXCLUDED.owner AND job_leases.expires_at >= now()
+			THEN job_leases.acquired_at ELSE EXCLUDED.acquired_at END
+	WHERE job_leases.expires_at < now() OR job_leases.owner = EXCLUDED.owner
+	RETURNING owner
+	""",
+            nativeQuery = true)
+    Optional<String> tryAcquire(
+            @Param("name") String name, @Param("owner") String owner, @Param("ttlSeconds") double ttlSeconds);
+
+    // Heartbeat: gia hạn các lease owner vẫn còn giữ, trả về tên các lease gia hạn được
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(
+            value =
+                    """
+	UPDATE job_leases
+	SET expires_at = now() + make_interval(secs => :ttlSeconds)
+	WHERE owner = :owner AND name IN (:names) AND expires_at >= now()
+	RETURNING name
+	""",
+            nativeQuery = true)
+    List<String> renew(
+            @Param("owner") String owner,
+            @Param("names") Collection<String> names,
+            @Param("ttlSeconds") double ttlSeconds);
+
+    // Trả lease; holdSeconds > 0 giữ nó tới acquired_at + holdSeconds để node khác không chạy lại cùng một đợt
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(
+            value =
+                    """
+	UPDATE job_leases
+	SET expires_at = acquired_at + make_interval(secs => :holdSeconds)
+	WHERE name = :name AND owner = :owner
+	""",
+            nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("holdSeconds") double holdSeconds);
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    @Query(
+            value = "SELECT count(*) FROM job_leases WHERE name LIKE :prefix || '%' AND expires_at >= now()",
+            nativeQuery = true)
+    long countLive(@Param("prefix") String prefix);
+}
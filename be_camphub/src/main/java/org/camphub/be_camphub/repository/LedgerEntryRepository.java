@@ -0,0 +1,82 @@
+package org.camphub.be_camphub.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, UUID> {
+    List<LedgerEntry> findAllByTransactionId(UUID transactionId);
+
+    // cộng số nguyên đơn vị nhỏ nhất trong DB
+    @Query("SELECT COALESCE(SUM(e.amountMinor), 0L) FROM LedgerEntry e "
+            + "WHERE e.accountId = :accountId AND e.txId >= :txHorizon")
+    Long sumFrom(@Param("accountId") UUID accountId, @Param("txHorizon") long txHorizon);
+
+    // chỉ cho snapshot cũ chưa có txHorizon
+    @Query("SELECT COALESCE(SUM(e.amountMinor), 0L) FROM LedgerEntry e "
+            + "WHERE e.accountId = :accountId AND e.createdAt >= :since")
+    Long sumSince(@Param("accountId") UUID accountId, @Param("since") LocalDateTime since);
+
+    @Query("SELECT COALESCE(SUM(e.amountMinor), 0L) FROM LedgerEntry e WHERE e.accountId = :accountId")
+    Long sumAll(@Param("accountId") UUID accountId);
+
+    // [accountId, tổng biến động] của các tài khoản có bút toán với tx_id trong [from, to)
+    @Query("SELECT e.accountId, SUM(e.amountMinor) FROM LedgerEntry e "
+            + "WHERE e.txId >= :from AND e.txId < :to GROUP BY e.accountId")
+    List<Object[]> sumByAccountInTxRange(@Param("from") long from, @Param("to") long to);
+
+    // [accountId, tổng] các bút toán có tx_id >= from mà transaction hiện tại nhìn thấy
+    @Query("SELECT e.accountId, SUM(e.amountMinor) FROM LedgerEntry e " + "WHERE e.txId >= :from GROUP BY e.accountId")
+    List<Object[]> sumByAccountFrom(@Param("from") long from);
+
+    // Transaction nhỏ nhất còn đang chạy: mọi transaction có id nhỏ hơn đã commit/rollback xong,
+    // nên tập bút toán có tx_id dưới mốc này không còn thay đổi
+    @Query(value = "SELECT txid_snapshot_xmin(txid_current_snapshot())", nativeQuery = true)
+    long currentTxHorizon();
+
+    // Chuyển số tiền coin (double) cũ sang amount_minor; chạy lại chỉ chạm các dòng chưa chuyển
+    // (kể cả bút toán do node bản cũ ghi trong lúc rolling deploy)
+    @Modifying
+    @Query(
+            value =
+                    """
+	UPDATE ledger_entries SET amount_minor = CAST(ROUND(CAST(amount AS numeric) * 100) AS bigint)
+	WHERE amount_minor IS NULL
+	""",
+            nativeQuery = true)
+    int migrateLegacyAmounts();
+
+    /**
+     * [accountId, số dư ví minor, số dư sổ cái minor] của các tài khoản mà coin_balance (cộng các shard với ví
+     * hệ thống) khác số dư theo sổ cái. Gọi trong REPEATABLE READ để hai phía đọc cùng một snapshot DB.
+     */
+    @Query(
+            value =
+                    """
+	SELECT w.account_id, w.wallet_minor, w.ledger_minor FROM (
+		SELECT a.id AS account_id,
+			CAST(ROUND(CAST(COALESCE(a.coin_balance, 0) AS numeric) * 100) AS bigint)
+				+ CASE WHEN a.username = 'SYSTEM_WALLET'
+					THEN (SELECT COALESCE(SUM(sh.balance_minor), 0) FROM system_wallet_shards sh) ELSE 0 END
+				AS wallet_minor,
+			COALESCE(s.balance_minor, 0) + COALESCE((
+				SELECT SUM(e.amount_minor) FROM ledger_entries e
+				WHERE e.account_id = a.id AND e.tx_id >= COALESCE(s.tx_horizon, 0)), 0) AS ledger_minor
+		FROM accounts a
+		LEFT JOIN LATERAL (
+			SELECT bs.balance_minor, bs.tx_horizon FROM balance_snapshots bs
+			WHERE bs.account_id = a.id ORDER BY bs.as_of DESC LIMIT 1) s ON true
+	) w
+	WHERE w.wallet_minor <> w.ledger_minor
+	""",
+            nativeQuery = true)
+    List<Object[]> findWalletLedgerMismatches();
+}
@@ -0,0 +1,118 @@
+package org.camphub.be_camphub.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.LifecycleTimer;
+import org.camphub.be_camphub.enums.TimerType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface LifecycleTimerRepository extends JpaRepository<LifecycleTimer, UUID> {
+    // Đặt (hoặc dời) hạn chót của (type, reference_id), trả về id của dòng timer.
+    // Shard chỉ tính trong SQL, cùng công thức với các câu backfill bên dưới
+    @Transactional
+    @Query(
+            value =
+                    """
+	INSERT INTO lifecycle_timers (id, type, reference_id, due_at, attempts, shard, created_at)
+	VALUES (gen_random_uuid(), :type, :referenceId, :dueAt, 0,
+	mod(hashtext(CAST(:referenceId AS text)) & 2147483647, :shards), now())
+	ON CONFLICT (type, reference_id) DO UPDATE SET due_at = EXCLUDED.due_at, attempts = 0
+	RETURNING id
+	""",
+            nativeQuery = true)
+    UUID upsert(
+            @Param("type") String type,
+            @Param("referenceId") UUID referenceId,
+            @Param("dueAt") LocalDateTime dueAt,
+            @Param("shards") int shards);
+
+    // Các timer thuộc các shard node này giữ, đến hạn trước :until, theo index (shard, due_at)
+    List<LifecycleTimer> findByShardInAndDueAtBeforeOrderByDueAtAsc(
+            Collection<Integer> shards, LocalDateTime until, Pageable pageable);
+
+    // Giành quyền chạy timer: chỉ một lượt xóa được dòng, và chỉ khi hạn chót chưa bị dời về sau
+    @Modifying
+    @Query("DELETE FROM LifecycleTimer t WHERE t.id = :id AND t.dueAt <= :now")
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE LifecycleTimer t SET t.dueAt = :dueAt, t.attempts = t.attempts + 1 WHERE t.id = :id")
+    int retryAt(@Param("id") UUID id, @Param("dueAt") LocalDateTime dueAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM LifecycleTimer t WHERE t.type = :type AND t.referenceId = :referenceId")
+    int deleteByTypeAndReferenceId(@Param("type") TimerType type, @Param("referenceId") UUID referenceId);
+
+    // ---- tạo timer cho dữ liệu có sẵn (idempotent) ----
+
+    // Chuyển các dòng được ghi bằng hàm băm cũ (phía Java) về đúng shard theo hashtext
+    @Modifying
+    @Query(
+            value =
+                    """
+	UPDATE lifecycle_timers SET shard = mod(hashtext(CAST(reference_id AS text)) & 2147483647, :shards)
+	WHERE shard <> mod(hashtext(CAST(reference_id AS text)) & 2147483647, :shards)
+	""",
+            nativeQuery = true)
+    int reshard(@Param("shards") int shards);
+
+    @Modifying
+    @Query(
+            value =
+                    """
+	INSERT INTO lifecycle_timers (id, type, reference_id, due_at, attempts, shard, created_at)
+	SELECT gen_random_uuid(), :type, b.id, CAST(b.end_date AS timestamp) + make_interval(days => :offsetDays), 0,
+	mod(hashtext(CAST(b.id AS text)) & 2147483647, :shards), now()
+	FROM bookings b
+	WHERE b.status IN (:statuses) AND b.end_date IS NOT NULL
+	ON CONFLICT (type, reference_id) DO NOTHING
+	""",
+            nativeQuery = true)
+    int backfillFromEndDate(
+            @Param("type") String type,
+            @Param("statuses") Collection<String> statuses,
+            @Param("offsetDays") int offsetDays,
+            @Param("shards") int shards);
+
+    @Modifying
+    @Query(
+            value =
+                    """
+	INSERT INTO lifecycle_timers (id, type, reference_id, due_at, attempts, shard, created_at)
+	SELECT gen_random_uuid(), :type, b.id, now(), 0, mod(hashtext(CAST(b.id AS text)) & 2147483647, :shards), now()
+	FROM bookings b
+	WHERE b.status = :status
+	ON CONFLICT (type, reference_id) DO NOTHING
+	""",
+            nativeQuery = true)
+    int backfillDueNow(@Param("type") String type, @Param("status") String status, @Param("shards") int shards);
+
+    @Modifying
+    @Query(
+            value =
+                    """
+	INSERT INTO lifecycle_timers (id, type, reference_id, due_at, attempts, shard, created_at)
+	SELECT gen_random_uuid(), :type, e.id, COALESCE(e.created_at, now()) + make_interval(hours => :hours), 0,
+	mod(hashtext(CAST(e.id AS text)) & 2147483647, :shards), now()
+	FROM extension_requests e
+	WHERE e.status = :status
+	ON CONFLICT (type, reference_id) DO NOTHING
+	""",
+            nativeQuery = true)
+    int backfillExtensions(
+            @Param("type") String type,
+            @Param("status") String status,
+            @Param("hours") int hours,
+            @Param("shards") int shards);
+}
@@ -0,0 +1,38 @@
+package org.camphub.be_camphub.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, UUID> {
+    // Lấy và xóa một lô theo thứ tự ghi; SKIP LOCKED để relay trên các instance khác nhau nhận các lô khác nhau.
+    // Phải gọi trong transaction ghi notification: rollback thì các dòng quay lại outbox.
+    @Query(
+            value =
+                    """
+	DELETE FROM notification_outbox
+	WHERE id IN (
+	SELECT id FROM notification_outbox
+	WHERE attempts < :maxAttempts
+	ORDER BY created_at
+	LIMIT :limit
+	FOR UPDATE SKIP LOCKED)
+	RETURNING *
+	""",
+            nativeQuery = true)
+    List<NotificationOutbox> claimBatch(@Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.attempts = o.attempts + 1 WHERE o.id IN :ids")
+    int markFailed(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,45 @@
+package org.camphub.be_camphub.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.SystemWalletShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SystemWalletShardRepository extends JpaRepository<SystemWalletShard, UUID> {
+    List<SystemWalletShard> findAllByOrderByShardIndexAsc();
+
+    @Query("SELECT s.balanceMinor FROM SystemWalletShard s WHERE s.shardIndex = :shardIndex")
+    Long findBalanceMinorByShardIndex(@Param("shardIndex") int shardIndex);
+
+    @Query("SELECT COALESCE(SUM(s.balanceMinor), 0) FROM SystemWalletShard s")
+    long sumBalanceMinor();
+
+    @Modifying
+    @Query("UPDATE SystemWalletShard s SET s.balanceMinor = s.balanceMinor + :amountMinor, "
+            + "s.updatedAt = CURRENT_TIMESTAMP WHERE s.shardIndex = :shardIndex")
+    int credit(@Param("shardIndex") int shardIndex, @Param("amountMinor") long amountMinor);
+
+    // Chỉ trừ khi shard đủ tiền; trả về 0 nếu không đủ
+    @Modifying
+    @Query("UPDATE SystemWalletShard s SET s.balanceMinor = s.balanceMinor - :amountMinor, "
+            + "s.updatedAt = CURRENT_TIMESTAMP WHERE s.shardIndex = :shardIndex AND s.balanceMinor >= :amountMinor")
+    int debitIfSufficient(@Param("shardIndex") int shardIndex, @Param("amountMinor") long amountMinor);
+
+    // Chuyển số dư coin (double) cũ sang balance_minor rồi xóa về 0, chạy lại không cộng hai lần
+    @Modifying
+    @Query(
+            value =
+                    """
+	UPDATE system_wallet_shards
+	SET balance_minor = balance_minor + CAST(ROUND(CAST(balance AS numeric) * 100) AS bigint), balance = 0
+	WHERE balance IS NOT NULL AND balance <> 0
+	""",
+            nativeQuery = true)
+    int migrateLegacyBalances();
+}
@@ -0,0 +1,44 @@
+package org.camphub.be_camphub.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.Account;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Cộng/trừ số dư ví bằng một câu UPDATE ... RETURNING duy nhất, không nạp Account vào persistence context.
+ * Kết quả rỗng nghĩa là không có dòng nào được cập nhật (không đủ tiền hoặc không tồn tại tài khoản).
+ */
+@Repository
+public interface WalletRepository extends org.springframework.data.repository.Repository<Account, UUID> {
+    @Transactional
+    @Query(
+            value =
+                    """
+	UPDATE accounts
+	SET coin_balance = coin_balance - :amount, updated_at = now()
+	WHERE id = :accountId AND coin_balance >= :amount
+	RETURNING coin_balance
+	""",
+            nativeQuery = true)
+    Optional<Double> debit(@Param("accountId") UUID accountId, @Param("amount") double amount);
+
+    @Transactional
+    @Query(
+            value =
+                    """
+	UPDATE accounts
+	SET coin_balance = COALESCE(coin_balance, 0) + :amount, updated_at = now()
+	WHERE id = :accountId
+	RETURNING coin_balance
+	""",
+            nativeQuery = true)
+    Optional<Double> credit(@Param("accountId") UUID accountId, @Param("amount") double amount);
+
+    @Query("SELECT a.coinBalance FROM Account a WHERE a.id = :accountId")
+    Optional<Double> findBalance(@Param("accountId") UUID accountId);
+}
@@ -0,0 +1,13 @@
+package org.camphub.be_camphub.repository.projection;
+
+import org.camphub.be_camphub.entity.Booking;
+
+// Một dòng danh sách booking: booking + tên item, tên hai bên và cờ đã review, lấy trong cùng một query
+public record BookingListView(
+        Booking booking,
+        String itemName,
+        String lessorLastname,
+        String lessorFirstname,
+        String lesseeLastname,
+        String lesseeFirstname,
+        boolean hasReviewed) {}
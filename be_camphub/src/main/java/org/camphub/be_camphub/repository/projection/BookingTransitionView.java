@@ -0,0 +1,14 @@
+package org.camphub.be_camphub.repository.projection;
+
+import java.util.UUID;
+
+// Dòng trả về từ UPDATE ... RETURNING khi chuyển trạng thái booking hàng loạt
+public interface BookingTransitionView {
+    UUID getId();
+
+    UUID getItemId();
+
+    UUID getLesseeId();
+
+    UUID getLessorId();
+}
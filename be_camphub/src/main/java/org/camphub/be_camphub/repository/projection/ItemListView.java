@@ -0,0 +1,12 @@
+package org.camphub.be_camphub.repository.projection;
+
+import org.camphub.be_camphub.entity.Item;
+
+// Một dòng danh sách item: item + thông tin chủ và tên danh mục, lấy trong cùng một query
+public record ItemListView(
+        Item item,
+        String ownerLastname,
+        String ownerFirstname,
+        String ownerAvatar,
+        Integer ownerTrustScore,
+        String categoryName) {}
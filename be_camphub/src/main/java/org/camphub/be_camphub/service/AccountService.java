@@ -10,6 +10,7 @@ import org.camphub.be_camphub.dto.request.account.ChangePasswordRequest;
 import org.camphub.be_camphub.dto.request.account.TopUpRequest;
 import org.camphub.be_camphub.dto.response.account.AccountResponse;
 import org.camphub.be_camphub.dto.response.account.TopUpResponse;
+import org.camphub.be_camphub.dto.response.account.WalletBalanceResponse;
 
 public interface AccountService {
     List<AccountResponse> getAccounts();
@@ -26,6 +27,8 @@ public interface AccountService {
 
     TopUpResponse topUpAccount(TopUpRequest request, UUID accountId);
 
+    WalletBalanceResponse getWalletBalance(UUID accountId);
+
     AccountResponse patchCurrentAccount(UUID id, AccountPatchRequest request);
 
     void changePassword(UUID id, ChangePasswordRequest request);
@@ -2,11 +2,16 @@ package org.camphub.be_camphub.service;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.camphub.be_camphub.dto.request.booking.BookingCreationRequest;
 import org.camphub.be_camphub.dto.request.booking.LesseeReturnRequest;
 import org.camphub.be_camphub.dto.request.booking.OwnerConfirmationRequest;
+import org.camphub.be_camphub.dto.response.CursorPageResponse;
 import org.camphub.be_camphub.dto.response.booking.BookingResponse;
+import org.camphub.be_camphub.dto.response.booking.OwnerDecisionResult;
+import org.camphub.be_camphub.enums.BookingStatus;
+import org.camphub.be_camphub.pricing.CheckoutQuote;
 
 public interface BookingService {
     /**
@@ -15,20 +20,38 @@ public interface BookingService {
      * Trả về list BookingResponse (mỗi booking tương ứng 1 item).
      */
     List<BookingResponse> rentSelectedCartItems(UUID lesseeId, BookingCreationRequest request);
+
+    /**
+     * Như trên, gọi onPriced ngay khi bảng giá đã được xác định (trước khi trừ tiền) để báo tiến độ cho checkout bất đồng bộ.
+     */
+    List<BookingResponse> rentSelectedCartItems(
+            UUID lesseeId, BookingCreationRequest request, Consumer<CheckoutQuote> onPriced);
     /**
      * Chủ (lessor) xác nhận (accept=true) hoặc từ chối (accept=false) 1 booking.
      * Nếu từ chối: refund deposit & rental (to lessee), set item BANNED và trừ trust score lessor.
      * Nếu chấp nhận: set WAITING_DELIVERY, lưu delivery log, set item status RENTED (hoặc RENTED_PENDING).
      */
     BookingResponse ownerRespondBooking(UUID lessorId, OwnerConfirmationRequest request);
+
+    /**
+     * Chủ xử lý nhiều booking PENDING_CONFIRM trong một lần: tải và ghi theo lô, tiền/lịch giữ chỗ đổi trong cùng
+     * transaction. Trả về kết quả theo đúng thứ tự request; booking không hợp lệ chỉ làm hỏng dòng của nó.
+     */
+    List<OwnerDecisionResult> ownerRespondBookings(UUID lessorId, List<OwnerConfirmationRequest> decisions);
     /**
      * Khách xác nhận đã nhận hàng (hoặc auto sau 24h) -> set IN_USE, ghi log RENT.
      */
     BookingResponse lesseeConfirmReceived(UUID lesseeId, UUID bookingId);
 
-    List<BookingResponse> getBookingsByLessee(UUID lesseeId);
+    /**
+     * Danh sách booking mình đi thuê / cho thuê, phân trang keyset theo (createdAt, id) giảm dần.
+     * statuses rỗng = mọi trạng thái; cursor null = trang đầu, lấy nextCursor của trang trước để đi tiếp.
+     */
+    CursorPageResponse<BookingResponse> getBookingsByLessee(
+            UUID lesseeId, List<BookingStatus> statuses, String cursor, int size);
 
-    List<BookingResponse> getBookingsByLessor(UUID lessorId);
+    CursorPageResponse<BookingResponse> getBookingsByLessor(
+            UUID lessorId, List<BookingStatus> statuses, String cursor, int size);
 
     List<BookingResponse> getAllBookings();
 
@@ -41,6 +64,6 @@ public interface BookingService {
 
     void processRefundAndReturn(UUID bookingId);
 
-    //        chạy mỗi giờ để cập nhật trạng thái trả hàng trễ.
+    // đối soát thủ công trạng thái trả hàng trễ (bình thường do timer vòng đời booking xử lý)
     void checkAndUpdateLateReturns();
 }
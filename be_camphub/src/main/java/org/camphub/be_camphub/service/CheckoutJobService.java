@@ -0,0 +1,17 @@
+package org.camphub.be_camphub.service;
+
+import java.util.UUID;
+
+import org.camphub.be_camphub.dto.request.booking.BookingCreationRequest;
+import org.camphub.be_camphub.dto.response.booking.CheckoutJobResponse;
+
+public interface CheckoutJobService {
+    /**
+     * Nhận checkout để chạy nền, trả về ngay job ở trạng thái QUEUED. Tiến độ và kết quả được đẩy qua
+     * STOMP /user/queue/checkout-jobs. Ném CHECKOUT_BUSY khi hàng đợi đã đầy.
+     */
+    CheckoutJobResponse submit(UUID lesseeId, BookingCreationRequest request);
+
+    // Trạng thái hiện tại của job (dự phòng khi client mất kết nối WebSocket)
+    CheckoutJobResponse getJob(UUID lesseeId, UUID jobId);
+}
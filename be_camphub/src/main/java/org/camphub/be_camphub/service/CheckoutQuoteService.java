@@ -0,0 +1,21 @@
+package org.camphub.be_camphub.service;
+
+import java.util.UUID;
+
+import org.camphub.be_camphub.dto.request.booking.BookingCreationRequest;
+import org.camphub.be_camphub.dto.response.booking.CheckoutQuoteResponse;
+import org.camphub.be_camphub.pricing.CheckoutQuote;
+
+public interface CheckoutQuoteService {
+    /**
+     * Tính bảng giá checkout cho các cart item được chọn (giá/cọc lấy từ Item, không tin số của client),
+     * lưu lại dưới một quoteId có chữ ký, hiệu lực ngắn.
+     */
+    CheckoutQuoteResponse createQuote(UUID lesseeId, BookingCreationRequest request);
+
+    /**
+     * Bảng giá cho checkout: có quoteId hợp lệ thì dùng bảng giá đã khóa (một lần), không thì tính lại.
+     * Ném QUOTE_EXPIRED khi quote hết hạn hoặc giá đã đổi so với lúc báo giá.
+     */
+    CheckoutQuote resolve(UUID lesseeId, BookingCreationRequest request);
+}
@@ -16,7 +16,7 @@ public interface ExtensionRequestService {
 
     ExtensionReqResponse cancelExtensionRequest(UUID lesseeId, UUID requestId);
 
-    void autoExpirePendingRequests(); // cron job
+    void expirePendingRequest(UUID requestId); // timer EXTENSION_EXPIRY
 
     List<ExtensionReqResponse> getAllExtensionRequestsFiltered(
             String status, UUID bookingId, UUID lesseeId, UUID lessorId);
@@ -0,0 +1,47 @@
+package org.camphub.be_camphub.service;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import org.camphub.be_camphub.dto.response.item.ItemAvailabilityResponse;
+import org.camphub.be_camphub.entity.Booking;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemStatus;
+
+public interface ItemAvailabilityService {
+    /**
+     * Lịch trống theo ngày của một sản phẩm trong khoảng [from, to) (dùng cho calendar view).
+     */
+    ItemAvailabilityResponse getAvailability(UUID itemId, LocalDate from, LocalDate to);
+
+    /**
+     * Số đơn vị còn trống trong suốt khoảng [from, to) = tổng số lượng - số giữ chỗ lớn nhất trong khoảng.
+     */
+    int getAvailableQuantity(Item item, LocalDate from, LocalDate to);
+
+    /**
+     * Giữ chỗ nguyên tử cho các ngày [from, to) (to là ngày trả đồ, không bị giữ); ném INSUFFICIENT_ITEM_QUANTITY nếu có ngày không đủ.
+     * Phải được gọi trong transaction để phần đã giữ được rollback khi thất bại.
+     */
+    void reserve(UUID itemId, LocalDate from, LocalDate to, int quantity);
+
+    /**
+     * Trả lại chỗ đã giữ của booking (bị từ chối, đã trả đồ hoặc quá hạn).
+     */
+    void release(Booking booking);
+
+    /**
+     * Giữ thêm các ngày [endDate hiện tại, newEndDate) khi gia hạn.
+     */
+    void extend(Booking booking, LocalDate newEndDate);
+
+    /**
+     * Đổi trạng thái sản phẩm bằng UPDATE nguyên tử (không ghi đè số lượng/thông tin do request khác vừa sửa).
+     */
+    void updateItemStatus(UUID itemId, ItemStatus status);
+
+    /**
+     * Trừ khỏi tổng kho các đơn vị bị mất; sản phẩm còn hàng thì AVAILABLE, hết hàng thì MISSING.
+     */
+    void writeOffLostUnits(UUID itemId, int lostQuantity);
+}
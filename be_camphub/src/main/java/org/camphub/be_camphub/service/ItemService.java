@@ -1,19 +1,62 @@
 package org.camphub.be_camphub.service;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.camphub.be_camphub.dto.request.Item.ItemCreationRequest;
 import org.camphub.be_camphub.dto.request.Item.ItemPatchRequest;
 import org.camphub.be_camphub.dto.request.Item.ItemUpdateRequest;
+import org.camphub.be_camphub.dto.response.CursorPageResponse;
+import org.camphub.be_camphub.dto.response.PageResponse;
 import org.camphub.be_camphub.dto.response.item.ItemResponse;
+import org.camphub.be_camphub.dto.response.item.ItemSuggestionResponse;
+import org.camphub.be_camphub.enums.ItemSort;
+import org.camphub.be_camphub.enums.ItemStatus;
 
 public interface ItemService {
     ItemResponse createItem(UUID ownerId, ItemCreationRequest request);
 
     ItemResponse getItemById(UUID itemId);
 
-    List<ItemResponse> getAllItems(String status, UUID categoryId);
+    /**
+     * Danh sách item theo trang keyset: lọc status (rỗng = mọi trạng thái) và danh mục, sắp xếp trong DB.
+     * NEWEST đưa các item PENDING_APPROVAL lên đầu rồi mới đến item mới đăng.
+     */
+    CursorPageResponse<ItemResponse> getItems(
+            List<ItemStatus> statuses, UUID categoryId, ItemSort sort, String cursor, int size);
+
+    /**
+     * Tìm kiếm toàn văn theo tên, mô tả và tên danh mục, gõ có dấu hay không dấu đều được.
+     * Kết quả xếp theo độ liên quan; statuses rỗng = chỉ item AVAILABLE.
+     */
+    PageResponse<ItemResponse> searchItems(
+            String query, List<ItemStatus> statuses, UUID categoryId, int page, int size);
+
+    /**
+     * Số item theo từng trạng thái, danh mục, khoảng giá thuê và khoảng tiền cọc với bộ lọc đã chọn,
+     * tính bằng phép giao bitmap trong bộ nhớ.
+     */
+    Map<String, Map<String, Integer>> countFacets(
+            List<ItemStatus> statuses, UUID categoryId, String priceBand, String depositBand);
+
+    // Gợi ý tên sản phẩm/danh mục theo tiền tố đang gõ, phục vụ từ trie trong bộ nhớ
+    List<ItemSuggestionResponse> suggest(String prefix, int limit);
+
+    /**
+     * Tìm các sản phẩm còn ít nhất quantity đơn vị trống trong mọi ngày của [from, to],
+     * kết hợp lọc theo danh mục và khoảng giá. Phục vụ từ chỉ mục trong bộ nhớ, không quét booking.
+     */
+    PageResponse<ItemResponse> searchAvailableItems(
+            LocalDate from,
+            LocalDate to,
+            int quantity,
+            UUID categoryId,
+            Double minPrice,
+            Double maxPrice,
+            int page,
+            int size);
 
     ItemResponse updateItem(UUID ownerId, UUID itemId, ItemUpdateRequest request);
 
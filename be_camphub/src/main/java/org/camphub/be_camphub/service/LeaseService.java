@@ -0,0 +1,28 @@
+package org.camphub.be_camphub.service;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Điều phối job giữa các instance chạy sau load balancer bằng lease trong bảng job_leases.
+ * Lease được gia hạn bằng heartbeat; node chết thì lease hết hạn sau một TTL và node khác tiếp quản.
+ */
+public interface LeaseService {
+    String getNodeId();
+
+    /**
+     * Chạy task nếu giành được lease name, trả về false (không chạy) nếu node khác đang giữ.
+     * Gọi trong transaction thì lease được giữ tới khi transaction kết thúc; sau đó vẫn chặn node khác
+     * tới minInterval tính từ lúc giành, để job theo lịch không bị chạy lại cùng một đợt.
+     */
+    boolean runExclusive(String name, Duration minInterval, Runnable task);
+
+    /**
+     * Tham gia chia shards shard của một nhóm việc: mỗi shard chỉ thuộc một node, số shard chia đều theo số
+     * node đang sống. onChange nhận tập shard node này đang giữ mỗi khi nó thay đổi.
+     */
+    void joinShardGroup(String group, int shards, Consumer<Set<Integer>> onChange);
+
+    Set<Integer> ownedShards(String group);
+}
@@ -0,0 +1,35 @@
+package org.camphub.be_camphub.service;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.Transaction;
+import org.camphub.be_camphub.enums.TransactionType;
+
+public interface LedgerService {
+    // Tài khoản đối ứng cho tiền đi vào / ra khỏi hệ thống (nạp tiền)
+    UUID EXTERNAL_ACCOUNT_ID = new UUID(0L, 0L);
+
+    /**
+     * Ghi một giao dịch: cặp bút toán sổ cái (from -amount, to +amount) cùng bản ghi Transaction
+     * và TransactionBooking tương ứng (projection của sổ cái). Phải gọi trong transaction của luồng tiền.
+     */
+    Transaction record(
+            UUID fromAccountId, UUID toAccountId, double amount, TransactionType type, List<UUID> bookingIds);
+
+    default Transaction record(
+            UUID fromAccountId, UUID toAccountId, double amount, TransactionType type, UUID bookingId) {
+        return record(fromAccountId, toAccountId, amount, type, bookingId == null ? List.of() : List.of(bookingId));
+    }
+
+    /**
+     * Ghi bút toán nạp tiền từ bên ngoài vào ví của accountId.
+     */
+    void recordTopUp(UUID accountId, double amount);
+
+    /**
+     * Số dư theo sổ cái (đơn vị nhỏ nhất) = snapshot gần nhất + biến động sau snapshot, đọc từ DB mỗi lần
+     * nên mọi node thấy cùng một số dư.
+     */
+    long getBalanceMinor(UUID accountId);
+}
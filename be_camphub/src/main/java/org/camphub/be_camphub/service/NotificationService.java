@@ -9,6 +9,24 @@ import org.camphub.be_camphub.dto.response.notification.NotificationResponse;
 public interface NotificationService {
     NotificationResponse create(NotificationCreationRequest request);
 
+    /**
+     * Tạo nhiều thông báo trong một lần ghi (JDBC batch), dùng cho các luồng sinh nhiều thông báo cùng lúc
+     */
+    List<NotificationResponse> createAll(List<NotificationCreationRequest> requests);
+
+    /**
+     * Ghi thông báo vào outbox trong transaction hiện tại; notification được tạo và đẩy qua WebSocket
+     * bởi relay nền sau khi commit. Dùng cho các luồng nghiệp vụ thay cho create.
+     */
+    void enqueue(NotificationCreationRequest request);
+
+    void enqueueAll(List<NotificationCreationRequest> requests);
+
+    /**
+     * Như notifyAllAdmins nhưng qua outbox
+     */
+    void enqueueForAdmins(NotificationCreationRequest request);
+
     List<NotificationResponse> getAllByReceiver(UUID receiverId);
 
     NotificationResponse markAsRead(UUID id);
@@ -0,0 +1,33 @@
+package org.camphub.be_camphub.service;
+
+import java.util.UUID;
+
+import org.camphub.be_camphub.dto.response.account.SystemWalletBalanceResponse;
+
+public interface SystemWalletService {
+    /**
+     * Id tài khoản SYSTEM_WALLET, dùng làm from/to của các Transaction.
+     */
+    UUID getSystemAccountId();
+
+    /**
+     * Cộng amountMinor (đơn vị nhỏ nhất) vào shard chọn theo booking id; tiền vào và ra của cùng một booking
+     * đi qua cùng shard nên lúc chi trả thường chỉ cần một câu UPDATE.
+     */
+    void credit(UUID bookingId, long amountMinor);
+
+    /**
+     * Trừ tiền ví hệ thống, ưu tiên shard của booking; ném SYSTEM_WALLET_INSUFFICIENT nếu tổng không đủ.
+     */
+    void debit(UUID bookingId, long amountMinor);
+
+    /**
+     * Như debit nhưng trả về false (không trừ gì) khi tổng số dư không đủ.
+     */
+    boolean tryDebit(UUID bookingId, long amountMinor);
+
+    /**
+     * Số dư hợp nhất = tổng các shard.
+     */
+    SystemWalletBalanceResponse getBalance();
+}
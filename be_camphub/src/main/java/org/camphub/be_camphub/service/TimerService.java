@@ -0,0 +1,46 @@
+package org.camphub.be_camphub.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.camphub.be_camphub.enums.TimerType;
+
+/**
+ * Hạn chót của vòng đời booking lưu trong bảng lifecycle_timers và được bắn đúng giờ bởi một hàng đợi
+ * hẹn giờ trong tiến trình, thay cho các job quét toàn bảng mỗi giờ.
+ * Handler chạy trong transaction đã xóa dòng timer; ném exception thì timer được thử lại sau.
+ */
+public interface TimerService {
+    // hôm nay > endDate + 1 -> LATE_RETURN; hôm nay > endDate + 3 -> OVERDUE
+    int LATE_AFTER_DAYS = 2;
+    int OVERDUE_AFTER_DAYS = 4;
+    int EXTENSION_TTL_HOURS = 48;
+
+    void registerHandler(TimerType type, Consumer<UUID> handler);
+
+    // Đặt hoặc dời hạn chót; có hiệu lực sau khi transaction hiện tại commit
+    void schedule(TimerType type, UUID referenceId, LocalDateTime dueAt);
+
+    void cancel(TimerType type, UUID referenceId);
+
+    // Ba mốc trả đồ của booking đang thuê, tính từ ngày hẹn trả
+    default void scheduleReturnDeadlines(UUID bookingId, LocalDate endDate) {
+        schedule(TimerType.BOOKING_DUE, bookingId, endDate.atStartOfDay());
+        schedule(
+                TimerType.BOOKING_LATE,
+                bookingId,
+                endDate.plusDays(LATE_AFTER_DAYS).atStartOfDay());
+        schedule(
+                TimerType.BOOKING_OVERDUE,
+                bookingId,
+                endDate.plusDays(OVERDUE_AFTER_DAYS).atStartOfDay());
+    }
+
+    default void cancelReturnDeadlines(UUID bookingId) {
+        cancel(TimerType.BOOKING_DUE, bookingId);
+        cancel(TimerType.BOOKING_LATE, bookingId);
+        cancel(TimerType.BOOKING_OVERDUE, bookingId);
+    }
+}
@@ -0,0 +1,15 @@
+package org.camphub.be_camphub.service;
+
+import java.util.UUID;
+
+public interface WalletService {
+    /**
+     * Trừ tiền ví nếu đủ số dư, trả về số dư mới; ném INSUFFICIENT_BALANCE hoặc USER_NOT_FOUND.
+     */
+    double debit(UUID accountId, double amount);
+
+    /**
+     * Cộng tiền vào ví, trả về số dư mới; ném USER_NOT_FOUND nếu không có tài khoản.
+     */
+    double credit(UUID accountId, double amount);
+}
@@ -11,15 +11,23 @@ import org.camphub.be_camphub.dto.request.account.ChangePasswordRequest;
 import org.camphub.be_camphub.dto.request.account.TopUpRequest;
 import org.camphub.be_camphub.dto.response.account.AccountResponse;
 import org.camphub.be_camphub.dto.response.account.TopUpResponse;
+import org.camphub.be_camphub.dto.response.account.WalletBalanceResponse;
 import org.camphub.be_camphub.entity.Account;
+import org.camphub.be_camphub.enums.TransactionType;
 import org.camphub.be_camphub.enums.UserStatus;
 import org.camphub.be_camphub.enums.UserType;
 import org.camphub.be_camphub.exception.AppException;
 import org.camphub.be_camphub.exception.ErrorCode;
 import org.camphub.be_camphub.mapper.AccountMapper;
+import org.camphub.be_camphub.pricing.PricingEngine;
 import org.camphub.be_camphub.repository.AccountRepository;
 import org.camphub.be_camphub.service.AccountService;
+import org.camphub.be_camphub.service.LedgerService;
+import org.camphub.be_camphub.service.WalletService;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -31,6 +39,8 @@ import lombok.experimental.FieldDefaults;
 public class AccountServiceImpl implements AccountService {
     AccountRepository accountRepository;
     AccountMapper accountMapper;
+    LedgerService ledgerService;
+    WalletService walletService;
 
     SecurityUtils securityUtils;
 
@@ -78,34 +88,84 @@ public class AccountServiceImpl implements AccountService {
     }
 
     @Override
+    @Transactional
     public AccountResponse updateAccount(UUID id, AccountUpdateRequest request) {
         Account account = accountRepository.findById(id).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
 
         accountMapper.updateRequestToEntity(account, request);
-        return accountMapper.entityToResponse(accountRepository.save(account));
+        Account saved = accountRepository.save(account);
+        adjustBalance(saved, request.getCoinBalance());
+        return accountMapper.entityToResponse(saved);
     }
 
     @Override
+    @Transactional
     public AccountResponse patchAccount(UUID id, AccountPatchRequest request) {
         Account account = accountRepository.findById(id).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
 
         accountMapper.patchRequestToEntity(account, request);
-        return accountMapper.entityToResponse(accountRepository.save(account));
+        Account saved = accountRepository.save(account);
+        adjustBalance(saved, request.getCoinBalance());
+        return accountMapper.entityToResponse(saved);
+    }
+
+    // coin_balance không ghi qua entity: admin đặt số dư mới = cộng/trừ phần chênh lệch qua ví + sổ cái
+    private void adjustBalance(Account account, Double target) {
+        if (target == null) return;
+        long targetMinor = PricingEngine.toMinor(target);
+        if (targetMinor < 0) throw new AppException(ErrorCode.INVALID_AMOUNT);
+        long deltaMinor = targetMinor - PricingEngine.toMinorOrZero(account.getCoinBalance());
+        if (deltaMinor == 0) return;
+        // /accounts/** đang public: chỉ admin (ROLE_ADMIN trong JWT) được đổi số dư
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean isAdmin = authentication != null
+                && authentication.getAuthorities().stream()
+                        .anyMatch(r -> r.getAuthority().equals("ROLE_ADMIN"));
+        if (!isAdmin) throw new AppException(ErrorCode.UNAUTHORIZED);
+
+        double delta = PricingEngine.toCoins(Math.abs(deltaMinor));
+        double newBalance;
+        if (deltaMinor > 0) {
+            newBalance = walletService.credit(account.getId(), delta);
+            ledgerService.record(
+                    LedgerService.EXTERNAL_ACCOUNT_ID,
+                    account.getId(),
+                    delta,
+                    TransactionType.ADMIN_ADJUSTMENT,
+                    List.of());
+        } else {
+            // trừ có điều kiện: số dư vừa bị tiêu bớt thì ném INSUFFICIENT_BALANCE thay vì xuống âm
+            newBalance = walletService.debit(account.getId(), delta);
+            ledgerService.record(
+                    account.getId(),
+                    LedgerService.EXTERNAL_ACCOUNT_ID,
+                    delta,
+                    TransactionType.ADMIN_ADJUSTMENT,
+                    List.of());
+        }
+        account.setCoinBalance(newBalance);
+    }
+
+    @Override
+    public WalletBalanceResponse getWalletBalance(UUID accountId) {
+        if (!accountRepository.existsById(accountId)) throw new AppException(ErrorCode.USER_NOT_FOUND);
+        return WalletBalanceResponse.builder()
+                .accountId(accountId)
+                .balance(PricingEngine.toDecimal(ledgerService.getBalanceMinor(accountId)))
+                .build();
     }
 
     @Override
+    @Transactional
     public TopUpResponse topUpAccount(TopUpRequest request, UUID accountId) {
         if (request.getAmount() == null || request.getAmount() <= 0) {
             throw new AppException(ErrorCode.INVALID_AMOUNT);
         }
 
-        Account account =
-                accountRepository.findById(accountId).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
-
-        account.setCoinBalance(account.getCoinBalance() + request.getAmount());
-        accountRepository.save(account);
+        double newBalance = walletService.credit(accountId, request.getAmount());
+        ledgerService.recordTopUp(accountId, request.getAmount());
 
-        return TopUpResponse.builder().newBalance(account.getCoinBalance()).build();
+        return TopUpResponse.builder().newBalance(newBalance).build();
     }
 
     @Override
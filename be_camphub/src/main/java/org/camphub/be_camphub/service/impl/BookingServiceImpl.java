@@ -1,33 +1,54 @@
 package org.camphub.be_camphub.service.impl;
 
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import jakarta.annotation.PostConstruct;
+
+import org.camphub.be_camphub.Utils.BookingCursor;
 import org.camphub.be_camphub.Utils.MediaUtils;
+import org.camphub.be_camphub.booking.BookingStateMachine;
 import org.camphub.be_camphub.dto.request.booking.BookingCreationRequest;
-import org.camphub.be_camphub.dto.request.booking.BookingItemRequest;
 import org.camphub.be_camphub.dto.request.booking.LesseeReturnRequest;
 import org.camphub.be_camphub.dto.request.booking.OwnerConfirmationRequest;
 import org.camphub.be_camphub.dto.request.notification.NotificationCreationRequest;
+import org.camphub.be_camphub.dto.response.CursorPageResponse;
 import org.camphub.be_camphub.dto.response.booking.BookingResponse;
+import org.camphub.be_camphub.dto.response.booking.OwnerDecisionResult;
 import org.camphub.be_camphub.entity.*;
 import org.camphub.be_camphub.enums.*;
 import org.camphub.be_camphub.exception.AppException;
 import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.job.JobExecutor;
 import org.camphub.be_camphub.mapper.BookingMapper;
+import org.camphub.be_camphub.pricing.CheckoutQuote;
+import org.camphub.be_camphub.pricing.PricingEngine;
 import org.camphub.be_camphub.repository.*;
+import org.camphub.be_camphub.repository.projection.BookingListView;
+import org.camphub.be_camphub.repository.projection.BookingTransitionView;
 import org.camphub.be_camphub.service.BookingService;
+import org.camphub.be_camphub.service.CheckoutQuoteService;
+import org.camphub.be_camphub.service.ItemAvailabilityService;
+import org.camphub.be_camphub.service.LedgerService;
 import org.camphub.be_camphub.service.NotificationService;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.camphub.be_camphub.service.SystemWalletService;
+import org.camphub.be_camphub.service.TimerService;
+import org.camphub.be_camphub.service.WalletService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -35,212 +56,160 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
 public class BookingServiceImpl implements BookingService {
+    static final int MAX_PAGE_SIZE = 100;
+    static final String DUE_TITLE = "Đến hạn trả đồ";
+    static final String LATE_TITLE = "Đã trễ hạn trả đồ";
+    // còn đang giữ đồ, sẽ tới LATE_RETURN -> OVERDUE khi các timer phía trước chạy xong
+    static final Set<BookingStatus> OVERDUE_PENDING_STATUSES =
+            EnumSet.of(BookingStatus.IN_USE, BookingStatus.DUE_FOR_RETURN, BookingStatus.LATE_RETURN);
+    static final Duration OVERDUE_RECHECK_MIN = Duration.ofMinutes(1);
+    static final Duration OVERDUE_RECHECK_MAX = Duration.ofHours(1);
+
+    @NonFinal
+    @Value("${booking.owner-response.max-batch:200}")
+    int maxOwnerBulkSize;
+
+    @NonFinal
+    @Value("${booking.late-return.chunk-size:500}")
+    int lateReturnChunkSize;
+
     BookingRepository bookingRepository;
     AccountRepository accountRepository;
     ItemRepository itemRepository;
     CartItemRepository cartItemRepository;
-    CartRepository cartRepository;
-    TransactionRepository transactionRepository;
-    TransactionBookingRepository transactionBookingRepository;
     ItemLogsRepository itemLogRepository;
     ReviewRepository reviewRepository;
 
     BookingMapper bookingMapper;
     MediaUtils mediaUtils;
     NotificationService notificationService;
+    ItemAvailabilityService itemAvailabilityService;
+    SystemWalletService systemWalletService;
+    LedgerService ledgerService;
+    WalletService walletService;
+    TransactionTemplate transactionTemplate;
+    TimerService timerService;
+    JobExecutor jobExecutor;
+    CheckoutQuoteService checkoutQuoteService;
+    BookingStateMachine bookingStateMachine;
+    BookingEventRepository bookingEventRepository;
 
     @Override
     @Transactional
     public List<BookingResponse> rentSelectedCartItems(UUID lesseeId, BookingCreationRequest request) {
-        if (request == null || request.getItems() == null || request.getItems().isEmpty()) {
-            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
-        }
-
-        // collect all selected cart item ids
-        List<UUID> cartItemIds = request.getItems().stream()
-                .map(BookingItemRequest::getCartItemId)
-                .filter(Objects::nonNull)
-                .toList();
-
-        // load all cart items
-        List<CartItem> cartItems = cartItemRepository.findAllByIdIn(cartItemIds);
-        if (cartItems.size() != cartItemIds.size()) {
-            throw new AppException(ErrorCode.CART_ITEM_NOT_FOUND);
-        }
-
-        // verify ownership
-        for (CartItem ci : cartItems) {
-            Cart cart = cartRepository
-                    .findById(ci.getCartId())
-                    .orElseThrow(() -> new AppException(ErrorCode.CART_NOT_FOUND));
-            if (!cart.getAccountId().equals(lesseeId)) {
-                throw new AppException(ErrorCode.CART_ITEM_NOT_BELONG_TO_USER);
-            }
-        }
-
-        // map cart items
-        Map<UUID, CartItem> cartMap = cartItems.stream().collect(Collectors.toMap(CartItem::getId, c -> c));
-
-        // load all items
-        List<UUID> itemIds = cartItems.stream().map(CartItem::getItemId).toList();
-        List<Item> items = itemRepository.findAllById(itemIds);
-        Map<UUID, Item> itemMap = items.stream().collect((Collectors.toMap(Item::getId, i -> i)));
-
-        // Validate item statuses and calculate total amount
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        BigDecimal totalDeposit = BigDecimal.ZERO;
-
-        for (BookingItemRequest biReq : request.getItems()) {
-            CartItem cartItem = cartMap.get(biReq.getCartItemId());
-            Item item = itemMap.get(cartItem.getItemId());
-            if (item == null) {
-                throw new AppException(ErrorCode.ITEM_NOT_FOUND);
-            }
-
-            if (item.getStatus() == ItemStatus.RENTED
-                    || item.getStatus() == ItemStatus.BANNED
-                    || item.getStatus() == ItemStatus.DELETED) {
-                throw new AppException(ErrorCode.ITEM_NOT_AVAILABLE);
-            }
-
-            // compute rental days
-            long days = ChronoUnit.DAYS.between(biReq.getStartDate(), biReq.getEndDate());
-            if (days <= 0) throw new AppException(ErrorCode.INVALID_RENTAL_DATES);
-
-            int quantity = Optional.ofNullable(biReq.getQuantity()).orElse(cartItem.getQuantity());
-            double pricePerDay = Optional.ofNullable(biReq.getPricePerDay())
-                    .orElse(cartItem.getPrice().doubleValue());
-            double depositAmount = Optional.ofNullable(biReq.getDepositAmount()).orElse(0.0);
-
-            BigDecimal subtotal = BigDecimal.valueOf(pricePerDay)
-                    .multiply(BigDecimal.valueOf(quantity))
-                    .multiply(BigDecimal.valueOf(days));
+        return rentSelectedCartItems(lesseeId, request, quote -> {});
+    }
 
-            // Deposit amount cần nhân với quantity (mỗi sản phẩm cần cọc)
-            BigDecimal depositTotal = BigDecimal.valueOf(depositAmount).multiply(BigDecimal.valueOf(quantity));
+    @Override
+    @Transactional
+    public List<BookingResponse> rentSelectedCartItems(
+            UUID lesseeId, BookingCreationRequest request, Consumer<CheckoutQuote> onPriced) {
+        // bảng giá đã khóa (quoteId) hoặc tính lại từ cart + item; giá luôn lấy phía server
+        CheckoutQuote quote = checkoutQuoteService.resolve(lesseeId, request);
+        onPriced.accept(quote);
+        long required = quote.getTotalMinor();
+
+        // transfer coins from lessee to system wallet; the conditional debit fails with
+        // INSUFFICIENT_BALANCE when the lessee cannot cover the required amount
+        log.info("Lessee {} pays required: {}", lesseeId, PricingEngine.toDecimal(required));
+        UUID systemWalletId = systemWalletService.getSystemAccountId();
+        walletService.debit(lesseeId, PricingEngine.toCoins(required));
+
+        // build bookings and logs in memory, then flush them as JDBC batches
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>();
+        List<ItemLog> itemLogs = new ArrayList<>();
+        Map<UUID, CheckoutQuote.Line> lineByItem = new HashMap<>();
+        for (CheckoutQuote.Line line : quote.getLines()) {
+            // reserve the units only for the requested dates; fails if any day is already full
+            itemAvailabilityService.reserve(
+                    line.getItemId(), line.getStartDate(), line.getEndDate(), line.getQuantity());
+            lineByItem.put(line.getItemId(), line);
+
+            bookings.add(Booking.builder()
+                    .lesseeId(lesseeId)
+                    .lessorId(line.getLessorId())
+                    .itemId(line.getItemId())
+                    .quantity(line.getQuantity())
+                    .startDate(line.getStartDate())
+                    .endDate(line.getEndDate())
+                    // lưu đúng đơn giá đã thu tiền để hoàn/chi trả sau này khớp với checkout
+                    .pricePerDay(PricingEngine.toCoins(line.getPricePerDayMinor()))
+                    .depositAmount(PricingEngine.toCoins(line.getDepositPerUnitMinor()))
+                    .note(line.getNote())
+                    .reservedPerDay(true)
+                    .reservedEndExclusive(true)
+                    .status(BookingStatus.PENDING_CONFIRM)
+                    .createdAt(now)
+                    .build());
 
-            totalAmount = totalAmount.add(subtotal);
-            totalDeposit = totalDeposit.add(depositTotal);
+            itemLogs.add(ItemLog.builder()
+                    .itemId(line.getItemId())
+                    .accountId(lesseeId)
+                    .action(ItemActionType.RENT)
+                    .note("Booking created from cart item: " + line.getCartItemId())
+                    .build());
         }
 
-        // calculate required amount to pay
-        BigDecimal required = totalAmount.add(totalDeposit);
+        itemLogRepository.saveAll(itemLogs);
+        bookingRepository.saveAll(bookings);
+        bookingStateMachine.recordCreated(bookings, lesseeId);
 
-        // check lessee's coin balance
-        Account lessee =
-                accountRepository.findById(lesseeId).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
-
-        log.info("Lessee {} balance: {}, required: {}", lesseeId, lessee.getCoinBalance(), required);
-        if (BigDecimal.valueOf(lessee.getCoinBalance()).compareTo(required) < 0) {
-            throw new AppException(ErrorCode.INSUFFICIENT_BALANCE);
+        // tiền của từng booking vào shard theo booking id: hoàn/chi trả sau này trừ đúng shard đó
+        for (Booking booking : bookings) {
+            CheckoutQuote.Line line = lineByItem.get(booking.getItemId());
+            systemWalletService.credit(booking.getId(), line.getRentalFeeMinor() + line.getDepositMinor());
         }
 
-        // transfer coins from lessee to system wallet
-        Account systemWallet = getSystemWallet();
-        lessee.setCoinBalance(lessee.getCoinBalance() - required.doubleValue());
-        systemWallet.setCoinBalance(systemWallet.getCoinBalance() + required.doubleValue());
-        accountRepository.saveAll(Arrays.asList(lessee, systemWallet));
-
-        // record transaction
-        Transaction tx = Transaction.builder()
-                .fromAccountId(lessee.getId())
-                .toAccountId(systemWallet.getId())
-                .amount(required.doubleValue())
-                .type(TransactionType.RENTAL_PAYMENT)
-                .status(TransactionStatus.SUCCESS)
-                .createdAt(LocalDateTime.now())
-                .build();
-        transactionRepository.save(tx);
-
-        // thông báo cho khách thuê về thanh toán thành công
-        notificationService.create(NotificationCreationRequest.builder()
+        // record the payment in the ledger, linked to all bookings
+        ledgerService.record(
+                lesseeId,
+                systemWalletId,
+                PricingEngine.toCoins(required),
+                TransactionType.RENTAL_PAYMENT,
+                bookings.stream().map(Booking::getId).toList());
+
+        // thông báo cho khách thuê về thanh toán thành công + cho từng chủ đồ có đơn thuê mới
+        List<NotificationCreationRequest> notifications = new ArrayList<>();
+        notifications.add(NotificationCreationRequest.builder()
                 .receiverId(lesseeId)
-                .senderId(systemWallet.getId())
+                .senderId(systemWalletId)
                 .type(NotificationType.RENTAL_PAYMENT_SUCCESS)
                 .title("Thanh toán tiền thuê thành công")
-                .content("Bạn đã thanh toán " + required.doubleValue() + " coin cho đơn thuê.")
+                .content("Bạn đã thanh toán " + PricingEngine.toCoins(required) + " coin cho đơn thuê.")
                 .referenceType(ReferenceType.BOOKING)
                 .referenceId(null) // Multiple bookings, no single reference
                 .build());
-
-        // create bookings one by one for each cart item
-        List<BookingResponse> responses = new ArrayList<>();
-        for (BookingItemRequest biReq : request.getItems()) {
-            CartItem cartItem = cartMap.get(biReq.getCartItemId());
-            Item item = itemMap.get(cartItem.getItemId());
-
-            Booking booking = Booking.builder()
-                    .lesseeId(lesseeId)
-                    .lessorId(item.getOwnerId())
-                    .itemId(item.getId())
-                    .quantity(biReq.getQuantity())
-                    .startDate(biReq.getStartDate())
-                    .endDate(biReq.getEndDate())
-                    .pricePerDay(biReq.getPricePerDay())
-                    .depositAmount(biReq.getDepositAmount())
-                    .note(biReq.getNote())
-                    .status(BookingStatus.PENDING_CONFIRM)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-
-            // Subtract the quantity if the product is still available
-            int remainingQty = item.getQuantity() - booking.getQuantity();
-            if (remainingQty < 0) {
-                throw new AppException(ErrorCode.INSUFFICIENT_ITEM_QUANTITY);
-            }
-
-            item.setQuantity(remainingQty);
-
-            // update status for item
-            if (remainingQty == 0) {
-                // out of stock
-                item.setStatus(ItemStatus.RENTED_PENDING_CONFIRM);
-            } else {
-                // available (> 0)
-                item.setStatus(ItemStatus.AVAILABLE);
-            }
-            itemRepository.save(item);
-
-            // item log
-            ItemLog log = ItemLog.builder()
-                    .itemId(item.getId())
-                    .accountId(lesseeId)
-                    .action(ItemActionType.RENT)
-                    .note("Booking created from cart item: " + cartItem.getId())
-                    .build();
-            itemLogRepository.save(log);
-
-            bookingRepository.save(booking);
-            BookingResponse bookingResponse = enrichBookingResponse(booking);
-            responses.add(bookingResponse);
-
-            // thông báo cho chủ đồ (lessor) có đơn thuê mới
-            notificationService.create(NotificationCreationRequest.builder()
-                    .receiverId(item.getOwnerId())
+        for (Booking booking : bookings) {
+            notifications.add(NotificationCreationRequest.builder()
+                    .receiverId(booking.getLessorId())
                     .senderId(lesseeId)
                     .type(NotificationType.BOOKING_CREATED)
                     .title("Bạn có đơn thuê mới")
-                    .content("Khách thuê vừa đặt \"" + item.getName() + "\".")
+                    .content("Khách thuê vừa đặt \""
+                            + lineByItem.get(booking.getItemId()).getItemName() + "\".")
                     .referenceType(ReferenceType.BOOKING)
                     .referenceId(booking.getId())
                     .build());
         }
-
-        // link transaction to all bookings
-        List<TransactionBooking> txBookings = responses.stream()
-                .map(resp -> TransactionBooking.builder()
-                        .transactionId(tx.getId())
-                        .bookingId(resp.getId())
-                        .createdAt(LocalDateTime.now())
-                        .build())
-                .toList();
-
-        transactionBookingRepository.saveAll(txBookings);
+        notificationService.enqueueAll(notifications);
 
         // remove selected cart items
-        cartItemRepository.deleteAllById(cartItemIds);
-
-        return responses;
+        cartItemRepository.deleteAllByIdInBatch(
+                quote.getLines().stream().map(CheckoutQuote.Line::getCartItemId).toList());
+
+        // a freshly created booking cannot have been reviewed yet
+        return bookings.stream()
+                .map(b -> {
+                    BookingResponse response = bookingMapper.entityToResponse(b);
+                    CheckoutQuote.Line line = lineByItem.get(b.getItemId());
+                    response.setItemName(line.getItemName());
+                    response.setLessorName(line.getLessorName());
+                    response.setLesseeName(quote.getLesseeName());
+                    response.setHasReviewed(false);
+                    return response;
+                })
+                .toList();
     }
 
     /**
@@ -255,150 +224,197 @@ public class BookingServiceImpl implements BookingService {
     @Override
     @Transactional
     public BookingResponse ownerRespondBooking(UUID lessorId, OwnerConfirmationRequest request) {
-        Booking booking = bookingRepository
-                .findById(request.getBookingId())
-                .orElseThrow(() -> new AppException(ErrorCode.BOOKING_NOT_FOUND));
+        OwnerDecisionResult result =
+                ownerRespondBookings(lessorId, List.of(request)).get(0);
+        if (!result.getSuccess()) throw new AppException(ErrorCode.valueOf(result.getError()));
+        return result.getBooking();
+    }
 
-        if (!booking.getLessorId().equals(lessorId)) {
-            throw new AppException(ErrorCode.UNAUTHORIZED);
+    /*
+     * Một lượt cho cả lô: chuyển trạng thái bằng hai câu UPDATE ... RETURNING (chấp nhận / từ chối) chỉ trên các dòng
+     * vẫn còn PENDING_CONFIRM của chủ này, rồi tải booking/item/account một lần, gom tiền hoàn theo từng khách thuê
+     * và ghi log, thông báo theo lô. Lỗi hạ tầng (ví hệ thống không đủ...) rollback cả lô.
+     */
+    @Override
+    @Transactional
+    public List<OwnerDecisionResult> ownerRespondBookings(UUID lessorId, List<OwnerConfirmationRequest> decisions) {
+        if (decisions == null || decisions.isEmpty()) return List.of();
+        if (decisions.size() > maxOwnerBulkSize) throw new AppException(ErrorCode.TOO_MANY_BOOKINGS);
+
+        // quyết định đầu tiên cho mỗi booking thắng, các dòng trùng sau bị bỏ qua
+        Map<UUID, OwnerConfirmationRequest> byBooking = new LinkedHashMap<>();
+        for (OwnerConfirmationRequest decision : decisions) {
+            if (decision.getBookingId() != null) byBooking.putIfAbsent(decision.getBookingId(), decision);
         }
+        List<UUID> acceptIds = byBooking.values().stream()
+                .filter(d -> Boolean.TRUE.equals(d.getIsAccepted()))
+                .map(OwnerConfirmationRequest::getBookingId)
+                .toList();
+        List<UUID> rejectIds = byBooking.values().stream()
+                .filter(d -> !Boolean.TRUE.equals(d.getIsAccepted()))
+                .map(OwnerConfirmationRequest::getBookingId)
+                .toList();
 
-        Item item = itemRepository
-                .findById(booking.getItemId())
-                .orElseThrow(() -> new AppException(ErrorCode.ITEM_NOT_FOUND));
-
-        // reject booking
-        if (!request.getIsAccepted()) {
-            // refund rental + deposit for this booking
-            BigDecimal days =
-                    BigDecimal.valueOf(ChronoUnit.DAYS.between(booking.getStartDate(), booking.getEndDate()) + 1);
-            BigDecimal rental_prices = BigDecimal.valueOf(booking.getPricePerDay())
-                    .multiply(BigDecimal.valueOf(booking.getQuantity()))
-                    .multiply(days);
-            // Deposit amount cần nhân với quantity (mỗi sản phẩm cần cọc)
-            BigDecimal deposit =
-                    BigDecimal.valueOf(booking.getDepositAmount()).multiply(BigDecimal.valueOf(booking.getQuantity()));
-            BigDecimal refundTotal = rental_prices.add(deposit);
-
-            Account systemWallet = getSystemWallet();
-            Account lessee = accountRepository
-                    .findById(booking.getLesseeId())
-                    .orElseThrow(() -> new AppException(ErrorCode.SYSTEM_WALLET_NOT_FOUND));
-
-            // transfer back
-            systemWallet.setCoinBalance(systemWallet.getCoinBalance() - refundTotal.doubleValue());
-            lessee.setCoinBalance(lessee.getCoinBalance() + refundTotal.doubleValue());
-            accountRepository.saveAll(Arrays.asList(systemWallet, lessee));
-
-            // transaction
-            Transaction tx = Transaction.builder()
-                    .fromAccountId(systemWallet.getId())
-                    .toAccountId(lessee.getId())
-                    .amount(refundTotal.doubleValue())
-                    .type(TransactionType.REFUND_FULL)
-                    .status(TransactionStatus.SUCCESS)
-                    .createdAt(LocalDateTime.now())
-                    .build();
-            transactionRepository.save(tx);
-
-            transactionBookingRepository.save(TransactionBooking.builder()
-                    .transactionId(tx.getId())
-                    .bookingId(booking.getId())
-                    .createdAt(LocalDateTime.now())
-                    .build());
-
-            // update booking and item
-            booking.setStatus(BookingStatus.PAID_REJECTED);
-            bookingRepository.save(booking);
-
-            item.setQuantity(item.getQuantity() + booking.getQuantity());
-            item.setStatus(ItemStatus.BANNED);
-            itemRepository.save(item);
+        Set<UUID> transitioned = new HashSet<>();
+        String pending = BookingStatus.PENDING_CONFIRM.name();
+        if (!acceptIds.isEmpty()) {
+            List<UUID> ids = bookingRepository.transitionOwned(
+                    acceptIds, lessorId, pending, BookingStatus.WAITING_DELIVERY.name());
+            bookingStateMachine.recordAll(ids, BookingStatus.PENDING_CONFIRM, BookingTrigger.OWNER_ACCEPT, lessorId);
+            transitioned.addAll(ids);
+        }
+        if (!rejectIds.isEmpty()) {
+            List<UUID> ids =
+                    bookingRepository.transitionOwned(rejectIds, lessorId, pending, BookingStatus.PAID_REJECTED.name());
+            bookingStateMachine.recordAll(ids, BookingStatus.PENDING_CONFIRM, BookingTrigger.OWNER_REJECT, lessorId);
+            transitioned.addAll(ids);
+        }
 
-            // decrease lessor trust score
-            Account lessor =
-                    accountRepository.findById(lessorId).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
-            lessor.setTrustScore(Math.max(0, lessor.getTrustScore() - 10)); // decrease 10 points
-            accountRepository.save(lessor);
+        // tải sau khi UPDATE nên entity mang trạng thái mới; cũng dùng để phân loại các dòng thất bại
+        Map<UUID, Booking> bookingMap = bookingRepository.findAllById(byBooking.keySet()).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        List<Booking> accepted = new ArrayList<>();
+        List<Booking> rejected = new ArrayList<>();
+        for (UUID id : byBooking.keySet()) {
+            if (!transitioned.contains(id)) continue;
+            Booking booking = bookingMap.get(id);
+            (booking.getStatus() == BookingStatus.PAID_REJECTED ? rejected : accepted).add(booking);
+        }
 
-            // log
-            itemLogRepository.save(ItemLog.builder()
-                    .itemId(item.getId())
-                    .accountId(lessorId)
-                    .action(ItemActionType.REJECT_RENTAL)
-                    .note("Owner rejected booking: " + request.getBookingId())
-                    .createdAt(LocalDateTime.now())
-                    .build());
+        Map<UUID, Item> itemMap = new HashMap<>();
+        Map<UUID, Account> accountMap = new HashMap<>();
+        if (!transitioned.isEmpty()) {
+            Set<UUID> itemIds = new HashSet<>();
+            Set<UUID> accountIds = new HashSet<>();
+            accountIds.add(lessorId);
+            for (UUID id : transitioned) {
+                itemIds.add(bookingMap.get(id).getItemId());
+                accountIds.add(bookingMap.get(id).getLesseeId());
+            }
+            itemRepository.findAllById(itemIds).forEach(i -> itemMap.put(i.getId(), i));
+            accountRepository.findAllById(accountIds).forEach(a -> accountMap.put(a.getId(), a));
+            if (!accountMap.containsKey(lessorId)) throw new AppException(ErrorCode.USER_NOT_FOUND);
+        }
 
-            // thông báo cho khách thuê khi đơn bị từ chối
-            notificationService.create(NotificationCreationRequest.builder()
-                    .receiverId(booking.getLesseeId())
-                    .senderId(lessorId)
-                    .type(NotificationType.BOOKING_REJECTED)
-                    .title("Đơn thuê đã bị từ chối")
-                    .content("Chủ đồ đã từ chối đơn thuê cho sản phẩm \"" + item.getName() + "\".")
-                    .referenceType(ReferenceType.BOOKING)
-                    .referenceId(booking.getId())
-                    .build());
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemLog> itemLogs = new ArrayList<>();
+        List<NotificationCreationRequest> notifications = new ArrayList<>();
+
+        if (!rejected.isEmpty()) {
+            refundRejected(rejected);
+
+            Set<UUID> bannedItems = new LinkedHashSet<>();
+            for (Booking booking : rejected) {
+                // free the reserved dates
+                itemAvailabilityService.release(booking);
+                bannedItems.add(booking.getItemId());
+
+                itemLogs.add(ItemLog.builder()
+                        .itemId(booking.getItemId())
+                        .accountId(lessorId)
+                        .action(ItemActionType.REJECT_RENTAL)
+                        .note("Owner rejected booking: " + booking.getId())
+                        .createdAt(now)
+                        .build());
 
-            return enrichBookingResponse(booking);
-        } else {
-            // accept booking
-            booking.setStatus(BookingStatus.WAITING_DELIVERY);
-            booking.setUpdatedAt(LocalDateTime.now());
-            bookingRepository.save(booking);
+                // thông báo cho khách thuê khi đơn bị từ chối
+                notifications.add(NotificationCreationRequest.builder()
+                        .receiverId(booking.getLesseeId())
+                        .senderId(lessorId)
+                        .type(NotificationType.BOOKING_REJECTED)
+                        .title("Đơn thuê đã bị từ chối")
+                        .content("Chủ đồ đã từ chối đơn thuê cho sản phẩm \"" + itemName(itemMap, booking) + "\".")
+                        .referenceType(ReferenceType.BOOKING)
+                        .referenceId(booking.getId())
+                        .build());
+            }
+            bannedItems.forEach(itemId -> itemAvailabilityService.updateItemStatus(itemId, ItemStatus.BANNED));
 
-            // update item status to RENTED
+            // decrease lessor trust score, 10 points per rejected booking
+            Account lessor = accountMap.get(lessorId);
+            lessor.setTrustScore(Math.max(0, lessor.getTrustScore() - 10 * rejected.size()));
+            accountRepository.save(lessor);
+        }
 
-            int currQuantity = item.getQuantity() - booking.getQuantity();
-            if (currQuantity == 0) {
-                item.setStatus(ItemStatus.RENTED);
-            } else {
-                // Nếu còn nhiều hơn 1 sản phẩm, chỉ giảm số lượng mà không đổi trạng thái
-                item.setQuantity(currQuantity);
-            }
-            itemRepository.save(item);
+        for (Booking booking : accepted) {
+            OwnerConfirmationRequest decision = byBooking.get(booking.getId());
+            // units were already reserved for the booked dates at checkout, the item stays rentable for
+            // other dates
 
             // log deliver info (deliveryNote may be null)
-            itemLogRepository.save(ItemLog.builder()
-                    .itemId(item.getId())
+            itemLogs.add(ItemLog.builder()
+                    .itemId(booking.getItemId())
                     .accountId(lessorId)
                     .action(ItemActionType.APPROVE_RENTAL)
                     .previousStatus(ItemStatus.AVAILABLE)
                     .currentStatus(ItemStatus.RENTED)
-                    .note(Optional.ofNullable(request.getDeliveryNote())
+                    .note(Optional.ofNullable(decision.getDeliveryNote())
                             .orElse("Owner accepted booking and will deliver"))
-                    .evidenceUrls(mediaUtils.fromRequest(request.getPackagingMediaUrls()))
-                    .createdAt(LocalDateTime.now())
+                    .evidenceUrls(mediaUtils.fromRequest(decision.getPackagingMediaUrls()))
+                    .createdAt(now)
                     .build());
 
             // thông báo cho khách thuê khi đơn được chấp nhận
-            notificationService.create(NotificationCreationRequest.builder()
+            notifications.add(NotificationCreationRequest.builder()
                     .receiverId(booking.getLesseeId())
                     .senderId(lessorId)
                     .type(NotificationType.BOOKING_APPROVED)
                     .title("Đơn thuê đã được chấp nhận")
-                    .content("Chủ đồ đã chấp nhận đơn thuê cho sản phẩm \"" + item.getName() + "\".")
+                    .content("Chủ đồ đã chấp nhận đơn thuê cho sản phẩm \"" + itemName(itemMap, booking) + "\".")
                     .referenceType(ReferenceType.BOOKING)
                     .referenceId(booking.getId())
                     .build());
         }
 
-        return enrichBookingResponse(booking);
+        if (!itemLogs.isEmpty()) itemLogRepository.saveAll(itemLogs);
+        if (!notifications.isEmpty()) notificationService.enqueueAll(notifications);
+
+        // kết quả theo đúng thứ tự request
+        Set<UUID> answered = new HashSet<>();
+        List<OwnerDecisionResult> results = new ArrayList<>(decisions.size());
+        for (OwnerConfirmationRequest decision : decisions) {
+            UUID id = decision.getBookingId();
+            if (id == null) {
+                results.add(failed(null, ErrorCode.BOOKING_NOT_FOUND));
+            } else if (!answered.add(id)) {
+                results.add(failed(id, ErrorCode.INVALID_BOOKING_STATUS));
+            } else if (transitioned.contains(id)) {
+                Booking booking = bookingMap.get(id);
+                Item item = itemMap.get(booking.getItemId());
+                Account lessee = accountMap.get(booking.getLesseeId());
+                results.add(OwnerDecisionResult.builder()
+                        .bookingId(id)
+                        .success(true)
+                        .booking(toBookingResponse(booking, item, accountMap.get(lessorId), lessee, false))
+                        .build());
+            } else {
+                Booking booking = bookingMap.get(id);
+                if (booking == null) results.add(failed(id, ErrorCode.BOOKING_NOT_FOUND));
+                else if (!booking.getLessorId().equals(lessorId)) results.add(failed(id, ErrorCode.UNAUTHORIZED));
+                else results.add(failed(id, ErrorCode.INVALID_BOOKING_STATUS));
+            }
+        }
+        log.info(
+                "Lessor {} responded to {} bookings: {} accepted, {} rejected",
+                lessorId,
+                decisions.size(),
+                accepted.size(),
+                rejected.size());
+        return results;
     }
 
     // Lessee confirm received -> set IN_USE, add rent log.
     @Override
+    @Transactional
     public BookingResponse lesseeConfirmReceived(UUID lesseeId, UUID bookingId) {
         Booking booking =
                 bookingRepository.findById(bookingId).orElseThrow(() -> new AppException(ErrorCode.BOOKING_NOT_FOUND));
 
         if (!booking.getLesseeId().equals(lesseeId)) throw new AppException(ErrorCode.UNAUTHORIZED);
 
-        // set status IN_USE
-        booking.setStatus(BookingStatus.IN_USE);
-        booking.setUpdatedAt(LocalDateTime.now());
-        bookingRepository.save(booking);
+        // WAITING_DELIVERY -> IN_USE
+        bookingStateMachine.fire(booking, BookingTrigger.CONFIRM_RECEIVED, lesseeId);
+        timerService.scheduleReturnDeadlines(booking.getId(), booking.getEndDate());
 
         // log rent action
         itemLogRepository.save(ItemLog.builder()
@@ -413,17 +429,23 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingResponse> getBookingsByLessee(UUID lesseeId) {
-        return bookingRepository.findAllByLesseeIdOrderByCreatedAtDesc(lesseeId).stream()
-                .map(this::enrichBookingResponse)
-                .toList();
+    public CursorPageResponse<BookingResponse> getBookingsByLessee(
+            UUID lesseeId, List<BookingStatus> statuses, String cursor, int size) {
+        BookingCursor after = BookingCursor.decode(cursor);
+        int pageSize = clampPageSize(size);
+        List<BookingListView> rows = bookingRepository.findLesseePage(
+                lesseeId, statusFilter(statuses), after.createdAt(), after.id(), PageRequest.of(0, pageSize + 1));
+        return toCursorPage(rows, pageSize);
     }
 
     @Override
-    public List<BookingResponse> getBookingsByLessor(UUID lessorId) {
-        return bookingRepository.findAllByLessorIdOrderByCreatedAtDesc(lessorId).stream()
-                .map(this::enrichBookingResponse)
-                .toList();
+    public CursorPageResponse<BookingResponse> getBookingsByLessor(
+            UUID lessorId, List<BookingStatus> statuses, String cursor, int size) {
+        BookingCursor after = BookingCursor.decode(cursor);
+        int pageSize = clampPageSize(size);
+        List<BookingListView> rows = bookingRepository.findLessorPage(
+                lessorId, statusFilter(statuses), after.createdAt(), after.id(), PageRequest.of(0, pageSize + 1));
+        return toCursorPage(rows, pageSize);
     }
 
     @Override
@@ -448,12 +470,8 @@ public class BookingServiceImpl implements BookingService {
             throw new AppException(ErrorCode.UNAUTHORIZED);
         }
 
-        if (booking.getStatus() != BookingStatus.DUE_FOR_RETURN && booking.getStatus() != BookingStatus.LATE_RETURN) {
-            throw new AppException(ErrorCode.INVALID_BOOKING_STATUS);
-        }
-
-        // update booking status to RETURNED_PENDING_CHECK
-        booking.setStatus(BookingStatus.RETURNED_PENDING_CHECK);
+        // DUE_FOR_RETURN / LATE_RETURN -> RETURNED_PENDING_CHECK
+        bookingStateMachine.fire(booking, BookingTrigger.LESSEE_RETURN, lesseeId);
 
         List<MediaResource> evidenceUrls = mediaUtils.fromRequest(request.getMediaUrls());
         // save ItemLog
@@ -473,14 +491,13 @@ public class BookingServiceImpl implements BookingService {
         Item item = itemRepository
                 .findById(booking.getItemId())
                 .orElseThrow(() -> new AppException(ErrorCode.ITEM_NOT_FOUND));
-        item.setStatus(ItemStatus.RETURN_PENDING_CHECK);
 
-        bookingRepository.save(booking);
         itemLogRepository.save(itemLog);
-        itemRepository.save(item);
+        timerService.cancelReturnDeadlines(booking.getId());
+        itemAvailabilityService.updateItemStatus(item.getId(), ItemStatus.RETURN_PENDING_CHECK);
 
         // gửi thông báo cho chủ thuê về việc người thuê đã trả đồ
-        notificationService.create(NotificationCreationRequest.builder()
+        notificationService.enqueue(NotificationCreationRequest.builder()
                 .receiverId(booking.getLessorId())
                 .senderId(lesseeId)
                 .type(NotificationType.BOOKING_RETURNED)
@@ -494,18 +511,16 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional
     public BookingResponse lessorConfirmReturn(UUID lessorId, UUID bookingId) {
         Booking booking =
                 bookingRepository.findById(bookingId).orElseThrow(() -> new AppException(ErrorCode.BOOKING_NOT_FOUND));
 
         if (!booking.getLessorId().equals(lessorId)) throw new AppException(ErrorCode.BOOKING_NOT_BELONG_TO_USER);
 
-        if (booking.getStatus() != BookingStatus.RETURNED_PENDING_CHECK)
-            throw new AppException(ErrorCode.INVALID_BOOKING_STATUS);
-
-        // set booking status to WAITING_REFUND
-        booking.setStatus(BookingStatus.WAITING_REFUND);
-        bookingRepository.save(booking);
+        // RETURNED_PENDING_CHECK -> WAITING_REFUND
+        bookingStateMachine.fire(booking, BookingTrigger.LESSOR_CONFIRM_RETURN, lessorId);
+        timerService.schedule(TimerType.BOOKING_REFUND, booking.getId(), LocalDateTime.now());
 
         // record item log
         itemLogRepository.save(ItemLog.builder()
@@ -517,15 +532,9 @@ public class BookingServiceImpl implements BookingService {
                 .note("Lessor confirmed return for booking: " + bookingId)
                 .build());
 
-        // update Item status = AVAILABLE
-        Item item = itemRepository
-                .findById(booking.getItemId())
-                .orElseThrow(() -> new AppException(ErrorCode.ITEM_NOT_FOUND));
-
-        // restock returned quantity
-        item.setQuantity(item.getQuantity() + booking.getQuantity());
-        item.setStatus(ItemStatus.AVAILABLE);
-        itemRepository.save(item);
+        // free the reserved dates, update Item status = AVAILABLE
+        itemAvailabilityService.release(booking);
+        itemAvailabilityService.updateItemStatus(booking.getItemId(), ItemStatus.AVAILABLE);
 
         return enrichBookingResponse(booking);
     }
@@ -536,19 +545,20 @@ public class BookingServiceImpl implements BookingService {
         Booking booking =
                 bookingRepository.findById(bookingId).orElseThrow(() -> new AppException(ErrorCode.BOOKING_NOT_FOUND));
 
-        if (booking.getStatus() != BookingStatus.WAITING_REFUND) {
+        if (!bookingStateMachine.canFire(booking.getStatus(), BookingTrigger.SETTLE_RETURN)) {
             // Nếu không phải WAITING_REFUND thì bỏ qua (có thể do job khác đã chạy)
             return;
         }
 
-        // tính số ngày trễ
-        LocalDate returnedTime = booking.getUpdatedAt().toLocalDate();
+        // tính số ngày trễ theo lúc khách thực sự trả đồ (sự kiện LESSEE_RETURN)
+        LocalDate returnedTime = bookingEventRepository
+                .findLatestAt(bookingId, BookingTrigger.LESSEE_RETURN)
+                .orElse(booking.getUpdatedAt())
+                .toLocalDate();
         LocalDate endDate = booking.getEndDate();
         long daysLate = ChronoUnit.DAYS.between(endDate, returnedTime);
 
-        Account system = accountRepository
-                .findSystemWallet()
-                .orElseThrow(() -> new AppException(ErrorCode.SYSTEM_WALLET_NOT_FOUND));
+        UUID systemWalletId = systemWalletService.getSystemAccountId();
         Account lessor = accountRepository
                 .findById(booking.getLessorId())
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
@@ -556,250 +566,267 @@ public class BookingServiceImpl implements BookingService {
                 .findById(booking.getLesseeId())
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
 
-        long days = ChronoUnit.DAYS.between(booking.getStartDate(), booking.getEndDate());
-        double rentalFee = booking.getPricePerDay() * booking.getQuantity() * days;
-        // Deposit amount cần nhân với quantity (mỗi sản phẩm cần cọc)
-        double deposit = booking.getDepositAmount() * booking.getQuantity();
-        double refundDeposit = deposit;
+        long rentalFeeMinor = PricingEngine.rentalFee(booking);
+        long depositMinor = PricingEngine.deposit(booking);
 
-        double penalty = 0;
         // Xử lý trễ hạn
-        if (daysLate > 0 && daysLate < 4) {
-            double penaltyRate;
-            if (daysLate == 1) penaltyRate = 0.10; // 10%
-            else if (daysLate == 2) penaltyRate = 0.25; // 25%
-            else penaltyRate = 0.50; // 50%
-            penalty = deposit * penaltyRate;
-            if (penalty > deposit) penalty = deposit;
-            refundDeposit = deposit - penalty;
-
-            log.info(
-                    " Booking {} trả trễ {} ngày → trừ {} coin ({}%)",
-                    bookingId, daysLate, penalty, (int) (penaltyRate * 100));
-        } else if (daysLate >= 4) {
-            handleUnreturnedBooking(booking);
+        if (daysLate >= PricingEngine.FORFEIT_AFTER_LATE_DAYS) {
+            // đồ đã được trả (lessorConfirmReturn đã giải phóng lịch giữ chỗ) -> chỉ mất cọc, không trừ kho
+            bookingStateMachine.fire(booking, BookingTrigger.MARK_OVERDUE, null);
+            forfeitToLessor(booking);
             log.warn("Booking {} trả sau hơn 3 ngày — sẽ không hoàn cọc (đã xử lý ở forfeited flow)", bookingId);
             return;
         }
-        double totalPayout = rentalFee + refundDeposit;
-        if (system.getCoinBalance() < totalPayout) {
-            throw new AppException(ErrorCode.SYSTEM_WALLET_INSUFFICIENT);
+        long penaltyMinor = PricingEngine.latePenalty(depositMinor, daysLate);
+        if (penaltyMinor > 0) {
+            log.info(
+                    " Booking {} trả trễ {} ngày → trừ {} coin ({}%)",
+                    bookingId,
+                    daysLate,
+                    PricingEngine.toDecimal(penaltyMinor),
+                    PricingEngine.latePenaltyBps(daysLate) / 100);
         }
+        double rentalFee = PricingEngine.toCoins(rentalFeeMinor);
+        double refundDeposit = PricingEngine.toCoins(depositMinor - penaltyMinor);
+        // ném SYSTEM_WALLET_INSUFFICIENT nếu ví hệ thống không đủ
+        systemWalletService.debit(bookingId, rentalFeeMinor + depositMinor - penaltyMinor);
 
         // system -> lessor (pay rental fee)
-        lessor.setCoinBalance(lessor.getCoinBalance() + rentalFee);
-        system.setCoinBalance(system.getCoinBalance() - rentalFee);
+        walletService.credit(lessor.getId(), rentalFee);
 
         // system -> lessee (refund deposit)
         if (refundDeposit > 0) {
-            lessee.setCoinBalance(lessee.getCoinBalance() + refundDeposit);
-            system.setCoinBalance(system.getCoinBalance() - refundDeposit);
+            walletService.credit(lessee.getId(), refundDeposit);
         }
 
-        // update accounts after transactions
-        accountRepository.saveAll(List.of(system, lessor, lessee));
-
         // record transactions
-        Transaction rentalPayoutTx = transactionRepository.save(Transaction.builder()
-                .fromAccountId(system.getId())
-                .toAccountId(lessor.getId())
-                .amount(rentalFee)
-                .type(TransactionType.RENTAL_PAYOUT)
-                .status(TransactionStatus.SUCCESS)
-                .createdAt(LocalDateTime.now())
-                .build());
-
-        transactionBookingRepository.save(TransactionBooking.builder()
-                .bookingId(booking.getId())
-                .transactionId(rentalPayoutTx.getId())
-                .createdAt(LocalDateTime.now())
-                .build());
+        if (rentalFee > 0) {
+            ledgerService.record(
+                    systemWalletId, lessor.getId(), rentalFee, TransactionType.RENTAL_PAYOUT, booking.getId());
+        }
 
         if (refundDeposit > 0) {
-            Transaction refundDepositTx = transactionRepository.save(Transaction.builder()
-                    .fromAccountId(system.getId())
-                    .toAccountId(lessee.getId())
-                    .amount(refundDeposit) // [FIXED] Ghi đúng số tiền thực tế hoàn
-                    .type(TransactionType.REFUND_DEPOSIT)
-                    .status(TransactionStatus.SUCCESS)
-                    .createdAt(LocalDateTime.now())
-                    .build());
-
-            transactionBookingRepository.save(TransactionBooking.builder()
-                    .transactionId(refundDepositTx.getId())
-                    .bookingId(booking.getId())
-                    .createdAt(LocalDateTime.now())
-                    .build());
+            ledgerService.record(
+                    systemWalletId, lessee.getId(), refundDeposit, TransactionType.REFUND_DEPOSIT, booking.getId());
         }
 
-        booking.setStatus(BookingStatus.COMPLETED);
-        booking.setUpdatedAt(LocalDateTime.now());
-        bookingRepository.save(booking);
+        // WAITING_REFUND -> COMPLETED; lượt chạy song song thua CAS sẽ rollback cả phần chi trả
+        bookingStateMachine.fire(booking, BookingTrigger.SETTLE_RETURN, null);
 
         Item item = itemRepository.findById(booking.getItemId()).orElse(null);
         if (item != null && item.getStatus() != ItemStatus.AVAILABLE) {
-            item.setStatus(ItemStatus.AVAILABLE);
-            itemRepository.save(item);
-        }
-    }
-
-    @Scheduled(fixedRate = 3600000)
-    public void scheduleRefundScanning() {
-        log.info("--- Bắt đầu Job quét đơn hàng chờ hoàn tiền (WAITING_REFUND) ---");
-
-        // Tìm tất cả đơn đang chờ hoàn tiền
-        List<Booking> bookings = bookingRepository.findAllByStatus(BookingStatus.WAITING_REFUND);
-
-        for (Booking booking : bookings) {
-            try {
-                processRefundAndReturn(booking.getId());
-            } catch (Exception e) {
-                log.error("Lỗi xử lý hoàn tiền booking {}: {}", booking.getId(), e.getMessage());
-            }
+            itemAvailabilityService.updateItemStatus(item.getId(), ItemStatus.AVAILABLE);
         }
-        log.info("--- Kết thúc Job quét ---");
     }
 
+    /*
+     * Đối soát thủ công (các mốc bình thường do timer BOOKING_DUE/LATE/OVERDUE bắn đúng giờ).
+     * Chỉ chạm vào các booking vừa vượt mốc hạn, tìm bằng index (status, end_date):
+     * - IN_USE, endDate <= hôm nay -> DUE_FOR_RETURN
+     * - DUE_FOR_RETURN, hôm nay > endDate + 1 -> LATE_RETURN
+     * - LATE_RETURN, hôm nay > endDate + 3 -> OVERDUE (bồi thường cho chủ thuê)
+     * Hai bước đầu là UPDATE ... RETURNING theo từng chunk, mỗi chunk một transaction.
+     */
     @Override
-    @Transactional
-    @Scheduled(fixedRate = 3600000)
     public void checkAndUpdateLateReturns() {
-        LocalDateTime now = LocalDateTime.now();
         LocalDate today = LocalDate.now();
 
-        List<Booking> toUpdate = new ArrayList<>();
+        int due = transitionDueBookings(
+                BookingStatus.IN_USE, BookingTrigger.RETURN_DUE, today, DUE_TITLE, BookingServiceImpl::dueContent);
 
-        // Đến hạn trả đồ -> DUE_FOR_RETURN
-        List<Booking> inUseBookings = bookingRepository.findByStatus(BookingStatus.IN_USE);
-        for (Booking booking : inUseBookings) {
-            if (!booking.getEndDate().isAfter(today)) {
-                booking.setStatus(BookingStatus.DUE_FOR_RETURN);
-                booking.setUpdatedAt(now);
-                toUpdate.add(booking);
+        int late = transitionDueBookings(
+                BookingStatus.DUE_FOR_RETURN,
+                BookingTrigger.RETURN_LATE,
+                today.minusDays(TimerService.LATE_AFTER_DAYS),
+                LATE_TITLE,
+                BookingServiceImpl::lateContent);
 
-                String itemName = itemRepository
-                        .findById(booking.getItemId())
-                        .map(Item::getName)
-                        .orElse("sản phẩm");
+        int overdue = processOverdueBookings(today.minusDays(TimerService.OVERDUE_AFTER_DAYS));
 
-                notificationService.create(NotificationCreationRequest.builder()
-                        .receiverId(booking.getLesseeId())
-                        .senderId(booking.getLessorId())
-                        .type(NotificationType.BOOKING_CREATED)
-                        .title("Đến hạn trả đồ")
-                        .content("Đơn thuê \"" + itemName + "\" đã đến hạn trả hôm nay. Vui lòng gửi trả sớm.")
-                        .referenceType(ReferenceType.BOOKING)
-                        .referenceId(booking.getId())
-                        .build());
-            }
+        if (due + late + overdue > 0) {
+            log.info("Late-return job: {} due, {} late, {} overdue", due, late, overdue);
         }
+    }
 
-        // Sau 24h kể từ DUE_FOR_RETURN -> LATE_RETURN
-        List<Booking> dueBookings = bookingRepository.findByStatus(BookingStatus.DUE_FOR_RETURN);
-        for (Booking booking : dueBookings) {
-            // Nếu hôm nay đã trễ hơn ngày hẹn trả 1 ngày trở lên
-            if (today.isAfter(booking.getEndDate().plusDays(1))) {
-                booking.setStatus(BookingStatus.LATE_RETURN);
-                booking.setUpdatedAt(now);
-                toUpdate.add(booking);
-
-                String itemName = itemRepository
-                        .findById(booking.getItemId())
-                        .map(Item::getName)
-                        .orElse("sản phẩm");
-
-                notificationService.create(NotificationCreationRequest.builder()
-                        .receiverId(booking.getLesseeId())
-                        .senderId(booking.getLessorId())
-                        .type(NotificationType.BOOKING_CREATED)
-                        .title("Đã trễ hạn trả đồ")
-                        .content("Đơn thuê \"" + itemName + "\" đã quá hạn trả. Bạn sẽ bị tính phí phạt.")
-                        .referenceType(ReferenceType.BOOKING)
-                        .referenceId(booking.getId())
-                        .build());
-            }
-        }
+    // =====Timer handlers (chạy trong transaction của TimerService)=====
+
+    @PostConstruct
+    void registerTimerHandlers() {
+        timerService.registerHandler(TimerType.BOOKING_DUE, this::onReturnDue);
+        timerService.registerHandler(TimerType.BOOKING_LATE, this::onReturnLate);
+        timerService.registerHandler(TimerType.BOOKING_OVERDUE, this::claimOverdue);
+        timerService.registerHandler(TimerType.BOOKING_REFUND, this::processRefundAndReturn);
 
-        // Sau 72h kể từ LATE_RETURN -> OVERDUE
-        List<Booking> lateBookings = bookingRepository.findByStatus(BookingStatus.LATE_RETURN);
-        for (Booking booking : lateBookings) {
-            if (today.isAfter(booking.getEndDate().plusDays(3))) {
-                handleUnreturnedBooking(booking);
+        // ngày trả có thể bị dời (gia hạn) sau khi timer được đặt
+        bookingStateMachine.registerGuard(BookingTrigger.RETURN_DUE, (booking, from, to) -> {
+            if (booking.getEndDate().isAfter(LocalDate.now())) {
+                throw new AppException(ErrorCode.INVALID_BOOKING_STATUS);
             }
-        }
+        });
+    }
 
-        if (!toUpdate.isEmpty()) {
-            bookingRepository.saveAll(toUpdate);
+    private void onReturnDue(UUID bookingId) {
+        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        if (booking == null || booking.getStatus() != BookingStatus.IN_USE) return;
+        if (!bookingStateMachine.tryFire(booking, BookingTrigger.RETURN_DUE, null)) {
+            // guard chặn vì ngày trả đã bị dời: đặt lại timer theo endDate mới
+            if (booking.getStatus() == BookingStatus.IN_USE
+                    && booking.getEndDate().isAfter(LocalDate.now())) {
+                timerService.scheduleReturnDeadlines(bookingId, booking.getEndDate());
+            }
+            return;
         }
+        notifyReturnDeadline(
+                bookingId,
+                booking.getLesseeId(),
+                booking.getLessorId(),
+                DUE_TITLE,
+                dueContent(itemNameOf(booking.getItemId())));
     }
 
-    // =====Private Methods=====
+    private void onReturnLate(UUID bookingId) {
+        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        if (booking == null || booking.getStatus() != BookingStatus.DUE_FOR_RETURN) return;
+        if (!bookingStateMachine.tryFire(booking, BookingTrigger.RETURN_LATE, null)) return;
+        notifyReturnDeadline(
+                bookingId,
+                booking.getLesseeId(),
+                booking.getLessorId(),
+                LATE_TITLE,
+                lateContent(itemNameOf(booking.getItemId())));
+    }
 
-    private Account getSystemWallet() {
-        return accountRepository
-                .findSystemWallet()
-                .orElseThrow(() -> new AppException(ErrorCode.SYSTEM_WALLET_NOT_FOUND));
+    // giành quyền xử lý: chỉ một lượt chạy chuyển được LATE_RETURN -> OVERDUE
+    private boolean claimOverdue(UUID bookingId) {
+        if (!bookingStateMachine.tryFire(bookingId, BookingStatus.LATE_RETURN, BookingTrigger.MARK_OVERDUE, null)) {
+            rearmOverdue(bookingId);
+            return false;
+        }
+        bookingRepository.findById(bookingId).ifPresent(this::handleUnreturnedBooking);
+        return true;
     }
 
-    // xử lý trường hợp người thuê không trả đồ sau 3 ngày trễ
-    private void handleUnreturnedBooking(Booking booking) {
+    /*
+     * Timer OVERDUE bắn khi booking chưa tới LATE_RETURN (timer DUE/LATE còn trong backlog hoặc đang thử lại,
+     * hoặc ngày trả vừa bị dời): đặt lại thay vì bỏ. Hạn mới chưa tới thì đặt đúng hạn, đã qua thì chờ lâu dần
+     * theo thời gian đã trễ (1 phút .. 1 giờ) để không bắn dồn dập khi chuỗi timer phía trước còn kẹt.
+     */
+    private void rearmOverdue(UUID bookingId) {
+        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        if (booking == null || booking.getEndDate() == null) return;
+        if (!OVERDUE_PENDING_STATUSES.contains(booking.getStatus())) return; // đã trả / đã xử lý
+
         LocalDateTime now = LocalDateTime.now();
-        // Cập nhật trạng thái Booking và Item
-        booking.setStatus(BookingStatus.OVERDUE);
-        booking.setUpdatedAt(now);
+        LocalDateTime deadline =
+                booking.getEndDate().plusDays(TimerService.OVERDUE_AFTER_DAYS).atStartOfDay();
+        if (deadline.isAfter(now)) {
+            timerService.schedule(TimerType.BOOKING_OVERDUE, bookingId, deadline);
+            return;
+        }
+        Duration backoff = Duration.between(deadline, now);
+        if (backoff.compareTo(OVERDUE_RECHECK_MIN) < 0) backoff = OVERDUE_RECHECK_MIN;
+        if (backoff.compareTo(OVERDUE_RECHECK_MAX) > 0) backoff = OVERDUE_RECHECK_MAX;
+        timerService.schedule(TimerType.BOOKING_OVERDUE, bookingId, now.plus(backoff));
+    }
 
-        Item item = itemRepository
-                .findById(booking.getItemId())
-                .orElseThrow(() -> new AppException(ErrorCode.ITEM_NOT_FOUND));
+    private void notifyReturnDeadline(UUID bookingId, UUID lesseeId, UUID lessorId, String title, String content) {
+        notificationService.enqueue(NotificationCreationRequest.builder()
+                .receiverId(lesseeId)
+                .senderId(lessorId)
+                .type(NotificationType.BOOKING_CREATED)
+                .title(title)
+                .content(content)
+                .referenceType(ReferenceType.BOOKING)
+                .referenceId(bookingId)
+                .build());
+    }
 
-        if (item.getQuantity() > 0) {
-            // Nếu kho vẫn còn hàng -> Đánh dấu AVAILABLE
-            item.setStatus(ItemStatus.AVAILABLE);
-        } else {
-            // Nếu kho đã về 0 -> Đánh dấu MISSING (Hết hàng do mất)
-            item.setStatus(ItemStatus.MISSING);
-        }
+    private String itemNameOf(UUID itemId) {
+        return itemRepository.findById(itemId).map(Item::getName).orElse("sản phẩm");
+    }
 
-        // Tính toán số tiền cần chuyển cho chủ thuê
-        long days = ChronoUnit.DAYS.between(booking.getStartDate(), booking.getEndDate()) + 1;
-        double rentalFee = booking.getPricePerDay() * booking.getQuantity() * days;
-        // Deposit amount cần nhân với quantity (mỗi sản phẩm cần cọc)
-        double deposit = booking.getDepositAmount() * booking.getQuantity();
-        double totalAmount = rentalFee + deposit;
+    private static String dueContent(String itemName) {
+        return "Đơn thuê \"" + itemName + "\" đã đến hạn trả hôm nay. Vui lòng gửi trả sớm.";
+    }
 
-        Account lessee = accountRepository
-                .findById(booking.getLesseeId())
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
+    private static String lateContent(String itemName) {
+        return "Đơn thuê \"" + itemName + "\" đã quá hạn trả. Bạn sẽ bị tính phí phạt.";
+    }
 
-        Account lessor = accountRepository
-                .findById(booking.getLessorId())
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
+    // =====Private Methods=====
 
-        Account system = getSystemWallet();
+    // Chuyển trạng thái hàng loạt theo chunk; tên item của cả chunk lấy bằng một query để gửi thông báo
+    private int transitionDueBookings(
+            BookingStatus from,
+            BookingTrigger trigger,
+            LocalDate threshold,
+            String title,
+            Function<String, String> content) {
+        BookingStatus to = bookingStateMachine.target(from, trigger).orElseThrow();
+        int total = 0;
+        while (true) {
+            Integer changed = transactionTemplate.execute(tx -> {
+                List<BookingTransitionView> rows =
+                        bookingRepository.transitionDue(from.name(), to.name(), threshold, lateReturnChunkSize);
+                if (rows.isEmpty()) return 0;
+                bookingStateMachine.recordAll(
+                        rows.stream().map(BookingTransitionView::getId).toList(), from, trigger, null);
+
+                Set<UUID> itemIds =
+                        rows.stream().map(BookingTransitionView::getItemId).collect(Collectors.toSet());
+                Map<UUID, String> itemNames = itemRepository.findAllById(itemIds).stream()
+                        .collect(Collectors.toMap(Item::getId, Item::getName));
+
+                for (BookingTransitionView row : rows) {
+                    notifyReturnDeadline(
+                            row.getId(),
+                            row.getLesseeId(),
+                            row.getLessorId(),
+                            title,
+                            content.apply(itemNames.getOrDefault(row.getItemId(), "sản phẩm")));
+                }
+                return rows.size();
+            });
+            int count = changed != null ? changed : 0;
+            total += count;
+            if (count < lateReturnChunkSize) return total;
+        }
+    }
 
-        if (system.getCoinBalance() < totalAmount) {
-            throw new AppException(ErrorCode.INSUFFICIENT_BALANCE);
+    // Đơn quá hạn có chuyển tiền nên xử lý từng đơn trong transaction riêng; đơn lỗi không chặn các đơn khác
+    private int processOverdueBookings(LocalDate threshold) {
+        int processed = 0;
+        LocalDate afterEndDate = LocalDate.of(1970, 1, 1);
+        UUID afterId = new UUID(0L, 0L);
+        while (true) {
+            List<Booking> page = bookingRepository.findDueAfter(
+                    BookingStatus.LATE_RETURN,
+                    threshold,
+                    afterEndDate,
+                    afterId,
+                    PageRequest.of(0, lateReturnChunkSize));
+            // mỗi booking một transaction trên worker pool, lỗi thì thử lại có backoff
+            processed += jobExecutor
+                    .runBatch(
+                            TimerType.BOOKING_OVERDUE.name(),
+                            page.stream().map(Booking::getId).toList(),
+                            this::claimOverdue)
+                    .succeeded();
+            if (page.size() < lateReturnChunkSize) return processed;
+            Booking last = page.get(page.size() - 1);
+            afterEndDate = last.getEndDate();
+            afterId = last.getId();
         }
+    }
 
-        // Thực hiện chuyển tiền
-        system.setCoinBalance(system.getCoinBalance() - totalAmount);
-        lessor.setCoinBalance(lessor.getCoinBalance() + totalAmount);
-
-        Transaction compTx = Transaction.builder()
-                .fromAccountId(system.getId())
-                .toAccountId(lessor.getId())
-                .amount(totalAmount)
-                .type(TransactionType.COMPENSATION_PAYOUT)
-                .status(TransactionStatus.SUCCESS)
-                .createdAt(now)
-                .build();
-        transactionRepository.save(compTx);
+    // xử lý trường hợp người thuê không trả đồ sau 3 ngày trễ
+    private void handleUnreturnedBooking(Booking booking) {
+        // booking đã được chuyển sang OVERDUE (MARK_OVERDUE) trước khi vào đây
 
-        transactionBookingRepository.save(TransactionBooking.builder()
-                .transactionId(compTx.getId())
-                .bookingId(booking.getId())
-                .createdAt(now)
-                .build());
+        // Giải phóng lịch giữ chỗ, các đơn vị không được trả coi như mất khỏi kho.
+        // Trừ kho nguyên tử trong DB: còn hàng -> AVAILABLE, kho về 0 -> MISSING (hết hàng do mất)
+        itemAvailabilityService.release(booking);
+        itemAvailabilityService.writeOffLostUnits(booking.getItemId(), booking.getQuantity());
 
         // ghi Item_Log
         itemLogRepository.save(ItemLog.builder()
@@ -809,44 +836,148 @@ public class BookingServiceImpl implements BookingService {
                 .previousStatus(ItemStatus.RENTED)
                 .currentStatus(ItemStatus.MISSING)
                 .note("Lessee failed to return item for booking: " + booking.getId())
-                .createdAt(now)
+                .createdAt(LocalDateTime.now())
                 .build());
 
+        forfeitToLessor(booking);
+    }
+
+    // Mất toàn bộ tiền thuê + cọc về chủ thuê và phạt người thuê (dùng cho cả trả quá 3 ngày lẫn không trả)
+    private void forfeitToLessor(Booking booking) {
+        // Tính toán số tiền cần chuyển cho chủ thuê
+        long totalMinor = PricingEngine.totalPaid(booking);
+        double totalAmount = PricingEngine.toCoins(totalMinor);
+
+        Account lessee = accountRepository
+                .findById(booking.getLesseeId())
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
+
+        Account lessor = accountRepository
+                .findById(booking.getLessorId())
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
+
+        // Thực hiện chuyển tiền (ném SYSTEM_WALLET_INSUFFICIENT nếu ví hệ thống không đủ)
+        systemWalletService.debit(booking.getId(), totalMinor);
+        walletService.credit(lessor.getId(), totalAmount);
+
+        ledgerService.record(
+                systemWalletService.getSystemAccountId(),
+                lessor.getId(),
+                totalAmount,
+                TransactionType.COMPENSATION_PAYOUT,
+                booking.getId());
+
         // Trừ trust score và khóa tài khoản người thuê
         lessee.setTrustScore(Math.max(0, lessee.getTrustScore() - 50));
         lessee.setStatus(UserStatus.BANNED);
 
-        // 9️Lưu toàn bộ thay đổi
-        bookingRepository.save(booking);
-        itemRepository.save(item);
-        accountRepository.save(system);
-        accountRepository.save(lessor);
         accountRepository.save(lessee);
     }
 
-    private BookingResponse enrichBookingResponse(Booking booking) {
-        BookingResponse response = bookingMapper.entityToResponse(booking);
+    // Hoàn tiền thuê + cọc của các booking bị từ chối: rút ví hệ thống theo từng booking (shard lúc checkout),
+    // một lần cộng ví và một giao dịch sổ cái (gắn mọi booking) cho mỗi khách thuê
+    private void refundRejected(List<Booking> rejected) {
+        Map<UUID, List<Booking>> byLessee = rejected.stream()
+                .collect(Collectors.groupingBy(Booking::getLesseeId, LinkedHashMap::new, Collectors.toList()));
+        UUID systemWalletId = systemWalletService.getSystemAccountId();
+        byLessee.forEach((lesseeId, bookings) -> {
+            long refundMinor = 0;
+            for (Booking booking : bookings) {
+                long paidMinor = PricingEngine.totalPaid(booking);
+                systemWalletService.debit(booking.getId(), paidMinor);
+                refundMinor = Math.addExact(refundMinor, paidMinor);
+            }
+            if (refundMinor <= 0) return;
+            double refundTotal = PricingEngine.toCoins(refundMinor);
+
+            walletService.credit(lesseeId, refundTotal);
+            ledgerService.record(
+                    systemWalletId,
+                    lesseeId,
+                    refundTotal,
+                    TransactionType.REFUND_FULL,
+                    bookings.stream().map(Booking::getId).toList());
+        });
+    }
 
+    private static OwnerDecisionResult failed(UUID bookingId, ErrorCode errorCode) {
+        return OwnerDecisionResult.builder()
+                .bookingId(bookingId)
+                .success(false)
+                .error(errorCode.name())
+                .message(errorCode.getMessage())
+                .build();
+    }
+
+    private static String itemName(Map<UUID, Item> itemMap, Booking booking) {
+        Item item = itemMap.get(booking.getItemId());
+        return item != null ? item.getName() : "";
+    }
+
+    private BookingResponse enrichBookingResponse(Booking booking) {
         // load item
         Item item = itemRepository
                 .findById(booking.getItemId())
                 .orElseThrow(() -> new AppException(ErrorCode.ITEM_NOT_FOUND));
-        response.setItemName(item.getName());
 
         // load lessor
         Account lessor = accountRepository
                 .findById(booking.getLessorId())
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
-        response.setLessorName(lessor.getLastname() + " " + lessor.getFirstname());
 
         // load lessee
         Account lessee = accountRepository
                 .findById(booking.getLesseeId())
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
-        response.setLesseeName(lessee.getLastname() + " " + lessee.getFirstname());
 
         // flag đã review chưa (mỗi booking 1 review của lessee)
         boolean hasReviewed = reviewRepository.existsByBookingIdAndReviewerId(booking.getId(), booking.getLesseeId());
+        return toBookingResponse(booking, item, lessor, lessee, hasReviewed);
+    }
+
+    // Lấy dư một dòng để biết còn trang sau hay không, không cần count
+    private CursorPageResponse<BookingResponse> toCursorPage(List<BookingListView> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<BookingListView> page = hasMore ? rows.subList(0, pageSize) : rows;
+        List<BookingResponse> data = page.stream()
+                .map(row -> {
+                    BookingResponse response = bookingMapper.entityToResponse(row.booking());
+                    response.setItemName(row.itemName());
+                    response.setLessorName(row.lessorLastname() + " " + row.lessorFirstname());
+                    response.setLesseeName(row.lesseeLastname() + " " + row.lesseeFirstname());
+                    response.setHasReviewed(row.hasReviewed());
+                    return response;
+                })
+                .toList();
+
+        String nextCursor = null;
+        if (hasMore) {
+            Booking last = page.get(page.size() - 1).booking();
+            nextCursor = new BookingCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return CursorPageResponse.<BookingResponse>builder()
+                .pageSize(pageSize)
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .data(data)
+                .build();
+    }
+
+    private Collection<BookingStatus> statusFilter(List<BookingStatus> statuses) {
+        return statuses == null || statuses.isEmpty() ? EnumSet.allOf(BookingStatus.class) : statuses;
+    }
+
+    private int clampPageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+
+    // build the response from data the caller already holds, no extra queries
+    private BookingResponse toBookingResponse(
+            Booking booking, Item item, Account lessor, Account lessee, boolean hasReviewed) {
+        BookingResponse response = bookingMapper.entityToResponse(booking);
+        response.setItemName(item.getName());
+        response.setLessorName(lessor.getLastname() + " " + lessor.getFirstname());
+        response.setLesseeName(lessee.getLastname() + " " + lessee.getFirstname());
         response.setHasReviewed(hasReviewed);
         return response;
     }
@@ -15,6 +15,7 @@ import org.camphub.be_camphub.entity.Item;
 import org.camphub.be_camphub.exception.AppException;
 import org.camphub.be_camphub.exception.ErrorCode;
 import org.camphub.be_camphub.mapper.CartItemMapper;
+import org.camphub.be_camphub.pricing.PricingEngine;
 import org.camphub.be_camphub.repository.CartItemRepository;
 import org.camphub.be_camphub.repository.CartRepository;
 import org.camphub.be_camphub.repository.ItemRepository;
@@ -69,11 +70,7 @@ public class CartServiceImpl implements CartService {
         validateQuantityInternal(cartItem.getItemId(), cartItem.getQuantity());
 
         // Tính lại subtotal sau khi cập nhật quantity
-        if (existingCartItem != null) {
-            cartItem.setSubtotal(cartItem.getPrice()
-                    .multiply(BigDecimal.valueOf(cartItem.getQuantity()))
-                    .multiply(BigDecimal.valueOf(cartItem.getRentalDays())));
-        }
+        recomputeSubtotal(cartItem);
 
         return enrichCartItemResponse(cartItemRepository.save(cartItem));
     }
@@ -88,6 +85,7 @@ public class CartServiceImpl implements CartService {
 
         // Kiểm tra số lượng có vượt quá số lượng sản phẩm không
         validateQuantityInternal(cartItem.getItemId(), cartItem.getQuantity());
+        recomputeSubtotal(cartItem);
 
         CartItem updated = cartItemRepository.save(cartItem);
         return enrichCartItemResponse(updated);
@@ -103,6 +101,7 @@ public class CartServiceImpl implements CartService {
 
         // Kiểm tra số lượng có vượt quá số lượng sản phẩm không
         validateQuantityInternal(cartItem.getItemId(), cartItem.getQuantity());
+        recomputeSubtotal(cartItem);
 
         CartItem updated = cartItemRepository.save(cartItem);
         return enrichCartItemResponse(updated);
@@ -207,4 +206,12 @@ public class CartServiceImpl implements CartService {
         response.setDepositAmount(depositAmount != null ? BigDecimal.valueOf(depositAmount) : BigDecimal.ZERO);
         return response;
     }
+
+    // subtotal = giá/ngày * số lượng * số ngày thuê, cùng công thức với lúc checkout
+    private void recomputeSubtotal(CartItem cartItem) {
+        int quantity = cartItem.getQuantity() != null ? cartItem.getQuantity() : 0;
+        int rentalDays = cartItem.getRentalDays() != null ? cartItem.getRentalDays() : 0;
+        cartItem.setSubtotal(PricingEngine.toDecimal(
+                PricingEngine.rentalFee(PricingEngine.toMinor(cartItem.getPrice()), quantity, rentalDays)));
+    }
 }
@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+import org.camphub.be_camphub.Utils.TransactionUtils;
 import org.camphub.be_camphub.dto.request.category.CategoryCreationRequest;
 import org.camphub.be_camphub.dto.request.category.CategoryPatchRequest;
 import org.camphub.be_camphub.dto.request.category.CategoryUpdateRequest;
@@ -11,6 +12,9 @@ import org.camphub.be_camphub.dto.response.category.CategoryResponse;
 import org.camphub.be_camphub.entity.Category;
 import org.camphub.be_camphub.exception.AppException;
 import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.index.CatalogReadModel;
+import org.camphub.be_camphub.index.ItemSearchIndex;
+import org.camphub.be_camphub.index.ItemSuggestIndex;
 import org.camphub.be_camphub.mapper.CategoryMapper;
 import org.camphub.be_camphub.repository.CategoryRepository;
 import org.camphub.be_camphub.service.CategoryService;
@@ -26,6 +30,9 @@ import lombok.experimental.FieldDefaults;
 public class CategoryServiceImpl implements CategoryService {
     CategoryRepository categoryRepository;
     CategoryMapper categoryMapper;
+    ItemSearchIndex searchIndex;
+    ItemSuggestIndex suggestIndex;
+    CatalogReadModel catalogReadModel;
 
     @Override
     public CategoryResponse create(CategoryCreationRequest request) {
@@ -44,6 +51,12 @@ public class CategoryServiceImpl implements CategoryService {
         categoryMapper.updateRequestToEntity(category, request);
         category.setUpdatedAt(LocalDateTime.now());
         categoryRepository.save(category);
+        // tên danh mục nằm trong chỉ mục tìm kiếm của các item thuộc danh mục và trong gợi ý
+        TransactionUtils.afterCommit(() -> {
+            searchIndex.onCategoryChanged(category);
+            suggestIndex.onCategoryChanged(category);
+            catalogReadModel.onCategoryChanged(category);
+        });
 
         return categoryMapper.entityToResponse(category);
     }
@@ -56,6 +69,12 @@ public class CategoryServiceImpl implements CategoryService {
         categoryMapper.patchRequestToEntity(category, request);
         category.setUpdatedAt(LocalDateTime.now());
         categoryRepository.save(category);
+        // tên danh mục nằm trong chỉ mục tìm kiếm của các item thuộc danh mục và trong gợi ý
+        TransactionUtils.afterCommit(() -> {
+            searchIndex.onCategoryChanged(category);
+            suggestIndex.onCategoryChanged(category);
+            catalogReadModel.onCategoryChanged(category);
+        });
 
         return categoryMapper.entityToResponse(category);
     }
@@ -69,6 +88,7 @@ public class CategoryServiceImpl implements CategoryService {
         category.setIsDeleted(true);
         category.setUpdatedAt(LocalDateTime.now());
         categoryRepository.save(category);
+        TransactionUtils.afterCommit(() -> suggestIndex.onCategoryChanged(category));
     }
 
     @Override
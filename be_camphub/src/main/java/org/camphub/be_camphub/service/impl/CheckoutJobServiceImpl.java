@@ -0,0 +1,182 @@
+package org.camphub.be_camphub.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.camphub.be_camphub.dto.request.booking.BookingCreationRequest;
+import org.camphub.be_camphub.dto.response.booking.BookingResponse;
+import org.camphub.be_camphub.dto.response.booking.CheckoutJobResponse;
+import org.camphub.be_camphub.enums.CheckoutJobStatus;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.pricing.PricingEngine;
+import org.camphub.be_camphub.service.BookingService;
+import org.camphub.be_camphub.service.CheckoutJobService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Checkout bất đồng bộ: request chỉ xếp job vào pool riêng có giới hạn rồi trả 202, worker chạy đúng luồng
+ * checkout đồng bộ (một transaction) và đẩy từng trạng thái QUEUED -> PROCESSING -> SUCCEEDED/FAILED tới người thuê
+ * qua /user/queue/checkout-jobs. Hàng đợi đầy thì từ chối ngay (CHECKOUT_BUSY) thay vì chạy trên luồng HTTP.
+ * Trạng thái job giữ trong bộ nhớ của node nhận request, xóa sau một khoảng lưu giữ.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CheckoutJobServiceImpl implements CheckoutJobService {
+    static final String USER_QUEUE = "/queue/checkout-jobs";
+
+    BookingService bookingService;
+    SimpMessagingTemplate messagingTemplate;
+
+    Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+
+    @NonFinal
+    @Value("${checkout.async.workers:4}")
+    int workers;
+
+    @NonFinal
+    @Value("${checkout.async.queue-capacity:200}")
+    int queueCapacity;
+
+    @NonFinal
+    @Value("${checkout.async.retention-seconds:900}")
+    long retentionSeconds;
+
+    @NonFinal
+    ThreadPoolExecutor pool;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        pool = new ThreadPoolExecutor(
+                Math.max(1, workers),
+                Math.max(1, workers),
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "checkout-worker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Override
+    public CheckoutJobResponse submit(UUID lesseeId, BookingCreationRequest request) {
+        Job job = new Job(lesseeId);
+        CheckoutJobResponse queued = CheckoutJobResponse.builder()
+                .jobId(job.id)
+                .status(CheckoutJobStatus.QUEUED)
+                .updatedAt(LocalDateTime.now())
+                .build();
+        job.state = queued;
+        jobs.put(job.id, job);
+        try {
+            pool.execute(() -> run(job, request));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            log.warn("Checkout queue full, rejecting checkout for lessee {}", lesseeId);
+            throw new AppException(ErrorCode.CHECKOUT_BUSY);
+        }
+        return queued;
+    }
+
+    @Override
+    public CheckoutJobResponse getJob(UUID lesseeId, UUID jobId) {
+        Job job = jobs.get(jobId);
+        // job của người khác cũng trả NOT_FOUND để không lộ id
+        if (job == null || !job.lesseeId.equals(lesseeId)) throw new AppException(ErrorCode.CHECKOUT_JOB_NOT_FOUND);
+        return job.state;
+    }
+
+    // Dọn các job đã xong quá thời gian lưu giữ
+    @Scheduled(fixedDelay = 60_000)
+    public void evictFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofSeconds(retentionSeconds));
+        jobs.values()
+                .removeIf(job -> isFinished(job.state.getStatus())
+                        && job.state.getUpdatedAt().isBefore(cutoff));
+    }
+
+    // ----------------- helpers -----------------
+
+    private void run(Job job, BookingCreationRequest request) {
+        update(job, b -> b.status(CheckoutJobStatus.PROCESSING));
+        try {
+            List<BookingResponse> bookings = bookingService.rentSelectedCartItems(
+                    job.lesseeId,
+                    request,
+                    quote -> update(job, b -> b.itemCount(quote.getLines().size())
+                            .totalAmount(PricingEngine.toCoins(quote.getTotalMinor()))));
+            update(job, b -> b.status(CheckoutJobStatus.SUCCEEDED)
+                    .message("Checkout successfully")
+                    .bookings(bookings));
+        } catch (AppException e) {
+            update(job, b -> b.status(CheckoutJobStatus.FAILED)
+                    .error(e.getErrorCode().name())
+                    .message(e.getErrorCode().getMessage()));
+        } catch (Exception e) {
+            log.error("Checkout job {} failed", job.id, e);
+            update(job, b -> b.status(CheckoutJobStatus.FAILED)
+                    .error(ErrorCode.UNCATEGORIZED_EXCEPTION.name())
+                    .message(ErrorCode.UNCATEGORIZED_EXCEPTION.getMessage()));
+        }
+    }
+
+    private void update(Job job, UnaryOperator<CheckoutJobResponse.CheckoutJobResponseBuilder> change) {
+        CheckoutJobResponse state = change.apply(job.state.toBuilder())
+                .updatedAt(LocalDateTime.now())
+                .build();
+        job.state = state;
+        try {
+            messagingTemplate.convertAndSendToUser(job.lesseeId.toString(), USER_QUEUE, state);
+        } catch (Exception e) {
+            // client vẫn lấy được trạng thái qua GET /bookings/checkout-jobs/{jobId}
+            log.warn("Failed to push checkout job {} ({}): {}", job.id, state.getStatus(), e.getMessage());
+        }
+    }
+
+    private static boolean isFinished(CheckoutJobStatus status) {
+        return status == CheckoutJobStatus.SUCCEEDED || status == CheckoutJobStatus.FAILED;
+    }
+
+    private static final class Job {
+        final UUID id = UUID.randomUUID();
+        final UUID lesseeId;
+        volatile CheckoutJobResponse state;
+
+        Job(UUID lesseeId) {
+            this.lesseeId = lesseeId;
+        }
+    }
+}
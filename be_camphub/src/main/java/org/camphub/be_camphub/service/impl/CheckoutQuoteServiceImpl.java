@@ -0,0 +1,322 @@
+package org.camphub.be_camphub.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import jakarta.annotation.PostConstruct;
+
+import org.camphub.be_camphub.Utils.TransactionUtils;
+import org.camphub.be_camphub.dto.request.booking.BookingCreationRequest;
+import org.camphub.be_camphub.dto.request.booking.BookingItemRequest;
+import org.camphub.be_camphub.dto.response.booking.CheckoutQuoteLineResponse;
+import org.camphub.be_camphub.dto.response.booking.CheckoutQuoteResponse;
+import org.camphub.be_camphub.entity.Account;
+import org.camphub.be_camphub.entity.CartItem;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.pricing.CheckoutQuote;
+import org.camphub.be_camphub.pricing.PricingEngine;
+import org.camphub.be_camphub.repository.AccountRepository;
+import org.camphub.be_camphub.repository.CartItemRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.camphub.be_camphub.service.CheckoutQuoteService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Báo giá checkout. Bảng giá được tính một lần rồi giữ trong LRU của node dưới quoteId dạng
+ * {@code <uuid>.<hết hạn epoch giây>.<tổng minor>.<HMAC-SHA256>} (khóa riêng checkout.quote.signer-key); chữ ký
+ * gắn quote với người thuê và tổng tiền nên client không sửa được. Checkout trên node còn giữ quote dùng thẳng bảng
+ * giá, chỉ xem lại cart item còn thuộc người thuê và trạng thái item (bỏ qua tải item/account),
+ * node khác (hoặc quote đã bị đẩy khỏi LRU) tính lại và chỉ chấp nhận nếu tổng vẫn bằng tổng đã ký.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CheckoutQuoteServiceImpl implements CheckoutQuoteService {
+    static final String HMAC_ALGORITHM = "HmacSHA256";
+    static final Set<ItemStatus> UNAVAILABLE = EnumSet.of(ItemStatus.RENTED, ItemStatus.BANNED, ItemStatus.DELETED);
+
+    CartItemRepository cartItemRepository;
+    ItemRepository itemRepository;
+    AccountRepository accountRepository;
+
+    @NonFinal
+    @Value("${checkout.quote.signer-key}")
+    String signerKey;
+
+    @NonFinal
+    @Value("${checkout.quote.ttl-seconds:300}")
+    long ttlSeconds;
+
+    @NonFinal
+    @Value("${checkout.quote.cache-size:10000}")
+    int cacheSize;
+
+    @NonFinal
+    Map<String, CheckoutQuote> quotes;
+
+    @PostConstruct
+    public void init() {
+        int capacity = Math.max(1, cacheSize);
+        quotes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CheckoutQuote> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public CheckoutQuoteResponse createQuote(UUID lesseeId, BookingCreationRequest request) {
+        CheckoutQuote priced = price(lesseeId, request);
+        Instant expiresAt = Instant.now().plusSeconds(ttlSeconds);
+        String quoteId = sign(UUID.randomUUID(), lesseeId, expiresAt.getEpochSecond(), priced.getTotalMinor());
+
+        CheckoutQuote quote =
+                priced.toBuilder().quoteId(quoteId).expiresAt(expiresAt).build();
+        synchronized (quotes) {
+            quotes.put(quoteId, quote);
+        }
+        return toResponse(quote);
+    }
+
+    @Override
+    public CheckoutQuote resolve(UUID lesseeId, BookingCreationRequest request) {
+        String quoteId = request.getQuoteId();
+        if (quoteId == null || quoteId.isBlank()) return price(lesseeId, request);
+
+        SignedQuote signed = verify(quoteId, lesseeId);
+        if (Instant.now().getEpochSecond() >= signed.expiresAtEpochSecond()) {
+            forget(quoteId);
+            throw new AppException(ErrorCode.QUOTE_EXPIRED);
+        }
+
+        CheckoutQuote quote;
+        synchronized (quotes) {
+            quote = quotes.remove(quoteId);
+        }
+        if (quote != null) {
+            // quote chỉ dùng một lần; checkout rollback thì trả lại để client thử lại được
+            CheckoutQuote consumed = quote;
+            TransactionUtils.afterCompletion(committed -> {
+                if (!committed) restore(consumed);
+            });
+            // giỏ có thể đã đổi sau khi báo giá: cart item phải còn và vẫn của người thuê
+            List<UUID> cartItemIds = quote.getLines().stream()
+                    .map(CheckoutQuote.Line::getCartItemId)
+                    .toList();
+            loadOwnedCartItems(cartItemIds, lesseeId);
+            // giá đã chốt trong quote, chỉ cần xem lại trạng thái item: một câu exists thay vì tải lại item
+            List<UUID> itemIds =
+                    quote.getLines().stream().map(CheckoutQuote.Line::getItemId).toList();
+            if (itemRepository.existsByIdInAndStatusIn(itemIds, UNAVAILABLE)) {
+                throw new AppException(ErrorCode.ITEM_NOT_AVAILABLE);
+            }
+            return quote;
+        }
+
+        // không có trong bộ nhớ của node này: tính lại, chỉ nhận khi giá không đổi
+        CheckoutQuote repriced = price(lesseeId, request);
+        if (repriced.getTotalMinor() != signed.totalMinor()) {
+            log.info("Quote for lessee {} no longer matches current prices", lesseeId);
+            throw new AppException(ErrorCode.QUOTE_EXPIRED);
+        }
+        return repriced;
+    }
+
+    // ----------------- helpers -----------------
+
+    // Kiểm tra cart item, trạng thái item và tính giá từ Item (fallback giá trong giỏ)
+    CheckoutQuote price(UUID lesseeId, BookingCreationRequest request) {
+        if (request == null || request.getItems() == null || request.getItems().isEmpty()) {
+            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+        }
+
+        // collect all selected cart item ids
+        List<UUID> cartItemIds = request.getItems().stream()
+                .map(BookingItemRequest::getCartItemId)
+                .filter(Objects::nonNull)
+                .toList();
+
+        List<CartItem> cartItems = loadOwnedCartItems(cartItemIds, lesseeId);
+        Map<UUID, CartItem> cartMap = cartItems.stream().collect(Collectors.toMap(CartItem::getId, c -> c));
+
+        // load all items
+        List<UUID> itemIds = cartItems.stream().map(CartItem::getItemId).toList();
+        Map<UUID, Item> itemMap =
+                itemRepository.findAllById(itemIds).stream().collect(Collectors.toMap(Item::getId, i -> i));
+
+        // load lessee and every lessor in one round trip
+        Set<UUID> accountIds = new HashSet<>();
+        accountIds.add(lesseeId);
+        itemMap.values().forEach(i -> accountIds.add(i.getOwnerId()));
+        Map<UUID, Account> accountMap = accountRepository.findAllById(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+        if (!accountMap.keySet().containsAll(accountIds)) {
+            throw new AppException(ErrorCode.USER_NOT_FOUND);
+        }
+
+        long totalRental = 0;
+        long totalDeposit = 0;
+        List<CheckoutQuote.Line> lines = new ArrayList<>();
+        for (BookingItemRequest biReq : request.getItems()) {
+            CartItem cartItem = cartMap.get(biReq.getCartItemId());
+            Item item = itemMap.get(cartItem.getItemId());
+            if (item == null) {
+                throw new AppException(ErrorCode.ITEM_NOT_FOUND);
+            }
+            if (UNAVAILABLE.contains(item.getStatus())) {
+                throw new AppException(ErrorCode.ITEM_NOT_AVAILABLE);
+            }
+
+            // compute rental days
+            long days = PricingEngine.rentalDays(biReq.getStartDate(), biReq.getEndDate());
+            if (days <= 0) throw new AppException(ErrorCode.INVALID_RENTAL_DATES);
+
+            int quantity = Optional.ofNullable(biReq.getQuantity()).orElse(cartItem.getQuantity());
+            long pricePerDay = item.getPricePerDay() != null
+                    ? PricingEngine.toMinor(item.getPricePerDay())
+                    : PricingEngine.toMinor(cartItem.getPrice());
+            long depositPerUnit = PricingEngine.toMinorOrZero(item.getDepositAmount());
+
+            // Deposit amount cần nhân với quantity (mỗi sản phẩm cần cọc)
+            long rentalFee = PricingEngine.rentalFee(pricePerDay, quantity, days);
+            long deposit = PricingEngine.deposit(depositPerUnit, quantity);
+            totalRental = Math.addExact(totalRental, rentalFee);
+            totalDeposit = Math.addExact(totalDeposit, deposit);
+
+            lines.add(CheckoutQuote.Line.builder()
+                    .cartItemId(cartItem.getId())
+                    .itemId(item.getId())
+                    .itemName(item.getName())
+                    .lessorId(item.getOwnerId())
+                    .lessorName(fullName(accountMap.get(item.getOwnerId())))
+                    .quantity(quantity)
+                    .startDate(biReq.getStartDate())
+                    .endDate(biReq.getEndDate())
+                    .rentalDays(days)
+                    .note(biReq.getNote())
+                    .pricePerDayMinor(pricePerDay)
+                    .depositPerUnitMinor(depositPerUnit)
+                    .rentalFeeMinor(rentalFee)
+                    .depositMinor(deposit)
+                    .build());
+        }
+
+        return CheckoutQuote.builder()
+                .lesseeId(lesseeId)
+                .lesseeName(fullName(accountMap.get(lesseeId)))
+                .totalRentalMinor(totalRental)
+                .totalDepositMinor(totalDeposit)
+                .lines(List.copyOf(lines))
+                .build();
+    }
+
+    // load all cart items owned by the lessee in a single query
+    private List<CartItem> loadOwnedCartItems(List<UUID> cartItemIds, UUID lesseeId) {
+        List<CartItem> cartItems = cartItemRepository.findAllByCartIdInAndCartOwner(cartItemIds, lesseeId);
+        if (cartItems.size() != cartItemIds.size()) {
+            // only on the error path: tell "not found" apart from "not yours"
+            if (cartItemRepository.findAllByIdIn(cartItemIds).size() != cartItemIds.size()) {
+                throw new AppException(ErrorCode.CART_ITEM_NOT_FOUND);
+            }
+            throw new AppException(ErrorCode.CART_ITEM_NOT_BELONG_TO_USER);
+        }
+        return cartItems;
+    }
+
+    private void restore(CheckoutQuote quote) {
+        if (quote.getExpiresAt().isBefore(Instant.now())) return;
+        synchronized (quotes) {
+            quotes.putIfAbsent(quote.getQuoteId(), quote);
+        }
+    }
+
+    private void forget(String quoteId) {
+        synchronized (quotes) {
+            quotes.remove(quoteId);
+        }
+    }
+
+    private String sign(UUID id, UUID lesseeId, long expiresAtEpochSecond, long totalMinor) {
+        String payload = id + "." + expiresAtEpochSecond + "." + totalMinor;
+        return payload + "." + mac(payload + "." + lesseeId);
+    }
+
+    private SignedQuote verify(String quoteId, UUID lesseeId) {
+        String[] parts = quoteId.split("\\.");
+        if (parts.length != 4) throw new AppException(ErrorCode.INVALID_QUOTE);
+
+        String payload = parts[0] + "." + parts[1] + "." + parts[2];
+        byte[] expected = mac(payload + "." + lesseeId).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, parts[3].getBytes(StandardCharsets.US_ASCII))) {
+            // sai chữ ký hoặc quote của người khác
+            throw new AppException(ErrorCode.INVALID_QUOTE);
+        }
+        try {
+            return new SignedQuote(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new AppException(ErrorCode.INVALID_QUOTE);
+        }
+    }
+
+    private String mac(String data) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(signerKey.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            return Base64.getUrlEncoder()
+                    .withoutPadding()
+                    .encodeToString(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign checkout quote", e);
+        }
+    }
+
+    private CheckoutQuoteResponse toResponse(CheckoutQuote quote) {
+        return CheckoutQuoteResponse.builder()
+                .quoteId(quote.getQuoteId())
+                .expiresAt(quote.getExpiresAt())
+                .lines(quote.getLines().stream()
+                        .map(line -> CheckoutQuoteLineResponse.builder()
+                                .cartItemId(line.getCartItemId())
+                                .itemId(line.getItemId())
+                                .itemName(line.getItemName())
+                                .quantity(line.getQuantity())
+                                .startDate(line.getStartDate().toString())
+                                .endDate(line.getEndDate().toString())
+                                .rentalDays(line.getRentalDays())
+                                .pricePerDay(PricingEngine.toCoins(line.getPricePerDayMinor()))
+                                .depositAmount(PricingEngine.toCoins(line.getDepositPerUnitMinor()))
+                                .rentalFee(PricingEngine.toCoins(line.getRentalFeeMinor()))
+                                .deposit(PricingEngine.toCoins(line.getDepositMinor()))
+                                .build())
+                        .toList())
+                .totalRental(PricingEngine.toCoins(quote.getTotalRentalMinor()))
+                .totalDeposit(PricingEngine.toCoins(quote.getTotalDepositMinor()))
+                .totalAmount(PricingEngine.toCoins(quote.getTotalMinor()))
+                .build();
+    }
+
+    private static String fullName(Account account) {
+        return account.getLastname() + " " + account.getFirstname();
+    }
+
+    private record SignedQuote(long expiresAtEpochSecond, long totalMinor) {}
+}
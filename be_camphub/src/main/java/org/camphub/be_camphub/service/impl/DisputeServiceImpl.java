@@ -1,13 +1,13 @@
 package org.camphub.be_camphub.service.impl;
 
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import jakarta.transaction.Transactional;
 
+import org.camphub.be_camphub.booking.BookingStateMachine;
 import org.camphub.be_camphub.dto.request.dispute.AdminReviewDisputeRequest;
 import org.camphub.be_camphub.dto.request.dispute.DisputeCreationRequest;
 import org.camphub.be_camphub.dto.request.notification.NotificationCreationRequest;
@@ -17,9 +17,13 @@ import org.camphub.be_camphub.enums.*;
 import org.camphub.be_camphub.exception.AppException;
 import org.camphub.be_camphub.exception.ErrorCode;
 import org.camphub.be_camphub.mapper.DisputeMapper;
+import org.camphub.be_camphub.pricing.PricingEngine;
 import org.camphub.be_camphub.repository.*;
 import org.camphub.be_camphub.service.DisputeService;
+import org.camphub.be_camphub.service.LedgerService;
 import org.camphub.be_camphub.service.NotificationService;
+import org.camphub.be_camphub.service.SystemWalletService;
+import org.camphub.be_camphub.service.WalletService;
 import org.springframework.stereotype.Service;
 
 import lombok.AccessLevel;
@@ -39,9 +43,11 @@ public class DisputeServiceImpl implements DisputeService {
     ReturnRequestRepository returnRequestRepository;
     DisputeMapper disputeMapper;
     AccountRepository accountRepository;
-    TransactionRepository transactionRepository;
-    TransactionBookingRepository transactionBookingRepository;
     NotificationService notificationService;
+    SystemWalletService systemWalletService;
+    LedgerService ledgerService;
+    WalletService walletService;
+    BookingStateMachine bookingStateMachine;
 
     @Override
     @Transactional
@@ -54,13 +60,12 @@ public class DisputeServiceImpl implements DisputeService {
 
         if (!booking.getLessorId().equals(lessorId)) throw new AppException(ErrorCode.UNAUTHORIZED);
 
+        // RETURNED_PENDING_CHECK / RETURN_REFUND_* -> DISPUTE_PENDING_REVIEW
+        bookingStateMachine.fire(booking, BookingTrigger.OPEN_DISPUTE, lessorId);
+
         // Đóng các ReturnRequest đang mở (PENDING / WAITING ...)
         freezeReturnRequestIfAny(booking);
 
-        // Cập nhật booking
-        booking.setStatus(BookingStatus.DISPUTE_PENDING_REVIEW);
-        bookingRepository.save(booking);
-
         Dispute dispute = disputeMapper.creationRequestToEntity(request);
         dispute.setReporterId(lessorId);
         dispute.setDefenderId(booking.getLesseeId());
@@ -70,7 +75,7 @@ public class DisputeServiceImpl implements DisputeService {
         disputeRepository.save(dispute);
 
         // thông báo đến tất cả admin có khiếu nại mới cần xử lý
-        notificationService.notifyAllAdmins(NotificationCreationRequest.builder()
+        notificationService.enqueueForAdmins(NotificationCreationRequest.builder()
                 .senderId(lessorId)
                 .type(NotificationType.DISPUTE_CREATED)
                 .title("Khiếu nại mới cần xử lý")
@@ -94,6 +99,9 @@ public class DisputeServiceImpl implements DisputeService {
                 .findById(dispute.getBookingId())
                 .orElseThrow(() -> new AppException(ErrorCode.BOOKING_NOT_FOUND));
 
+        // DISPUTE_PENDING_REVIEW -> COMPLETED trước khi chia tiền: lượt duyệt thứ hai bị chặn, không chi trả hai lần
+        bookingStateMachine.fire(booking, BookingTrigger.RESOLVE_DISPUTE, adminId);
+
         // Setup thông tin Admin xử lý
         dispute.setAdminId(adminId);
         dispute.setAdminNote(request.getAdminNote());
@@ -101,44 +109,37 @@ public class DisputeServiceImpl implements DisputeService {
         dispute.setStatus(DisputeStatus.RESOLVED);
 
         // Tính toán tổng tiền đang nằm ở ví hệ thống (System Wallet)
-        long days = ChronoUnit.DAYS.between(booking.getStartDate(), booking.getEndDate()) + 1;
-        double totalRentalFee = booking.getPricePerDay() * booking.getQuantity() * days;
-        double totalDeposit = Optional.ofNullable(booking.getDepositAmount()).orElse(0.0) * booking.getQuantity();
+        long totalRentalFee = PricingEngine.rentalFee(booking);
+        long totalDeposit = PricingEngine.deposit(booking);
 
         // Tính tiền Phạt (Compensation) từ Cọc
         DamageType damageType =
                 damageTypeRepository.findById(dispute.getDamageTypeId()).orElse(null);
         double rate = (damageType != null) ? damageType.getCompensationRate() : 0.0;
-        double compensationAmount = 0.0;
+        long compensationAmount = 0;
 
         if (Boolean.TRUE.equals(request.getIsApproved())) {
             // Admin chấp nhận khiếu nại -> Có phạt
-            compensationAmount = Math.round(totalDeposit * rate * 100.0) / 100.0;
+            compensationAmount = PricingEngine.compensation(totalDeposit, rate);
             dispute.setAdminDecision(DisputeDecision.APPROVED);
         } else {
             // Admin từ chối -> Không phạt
             dispute.setAdminDecision(DisputeDecision.REJECTED);
         }
-        dispute.setCompensationAmount(compensationAmount);
+        dispute.setCompensationAmount(PricingEngine.toCoins(compensationAmount));
 
         // Tìm cả những cái đang bị CLOSED_BY_DISPUTE
         Optional<ReturnRequest> returnReqOpt = returnRequestRepository.findFirstByBookingIdAndStatusIn(
                 booking.getId(), List.of(ReturnRequestStatus.CLOSED_BY_DISPUTE));
 
-        double lessorReceived = 0.0;
-        double lesseeReceived = 0.0;
-
-        // tiền phạt (lấy từ cọc đưa cho chủ)
-        lessorReceived += compensationAmount;
-
-        // tiền cọc dư (trả về khách)
-        double remainingDeposit = Math.max(0, totalDeposit - compensationAmount);
-        lesseeReceived += remainingDeposit;
+        // tiền phạt (lấy từ cọc đưa cho chủ), tiền cọc dư (trả về khách); compensation <= cọc nên tổng luôn bằng cọc
+        long lessorMinor = compensationAmount;
+        long lesseeMinor = totalDeposit - compensationAmount;
 
         // tiền thuê (phân nhánh)
         if (returnReqOpt.isPresent()) {
             // nếu có return request (chồng chéo return request + dispute)
-            lesseeReceived += totalRentalFee;
+            lesseeMinor += totalRentalFee;
 
             // Mở lại Return Request để Admin duyệt tiếp về mặt "Lý do" (Trust Score)
             ReturnRequest rr = returnReqOpt.get();
@@ -148,13 +149,13 @@ public class DisputeServiceImpl implements DisputeService {
 
         } else {
             // không có return request (chỉ có dispute)
-            lessorReceived += totalRentalFee;
+            lessorMinor += totalRentalFee;
         }
+        double lessorReceived = PricingEngine.toCoins(lessorMinor);
+        double lesseeReceived = PricingEngine.toCoins(lesseeMinor);
 
         // Load accounts
-        Account system = accountRepository
-                .findSystemWallet()
-                .orElseThrow(() -> new AppException(ErrorCode.SYSTEM_WALLET_NOT_FOUND));
+        UUID systemWalletId = systemWalletService.getSystemAccountId();
 
         Account lessor = accountRepository
                 .findById(dispute.getReporterId())
@@ -164,20 +165,18 @@ public class DisputeServiceImpl implements DisputeService {
                 .findById(booking.getLesseeId())
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
 
-        if (system.getCoinBalance() < (lessorReceived + lesseeReceived)) {
+        // Trừ ví hệ thống
+        if (!systemWalletService.tryDebit(booking.getId(), lessorMinor + lesseeMinor)) {
             // Log error critical, nhưng vẫn save dispute state
             log.error("System wallet error ID: {}", booking.getId());
             throw new AppException(ErrorCode.INSUFFICIENT_BALANCE);
 
         } else {
-            // Trừ ví hệ thống
-            system.setCoinBalance(system.getCoinBalance() - (lessorReceived + lesseeReceived));
-
             // Cộng ví Chủ
             if (lessorReceived > 0) {
-                lessor.setCoinBalance(lessor.getCoinBalance() + lessorReceived);
+                walletService.credit(lessor.getId(), lessorReceived);
                 createTransaction(
-                        system.getId(),
+                        systemWalletId,
                         lessor.getId(),
                         lessorReceived,
                         TransactionType.COMPENSATION_PAYOUT,
@@ -186,20 +185,16 @@ public class DisputeServiceImpl implements DisputeService {
 
             // Cộng ví Khách
             if (lesseeReceived > 0) {
-                lessee.setCoinBalance(lessee.getCoinBalance() + lesseeReceived);
+                walletService.credit(lessee.getId(), lesseeReceived);
                 createTransaction(
-                        system.getId(), lessee.getId(), lesseeReceived, TransactionType.REFUND_FULL, booking.getId());
+                        systemWalletId, lessee.getId(), lesseeReceived, TransactionType.REFUND_FULL, booking.getId());
             }
-
-            accountRepository.saveAll(List.of(system, lessor, lessee));
         }
 
-        booking.setStatus(BookingStatus.COMPLETED);
-        bookingRepository.save(booking);
-
         disputeRepository.save(dispute);
 
-        sendDisputeResolutionNotifications(adminId, dispute, booking, request.getIsApproved(), compensationAmount);
+        sendDisputeResolutionNotifications(
+                adminId, dispute, booking, request.getIsApproved(), PricingEngine.toCoins(compensationAmount));
 
         return enrichDisputeResponse(dispute);
     }
@@ -245,19 +240,7 @@ public class DisputeServiceImpl implements DisputeService {
     }
 
     private void createTransaction(UUID from, UUID to, double amount, TransactionType type, UUID bookingId) {
-        Transaction tx = Transaction.builder()
-                .fromAccountId(from)
-                .toAccountId(to)
-                .amount(amount)
-                .type(type)
-                .status(TransactionStatus.SUCCESS)
-                .createdAt(LocalDateTime.now())
-                .build();
-        transactionRepository.save(tx);
-        transactionBookingRepository.save(TransactionBooking.builder()
-                .transactionId(tx.getId())
-                .bookingId(bookingId)
-                .build());
+        ledgerService.record(from, to, amount, type, bookingId);
     }
 
     private void sendDisputeResolutionNotifications(
@@ -267,7 +250,7 @@ public class DisputeServiceImpl implements DisputeService {
         // 1. Cấu hình nội dung cho trường hợp CHẤP THUẬN (Lessor thắng)
         if (Boolean.TRUE.equals(isApproved)) {
             // ---> Gửi cho Chủ (Lessor)
-            notificationService.create(NotificationCreationRequest.builder()
+            notificationService.enqueue(NotificationCreationRequest.builder()
                     .receiverId(dispute.getReporterId()) // Chủ
                     .senderId(adminId)
                     .type(NotificationType.DISPUTE_RESOLVED_ACCEPTED)
@@ -280,7 +263,7 @@ public class DisputeServiceImpl implements DisputeService {
                     .build());
 
             // ---> Gửi cho Khách (Lessee)
-            notificationService.create(NotificationCreationRequest.builder()
+            notificationService.enqueue(NotificationCreationRequest.builder()
                     .receiverId(dispute.getDefenderId()) // Khách
                     .senderId(adminId)
                     .type(NotificationType.DISPUTE_RESOLVED_ACCEPTED)
@@ -295,7 +278,7 @@ public class DisputeServiceImpl implements DisputeService {
         // 2. Cấu hình nội dung cho trường hợp TỪ CHỐI (Lessor thua)
         else {
             // ---> Gửi cho Chủ (Lessor)
-            notificationService.create(NotificationCreationRequest.builder()
+            notificationService.enqueue(NotificationCreationRequest.builder()
                     .receiverId(dispute.getReporterId()) // Chủ
                     .senderId(adminId)
                     .type(NotificationType.DISPUTE_RESOLVED_REJECTED)
@@ -306,7 +289,7 @@ public class DisputeServiceImpl implements DisputeService {
                     .build());
 
             // ---> Gửi cho Khách (Lessee)
-            notificationService.create(NotificationCreationRequest.builder()
+            notificationService.enqueue(NotificationCreationRequest.builder()
                     .receiverId(dispute.getDefenderId()) // Khách
                     .senderId(adminId)
                     .type(NotificationType.DISPUTE_RESOLVED_REJECTED)
@@ -5,6 +5,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+import jakarta.annotation.PostConstruct;
+
 import org.camphub.be_camphub.dto.request.extension_req.ExtensionReqCreationRequest;
 import org.camphub.be_camphub.dto.request.extension_req.ExtensionResponseRequest;
 import org.camphub.be_camphub.dto.request.notification.NotificationCreationRequest;
@@ -14,15 +16,20 @@ import org.camphub.be_camphub.enums.BookingStatus;
 import org.camphub.be_camphub.enums.ExtensionStatus;
 import org.camphub.be_camphub.enums.NotificationType;
 import org.camphub.be_camphub.enums.ReferenceType;
-import org.camphub.be_camphub.enums.TransactionStatus;
+import org.camphub.be_camphub.enums.TimerType;
 import org.camphub.be_camphub.enums.TransactionType;
 import org.camphub.be_camphub.exception.AppException;
 import org.camphub.be_camphub.exception.ErrorCode;
 import org.camphub.be_camphub.mapper.ExtensionRequestMapper;
+import org.camphub.be_camphub.pricing.PricingEngine;
 import org.camphub.be_camphub.repository.*;
 import org.camphub.be_camphub.service.ExtensionRequestService;
+import org.camphub.be_camphub.service.ItemAvailabilityService;
+import org.camphub.be_camphub.service.LedgerService;
 import org.camphub.be_camphub.service.NotificationService;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.camphub.be_camphub.service.SystemWalletService;
+import org.camphub.be_camphub.service.TimerService;
+import org.camphub.be_camphub.service.WalletService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -39,10 +46,18 @@ public class ExtensionRequestServiceImpl implements ExtensionRequestService {
     BookingRepository bookingRepository;
     AccountRepository accountRepository;
     ItemRepository itemRepository;
-    TransactionRepository transactionRepository;
-    TransactionBookingRepository transactionBookingRepository;
     ExtensionRequestMapper mapper;
     NotificationService notificationService;
+    ItemAvailabilityService itemAvailabilityService;
+    SystemWalletService systemWalletService;
+    LedgerService ledgerService;
+    WalletService walletService;
+    TimerService timerService;
+
+    @PostConstruct
+    void registerTimerHandlers() {
+        timerService.registerHandler(TimerType.EXTENSION_EXPIRY, this::expirePendingRequest);
+    }
 
     @Override
     @Transactional
@@ -64,25 +79,21 @@ public class ExtensionRequestServiceImpl implements ExtensionRequestService {
             throw new AppException(ErrorCode.INVALID_EXTENSION_DATE);
         }
 
-        double additionalFee = booking.getPricePerDay() * booking.getQuantity() * request.getAdditionalDays();
+        long additionalFeeMinor = PricingEngine.extensionFee(booking, request.getAdditionalDays());
+        double additionalFee = PricingEngine.toCoins(additionalFeeMinor);
 
         // trừ tiền ngay lập tức (Giữ tiền vào ví hệ thống)
-        Account lessee = getAccountOrThrow(lesseeId);
-        Account systemWallet = getSystemWalletOrThrow();
-
-        if (lessee.getCoinBalance() < additionalFee) {
-            throw new AppException(ErrorCode.INSUFFICIENT_BALANCE);
-        }
-
-        lessee.setCoinBalance(lessee.getCoinBalance() - additionalFee);
-        systemWallet.setCoinBalance(systemWallet.getCoinBalance() + additionalFee);
-        accountRepository.saveAll(List.of(lessee, systemWallet));
+        // trừ có điều kiện: ném INSUFFICIENT_BALANCE nếu khách không đủ tiền
+        walletService.debit(lesseeId, additionalFee);
+        systemWalletService.credit(booking.getId(), additionalFeeMinor);
 
         // Lưu giao dịch thanh toán
-        Transaction tx = createTransaction(
-                lessee.getId(), systemWallet.getId(), additionalFee, TransactionType.EXTENSION_PAYMENT);
-
-        createTransactionBooking(tx.getId(), booking.getId());
+        ledgerService.record(
+                lesseeId,
+                systemWalletService.getSystemAccountId(),
+                additionalFee,
+                TransactionType.EXTENSION_PAYMENT,
+                booking.getId());
 
         ExtensionRequest entity = ExtensionRequest.builder()
                 .bookingId(booking.getId())
@@ -97,9 +108,13 @@ public class ExtensionRequestServiceImpl implements ExtensionRequestService {
                 .build();
 
         ExtensionRequest saved = extensionRequestRepository.save(entity);
+        timerService.schedule(
+                TimerType.EXTENSION_EXPIRY,
+                saved.getId(),
+                saved.getCreatedAt().plusHours(TimerService.EXTENSION_TTL_HOURS));
 
         // Thông báo
-        notificationService.create(NotificationCreationRequest.builder()
+        notificationService.enqueue(NotificationCreationRequest.builder()
                 .receiverId(booking.getLessorId())
                 .senderId(lesseeId)
                 .type(NotificationType.EXTENSION_REQUEST_CREATED)
@@ -120,17 +135,22 @@ public class ExtensionRequestServiceImpl implements ExtensionRequestService {
         if (!ext.getLessorId().equals(lessorId)) {
             throw new AppException(ErrorCode.UNAUTHORIZED);
         }
+        claimPending(ext, ExtensionStatus.APPROVED);
 
         Booking booking = getBookingOrThrow(ext.getBookingId());
 
+        // giữ thêm chỗ cho các ngày gia hạn trước khi đổi endDate
+        itemAvailabilityService.extend(booking, ext.getRequestedNewEndDate());
         booking.setEndDate(ext.getRequestedNewEndDate());
         bookingRepository.save(booking);
+        // dời các mốc trả đồ theo ngày hẹn trả mới
+        timerService.scheduleReturnDeadlines(booking.getId(), booking.getEndDate());
 
-        ext.setStatus(ExtensionStatus.APPROVED);
+        timerService.cancel(TimerType.EXTENSION_EXPIRY, ext.getId());
         ext.setNote(request.getNote());
         extensionRequestRepository.save(ext);
 
-        notificationService.create(NotificationCreationRequest.builder()
+        notificationService.enqueue(NotificationCreationRequest.builder()
                 .receiverId(ext.getLesseeId())
                 .senderId(lessorId)
                 .type(NotificationType.EXTENSION_REQUEST_APPROVED)
@@ -151,16 +171,17 @@ public class ExtensionRequestServiceImpl implements ExtensionRequestService {
         if (!ext.getLessorId().equals(lessorId)) {
             throw new AppException(ErrorCode.UNAUTHORIZED);
         }
+        claimPending(ext, ExtensionStatus.REJECTED);
 
         // hoàn tiền
         processRefund(ext);
 
-        ext.setStatus(ExtensionStatus.REJECTED);
+        timerService.cancel(TimerType.EXTENSION_EXPIRY, ext.getId());
         ext.setNote(request.getNote());
         extensionRequestRepository.save(ext);
 
         Booking booking = getBookingOrThrow(ext.getBookingId());
-        notificationService.create(NotificationCreationRequest.builder()
+        notificationService.enqueue(NotificationCreationRequest.builder()
                 .receiverId(ext.getLesseeId())
                 .senderId(lessorId)
                 .type(NotificationType.EXTENSION_REQUEST_REJECTED)
@@ -180,11 +201,12 @@ public class ExtensionRequestServiceImpl implements ExtensionRequestService {
         if (!ext.getLesseeId().equals(lesseeId)) {
             throw new AppException(ErrorCode.UNAUTHORIZED);
         }
+        claimPending(ext, ExtensionStatus.CANCELLED);
 
         // Gọi hàm hoàn tiền chung
         processRefund(ext);
 
-        ext.setStatus(ExtensionStatus.CANCELLED);
+        timerService.cancel(TimerType.EXTENSION_EXPIRY, ext.getId());
         extensionRequestRepository.save(ext);
 
         return toEnrichedResponse(ext);
@@ -196,56 +218,29 @@ public class ExtensionRequestServiceImpl implements ExtensionRequestService {
      * Hàm xử lý hoàn tiền chung để tránh duplicate code
      */
     private void processRefund(ExtensionRequest ext) {
-        Account lessee = getAccountOrThrow(ext.getLesseeId());
-        Account systemWallet = getSystemWalletOrThrow();
-
         // Hoàn tiền từ Ví hệ thống về Ví khách
-        systemWallet.setCoinBalance(systemWallet.getCoinBalance() - ext.getAdditionalFee());
-        lessee.setCoinBalance(lessee.getCoinBalance() + ext.getAdditionalFee());
-        accountRepository.saveAll(List.of(lessee, systemWallet));
+        systemWalletService.debit(ext.getBookingId(), PricingEngine.toMinor(ext.getAdditionalFee()));
+        walletService.credit(ext.getLesseeId(), ext.getAdditionalFee());
 
         // Lưu giao dịch
-        Transaction tx = createTransaction(
-                systemWallet.getId(), lessee.getId(), ext.getAdditionalFee(), TransactionType.REFUND_FULL);
-
-        createTransactionBooking(tx.getId(), ext.getBookingId());
-    }
-
-    private Transaction createTransaction(UUID fromId, UUID toId, double amount, TransactionType type) {
-        return transactionRepository.save(Transaction.builder()
-                .fromAccountId(fromId)
-                .toAccountId(toId)
-                .amount(amount)
-                .type(type)
-                .status(TransactionStatus.SUCCESS)
-                .createdAt(LocalDateTime.now())
-                .build());
+        ledgerService.record(
+                systemWalletService.getSystemAccountId(),
+                ext.getLesseeId(),
+                ext.getAdditionalFee(),
+                TransactionType.REFUND_FULL,
+                ext.getBookingId());
     }
 
-    private void createTransactionBooking(UUID txId, UUID bookingId) {
-        transactionBookingRepository.save(TransactionBooking.builder()
-                .transactionId(txId)
-                .bookingId(bookingId)
-                .createdAt(LocalDateTime.now())
-                .build());
-    }
-
-    // ... (Các hàm autoExpire, getAll, getById giữ nguyên) ...
+    // Timer EXTENSION_EXPIRY: yêu cầu còn PENDING sau 48h thì hoàn tiền và chuyển EXPIRED
     @Override
-    @Scheduled(cron = "0 0 * * * *") // Mỗi giờ
     @Transactional
-    public void autoExpirePendingRequests() {
-        LocalDateTime threshold = LocalDateTime.now().minusHours(48);
-        List<ExtensionRequest> expired =
-                extensionRequestRepository.findByStatusAndCreatedAtBefore(ExtensionStatus.PENDING, threshold);
-
-        if (expired.isEmpty()) return;
-
-        for (ExtensionRequest req : expired) {
-            processRefund(req);
-            req.setStatus(ExtensionStatus.EXPIRED);
+    public void expirePendingRequest(UUID requestId) {
+        // chủ đồ vừa duyệt/từ chối hoặc khách vừa hủy: không hoàn tiền lần nữa
+        if (extensionRequestRepository.compareAndSetStatus(requestId, ExtensionStatus.PENDING, ExtensionStatus.EXPIRED)
+                == 0) {
+            return;
         }
-        extensionRequestRepository.saveAllAndFlush(expired);
+        extensionRequestRepository.findById(requestId).ifPresent(this::processRefund);
     }
 
     @Override
@@ -277,6 +272,15 @@ public class ExtensionRequestServiceImpl implements ExtensionRequestService {
         return res;
     }
 
+    // Giành yêu cầu PENDING bằng UPDATE có điều kiện trước khi chuyển tiền hay giữ chỗ: duyệt, từ chối, hủy và timer
+    // hết hạn có thể chạy cùng lúc, chỉ một luồng đổi được trạng thái
+    private void claimPending(ExtensionRequest ext, ExtensionStatus next) {
+        if (extensionRequestRepository.compareAndSetStatus(ext.getId(), ExtensionStatus.PENDING, next) == 0) {
+            throw new AppException(ErrorCode.INVALID_EXTENSION_STATUS);
+        }
+        ext.setStatus(next);
+    }
+
     private ExtensionRequest getPendingExtensionOrThrow(UUID id) {
         ExtensionRequest ext = extensionRequestRepository
                 .findById(id)
@@ -295,12 +299,6 @@ public class ExtensionRequestServiceImpl implements ExtensionRequestService {
         return accountRepository.findById(id).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
     }
 
-    private Account getSystemWalletOrThrow() {
-        return accountRepository
-                .findSystemWallet()
-                .orElseThrow(() -> new AppException(ErrorCode.SYSTEM_WALLET_NOT_FOUND));
-    }
-
     private Item getItemOrThrow(UUID id) {
         return itemRepository.findById(id).orElseThrow(() -> new AppException(ErrorCode.ITEM_NOT_FOUND));
     }
@@ -0,0 +1,231 @@
+package org.camphub.be_camphub.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.camphub.be_camphub.Utils.TransactionUtils;
+import org.camphub.be_camphub.dto.response.item.DailyAvailabilityResponse;
+import org.camphub.be_camphub.dto.response.item.ItemAvailabilityResponse;
+import org.camphub.be_camphub.entity.Booking;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.entity.ItemDayReservation;
+import org.camphub.be_camphub.enums.BookingStatus;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.index.CatalogReadModel;
+import org.camphub.be_camphub.index.ItemAvailabilityIndex;
+import org.camphub.be_camphub.index.ItemFacetIndex;
+import org.camphub.be_camphub.index.ItemSearchIndex;
+import org.camphub.be_camphub.index.ItemSuggestIndex;
+import org.camphub.be_camphub.repository.BookingRepository;
+import org.camphub.be_camphub.repository.ItemDayReservationRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.camphub.be_camphub.service.ItemAvailabilityService;
+import org.camphub.be_camphub.service.LeaseService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lịch giữ chỗ theo (item, ngày). Mỗi ngày một dòng item_day_reservations với số đơn vị đã giữ,
+ * truy vấn theo khoảng ngày đi qua unique index (item_id, rental_date) nên là O(log n + số ngày).
+ * Mọi khoảng ngày là nửa mở [from, to): booking giữ chỗ từ startDate đến trước endDate (ngày trả đồ), khớp với số đêm
+ * PricingEngine.rentalDays tính tiền, nên đơn trả đồ và đơn nhận đồ cùng một ngày không tranh chỗ của nhau.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ItemAvailabilityServiceImpl implements ItemAvailabilityService {
+    static final int MAX_RANGE_DAYS = 366;
+    // trạng thái booking còn đang giữ đồ (chưa tới bước trả lịch giữ chỗ)
+    static final List<String> HOLDING_STATUSES = List.of(
+            BookingStatus.PENDING_CONFIRM.name(),
+            BookingStatus.WAITING_DELIVERY.name(),
+            BookingStatus.IN_USE.name(),
+            BookingStatus.DUE_FOR_RETURN.name(),
+            BookingStatus.LATE_RETURN.name(),
+            BookingStatus.RETURNED_PENDING_CHECK.name(),
+            BookingStatus.RETURN_REFUND_REQUESTED.name());
+
+    ItemDayReservationRepository reservationRepository;
+    ItemRepository itemRepository;
+    BookingRepository bookingRepository;
+    ItemAvailabilityIndex availabilityIndex;
+    ItemSearchIndex searchIndex;
+    ItemSuggestIndex suggestIndex;
+    CatalogReadModel catalogReadModel;
+    ItemFacetIndex facetIndex;
+    LeaseService leaseService;
+    TransactionTemplate transactionTemplate;
+
+    /*
+     * Booking tạo trước khi có lịch giữ chỗ đã trừ thẳng items.quantity và không có dòng item_day_reservations.
+     * Một lần duy nhất: trả lại kho, giữ chỗ cho các ngày của booking, rồi đánh dấu reserved_per_day.
+     * Chạy lại không làm gì vì chỉ chạm vào booking có reserved_per_day IS NULL.
+     * Cùng transaction đó trả lại ngày endDate mà booking giữ chỗ trước khi chuyển sang khoảng nửa mở đã giữ
+     * (reserved_end_exclusive IS NULL), để release theo [startDate, endDate) về sau không bỏ sót ngày đó.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyBookings() {
+        leaseService.runExclusive("availability:legacy-backfill", Duration.ZERO, () -> {
+            try {
+                // cắt ngày trả đồ của booking giữ chỗ kiểu cũ trước, rồi mới backfill (đã theo khoảng nửa mở)
+                int[] counts = transactionTemplate.execute(tx -> new int[] {
+                    reservationRepository.trimInclusiveEndDays(HOLDING_STATUSES),
+                    reservationRepository.restoreLegacyStock(HOLDING_STATUSES),
+                    reservationRepository.backfillLegacyReservations(HOLDING_STATUSES),
+                    bookingRepository.markLegacyReservationsMigrated(),
+                    bookingRepository.markReservationsEndExclusive()
+                });
+                if (counts == null || counts[0] + counts[1] + counts[2] == 0) return;
+                log.info(
+                        "Backfilled legacy bookings: {} return days freed, {} items restocked, {} reservation days,"
+                                + " {} bookings marked",
+                        counts[0],
+                        counts[1],
+                        counts[2],
+                        counts[3]);
+                // chỉ mục có thể đã nạp trước khi backfill xong
+                availabilityIndex.rebuild();
+                catalogReadModel.rebuild();
+                facetIndex.rebuild();
+            } catch (Exception e) {
+                log.error("Legacy reservation backfill failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public ItemAvailabilityResponse getAvailability(UUID itemId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        Item item = itemRepository.findById(itemId).orElseThrow(() -> new AppException(ErrorCode.ITEM_NOT_FOUND));
+        int capacity = capacityOf(item);
+
+        Map<LocalDate, Integer> reservedByDay =
+                reservationRepository
+                        .findAllByItemIdAndRentalDateBetweenOrderByRentalDate(itemId, from, to.minusDays(1))
+                        .stream()
+                        .collect(Collectors.toMap(ItemDayReservation::getRentalDate, ItemDayReservation::getReserved));
+
+        List<DailyAvailabilityResponse> days = new ArrayList<>();
+        int minAvailable = capacity;
+        for (LocalDate d = from; d.isBefore(to); d = d.plusDays(1)) {
+            int available = Math.max(0, capacity - reservedByDay.getOrDefault(d, 0));
+            minAvailable = Math.min(minAvailable, available);
+            days.add(DailyAvailabilityResponse.builder()
+                    .date(d.toString())
+                    .available(available)
+                    .build());
+        }
+
+        return ItemAvailabilityResponse.builder()
+                .itemId(itemId)
+                .from(from.toString())
+                .to(to.toString())
+                .totalQuantity(capacity)
+                .availableQuantity(minAvailable)
+                .days(days)
+                .build();
+    }
+
+    @Override
+    public int getAvailableQuantity(Item item, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return Math.max(0, capacityOf(item) - reservationRepository.findMaxReserved(item.getId(), from, to));
+    }
+
+    @Override
+    @Transactional
+    public void reserve(UUID itemId, LocalDate from, LocalDate to, int quantity) {
+        validateRange(from, to);
+        if (quantity <= 0) throw new AppException(ErrorCode.INSUFFICIENT_ITEM_QUANTITY);
+
+        long days = ChronoUnit.DAYS.between(from, to);
+        int updated = reservationRepository.reserveRange(itemId, from, to, quantity);
+        if (updated != days) {
+            // Có ngày đã hết chỗ: ném lỗi để transaction rollback phần đã giữ
+            log.info("Item {} cannot reserve {} units from {} to {}", itemId, quantity, from, to);
+            throw new AppException(ErrorCode.INSUFFICIENT_ITEM_QUANTITY);
+        }
+        TransactionUtils.afterCommit(() -> availabilityIndex.onReserved(itemId, from, to, quantity));
+    }
+
+    @Override
+    @Transactional
+    public void release(Booking booking) {
+        if (booking.getStartDate() == null || booking.getEndDate() == null) return;
+        UUID itemId = booking.getItemId();
+        LocalDate from = booking.getStartDate();
+        LocalDate to = booking.getEndDate();
+        int quantity = booking.getQuantity();
+        // releaseRange kẹp về 0 nên trả hai lần sẽ ăn vào chỗ của booking khác -> mỗi booking chỉ trả một lần
+        if (booking.getId() != null && bookingRepository.markReservationReleased(booking.getId()) == 0) {
+            log.warn("Booking {} đã trả lịch giữ chỗ trước đó, bỏ qua", booking.getId());
+            return;
+        }
+        reservationRepository.releaseRange(itemId, from, to, quantity);
+        TransactionUtils.afterCommit(() -> availabilityIndex.onReleased(itemId, from, to, quantity));
+    }
+
+    @Override
+    @Transactional
+    public void extend(Booking booking, LocalDate newEndDate) {
+        if (!newEndDate.isAfter(booking.getEndDate())) return;
+        // ngày trả đồ cũ chưa bị giữ nên phần gia hạn là [endDate cũ, newEndDate)
+        reserve(booking.getItemId(), booking.getEndDate(), newEndDate, booking.getQuantity());
+    }
+
+    @Override
+    @Transactional
+    public void updateItemStatus(UUID itemId, ItemStatus status) {
+        if (itemRepository.updateStatus(itemId, status) == 0) throw new AppException(ErrorCode.ITEM_NOT_FOUND);
+        // UPDATE hàng loạt không đi qua entity listener -> tự làm mới chỉ mục
+        TransactionUtils.afterCommit(() -> {
+            availabilityIndex.refresh(itemId);
+            searchIndex.onStatusChanged(itemId, status);
+            suggestIndex.onStatusChanged(itemId, status);
+            catalogReadModel.refresh(itemId);
+            facetIndex.refresh(itemId);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void writeOffLostUnits(UUID itemId, int lostQuantity) {
+        int updated = itemRepository.writeOffQuantity(
+                itemId, Math.max(0, lostQuantity), ItemStatus.AVAILABLE, ItemStatus.MISSING);
+        if (updated == 0) throw new AppException(ErrorCode.ITEM_NOT_FOUND);
+        TransactionUtils.afterCommit(() -> {
+            availabilityIndex.refresh(itemId);
+            searchIndex.refresh(itemId);
+            suggestIndex.refresh(itemId);
+            catalogReadModel.refresh(itemId);
+            facetIndex.refresh(itemId);
+        });
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || !to.isAfter(from) || ChronoUnit.DAYS.between(from, to) > MAX_RANGE_DAYS) {
+            throw new AppException(ErrorCode.INVALID_RENTAL_DATES);
+        }
+    }
+
+    private int capacityOf(Item item) {
+        return item.getQuantity() != null ? item.getQuantity() : 0;
+    }
+}
@@ -1,27 +1,40 @@
 package org.camphub.be_camphub.service.impl;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+import org.camphub.be_camphub.Utils.ItemCursor;
 import org.camphub.be_camphub.dto.request.Item.ItemCreationRequest;
 import org.camphub.be_camphub.dto.request.Item.ItemPatchRequest;
 import org.camphub.be_camphub.dto.request.Item.ItemUpdateRequest;
 import org.camphub.be_camphub.dto.request.notification.NotificationCreationRequest;
+import org.camphub.be_camphub.dto.response.CursorPageResponse;
+import org.camphub.be_camphub.dto.response.PageResponse;
 import org.camphub.be_camphub.dto.response.item.ItemResponse;
+import org.camphub.be_camphub.dto.response.item.ItemSuggestionResponse;
 import org.camphub.be_camphub.entity.*;
 import org.camphub.be_camphub.enums.ItemActionType;
+import org.camphub.be_camphub.enums.ItemSort;
 import org.camphub.be_camphub.enums.ItemStatus;
 import org.camphub.be_camphub.enums.NotificationType;
 import org.camphub.be_camphub.enums.ReferenceType;
 import org.camphub.be_camphub.exception.AppException;
 import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.index.CatalogReadModel;
+import org.camphub.be_camphub.index.ItemAvailabilityIndex;
+import org.camphub.be_camphub.index.ItemFacetIndex;
+import org.camphub.be_camphub.index.ItemSearchIndex;
+import org.camphub.be_camphub.index.ItemSuggestIndex;
 import org.camphub.be_camphub.mapper.ItemMapper;
 import org.camphub.be_camphub.repository.*;
+import org.camphub.be_camphub.repository.projection.ItemListView;
 import org.camphub.be_camphub.service.ItemService;
 import org.camphub.be_camphub.service.NotificationService;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -30,6 +43,8 @@ import lombok.experimental.FieldDefaults;
 @RequiredArgsConstructor
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
 public class ItemServiceImpl implements ItemService {
+    static final int MAX_PAGE_SIZE = 100;
+
     ItemRepository itemRepository;
     ItemLogsRepository itemLogsRepository;
     AccountRepository accountRepository;
@@ -37,6 +52,11 @@ public class ItemServiceImpl implements ItemService {
 
     ItemMapper itemMapper;
     NotificationService notificationService;
+    ItemAvailabilityIndex itemAvailabilityIndex;
+    ItemSearchIndex itemSearchIndex;
+    ItemSuggestIndex itemSuggestIndex;
+    CatalogReadModel catalogReadModel;
+    ItemFacetIndex itemFacetIndex;
 
     @Override
     public ItemResponse createItem(UUID ownerId, ItemCreationRequest request) {
@@ -62,7 +82,7 @@ public class ItemServiceImpl implements ItemService {
         // thông báo cho tất cả admin có item mới chờ duyệt
         String itemName = item.getName();
         UUID referenceId = item.getId();
-        notificationService.notifyAllAdmins(NotificationCreationRequest.builder()
+        notificationService.enqueueForAdmins(NotificationCreationRequest.builder()
                 .senderId(ownerId)
                 .type(NotificationType.ITEM_PENDING_APPROVAL)
                 .title("Sản phẩm mới chờ duyệt")
@@ -76,46 +96,129 @@ public class ItemServiceImpl implements ItemService {
 
     @Override
     public ItemResponse getItemById(UUID itemId) {
+        // item đã duyệt đọc từ read model; item chờ duyệt/bị từ chối/bị khóa mới xuống DB
+        Optional<ItemResponse> cached = catalogReadModel.find(itemId);
+        if (cached.isPresent()) return cached.get();
         Item item = itemRepository.findById(itemId).orElseThrow(() -> new AppException(ErrorCode.ITEM_NOT_FOUND));
         return enrichItemResponse(item);
     }
 
+    /*
+     * Mỗi phase là một range scan theo index (status, khóa sắp xếp, id) lấy tối đa size + 1 dòng; NEWEST không lọc
+     * status thì chạy nhóm PENDING_APPROVAL trước, còn chỗ trong trang mới sang nhóm còn lại.
+     * Tên chủ và danh mục đi cùng query, ảnh nạp theo lô (@BatchSize).
+     * Chỉ lọc các trạng thái đã duyệt thì đọc từ CatalogReadModel (cùng thứ tự, cùng cursor), không xuống DB.
+     */
     @Override
-    public List<ItemResponse> getAllItems(String status, UUID categoryId) {
-        List<Item> items = itemRepository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ItemResponse> getItems(
+            List<ItemStatus> statuses, UUID categoryId, ItemSort sort, String cursor, int size) {
+        ItemSort order = sort != null ? sort : ItemSort.NEWEST;
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        if (catalogReadModel.covers(statuses)) {
+            return catalogReadModel.page(statuses, categoryId, order, cursor, pageSize);
+        }
+        List<Set<ItemStatus>> phases = phases(statuses, order);
+
+        ItemCursor after = ItemCursor.decode(cursor, order);
+        if (after.phase() >= phases.size()) throw new AppException(ErrorCode.INVALID_CURSOR);
 
-        Stream<Item> stream = items.stream();
+        List<ItemListView> rows = new ArrayList<>();
+        for (int phase = after.phase(); phase < phases.size() && rows.size() <= pageSize; phase++) {
+            ItemCursor from = phase == after.phase() ? after : ItemCursor.start(order, phase);
+            rows.addAll(findPage(phases.get(phase), categoryId, from, pageSize + 1 - rows.size()));
+        }
 
-        if (status != null) {
-            stream = stream.filter(i -> i.getStatus().name().equalsIgnoreCase(status));
+        boolean hasMore = rows.size() > pageSize;
+        List<ItemListView> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Item last = page.get(page.size() - 1).item();
+            int lastPhase = phases.size() > 1 && last.getStatus() != ItemStatus.PENDING_APPROVAL ? 1 : 0;
+            nextCursor = ItemCursor.of(order, lastPhase, last.getCreatedAt(), last.getPricePerDay(), last.getId())
+                    .encode();
         }
+        return CursorPageResponse.<ItemResponse>builder()
+                .pageSize(pageSize)
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .data(page.stream().map(this::toItemResponse).toList())
+                .build();
+    }
 
-        if (categoryId != null) {
-            stream = stream.filter(i -> i.getCategoryId().equals(categoryId));
+    @Override
+    public PageResponse<ItemResponse> searchAvailableItems(
+            LocalDate from,
+            LocalDate to,
+            int quantity,
+            UUID categoryId,
+            Double minPrice,
+            Double maxPrice,
+            int page,
+            int size) {
+        // from = ngày nhận đồ, to = ngày trả đồ (không tính), cần ít nhất một đêm
+        if (from == null || to == null || !to.isAfter(from) || from.isBefore(LocalDate.now())) {
+            throw new AppException(ErrorCode.INVALID_RENTAL_DATES);
         }
 
-        // Sắp xếp: PENDING_APPROVAL ưu tiên trên hết, sau đó giảm dần theo ngày đăng
-        return stream.sorted((a, b) -> {
-                    boolean aIsPending = a.getStatus() == ItemStatus.PENDING_APPROVAL;
-                    boolean bIsPending = b.getStatus() == ItemStatus.PENDING_APPROVAL;
+        List<UUID> matchedIds =
+                itemAvailabilityIndex.findAvailable(from, to, Math.max(1, quantity), categoryId, minPrice, maxPrice);
+        if (matchedIds == null) {
+            // khoảng ngày vượt quá cửa sổ của chỉ mục
+            throw new AppException(ErrorCode.INVALID_RENTAL_DATES);
+        }
 
-                    // Nếu một trong hai là PENDING_APPROVAL, ưu tiên nó
-                    if (aIsPending && !bIsPending) return -1;
-                    if (!aIsPending && bIsPending) return 1;
+        // giữ đúng thứ tự của chỉ mục (giá tăng dần)
+        return pageOf(matchedIds, page, Math.max(1, size));
+    }
 
-                    // Cả hai cùng trạng thái hoặc không có PENDING_APPROVAL, sắp xếp giảm dần theo
-                    // ngày đăng
-                    if (a.getCreatedAt() != null && b.getCreatedAt() != null) {
-                        return b.getCreatedAt().compareTo(a.getCreatedAt());
-                    }
-                    if (a.getCreatedAt() != null) return -1;
-                    if (b.getCreatedAt() != null) return 1;
-                    return 0;
-                })
-                .map(this::enrichItemResponse)
+    @Override
+    public PageResponse<ItemResponse> searchItems(
+            String query, List<ItemStatus> statuses, UUID categoryId, int page, int size) {
+        Set<ItemStatus> filter =
+                statuses == null || statuses.isEmpty() ? Set.of(ItemStatus.AVAILABLE) : Set.copyOf(statuses);
+        List<UUID> rankedIds = itemSearchIndex.search(query, filter, categoryId);
+        return pageOf(rankedIds, page, Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    }
+
+    @Override
+    public Map<String, Map<String, Integer>> countFacets(
+            List<ItemStatus> statuses, UUID categoryId, String priceBand, String depositBand) {
+        return itemFacetIndex.count(statuses, categoryId, priceBand, depositBand);
+    }
+
+    @Override
+    public List<ItemSuggestionResponse> suggest(String prefix, int limit) {
+        return itemSuggestIndex.suggest(prefix, limit).stream()
+                .map(s -> ItemSuggestionResponse.builder()
+                        .text(s.text())
+                        .type(s.type())
+                        .categoryId(s.categoryId())
+                        .weight(s.weight())
+                        .build())
                 .toList();
     }
 
+    // Một trang theo đúng thứ tự id chỉ mục trả về; chỉ nạp item của trang đó
+    private PageResponse<ItemResponse> pageOf(List<UUID> orderedIds, int page, int pageSize) {
+        int fromIndex = (int) Math.min((long) Math.max(0, page) * pageSize, orderedIds.size());
+        int toIndex = Math.min(fromIndex + pageSize, orderedIds.size());
+        List<UUID> pageIds = orderedIds.subList(fromIndex, toIndex);
+
+        Map<UUID, Item> itemMap =
+                itemRepository.findAllById(pageIds).stream().collect(Collectors.toMap(Item::getId, i -> i));
+        List<Item> pageItems =
+                pageIds.stream().map(itemMap::get).filter(Objects::nonNull).toList();
+
+        return PageResponse.<ItemResponse>builder()
+                .page(Math.max(0, page))
+                .pageSize(pageSize)
+                .totalElements(orderedIds.size())
+                .totalPages((orderedIds.size() + pageSize - 1) / pageSize)
+                .data(enrichItemResponses(pageItems))
+                .build();
+    }
+
     // ----------------- UPDATE -----------------
     @Override
     public ItemResponse updateItem(UUID ownerId, UUID itemId, ItemUpdateRequest request) {
@@ -237,7 +340,7 @@ public class ItemServiceImpl implements ItemService {
                                 ? " Lý do: " + rejectionReason
                                 : "");
 
-        notificationService.create(NotificationCreationRequest.builder()
+        notificationService.enqueue(NotificationCreationRequest.builder()
                 .receiverId(item.getOwnerId())
                 .senderId(adminId)
                 .type(approved ? NotificationType.ITEM_APPROVED : NotificationType.ITEM_REJECTED)
@@ -275,7 +378,7 @@ public class ItemServiceImpl implements ItemService {
                 ? "Sản phẩm \"" + itemName + "\" của bạn đã bị khóa bởi admin."
                 : "Sản phẩm \"" + itemName + "\" của bạn đã được mở khóa và hiện đang hiển thị.";
 
-        notificationService.create(NotificationCreationRequest.builder()
+        notificationService.enqueue(NotificationCreationRequest.builder()
                 .receiverId(item.getOwnerId())
                 .senderId(adminId)
                 .type(locked ? NotificationType.ITEM_BANNED : NotificationType.ITEM_UNBANNED)
@@ -338,6 +441,69 @@ public class ItemServiceImpl implements ItemService {
         return response;
     }
 
+    // Nhóm status cho từng phase: NEWEST không lọc riêng một trạng thái thì PENDING_APPROVAL đứng đầu
+    private static List<Set<ItemStatus>> phases(List<ItemStatus> statuses, ItemSort sort) {
+        Set<ItemStatus> wanted =
+                statuses == null || statuses.isEmpty() ? EnumSet.allOf(ItemStatus.class) : EnumSet.copyOf(statuses);
+        if (sort != ItemSort.NEWEST || !wanted.contains(ItemStatus.PENDING_APPROVAL) || wanted.size() == 1) {
+            return List.of(wanted);
+        }
+        Set<ItemStatus> rest = EnumSet.copyOf(wanted);
+        rest.remove(ItemStatus.PENDING_APPROVAL);
+        return List.of(EnumSet.of(ItemStatus.PENDING_APPROVAL), rest);
+    }
+
+    private List<ItemListView> findPage(Set<ItemStatus> statuses, UUID categoryId, ItemCursor from, int limit) {
+        PageRequest pageable = PageRequest.of(0, limit);
+        return switch (from.sort()) {
+            case NEWEST -> itemRepository.findPageNewest(statuses, categoryId, from.createdAt(), from.id(), pageable);
+            case PRICE_ASC -> itemRepository.findPageByPriceAsc(
+                    statuses, categoryId, from.price(), from.id(), pageable);
+            case PRICE_DESC -> itemRepository.findPageByPriceDesc(
+                    statuses, categoryId, from.price(), from.id(), pageable);
+        };
+    }
+
+    // build the response from data the caller already holds, no extra queries
+    private ItemResponse toItemResponse(ItemListView row) {
+        ItemResponse resp = itemMapper.entityToResponse(row.item());
+        if (row.ownerFirstname() != null || row.ownerLastname() != null) {
+            resp.setOwnerName(row.ownerFirstname() + " " + row.ownerLastname());
+            resp.setOwnerAvatar(row.ownerAvatar());
+            resp.setOwnerTrustScore(String.valueOf(row.ownerTrustScore()));
+        }
+        resp.setCategoryName(row.categoryName());
+        return resp;
+    }
+
+    // enrich nhiều item cùng lúc: 1 query cho owner, 1 query cho category
+    private List<ItemResponse> enrichItemResponses(List<Item> items) {
+        if (items.isEmpty()) return List.of();
+
+        Set<UUID> ownerIds = items.stream().map(Item::getOwnerId).collect(Collectors.toSet());
+        Map<UUID, Account> ownerMap =
+                accountRepository.findAllById(ownerIds).stream().collect(Collectors.toMap(Account::getId, a -> a));
+
+        Set<UUID> categoryIds =
+                items.stream().map(Item::getCategoryId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<UUID, String> categoryNameMap = categoryRepository.findAllById(categoryIds).stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+
+        return items.stream()
+                .map(item -> {
+                    ItemResponse resp = itemMapper.entityToResponse(item);
+                    Account owner = ownerMap.get(item.getOwnerId());
+                    if (owner != null) {
+                        resp.setOwnerName(owner.getFirstname() + " " + owner.getLastname());
+                        resp.setOwnerAvatar(owner.getAvatar());
+                        resp.setOwnerTrustScore(String.valueOf(owner.getTrustScore()));
+                    }
+                    resp.setCategoryName(categoryNameMap.get(item.getCategoryId()));
+                    return resp;
+                })
+                .toList();
+    }
+
     // save item_logs
     private void logAction(
             UUID itemId,
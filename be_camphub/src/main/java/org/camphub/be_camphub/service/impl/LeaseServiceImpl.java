@@ -0,0 +1,200 @@
+package org.camphub.be_camphub.service.impl;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.camphub.be_camphub.Utils.TransactionUtils;
+import org.camphub.be_camphub.repository.JobLeaseRepository;
+import org.camphub.be_camphub.service.LeaseService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mỗi node giữ một lease "node:&lt;id&gt;" làm tín hiệu còn sống, cùng các lease job/shard nó đang chạy.
+ * Heartbeat định kỳ gia hạn tất cả trong một câu UPDATE, lease nào không gia hạn được coi như đã mất;
+ * sau đó chia lại shard: mục tiêu = ceil(shards / số node sống), thừa thì trả bớt, thiếu thì giành shard trống.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class LeaseServiceImpl implements LeaseService {
+    static final String NODE_PREFIX = "node:";
+
+    JobLeaseRepository leaseRepository;
+
+    String nodeId = resolveNodeId();
+    // tên các lease node này đang giữ
+    Set<String> held = ConcurrentHashMap.newKeySet();
+    Map<String, ShardGroup> groups = new ConcurrentHashMap<>();
+
+    @NonFinal
+    @Value("${jobs.lease.ttl-seconds:30}")
+    long ttlSeconds;
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public boolean runExclusive(String name, Duration minInterval, Runnable task) {
+        if (leaseRepository.tryAcquire(name, nodeId, ttlSeconds).isEmpty()) {
+            log.debug("Lease {} is held by another node, skipping", name);
+            return false;
+        }
+        held.add(name);
+        try {
+            task.run();
+        } finally {
+            // trong transaction: chỉ trả lease khi commit/rollback xong để node khác không đọc dữ liệu dở dang
+            TransactionUtils.afterCompletion(committed -> release(name, minInterval));
+        }
+        return true;
+    }
+
+    @Override
+    public void joinShardGroup(String group, int shards, Consumer<Set<Integer>> onChange) {
+        if (groups.putIfAbsent(group, new ShardGroup(group, shards, onChange)) != null) {
+            throw new IllegalStateException("Shard group already joined: " + group);
+        }
+        heartbeat();
+    }
+
+    @Override
+    public Set<Integer> ownedShards(String group) {
+        ShardGroup shardGroup = groups.get(group);
+        return shardGroup != null ? shardGroup.owned : Set.of();
+    }
+
+    // Gia hạn lease đang giữ rồi chia lại shard; đồng bộ với release để không gia hạn lại lease vừa trả
+    @Scheduled(fixedDelayString = "${jobs.lease.heartbeat-ms:10000}")
+    public synchronized void heartbeat() {
+        try {
+            renewHeld();
+            for (ShardGroup group : groups.values()) {
+                rebalance(group);
+            }
+        } catch (Exception e) {
+            log.error("Lease heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void releaseAll() {
+        // tắt máy bình thường: trả ngay để node khác không phải chờ hết TTL
+        for (String name : List.copyOf(held)) {
+            try {
+                leaseRepository.release(name, nodeId, 0);
+            } catch (Exception e) {
+                log.warn("Failed to release lease {}: {}", name, e.getMessage());
+            }
+        }
+        held.clear();
+    }
+
+    void renewHeld() {
+        String nodeLease = NODE_PREFIX + nodeId;
+        if (!held.contains(nodeLease)
+                && leaseRepository.tryAcquire(nodeLease, nodeId, ttlSeconds).isPresent()) {
+            held.add(nodeLease);
+        }
+        List<String> names = List.copyOf(held);
+        if (names.isEmpty()) return;
+
+        Set<String> renewed = new HashSet<>(leaseRepository.renew(nodeId, names, ttlSeconds));
+        for (String name : names) {
+            if (!renewed.contains(name) && held.remove(name)) {
+                log.warn("Lease {} expired before renewal, another node may take it over", name);
+            }
+        }
+    }
+
+    void rebalance(ShardGroup group) {
+        Set<Integer> owned = new HashSet<>();
+        for (int shard = 0; shard < group.shards; shard++) {
+            if (held.contains(group.leaseName(shard))) owned.add(shard);
+        }
+
+        long live = Math.max(1, leaseRepository.countLive(NODE_PREFIX));
+        int target = (int) ((group.shards + live - 1) / live);
+
+        // có node mới tham gia: trả bớt shard thừa để nó nhận
+        for (Integer shard : List.copyOf(owned)) {
+            if (owned.size() <= target) break;
+            release(group.leaseName(shard), Duration.ZERO);
+            owned.remove(shard);
+        }
+
+        // giành shard trống (hoặc của node đã chết), bắt đầu từ vị trí lệch theo node để các node không tranh nhau
+        int start = Math.floorMod(nodeId.hashCode(), group.shards);
+        for (int i = 0; i < group.shards && owned.size() < target; i++) {
+            int shard = (start + i) % group.shards;
+            if (owned.contains(shard)) continue;
+            String name = group.leaseName(shard);
+            if (leaseRepository.tryAcquire(name, nodeId, ttlSeconds).isPresent()) {
+                held.add(name);
+                owned.add(shard);
+            }
+        }
+
+        if (!owned.equals(group.owned)) {
+            log.info("Node {} now owns {}/{} shards of {}", nodeId, owned.size(), group.shards, group.name);
+            group.owned = Set.copyOf(owned);
+            group.onChange.accept(group.owned);
+        }
+    }
+
+    private synchronized void release(String name, Duration minInterval) {
+        held.remove(name);
+        try {
+            leaseRepository.release(name, nodeId, minInterval.toMillis() / 1000.0);
+        } catch (Exception e) {
+            // không trả được thì lease tự hết hạn sau TTL
+            log.warn("Failed to release lease {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    static final class ShardGroup {
+        final String name;
+        final int shards;
+        final Consumer<Set<Integer>> onChange;
+        volatile Set<Integer> owned = Set.of();
+
+        ShardGroup(String name, int shards, Consumer<Set<Integer>> onChange) {
+            this.name = name;
+            this.shards = shards;
+            this.onChange = onChange;
+        }
+
+        String leaseName(int shard) {
+            return name + ":" + shard;
+        }
+    }
+}
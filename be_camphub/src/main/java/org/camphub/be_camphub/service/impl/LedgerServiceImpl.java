@@ -0,0 +1,280 @@
+package org.camphub.be_camphub.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.camphub.be_camphub.entity.Account;
+import org.camphub.be_camphub.entity.BalanceSnapshot;
+import org.camphub.be_camphub.entity.LedgerEntry;
+import org.camphub.be_camphub.entity.Transaction;
+import org.camphub.be_camphub.entity.TransactionBooking;
+import org.camphub.be_camphub.enums.TransactionStatus;
+import org.camphub.be_camphub.enums.TransactionType;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.pricing.PricingEngine;
+import org.camphub.be_camphub.repository.AccountRepository;
+import org.camphub.be_camphub.repository.BalanceSnapshotRepository;
+import org.camphub.be_camphub.repository.LedgerEntryRepository;
+import org.camphub.be_camphub.repository.SystemWalletShardRepository;
+import org.camphub.be_camphub.repository.TransactionBookingRepository;
+import org.camphub.be_camphub.repository.TransactionRepository;
+import org.camphub.be_camphub.service.LeaseService;
+import org.camphub.be_camphub.service.LedgerService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sổ cái kép chỉ insert. Mỗi luồng tiền ghi hai bút toán đối ứng cộng với Transaction/TransactionBooking
+ * (projection của sổ cái), không cập nhật dòng nào nên không tranh chấp khóa.
+ * Số dư = snapshot gần nhất + tổng bút toán sau snapshot (index account_id, tx_id), luôn đọc từ DB;
+ * job hàng giờ ghi snapshot mới cho các tài khoản có biến động để phần cộng dồn luôn ngắn.
+ * Ranh giới snapshot là id transaction Postgres (tx_id < txHorizon đã kết thúc hết), không phải giờ của app:
+ * bút toán commit muộn vẫn rơi vào đúng một phía nên số dư không lệch.
+ * Mở sổ và snapshot chỉ chạy trên một node của cụm (lease), các node còn lại bỏ qua lượt đó.
+ * Số tiền lưu bằng đơn vị nhỏ nhất (long); API nhận coin ở biên và đổi qua PricingEngine.
+ * Điều kiện đủ tiền khi trừ ví vẫn là UPDATE có điều kiện trên accounts.coin_balance (WalletService): trừ thẳng
+ * trên sổ cái cần khóa theo tài khoản. Hai nguồn được đối soát mỗi giờ, lệch thì ghi log lỗi từng tài khoản.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class LedgerServiceImpl implements LedgerService {
+    // node chạy snapshot giữ lease đủ lâu để các node khác bỏ qua lượt cron cùng giờ
+    static final Duration SNAPSHOT_INTERVAL = Duration.ofMinutes(30);
+
+    LedgerEntryRepository ledgerEntryRepository;
+    BalanceSnapshotRepository snapshotRepository;
+    TransactionRepository transactionRepository;
+    TransactionBookingRepository transactionBookingRepository;
+    AccountRepository accountRepository;
+    SystemWalletShardRepository systemWalletShardRepository;
+    LeaseService leaseService;
+    TransactionTemplate transactionTemplate;
+
+    @Override
+    @Transactional
+    public Transaction record(
+            UUID fromAccountId, UUID toAccountId, double amount, TransactionType type, List<UUID> bookingIds) {
+        long amountMinor = PricingEngine.toMinor(amount);
+        if (amountMinor <= 0) throw new AppException(ErrorCode.INVALID_AMOUNT);
+        LocalDateTime now = LocalDateTime.now();
+
+        Transaction tx = transactionRepository.save(Transaction.builder()
+                .fromAccountId(fromAccountId)
+                .toAccountId(toAccountId)
+                .amount(amount)
+                .type(type)
+                .status(TransactionStatus.SUCCESS)
+                .createdAt(now)
+                .build());
+
+        if (!bookingIds.isEmpty()) {
+            transactionBookingRepository.saveAll(bookingIds.stream()
+                    .map(bookingId -> TransactionBooking.builder()
+                            .transactionId(tx.getId())
+                            .bookingId(bookingId)
+                            .createdAt(now)
+                            .build())
+                    .toList());
+        }
+
+        post(tx.getId(), fromAccountId, toAccountId, amountMinor, type, now);
+        return tx;
+    }
+
+    @Override
+    @Transactional
+    public void recordTopUp(UUID accountId, double amount) {
+        long amountMinor = PricingEngine.toMinor(amount);
+        if (amountMinor <= 0) throw new AppException(ErrorCode.INVALID_AMOUNT);
+        post(
+                UUID.randomUUID(),
+                EXTERNAL_ACCOUNT_ID,
+                accountId,
+                amountMinor,
+                TransactionType.TOP_UP,
+                LocalDateTime.now());
+    }
+
+    @Override
+    public long getBalanceMinor(UUID accountId) {
+        return snapshotRepository
+                .findFirstByAccountIdOrderByAsOfDesc(accountId)
+                .map(s -> s.getBalanceMinor()
+                        + (s.getTxHorizon() != null
+                                ? ledgerEntryRepository.sumFrom(accountId, s.getTxHorizon())
+                                : ledgerEntryRepository.sumSince(accountId, s.getAsOf())))
+                .orElseGet(() -> ledgerEntryRepository.sumAll(accountId));
+    }
+
+    // Lần chạy đầu tiên: chốt số dư hiện có của mọi tài khoản làm snapshot mở sổ; sổ đã mở bằng snapshot theo giờ
+    // thì chuyển sang mốc transaction
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void openLedger() {
+        leaseService.runExclusive("ledger:open", Duration.ZERO, this::writeOpeningSnapshots);
+    }
+
+    // Mỗi giờ: snapshot mới cho các tài khoản có bút toán kể từ lần chạy trước
+    @Scheduled(cron = "0 15 * * * *")
+    @Transactional
+    public void takeSnapshots() {
+        leaseService.runExclusive("ledger:snapshots", SNAPSHOT_INTERVAL, this::writeSnapshots);
+    }
+
+    // Mỗi giờ: so coin_balance (điều kiện trừ tiền) với số dư theo sổ cái
+    @Scheduled(cron = "0 50 * * * *")
+    @Transactional
+    public void reconcileWallets() {
+        leaseService.runExclusive("ledger:reconcile", SNAPSHOT_INTERVAL, this::checkWalletsAgainstLedger);
+    }
+
+    // ----------------- helpers -----------------
+
+    private void writeOpeningSnapshots() {
+        migrateLegacyAmounts();
+        if (snapshotRepository.count() > 0) {
+            if (!snapshotRepository.existsByTxHorizonIsNotNull()) {
+                int migrated = snapshotRepository.migrateLegacySnapshots(ledgerEntryRepository.currentTxHorizon());
+                log.info("Moved {} ledger balance snapshots to transaction horizons", migrated);
+            }
+            return;
+        }
+
+        // Đọc mốc, coin_balance và bút toán trong cùng một snapshot DB (REPEATABLE READ). Bút toán từ mốc trở đi
+        // sẽ được cộng khi đọc số dư, nên trừ ra những bút toán đã nằm sẵn trong coin_balance đọc được
+        List<BalanceSnapshot> opening = repeatableRead().execute(status -> {
+            long horizon = ledgerEntryRepository.currentTxHorizon();
+            Map<UUID, Long> counted = ledgerEntryRepository.sumByAccountFrom(horizon).stream()
+                    .collect(Collectors.toMap(row -> (UUID) row[0], row -> (Long) row[1]));
+            LocalDateTime asOf = LocalDateTime.now();
+            List<BalanceSnapshot> snapshots = new ArrayList<>();
+            for (Account account : accountRepository.findAll()) {
+                long balanceMinor = PricingEngine.toMinorOrZero(account.getCoinBalance());
+                if ("SYSTEM_WALLET".equals(account.getUsername())) {
+                    // số dư ví hệ thống nằm ở các shard
+                    balanceMinor += systemWalletShardRepository.sumBalanceMinor();
+                }
+                balanceMinor -= counted.getOrDefault(account.getId(), 0L);
+                snapshots.add(BalanceSnapshot.builder()
+                        .accountId(account.getId())
+                        .balanceMinor(balanceMinor)
+                        .legacyBalance(0.0)
+                        .asOf(asOf)
+                        .createdAt(asOf)
+                        .txHorizon(horizon)
+                        .build());
+            }
+            return snapshots;
+        });
+        snapshotRepository.saveAll(opening);
+        log.info("Ledger opened with {} balance snapshots", opening.size());
+    }
+
+    private void writeSnapshots() {
+        migrateLegacyAmounts();
+        Long previous = snapshotRepository.findLatestTxHorizon().orElse(null);
+        long horizon = ledgerEntryRepository.currentTxHorizon();
+        if (previous == null || horizon <= previous) return;
+
+        List<Object[]> deltas = ledgerEntryRepository.sumByAccountInTxRange(previous, horizon);
+        if (deltas.isEmpty()) return;
+
+        // tài khoản có snapshot cũ hơn previous thì không có bút toán nào giữa snapshot đó và previous
+        Map<UUID, Long> latest = snapshotRepository.findLatestPerAccount().stream()
+                .collect(
+                        Collectors.toMap(BalanceSnapshot::getAccountId, BalanceSnapshot::getBalanceMinor, (a, b) -> a));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BalanceSnapshot> snapshots = deltas.stream()
+                .map(row -> {
+                    UUID accountId = (UUID) row[0];
+                    long deltaMinor = (Long) row[1];
+                    return BalanceSnapshot.builder()
+                            .accountId(accountId)
+                            .balanceMinor(latest.getOrDefault(accountId, 0L) + deltaMinor)
+                            .legacyBalance(0.0)
+                            .asOf(now)
+                            .createdAt(now)
+                            .txHorizon(horizon)
+                            .build();
+                })
+                .toList();
+        snapshotRepository.saveAll(snapshots);
+        log.info("Ledger snapshots taken for {} accounts up to transaction {}", snapshots.size(), horizon);
+    }
+
+    private void checkWalletsAgainstLedger() {
+        List<Object[]> mismatches =
+                repeatableRead().execute(status -> ledgerEntryRepository.findWalletLedgerMismatches());
+        if (mismatches == null || mismatches.isEmpty()) return;
+        for (Object[] row : mismatches) {
+            log.error(
+                    "Wallet of account {} is {} minor units but the ledger says {}",
+                    row[0],
+                    ((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue());
+        }
+        log.error("Wallet/ledger reconciliation found {} mismatched accounts", mismatches.size());
+    }
+
+    private void migrateLegacyAmounts() {
+        int entries = ledgerEntryRepository.migrateLegacyAmounts();
+        int snapshots = snapshotRepository.migrateLegacyBalances();
+        if (entries + snapshots > 0) {
+            log.info("Moved {} ledger entries and {} snapshots to minor units", entries, snapshots);
+        }
+    }
+
+    private TransactionTemplate repeatableRead() {
+        TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        template.setReadOnly(true);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        // job đã mở transaction (READ COMMITTED) để giữ lease
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private void post(
+            UUID transactionId,
+            UUID fromAccountId,
+            UUID toAccountId,
+            long amountMinor,
+            TransactionType type,
+            LocalDateTime createdAt) {
+        ledgerEntryRepository.saveAll(List.of(
+                LedgerEntry.builder()
+                        .transactionId(transactionId)
+                        .accountId(fromAccountId)
+                        .amountMinor(-amountMinor)
+                        .legacyAmount(0.0)
+                        .type(type)
+                        .createdAt(createdAt)
+                        .build(),
+                LedgerEntry.builder()
+                        .transactionId(transactionId)
+                        .accountId(toAccountId)
+                        .amountMinor(amountMinor)
+                        .legacyAmount(0.0)
+                        .type(type)
+                        .createdAt(createdAt)
+                        .build()));
+    }
+}
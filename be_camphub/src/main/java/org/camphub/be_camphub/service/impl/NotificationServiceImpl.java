@@ -1,16 +1,25 @@
 package org.camphub.be_camphub.service.impl;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
+import org.camphub.be_camphub.Utils.TransactionUtils;
 import org.camphub.be_camphub.dto.request.notification.NotificationCreationRequest;
 import org.camphub.be_camphub.dto.response.notification.NotificationResponse;
 import org.camphub.be_camphub.entity.Notification;
+import org.camphub.be_camphub.entity.NotificationOutbox;
+import org.camphub.be_camphub.job.JobExecutor;
 import org.camphub.be_camphub.mapper.NotificationMapper;
+import org.camphub.be_camphub.repository.NotificationOutboxRepository;
 import org.camphub.be_camphub.repository.NotificationRepository;
 import org.camphub.be_camphub.service.NotificationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -18,13 +27,40 @@ import org.springframework.stereotype.Service;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Các luồng nghiệp vụ chỉ ghi thông báo vào notification_outbox (cùng transaction, không mapper/fan-out
+ * trên đường găng). Relay xả outbox theo lô trên JobExecutor: mỗi lô xóa dòng outbox và ghi notification
+ * trong một transaction, sau commit mới đẩy WebSocket tới /user/{receiverId}/queue/notifications.
+ * Relay được đánh thức sau mỗi commit có ghi outbox, cộng với một vòng quét định kỳ cho phần còn sót.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class NotificationServiceImpl implements NotificationService {
+    static final String OUTBOX_JOB = "notification-outbox";
+    static final String USER_QUEUE = "/queue/notifications";
+
     NotificationRepository notificationRepository;
     NotificationMapper notificationMapper;
+    NotificationOutboxRepository outboxRepository;
+    JobExecutor jobExecutor;
+    SimpMessagingTemplate messagingTemplate;
+
+    // có dòng outbox mới chưa được xả / relay đang chạy trên node này
+    AtomicBoolean relayPending = new AtomicBoolean();
+    AtomicBoolean relayRunning = new AtomicBoolean();
+
+    @NonFinal
+    @Value("${notifications.outbox.batch-size:200}")
+    int outboxBatchSize;
+
+    @NonFinal
+    @Value("${notifications.outbox.max-attempts:5}")
+    int outboxMaxAttempts;
 
     @Override
     public NotificationResponse create(NotificationCreationRequest request) {
@@ -34,6 +70,46 @@ public class NotificationServiceImpl implements NotificationService {
         return notificationMapper.toResponse(notificationRepository.save(notification));
     }
 
+    @Override
+    public List<NotificationResponse> createAll(List<NotificationCreationRequest> requests) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> notifications = requests.stream()
+                .map(request -> {
+                    Notification notification = notificationMapper.toEntity(request);
+                    notification.setCreatedAt(now);
+                    notification.setIsRead(false);
+                    return notification;
+                })
+                .toList();
+        return notificationRepository.saveAll(notifications).stream()
+                .map(notificationMapper::toResponse)
+                .toList();
+    }
+
+    @Override
+    public void enqueue(NotificationCreationRequest request) {
+        enqueueAll(List.of(request));
+    }
+
+    @Override
+    public void enqueueAll(List<NotificationCreationRequest> requests) {
+        if (requests.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> rows = new ArrayList<>(requests.size());
+        for (NotificationCreationRequest request : requests) {
+            NotificationOutbox row = notificationMapper.toOutbox(request);
+            row.setCreatedAt(now);
+            rows.add(row);
+        }
+        outboxRepository.saveAll(rows);
+        TransactionUtils.afterCommit(this::wakeRelay);
+    }
+
+    @Override
+    public void enqueueForAdmins(NotificationCreationRequest request) {
+        enqueue(toBroadcast(request));
+    }
+
     @Override
     public List<NotificationResponse> getAllByReceiver(UUID receiverId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -70,8 +146,88 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public List<NotificationResponse> notifyAllAdmins(NotificationCreationRequest request) {
-        // Tạo một broadcast notification thay vì tạo nhiều notifications riêng lẻ
-        NotificationCreationRequest broadcastRequest = NotificationCreationRequest.builder()
+        NotificationResponse response = create(toBroadcast(request));
+        return List.of(response);
+    }
+
+    // Vòng quét dự phòng: outbox của node đã chết, lô lỗi trước đó, hoặc lần đánh thức bị lỡ
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-ms:5000}")
+    public void pollOutbox() {
+        wakeRelay();
+    }
+
+    void wakeRelay() {
+        relayPending.set(true);
+        if (relayRunning.compareAndSet(false, true)) relayNext();
+    }
+
+    private void relayNext() {
+        relayPending.set(false);
+        List<NotificationOutbox> claimed = new ArrayList<>();
+        jobExecutor.submit(OUTBOX_JOB, () -> relayBatch(claimed)).whenComplete((ignored, error) -> {
+            if (error != null) {
+                // lô rollback: các dòng đã quay lại outbox, tăng số lần lỗi để dòng hỏng không chặn mãi
+                log.error("Notification outbox relay failed for {} rows: {}", claimed.size(), error.getMessage());
+                markFailed(claimed);
+            } else if (claimed.size() == outboxBatchSize) {
+                relayPending.set(true);
+            }
+            if (error == null && relayPending.get()) {
+                relayNext();
+                return;
+            }
+            relayRunning.set(false);
+            // có commit mới ngay lúc vừa dừng
+            if (error == null && relayPending.get() && relayRunning.compareAndSet(false, true)) relayNext();
+        });
+    }
+
+    // Chạy trong transaction của JobExecutor; claimed nhận các dòng đã lấy kể cả khi lô lỗi giữa chừng
+    void relayBatch(List<NotificationOutbox> claimed) {
+        List<NotificationOutbox> batch = outboxRepository.claimBatch(outboxMaxAttempts, outboxBatchSize);
+        claimed.addAll(batch);
+        if (batch.isEmpty()) return;
+
+        List<Notification> notifications = new ArrayList<>(batch.size());
+        for (NotificationOutbox row : batch) {
+            if (row.getReceiverId() == null && !Boolean.TRUE.equals(row.getIsBroadcast())) {
+                log.warn("Dropping outbox notification {} without receiver", row.getId());
+                continue;
+            }
+            notifications.add(notificationMapper.toEntity(row));
+        }
+        List<NotificationResponse> saved = notificationRepository.saveAll(notifications).stream()
+                .map(notificationMapper::toResponse)
+                .toList();
+        TransactionUtils.afterCommit(() -> push(saved));
+    }
+
+    private void push(List<NotificationResponse> notifications) {
+        for (NotificationResponse notification : notifications) {
+            // thông báo broadcast cho admin không đẩy qua topic chung, admin tự tải khi mở danh sách
+            if (notification.getReceiverId() == null) continue;
+            try {
+                messagingTemplate.convertAndSendToUser(
+                        notification.getReceiverId().toString(), USER_QUEUE, notification);
+            } catch (Exception e) {
+                log.warn("Failed to push notification {}: {}", notification.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void markFailed(List<NotificationOutbox> rows) {
+        if (rows.isEmpty()) return;
+        try {
+            outboxRepository.markFailed(
+                    rows.stream().map(NotificationOutbox::getId).toList());
+        } catch (Exception e) {
+            log.error("Failed to mark outbox rows as failed: {}", e.getMessage());
+        }
+    }
+
+    // Tạo một broadcast notification thay vì tạo nhiều notifications riêng lẻ
+    private static NotificationCreationRequest toBroadcast(NotificationCreationRequest request) {
+        return NotificationCreationRequest.builder()
                 .receiverId(null) // receiverId = null cho broadcast
                 .senderId(request.getSenderId())
                 .type(request.getType())
@@ -81,7 +237,5 @@ public class NotificationServiceImpl implements NotificationService {
                 .referenceId(request.getReferenceId())
                 .isBroadcast(true)
                 .build();
-        NotificationResponse response = create(broadcastRequest);
-        return List.of(response);
     }
 }
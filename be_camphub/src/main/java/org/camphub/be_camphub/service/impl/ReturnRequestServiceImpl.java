@@ -1,13 +1,15 @@
 package org.camphub.be_camphub.service.impl;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 
 import org.camphub.be_camphub.Utils.MediaUtils;
+import org.camphub.be_camphub.booking.BookingStateMachine;
 import org.camphub.be_camphub.dto.request.notification.NotificationCreationRequest;
 import org.camphub.be_camphub.dto.request.return_req.AdminDecisionRequest;
 import org.camphub.be_camphub.dto.request.return_req.LesseeSubmitReturnRequest;
@@ -19,10 +21,15 @@ import org.camphub.be_camphub.enums.*;
 import org.camphub.be_camphub.exception.AppException;
 import org.camphub.be_camphub.exception.ErrorCode;
 import org.camphub.be_camphub.mapper.ReturnRequestMapper;
+import org.camphub.be_camphub.pricing.PricingEngine;
 import org.camphub.be_camphub.repository.*;
+import org.camphub.be_camphub.service.ItemAvailabilityService;
+import org.camphub.be_camphub.service.LedgerService;
 import org.camphub.be_camphub.service.NotificationService;
 import org.camphub.be_camphub.service.ReturnRequestService;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.camphub.be_camphub.service.SystemWalletService;
+import org.camphub.be_camphub.service.TimerService;
+import org.camphub.be_camphub.service.WalletService;
 import org.springframework.stereotype.Service;
 
 import lombok.RequiredArgsConstructor;
@@ -34,17 +41,28 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
 public class ReturnRequestServiceImpl implements ReturnRequestService {
+    static final Duration REFUND_RETRY_DELAY = Duration.ofHours(1);
+
     ReturnRequestRepository returnRequestRepository;
     BookingRepository bookingRepository;
     AccountRepository accountRepository;
     ItemRepository itemRepository;
     ItemLogsRepository itemLogRepository;
-    TransactionRepository transactionRepository;
-    TransactionBookingRepository transactionBookingRepository;
 
     ReturnRequestMapper returnRequestMapper;
     MediaUtils mediaUtils;
     NotificationService notificationService;
+    ItemAvailabilityService itemAvailabilityService;
+    SystemWalletService systemWalletService;
+    LedgerService ledgerService;
+    WalletService walletService;
+    TimerService timerService;
+    BookingStateMachine bookingStateMachine;
+
+    @PostConstruct
+    void registerTimerHandlers() {
+        timerService.registerHandler(TimerType.RETURN_REFUND, this::processAutoRefundForConfirmedReturn);
+    }
 
     // 1. Lessee tạo yêu cầu trả hàng / hoàn tiền
     @Override
@@ -57,8 +75,8 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
 
         if (!booking.getLesseeId().equals(lesseeId)) throw new AppException(ErrorCode.UNAUTHORIZED);
 
-        if (booking.getStatus() != BookingStatus.WAITING_DELIVERY)
-            throw new AppException(ErrorCode.INVALID_BOOKING_STATUS);
+        // WAITING_DELIVERY -> RETURN_REFUND_REQUESTED, trước khi tạo yêu cầu
+        bookingStateMachine.fire(booking, BookingTrigger.REQUEST_REFUND, lesseeId);
 
         ReturnRequest rr = returnRequestMapper.creationRequestToEntity(request);
         rr.setLesseeId(lesseeId);
@@ -67,9 +85,6 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
 
         rr = returnRequestRepository.save(rr);
 
-        booking.setStatus(BookingStatus.RETURN_REFUND_REQUESTED);
-        bookingRepository.save(booking);
-
         // ghi vào item log
         itemLogRepository.save(ItemLog.builder()
                 .itemId(booking.getItemId())
@@ -82,7 +97,7 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
                 .build());
 
         // thông báo chủ thuê có yêu cầu hoàn trả
-        notificationService.create(NotificationCreationRequest.builder()
+        notificationService.enqueue(NotificationCreationRequest.builder()
                 .receiverId(booking.getLessorId())
                 .senderId(lesseeId)
                 .type(NotificationType.RETURN_REQUEST_CREATED)
@@ -93,7 +108,7 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
                 .build());
 
         // thông báo cho tất cả admin có yêu cầu hoàn tiền mới cần xem xét
-        notificationService.notifyAllAdmins(NotificationCreationRequest.builder()
+        notificationService.enqueueForAdmins(NotificationCreationRequest.builder()
                 .senderId(lesseeId)
                 .type(NotificationType.RETURN_REQUEST_PENDING)
                 .title("Yêu cầu hoàn tiền mới cần xem xét")
@@ -139,13 +154,12 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
                 .build());
 
         // set item trạng thái đang chờ kiểm tra
-        itemRepository.findById(booking.getItemId()).ifPresent(item -> {
-            item.setStatus(ItemStatus.RETURN_PENDING_CHECK);
-            itemRepository.save(item);
-        });
+        if (itemRepository.existsById(booking.getItemId())) {
+            itemAvailabilityService.updateItemStatus(booking.getItemId(), ItemStatus.RETURN_PENDING_CHECK);
+        }
 
         // thông báo chủ thuê có đơn hàng đang hoàn trả (đã gửi minh chứng)
-        notificationService.create(NotificationCreationRequest.builder()
+        notificationService.enqueue(NotificationCreationRequest.builder()
                 .receiverId(booking.getLessorId())
                 .senderId(lesseeId)
                 .type(NotificationType.BOOKING_RETURNED)
@@ -173,23 +187,19 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
 
         if (!booking.getLessorId().equals(lessorId)) throw new AppException(ErrorCode.UNAUTHORIZED);
 
-        if (booking.getStatus() != BookingStatus.RETURN_REFUND_REQUESTED)
-            throw new AppException(ErrorCode.INVALID_BOOKING_STATUS);
-
-        // update statuses
-        booking.setStatus(BookingStatus.RETURN_REFUND_PROCESSING);
-        bookingRepository.save(booking);
+        // RETURN_REFUND_REQUESTED -> RETURN_REFUND_PROCESSING
+        bookingStateMachine.fire(booking, BookingTrigger.CONFIRM_REFUND_RETURN, lessorId);
+        timerService.schedule(TimerType.RETURN_REFUND, booking.getId(), LocalDateTime.now());
 
         rr.setStatus(ReturnRequestStatus.PROCESSING); // chờ admin xử lý
         rr.setLessorConfirmedAt(LocalDateTime.now());
         returnRequestRepository.save(rr);
 
-        // item về AVAILABLE
-        itemRepository.findById(booking.getItemId()).ifPresent(item -> {
-            item.setStatus(ItemStatus.AVAILABLE);
-            item.setQuantity(item.getQuantity() + booking.getQuantity());
-            itemRepository.save(item);
-        });
+        // item về AVAILABLE, trả lại lịch giữ chỗ
+        itemAvailabilityService.release(booking);
+        if (itemRepository.existsById(booking.getItemId())) {
+            itemAvailabilityService.updateItemStatus(booking.getItemId(), ItemStatus.AVAILABLE);
+        }
 
         itemLogRepository.save(ItemLog.builder()
                 .itemId(booking.getItemId())
@@ -202,7 +212,7 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
                 .build());
 
         // thông báo đến admin về yêu cầu hoàn tiền cần xử lý
-        notificationService.notifyAllAdmins(NotificationCreationRequest.builder()
+        notificationService.enqueueForAdmins(NotificationCreationRequest.builder()
                 .senderId(lessorId)
                 .type(NotificationType.RETURN_REQUEST_PENDING)
                 .title("Yêu cầu hoàn tiền cần xử lý")
@@ -215,21 +225,18 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
         return enrichReturnRequestResponse(rr);
     }
 
-    @Scheduled(cron = "0 0 * * * *") // Chạy mỗi giờ (phút thứ 0)
+    // Timer RETURN_REFUND: hoàn tiền tự động khi chủ đã xác nhận nhận lại hàng
     @Transactional
-    public void processAutoRefundForConfirmedReturns() {
-        log.info("Starting scheduled job: Auto refund for confirmed return requests");
-
-        // Tìm tất cả booking đang chờ hoàn tiền (Chủ đã xác nhận nhận hàng)
-        List<Booking> bookingsToRefund = bookingRepository.findByStatus(BookingStatus.RETURN_REFUND_PROCESSING);
-
-        for (Booking booking : bookingsToRefund) {
-            try {
-                processSingleRefund(booking);
-            } catch (Exception e) {
-                log.error("Failed to auto-refund booking {}", booking.getId(), e);
-                // Continue to next booking
-            }
+    public void processAutoRefundForConfirmedReturn(UUID bookingId) {
+        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        if (booking == null || booking.getStatus() != BookingStatus.RETURN_REFUND_PROCESSING) return;
+
+        processSingleRefund(booking);
+
+        if (booking.getStatus() == BookingStatus.RETURN_REFUND_PROCESSING) {
+            // ví hệ thống chưa đủ tiền: thử lại sau
+            timerService.schedule(
+                    TimerType.RETURN_REFUND, bookingId, LocalDateTime.now().plus(REFUND_RETRY_DELAY));
         }
     }
 
@@ -237,49 +244,31 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
         log.info("Processing refund for booking: {}", booking.getId());
 
         // Tính toán số tiền hoàn trả (Thuê + Cọc)
-        long days = ChronoUnit.DAYS.between(booking.getStartDate(), booking.getEndDate()) + 1;
-        double rentalFee = booking.getPricePerDay() * booking.getQuantity() * days;
-        double deposit = Optional.ofNullable(booking.getDepositAmount()).orElse(0.0) * booking.getQuantity();
-        double refundAmount = rentalFee + deposit;
-
-        // Lấy ví hệ thống và ví khách
-        Account system = accountRepository
-                .findSystemWallet()
-                .orElseThrow(() -> new AppException(ErrorCode.SYSTEM_WALLET_NOT_FOUND));
+        long refundMinor = PricingEngine.totalPaid(booking);
+        double refundAmount = PricingEngine.toCoins(refundMinor);
+
+        // Lấy ví khách
         Account lessee = accountRepository
                 .findById(booking.getLesseeId())
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
 
-        if (system.getCoinBalance() < refundAmount) {
+        // Chuyển tiền từ ví hệ thống
+        if (!systemWalletService.tryDebit(booking.getId(), refundMinor)) {
             log.error("System wallet insufficient balance for booking {}", booking.getId());
             return;
         }
+        walletService.credit(lessee.getId(), refundAmount);
 
-        // Chuyển tiền
-        system.setCoinBalance(system.getCoinBalance() - refundAmount);
-        lessee.setCoinBalance(lessee.getCoinBalance() + refundAmount);
-        accountRepository.saveAll(List.of(system, lessee));
-
-        // Lưu Transaction
-        Transaction tx = Transaction.builder()
-                .fromAccountId(system.getId())
-                .toAccountId(lessee.getId())
-                .amount(refundAmount)
-                .type(TransactionType.REFUND_FULL)
-                .status(TransactionStatus.SUCCESS)
-                .createdAt(LocalDateTime.now())
-                .build();
-        transactionRepository.save(tx);
-
-        transactionBookingRepository.save(TransactionBooking.builder()
-                .bookingId(booking.getId())
-                .transactionId(tx.getId())
-                .createdAt(LocalDateTime.now())
-                .build());
+        // Lưu Transaction (sổ cái)
+        ledgerService.record(
+                systemWalletService.getSystemAccountId(),
+                lessee.getId(),
+                refundAmount,
+                TransactionType.REFUND_FULL,
+                booking.getId());
 
-        // Cập nhật trạng thái Booking -> COMPLETED
-        booking.setStatus(BookingStatus.COMPLETED);
-        bookingRepository.save(booking);
+        // RETURN_REFUND_PROCESSING -> COMPLETED; lượt chạy song song thua CAS sẽ rollback cả phần hoàn tiền
+        bookingStateMachine.fire(booking, BookingTrigger.SETTLE_REFUND, null);
 
         returnRequestRepository.findByBookingId(booking.getId()).ifPresent(rr -> {
             if (rr.getStatus() == ReturnRequestStatus.PROCESSING) {
@@ -326,10 +315,9 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
                     || rr.getReason() == ReasonReturnType.MISSING_PARTS) {
 
                 // ban item
-                itemRepository.findById(booking.getItemId()).ifPresent(item -> {
-                    item.setStatus(ItemStatus.BANNED);
-                    itemRepository.save(item);
-                });
+                if (itemRepository.existsById(booking.getItemId())) {
+                    itemAvailabilityService.updateItemStatus(booking.getItemId(), ItemStatus.BANNED);
+                }
 
                 // giảm trust score owner
                 accountRepository.findById(rr.getLessorId()).ifPresent(lessor -> {
@@ -342,11 +330,9 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
             rr.setStatus(ReturnRequestStatus.REJECTED);
         }
 
-        booking.setStatus(BookingStatus.COMPLETED);
-
-        if (booking.getStatus() != BookingStatus.COMPLETED) {
-            booking.setStatus(BookingStatus.COMPLETED);
-            bookingRepository.save(booking);
+        // đã COMPLETED nếu hoàn tiền tự động chạy trước; đang tranh chấp thì để admin xử lý tranh chấp chốt
+        if (bookingStateMachine.canFire(booking.getStatus(), BookingTrigger.RESOLVE_RETURN_REQUEST)) {
+            bookingStateMachine.fire(booking, BookingTrigger.RESOLVE_RETURN_REQUEST, adminId);
         }
 
         returnRequestRepository.save(rr);
@@ -359,7 +345,7 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
                 ? NotificationType.RETURN_REQUEST_APPROVED
                 : NotificationType.RETURN_REQUEST_REJECTED;
 
-        notificationService.create(NotificationCreationRequest.builder()
+        notificationService.enqueue(NotificationCreationRequest.builder()
                 .receiverId(rr.getLesseeId())
                 .senderId(adminId)
                 .type(lesseeNotificationType)
@@ -369,7 +355,7 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
                 .referenceId(booking.getId())
                 .build());
 
-        notificationService.create(NotificationCreationRequest.builder()
+        notificationService.enqueue(NotificationCreationRequest.builder()
                 .receiverId(rr.getLessorId())
                 .senderId(adminId)
                 .type(lessorNotificationType)
@@ -384,7 +370,7 @@ public class ReturnRequestServiceImpl implements ReturnRequestService {
 
         // Thông báo hoàn cọc riêng nếu được approve
         if (request.getIsApproved()) {
-            notificationService.create(NotificationCreationRequest.builder()
+            notificationService.enqueue(NotificationCreationRequest.builder()
                     .receiverId(rr.getLesseeId())
                     .senderId(adminId)
                     .type(NotificationType.DEPOSIT_REFUNDED)
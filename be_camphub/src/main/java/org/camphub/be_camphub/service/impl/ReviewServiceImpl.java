@@ -38,7 +38,7 @@ public class ReviewServiceImpl implements ReviewService {
         Review saved = reviewRepository.save(review);
 
         // thông báo cho người được review có review mới
-        notificationService.create(NotificationCreationRequest.builder()
+        notificationService.enqueue(NotificationCreationRequest.builder()
                 .receiverId(request.getReviewedId())
                 .senderId(request.getReviewerId())
                 .type(NotificationType.REVIEW_SUBMITTED)
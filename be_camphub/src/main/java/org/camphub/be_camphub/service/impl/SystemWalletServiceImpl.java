@@ -0,0 +1,192 @@
+package org.camphub.be_camphub.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.camphub.be_camphub.dto.response.account.SystemWalletBalanceResponse;
+import org.camphub.be_camphub.entity.Account;
+import org.camphub.be_camphub.entity.SystemWalletShard;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.pricing.PricingEngine;
+import org.camphub.be_camphub.repository.AccountRepository;
+import org.camphub.be_camphub.repository.SystemWalletShardRepository;
+import org.camphub.be_camphub.repository.WalletRepository;
+import org.camphub.be_camphub.service.LeaseService;
+import org.camphub.be_camphub.service.SystemWalletService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ví hệ thống được chia thành N shard (system_wallet_shards) để các luồng tiền không cùng ghi một dòng.
+ * Mỗi lần cộng/trừ là một câu UPDATE nguyên tử (đơn vị nhỏ nhất) trên shard chọn theo hash của booking;
+ * khi shard nhà không đủ tiền thì lần lượt thử các shard khác, cuối cùng mới gom từ nhiều shard.
+ * Tài khoản SYSTEM_WALLET chỉ còn là định danh cho Transaction, số dư nằm ở các shard.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SystemWalletServiceImpl implements SystemWalletService {
+    AccountRepository accountRepository;
+    SystemWalletShardRepository shardRepository;
+    WalletRepository walletRepository;
+    LeaseService leaseService;
+
+    @NonFinal
+    @Value("${system-wallet.shards:16}")
+    int configuredShards;
+
+    @NonFinal
+    volatile UUID systemAccountId;
+
+    @NonFinal
+    volatile int shardCount;
+
+    // Tạo các shard còn thiếu; lần đầu chuyển số dư hiện có của tài khoản SYSTEM_WALLET vào shard 0
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initShards() {
+        Account system = accountRepository.findSystemWallet().orElse(null);
+        if (system == null) {
+            log.warn("SYSTEM_WALLET account not found, wallet shards are not initialized");
+            return;
+        }
+        systemAccountId = system.getId();
+
+        // các node khởi động cùng lúc: chỉ một node tạo shard, node khác đếm shard khi dùng lần đầu
+        leaseService.runExclusive("system-wallet:init-shards", Duration.ZERO, () -> {
+            int migrated = shardRepository.migrateLegacyBalances();
+            if (migrated > 0) log.info("Moved {} system wallet shard balances to minor units", migrated);
+            createMissingShards(system);
+        });
+    }
+
+    private void createMissingShards(Account system) {
+        List<SystemWalletShard> existing = shardRepository.findAllByOrderByShardIndexAsc();
+        int target = Math.max(1, configuredShards);
+        if (existing.size() < target) {
+            double carried = existing.isEmpty() && system.getCoinBalance() != null ? system.getCoinBalance() : 0.0;
+            long carriedMinor = PricingEngine.toMinor(carried);
+            List<SystemWalletShard> created = new ArrayList<>();
+            for (int i = existing.size(); i < target; i++) {
+                created.add(SystemWalletShard.builder()
+                        .shardIndex(i)
+                        .balanceMinor(i == 0 ? carriedMinor : 0L)
+                        .legacyBalance(0.0)
+                        .updatedAt(LocalDateTime.now())
+                        .build());
+            }
+            shardRepository.saveAll(created);
+            if (carried != 0.0) {
+                walletRepository.debit(system.getId(), carried);
+            }
+            log.info("Created {} system wallet shards (carried balance {})", created.size(), carried);
+        }
+
+        shardCount = Math.max(existing.size(), target);
+    }
+
+    @Override
+    public UUID getSystemAccountId() {
+        UUID id = systemAccountId;
+        if (id == null) {
+            id = accountRepository
+                    .findSystemWallet()
+                    .map(Account::getId)
+                    .orElseThrow(() -> new AppException(ErrorCode.SYSTEM_WALLET_NOT_FOUND));
+            systemAccountId = id;
+        }
+        return id;
+    }
+
+    @Override
+    @Transactional
+    public void credit(UUID bookingId, long amountMinor) {
+        if (amountMinor <= 0) return;
+        if (shardRepository.credit(shardFor(bookingId), amountMinor) == 0) {
+            throw new AppException(ErrorCode.SYSTEM_WALLET_NOT_FOUND);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void debit(UUID bookingId, long amountMinor) {
+        if (!tryDebit(bookingId, amountMinor)) {
+            log.error(
+                    "System wallet insufficient for {} (booking {})", PricingEngine.toDecimal(amountMinor), bookingId);
+            throw new AppException(ErrorCode.SYSTEM_WALLET_INSUFFICIENT);
+        }
+    }
+
+    @Override
+    @Transactional
+    public boolean tryDebit(UUID bookingId, long amountMinor) {
+        if (amountMinor <= 0) return true;
+        int count = shardCount();
+        int home = shardFor(bookingId);
+
+        // đường nhanh: shard của booking (nơi checkout đã cộng tiền) hoặc một shard khác đủ tiền
+        for (int i = 0; i < count; i++) {
+            if (shardRepository.debitIfSufficient((home + i) % count, amountMinor) == 1) return true;
+        }
+
+        // không shard nào đủ một mình: gom từ nhiều shard nếu tổng đủ
+        if (shardRepository.sumBalanceMinor() < amountMinor) return false;
+
+        long remaining = amountMinor;
+        for (int i = 0; i < count && remaining > 0; i++) {
+            int idx = (home + i) % count;
+            Long balance = shardRepository.findBalanceMinorByShardIndex(idx);
+            long take = Math.min(balance != null ? balance : 0L, remaining);
+            if (take > 0 && shardRepository.debitIfSufficient(idx, take) == 1) {
+                remaining -= take;
+            }
+        }
+        if (remaining > 0) {
+            // số dư bị luồng khác rút mất giữa chừng: rollback cả transaction
+            throw new AppException(ErrorCode.SYSTEM_WALLET_INSUFFICIENT);
+        }
+        return true;
+    }
+
+    @Override
+    public SystemWalletBalanceResponse getBalance() {
+        List<Long> shardBalances = shardRepository.findAllByOrderByShardIndexAsc().stream()
+                .map(SystemWalletShard::getBalanceMinor)
+                .toList();
+        return SystemWalletBalanceResponse.builder()
+                .accountId(getSystemAccountId())
+                .totalBalance(PricingEngine.toDecimal(
+                        shardBalances.stream().mapToLong(Long::longValue).sum()))
+                .shardBalances(
+                        shardBalances.stream().map(PricingEngine::toDecimal).toList())
+                .build();
+    }
+
+    private int shardFor(UUID bookingId) {
+        return bookingId == null ? 0 : Math.floorMod(bookingId.hashCode(), shardCount());
+    }
+
+    private int shardCount() {
+        int count = shardCount;
+        if (count == 0) {
+            count = (int) shardRepository.count();
+            if (count == 0) throw new AppException(ErrorCode.SYSTEM_WALLET_NOT_FOUND);
+            shardCount = count;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,258 @@
+package org.camphub.be_camphub.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.camphub.be_camphub.Utils.TransactionUtils;
+import org.camphub.be_camphub.entity.LifecycleTimer;
+import org.camphub.be_camphub.enums.BookingStatus;
+import org.camphub.be_camphub.enums.ExtensionStatus;
+import org.camphub.be_camphub.enums.TimerType;
+import org.camphub.be_camphub.job.JobExecutor;
+import org.camphub.be_camphub.repository.LifecycleTimerRepository;
+import org.camphub.be_camphub.service.LeaseService;
+import org.camphub.be_camphub.service.TimerService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Timer bền vững: DB giữ mọi hạn chót (index due_at), bộ nhớ chỉ giữ các timer sắp đến hạn trong một
+ * "tầm nhìn" ngắn, xếp trong hàng đợi ưu tiên theo thời điểm của một ScheduledThreadPoolExecutor một luồng.
+ * Mỗi tầm nhìn/2 nạp lại các timer sắp đến hạn (lô đầy thì nạp tiếp ngay để xả backlog); timer đặt mới trong
+ * tầm nhìn được đưa vào hàng đợi ngay sau commit.
+ * Khi đến hạn, việc được giao cho JobExecutor: xóa dòng timer (giành quyền) và chạy handler trong cùng một
+ * transaction ngắn trên worker pool, lỗi thì dời lại có backoff.
+ * Trong cụm nhiều instance, timer được chia thành SHARDS shard theo reference_id; mỗi node chỉ nạp các shard
+ * nó giữ lease (LeaseService), node chết thì shard chuyển sang node khác và được nạp ngay khi nhận.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TimerServiceImpl implements TimerService {
+    static final int LOAD_BATCH = 1000;
+    static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+    static final long DRAIN_DELAY_SECONDS = 1;
+    static final int SHARDS = 16;
+    static final String SHARD_GROUP = "lifecycle-timers";
+    static final Duration BACKFILL_INTERVAL = Duration.ofMinutes(10);
+    static final Duration QUEUE_FULL_BACKOFF = Duration.ofSeconds(5);
+
+    LifecycleTimerRepository timerRepository;
+    TransactionTemplate transactionTemplate;
+    JobExecutor jobExecutor;
+    LeaseService leaseService;
+
+    Map<TimerType, Consumer<UUID>> handlers = new ConcurrentHashMap<>();
+    // timer đã nằm trong hàng đợi -> hạn chót lúc đưa vào, tránh đưa trùng
+    Map<UUID, LocalDateTime> armed = new ConcurrentHashMap<>();
+    AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    @NonFinal
+    @Value("${timers.horizon-minutes:10}")
+    long horizonMinutes;
+
+    @NonFinal
+    volatile ScheduledThreadPoolExecutor executor;
+
+    @Override
+    public void registerHandler(TimerType type, Consumer<UUID> handler) {
+        if (handlers.putIfAbsent(type, handler) != null) {
+            throw new IllegalStateException("Timer handler already registered for " + type);
+        }
+    }
+
+    @Override
+    public void schedule(TimerType type, UUID referenceId, LocalDateTime dueAt) {
+        UUID timerId = timerRepository.upsert(type.name(), referenceId, dueAt, SHARDS);
+        // node tạo timer tự đưa vào hàng đợi dù shard thuộc node khác: hạn gần không phải chờ lượt nạp kế tiếp,
+        // và chỉ một lượt giành được dòng timer
+        TransactionUtils.afterCommit(() -> {
+            if (dueAt.isBefore(horizonEnd())) arm(timerId, type, referenceId, dueAt, 0);
+        });
+    }
+
+    @Override
+    public void cancel(TimerType type, UUID referenceId) {
+        // nếu timer đã nằm trong hàng đợi thì lúc bắn sẽ không giành được dòng và bỏ qua
+        timerRepository.deleteByTypeAndReferenceId(type, referenceId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // mọi node khởi động cùng lúc: chỉ một node chạy backfill
+        leaseService.runExclusive(SHARD_GROUP + ":backfill", BACKFILL_INTERVAL, this::backfill);
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "lifecycle-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.setRemoveOnCancelPolicy(true);
+        executor = pool;
+        long refillSeconds = Math.max(1, horizonMinutes * 60 / 2);
+        pool.scheduleWithFixedDelay(this::loadUpcoming, 0, refillSeconds, TimeUnit.SECONDS);
+        // nhận thêm shard (node khác chết / khởi động) thì nạp ngay, không chờ chu kỳ nạp
+        leaseService.joinShardGroup(SHARD_GROUP, SHARDS, owned -> pool.execute(this::loadUpcoming));
+        log.info("Lifecycle timers started (horizon {} min)", horizonMinutes);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    // Nạp các timer đến hạn trong tầm nhìn vào hàng đợi
+    void loadUpcoming() {
+        Set<Integer> shards = leaseService.ownedShards(SHARD_GROUP);
+        if (shards.isEmpty()) return;
+        try {
+            List<LifecycleTimer> upcoming = timerRepository.findByShardInAndDueAtBeforeOrderByDueAtAsc(
+                    shards, horizonEnd(), PageRequest.of(0, LOAD_BATCH));
+            for (LifecycleTimer timer : upcoming) {
+                arm(timer.getId(), timer.getType(), timer.getReferenceId(), timer.getDueAt(), timer.getAttempts());
+            }
+            // lô đầy (thường là backlog sau sự cố): nạp lô kế tiếp ngay khi worker xử lý bớt
+            if (upcoming.size() == LOAD_BATCH && drainScheduled.compareAndSet(false, true)) {
+                executor.schedule(
+                        () -> {
+                            drainScheduled.set(false);
+                            loadUpcoming();
+                        },
+                        DRAIN_DELAY_SECONDS,
+                        TimeUnit.SECONDS);
+            }
+        } catch (Exception e) {
+            log.error("Failed to load upcoming lifecycle timers: {}", e.getMessage());
+        }
+    }
+
+    void fire(UUID timerId, TimerType type, UUID referenceId, LocalDateTime dueAt, int attempts) {
+        armed.remove(timerId, dueAt);
+        Consumer<UUID> handler = handlers.get(type);
+        if (handler == null) {
+            log.warn("No handler for timer {} ({}), leaving it in place", timerId, type);
+            return;
+        }
+        jobExecutor
+                .submit(type.name(), () -> {
+                    // đã bị hủy, bị dời về sau hoặc instance khác đã chạy
+                    if (timerRepository.claim(timerId, LocalDateTime.now()) == 0) return;
+                    handler.accept(referenceId);
+                })
+                .exceptionally(e -> {
+                    if (e instanceof RejectedExecutionException) {
+                        // worker pool đầy: không chạy trên luồng hẹn giờ, lùi lại rồi đưa vào hàng đợi lần nữa
+                        // (dòng timer vẫn còn trong DB nên lượt nạp kế tiếp cũng sẽ lấy lại nếu node dừng)
+                        backOff(timerId, type, referenceId, attempts);
+                    } else {
+                        retryLater(timerId, type, referenceId, attempts, e);
+                    }
+                    return null;
+                });
+    }
+
+    private void backOff(UUID timerId, TimerType type, UUID referenceId, int attempts) {
+        ScheduledThreadPoolExecutor pool = executor;
+        if (pool == null || pool.isShutdown()) return;
+        LocalDateTime retryAt = LocalDateTime.now().plus(QUEUE_FULL_BACKOFF);
+        log.warn("Job queue full, timer {} {} for {} deferred to {}", timerId, type, referenceId, retryAt);
+        arm(timerId, type, referenceId, retryAt, attempts);
+    }
+
+    private void retryLater(UUID timerId, TimerType type, UUID referenceId, int attempts, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        LocalDateTime retryAt = LocalDateTime.now().plus(retryDelay(attempts));
+        log.error(
+                "Timer {} {} for {} failed (attempt {}), retry at {}: {}",
+                timerId,
+                type,
+                referenceId,
+                attempts + 1,
+                retryAt,
+                cause.getMessage());
+        try {
+            transactionTemplate.executeWithoutResult(tx -> timerRepository.retryAt(timerId, retryAt));
+            if (retryAt.isBefore(horizonEnd())) arm(timerId, type, referenceId, retryAt, attempts + 1);
+        } catch (Exception retryError) {
+            log.error("Failed to reschedule timer {}: {}", timerId, retryError.getMessage());
+        }
+    }
+
+    private void arm(UUID timerId, TimerType type, UUID referenceId, LocalDateTime dueAt, int attempts) {
+        ScheduledThreadPoolExecutor pool = executor;
+        if (pool == null) return; // chưa start: lần nạp đầu tiên sẽ lấy từ DB
+        if (Objects.equals(armed.put(timerId, dueAt), dueAt)) return;
+        long delayMillis =
+                Math.max(0, Duration.between(LocalDateTime.now(), dueAt).toMillis());
+        pool.schedule(() -> fire(timerId, type, referenceId, dueAt, attempts), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // 1, 2, 4, ... phút, tối đa 1 giờ
+    private Duration retryDelay(int attempts) {
+        Duration delay = Duration.ofMinutes(1L << Math.min(attempts, 6));
+        return delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay;
+    }
+
+    private LocalDateTime horizonEnd() {
+        return LocalDateTime.now().plusMinutes(horizonMinutes);
+    }
+
+    // Tạo timer cho booking / yêu cầu gia hạn đang dở dang từ trước khi có bảng timer (chạy lại không tạo trùng)
+    private void backfill() {
+        try {
+            Integer created = transactionTemplate.execute(tx -> timerRepository.backfillFromEndDate(
+                            TimerType.BOOKING_DUE.name(), List.of(BookingStatus.IN_USE.name()), 0, SHARDS)
+                    + timerRepository.backfillFromEndDate(
+                            TimerType.BOOKING_LATE.name(),
+                            List.of(BookingStatus.IN_USE.name(), BookingStatus.DUE_FOR_RETURN.name()),
+                            LATE_AFTER_DAYS,
+                            SHARDS)
+                    + timerRepository.backfillFromEndDate(
+                            TimerType.BOOKING_OVERDUE.name(),
+                            List.of(
+                                    BookingStatus.IN_USE.name(),
+                                    BookingStatus.DUE_FOR_RETURN.name(),
+                                    BookingStatus.LATE_RETURN.name()),
+                            OVERDUE_AFTER_DAYS,
+                            SHARDS)
+                    + timerRepository.backfillDueNow(
+                            TimerType.BOOKING_REFUND.name(), BookingStatus.WAITING_REFUND.name(), SHARDS)
+                    + timerRepository.backfillDueNow(
+                            TimerType.RETURN_REFUND.name(), BookingStatus.RETURN_REFUND_PROCESSING.name(), SHARDS)
+                    + timerRepository.backfillExtensions(
+                            TimerType.EXTENSION_EXPIRY.name(),
+                            ExtensionStatus.PENDING.name(),
+                            EXTENSION_TTL_HOURS,
+                            SHARDS));
+            if (created != null && created > 0) log.info("Backfilled {} lifecycle timers", created);
+            Integer moved = transactionTemplate.execute(tx -> timerRepository.reshard(SHARDS));
+            if (moved != null && moved > 0) log.info("Moved {} lifecycle timers to their hashtext shard", moved);
+        } catch (Exception e) {
+            log.error("Lifecycle timer backfill failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.camphub.be_camphub.service.impl;
+
+import java.util.UUID;
+
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.repository.WalletRepository;
+import org.camphub.be_camphub.service.WalletService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+// Mọi thay đổi Account.coinBalance đều đi qua đây; cột coin_balance không được ghi qua entity nữa
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class WalletServiceImpl implements WalletService {
+    WalletRepository walletRepository;
+
+    @Override
+    @Transactional
+    public double debit(UUID accountId, double amount) {
+        if (amount < 0) throw new AppException(ErrorCode.INVALID_AMOUNT);
+        return walletRepository
+                .debit(accountId, amount)
+                .orElseThrow(() -> new AppException(
+                        walletRepository.findBalance(accountId).isPresent()
+                                ? ErrorCode.INSUFFICIENT_BALANCE
+                                : ErrorCode.USER_NOT_FOUND));
+    }
+
+    @Override
+    @Transactional
+    public double credit(UUID accountId, double amount) {
+        if (amount < 0) throw new AppException(ErrorCode.INVALID_AMOUNT);
+        return walletRepository.credit(accountId, amount).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
+    }
+}
@@ -0,0 +1,121 @@
+package org.camphub.be_camphub.booking;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.Booking;
+import org.camphub.be_camphub.enums.BookingStatus;
+import org.camphub.be_camphub.enums.BookingTrigger;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.repository.BookingEventRepository;
+import org.camphub.be_camphub.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BookingStateMachineTest {
+    BookingRepository bookingRepository;
+    BookingEventRepository bookingEventRepository;
+    BookingStateMachine machine;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        bookingEventRepository = mock(BookingEventRepository.class);
+        machine = new BookingStateMachine(bookingRepository, bookingEventRepository);
+        when(bookingRepository.compareAndSetStatus(any(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void legalTransitionIsConditionalUpdatePlusEvent() {
+        Booking booking = booking(BookingStatus.DUE_FOR_RETURN);
+        UUID actor = UUID.randomUUID();
+
+        assertEquals(BookingStatus.RETURNED_PENDING_CHECK, machine.fire(booking, BookingTrigger.LESSEE_RETURN, actor));
+
+        assertEquals(BookingStatus.RETURNED_PENDING_CHECK, booking.getStatus());
+        verify(bookingRepository)
+                .compareAndSetStatus(
+                        booking.getId(), BookingStatus.DUE_FOR_RETURN, BookingStatus.RETURNED_PENDING_CHECK);
+        verify(bookingEventRepository)
+                .save(argThat(e -> e.getBookingId().equals(booking.getId())
+                        && e.getTrigger() == BookingTrigger.LESSEE_RETURN
+                        && e.getFromStatus() == BookingStatus.DUE_FOR_RETURN
+                        && e.getToStatus() == BookingStatus.RETURNED_PENDING_CHECK
+                        && actor.equals(e.getActorId())));
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void illegalTransitionNeverTouchesTheDatabase() {
+        Booking booking = booking(BookingStatus.PENDING_CONFIRM);
+
+        AppException ex =
+                assertThrows(AppException.class, () -> machine.fire(booking, BookingTrigger.SETTLE_RETURN, null));
+        assertEquals(ErrorCode.INVALID_BOOKING_STATUS, ex.getErrorCode());
+        assertFalse(machine.tryFire(booking, BookingTrigger.SETTLE_RETURN, null));
+        verifyNoInteractions(bookingRepository, bookingEventRepository);
+    }
+
+    @Test
+    void lostRaceIsConcurrentUpdateAndLeavesEntityAlone() {
+        Booking booking = booking(BookingStatus.WAITING_REFUND);
+        when(bookingRepository.compareAndSetStatus(
+                        booking.getId(), BookingStatus.WAITING_REFUND, BookingStatus.COMPLETED))
+                .thenReturn(0);
+
+        AppException ex =
+                assertThrows(AppException.class, () -> machine.fire(booking, BookingTrigger.SETTLE_RETURN, null));
+        assertEquals(ErrorCode.CONCURRENT_UPDATE, ex.getErrorCode());
+        assertFalse(machine.tryFire(booking, BookingTrigger.SETTLE_RETURN, null));
+        assertEquals(BookingStatus.WAITING_REFUND, booking.getStatus());
+        verifyNoInteractions(bookingEventRepository);
+    }
+
+    @Test
+    void guardVetoesTransition() {
+        machine.registerGuard(BookingTrigger.RETURN_DUE, (b, from, to) -> {
+            throw new AppException(ErrorCode.INVALID_BOOKING_STATUS);
+        });
+        Booking booking = booking(BookingStatus.IN_USE);
+
+        assertFalse(machine.tryFire(booking, BookingTrigger.RETURN_DUE, null));
+        assertThrows(AppException.class, () -> machine.fire(booking, BookingTrigger.RETURN_DUE, null));
+        verify(bookingRepository, never()).compareAndSetStatus(any(), any(), any());
+    }
+
+    @Test
+    void everyReachableStatusEitherMovesOnOrIsTerminal() {
+        Set<BookingStatus> terminal =
+                EnumSet.of(BookingStatus.COMPLETED, BookingStatus.PAID_REJECTED, BookingStatus.OVERDUE);
+        Set<BookingStatus> reachable = EnumSet.of(BookingStatus.PENDING_CONFIRM);
+        Deque<BookingStatus> queue = new ArrayDeque<>(reachable);
+        while (!queue.isEmpty()) {
+            BookingStatus from = queue.poll();
+            for (BookingTrigger trigger : BookingTrigger.values()) {
+                machine.target(from, trigger).filter(reachable::add).ifPresent(queue::add);
+            }
+        }
+
+        for (BookingStatus status : reachable) {
+            boolean hasExit = Arrays.stream(BookingTrigger.values()).anyMatch(t -> machine.canFire(status, t));
+            assertEquals(!terminal.contains(status), hasExit, status.name());
+        }
+        assertTrue(reachable.containsAll(terminal));
+        assertEquals(
+                EnumSet.of(BookingStatus.DUE_FOR_RETURN, BookingStatus.LATE_RETURN),
+                machine.sources(BookingTrigger.LESSEE_RETURN));
+    }
+
+    private static Booking booking(BookingStatus status) {
+        return Booking.builder().id(UUID.randomUUID()).status(status).build();
+    }
+}
@@ -0,0 +1,123 @@
+package org.camphub.be_camphub.configuration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Date;
+import java.util.UUID;
+
+import jakarta.servlet.Filter;
+
+import org.camphub.be_camphub.controller.AccountController;
+import org.camphub.be_camphub.controller.SystemWalletController;
+import org.camphub.be_camphub.dto.response.account.SystemWalletBalanceResponse;
+import org.camphub.be_camphub.dto.response.account.WalletBalanceResponse;
+import org.camphub.be_camphub.handler.JwtAuthConverter;
+import org.camphub.be_camphub.service.AccountService;
+import org.camphub.be_camphub.service.SystemWalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+// Chỉ nạp SecurityConfig + controller, không cần DB
+@SpringJUnitWebConfig(SecurityConfigTest.Config.class)
+@TestPropertySource(properties = "jwt.signerKey=" + SecurityConfigTest.SIGNER_KEY)
+class SecurityConfigTest {
+    static final String SIGNER_KEY = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Configuration
+    @EnableWebMvc
+    @Import({SecurityConfig.class, JwtAuthConverter.class, SystemWalletController.class, AccountController.class})
+    static class Config {
+        @Bean
+        AccountService accountService() {
+            AccountService service = mock(AccountService.class);
+            when(service.getWalletBalance(any()))
+                    .thenReturn(WalletBalanceResponse.builder().build());
+            return service;
+        }
+
+        @Bean
+        SystemWalletService systemWalletService() {
+            SystemWalletService service = mock(SystemWalletService.class);
+            when(service.getBalance())
+                    .thenReturn(SystemWalletBalanceResponse.builder().build());
+            return service;
+        }
+    }
+
+    @Autowired
+    WebApplicationContext context;
+
+    @Autowired
+    Filter springSecurityFilterChain;
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(springSecurityFilterChain)
+                .build();
+    }
+
+    @Test
+    void systemWalletBalanceRejectsAnonymous() throws Exception {
+        mockMvc.perform(get("/admin/system-wallet/balance")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void systemWalletBalanceRejectsNonAdmin() throws Exception {
+        mockMvc.perform(get("/admin/system-wallet/balance")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("USER")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void systemWalletBalanceAllowsAdmin() throws Exception {
+        mockMvc.perform(get("/admin/system-wallet/balance")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void ownWalletBalanceRejectsAnonymousInsteadOfFailing() throws Exception {
+        mockMvc.perform(get("/accounts/me/balance")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void ownWalletBalanceAllowsSignedInUser() throws Exception {
+        mockMvc.perform(get("/accounts/me/balance").header(HttpHeaders.AUTHORIZATION, "Bearer " + token("USER")))
+                .andExpect(status().isOk());
+    }
+
+    private static String token(String userType) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("tester")
+                .claim("userId", UUID.randomUUID().toString())
+                .claim("userType", userType)
+                .expirationTime(new Date(System.currentTimeMillis() + 60_000))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS512), claims);
+        jwt.sign(new MACSigner(SIGNER_KEY.getBytes()));
+        return jwt.serialize();
+    }
+}
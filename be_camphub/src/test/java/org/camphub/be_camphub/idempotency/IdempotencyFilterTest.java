@@ -0,0 +1,275 @@
+package org.camphub.be_camphub.idempotency;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.camphub.be_camphub.entity.IdempotencyRecord;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.repository.IdempotencyRecordRepository;
+import org.camphub.be_camphub.service.LeaseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class IdempotencyFilterTest {
+    IdempotencyRecordRepository recordRepository;
+    IdempotencyFence fence;
+    IdempotencyFilter filter;
+
+    // bảng idempotency_keys giả lập
+    Map<String, IdempotencyRecord> table = new HashMap<>();
+    AtomicInteger executions = new AtomicInteger();
+    int nextStatus = 200;
+    // request lỗi mặc định không ghi gì; true = lỗi xảy ra sau khi một transaction đã commit
+    boolean commitsBeforeError = false;
+
+    static class CheckoutEndpoint {
+        @Idempotent
+        public void checkout() {}
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        recordRepository = mock(IdempotencyRecordRepository.class);
+        when(recordRepository.tryStart(anyString(), anyString(), anyString(), anyDouble(), anyDouble()))
+                .thenAnswer(inv -> {
+                    String id = inv.getArgument(0);
+                    IdempotencyRecord existing = table.get(id);
+                    // cùng điều kiện chiếm key với câu SQL: chỉ khi lock hết hạn mà chưa commit gì
+                    boolean takeover = existing != null
+                            && existing.getStatusCode() == null
+                            && existing.getCommittedAt() == null
+                            && existing.getLockToken() != null
+                            && existing.getLockedUntil().isBefore(LocalDateTime.now());
+                    if (existing != null && !takeover) return Optional.empty();
+                    table.put(
+                            id,
+                            IdempotencyRecord.builder()
+                                    .id(id)
+                                    .fingerprint(inv.getArgument(1))
+                                    .lockToken(inv.getArgument(2))
+                                    .lockedUntil(LocalDateTime.now().plusSeconds(60))
+                                    .expiresAt(LocalDateTime.now().plusDays(1))
+                                    .build());
+                    return Optional.of(id);
+                });
+        when(recordRepository.findById(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(table.get(inv.<String>getArgument(0))));
+        when(recordRepository.complete(anyString(), anyString(), anyString(), anyInt(), any(), any()))
+                .thenAnswer(inv -> {
+                    IdempotencyRecord record = owned(inv.getArgument(0), inv.getArgument(1));
+                    if (record == null) return 0;
+                    record.setStatusCode(inv.getArgument(3));
+                    record.setContentType(inv.getArgument(4));
+                    record.setResponseBody(inv.getArgument(5));
+                    return 1;
+                });
+        when(recordRepository.release(anyString(), anyString())).thenAnswer(inv -> {
+            IdempotencyRecord record = owned(inv.getArgument(0), inv.getArgument(1));
+            if (record == null || record.getStatusCode() != null || record.getCommittedAt() != null) return 0;
+            table.remove(record.getId());
+            return 1;
+        });
+        when(recordRepository.markCommitted(anyString(), anyString())).thenAnswer(inv -> {
+            IdempotencyRecord record = owned(inv.getArgument(0), inv.getArgument(1));
+            if (record == null) return 0;
+            record.setCommittedAt(LocalDateTime.now());
+            return 1;
+        });
+
+        IdempotencyStore store = new IdempotencyStore(recordRepository, mock(LeaseService.class));
+        ReflectionTestUtils.setField(store, "ttlHours", 24L);
+        ReflectionTestUtils.setField(store, "lockSeconds", 60L);
+        ReflectionTestUtils.setField(store, "cacheSize", 100);
+        store.init();
+
+        RequestMappingHandlerMapping handlerMapping = mock(RequestMappingHandlerMapping.class);
+        when(handlerMapping.getHandler(any()))
+                .thenReturn(new HandlerExecutionChain(
+                        new HandlerMethod(new CheckoutEndpoint(), CheckoutEndpoint.class.getMethod("checkout"))));
+        fence = new IdempotencyFence(recordRepository);
+        filter = new IdempotencyFilter(store, fence, handlerMapping, new ObjectMapper());
+    }
+
+    IdempotencyRecord owned(String id, String token) {
+        IdempotencyRecord record = table.get(id);
+        return record != null && token.equals(record.getLockToken()) ? record : null;
+    }
+
+    // một transaction nghiệp vụ commit trên luồng request: chạy đúng synchronization mà IdempotencyFence gắn vào
+    void commitBusinessWrite() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            fence.afterBegin(mock(TransactionExecution.class), null);
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    void expireLocks() {
+        table.values()
+                .forEach(record -> record.setLockedUntil(LocalDateTime.now().minusSeconds(1)));
+    }
+
+    MockHttpServletResponse send(String key, String body) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bookings/checkout");
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> {
+            int n = executions.incrementAndGet();
+            if (nextStatus < 300 || commitsBeforeError) commitBusinessWrite();
+            assertEquals(body, new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            ((HttpServletResponse) res).setStatus(nextStatus);
+            res.setContentType("application/json");
+            res.getWriter().write("{\"result\":" + n + "}");
+        };
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    void retryWithSameKeyReplaysFirstResponseWithoutRunningAgain() throws Exception {
+        MockHttpServletResponse first = send("k-1", "{\"cartItemIds\":[1]}");
+        MockHttpServletResponse retry = send("k-1", "{\"cartItemIds\":[1]}");
+
+        assertEquals(1, executions.get());
+        assertEquals(200, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        // lần gửi lại lấy từ LRU trong bộ nhớ, không đọc DB
+        verify(recordRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() throws Exception {
+        send("k-2", "{\"cartItemIds\":[1]}");
+        MockHttpServletResponse reused = send("k-2", "{\"cartItemIds\":[2]}");
+
+        assertEquals(1, executions.get());
+        assertEquals(422, reused.getStatus());
+    }
+
+    @Test
+    void failedRequestReleasesKeySoRetryRunsAgain() throws Exception {
+        nextStatus = 400;
+        send("k-3", "{}");
+        nextStatus = 200;
+        MockHttpServletResponse retry = send("k-3", "{}");
+
+        assertEquals(2, executions.get());
+        assertEquals(200, retry.getStatus());
+        assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void duplicateArrivingWhileFirstIsRunningGetsConflict() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bookings/checkout");
+        request.addHeader(IdempotencyFilter.HEADER, "k-4");
+        request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+        AtomicInteger duplicateStatus = new AtomicInteger();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            executions.incrementAndGet();
+            duplicateStatus.set(send("k-4", "{}").getStatus());
+        });
+
+        assertEquals(409, duplicateStatus.get());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void expiredLockAfterCommitIsNeverRunAgain() throws Exception {
+        // nghiệp vụ đã commit rồi node chết trước khi kịp lưu response
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bookings/checkout");
+        request.addHeader(IdempotencyFilter.HEADER, "k-5");
+        request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+        assertThrows(
+                IllegalStateException.class,
+                () -> filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                    executions.incrementAndGet();
+                    commitBusinessWrite();
+                    throw new IllegalStateException("node died");
+                }));
+        expireLocks();
+
+        MockHttpServletResponse retry = send("k-5", "{}");
+
+        assertEquals(409, retry.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void expiredLockWithoutCommitLetsRetryRunAndFencesOutTheStaleAttempt() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bookings/checkout");
+        request.addHeader(IdempotencyFilter.HEADER, "k-6");
+        request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+        AtomicInteger retryStatus = new AtomicInteger();
+        AppException stale = assertThrows(
+                AppException.class,
+                () -> filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                    executions.incrementAndGet();
+                    // lần chạy đầu treo quá lock-seconds chưa commit gì; client gửi lại từ luồng khác
+                    expireLocks();
+                    Thread retry = new Thread(() -> {
+                        try {
+                            retryStatus.set(send("k-6", "{}").getStatus());
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                    retry.start();
+                    try {
+                        retry.join();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    // lần chạy cũ tới lúc commit thì key đã đổi chủ: transaction phải rollback
+                    commitBusinessWrite();
+                }));
+
+        assertEquals(ErrorCode.IDEMPOTENCY_REQUEST_IN_PROGRESS, stale.getErrorCode());
+        assertEquals(200, retryStatus.get());
+        assertEquals(2, executions.get());
+        // key giữ response của lần chạy đã commit
+        assertEquals(200, send("k-6", "{}").getStatus());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void errorAfterPartialCommitIsReplayedInsteadOfRunningAgain() throws Exception {
+        nextStatus = 500;
+        commitsBeforeError = true;
+        send("k-7", "{}");
+        nextStatus = 200;
+        MockHttpServletResponse retry = send("k-7", "{}");
+
+        assertEquals(1, executions.get());
+        assertEquals(500, retry.getStatus());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+}
@@ -0,0 +1,126 @@
+package org.camphub.be_camphub.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.Category;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.entity.ItemDayReservation;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.repository.AccountRepository;
+import org.camphub.be_camphub.repository.CategoryRepository;
+import org.camphub.be_camphub.repository.ItemDayReservationRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CatalogChangeFeedTest {
+    LocalDate today = LocalDate.now();
+    Item tent = Item.builder()
+            .id(UUID.randomUUID())
+            .categoryId(UUID.randomUUID())
+            .pricePerDay(50.0)
+            .quantity(2)
+            .status(ItemStatus.AVAILABLE)
+            .build();
+    ItemRepository itemRepository;
+    ItemDayReservationRepository reservationRepository;
+    AccountRepository accountRepository;
+    CategoryRepository categoryRepository;
+    ItemAvailabilityIndex availabilityIndex;
+    ItemSearchIndex searchIndex;
+    ItemSuggestIndex suggestIndex;
+    CatalogReadModel catalogReadModel;
+    ItemFacetIndex facetIndex;
+    CatalogChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        reservationRepository = mock(ItemDayReservationRepository.class);
+        accountRepository = mock(AccountRepository.class);
+        categoryRepository = mock(CategoryRepository.class);
+        searchIndex = mock(ItemSearchIndex.class);
+        suggestIndex = mock(ItemSuggestIndex.class);
+        catalogReadModel = mock(CatalogReadModel.class);
+        facetIndex = mock(ItemFacetIndex.class);
+        when(itemRepository.findAllByStatus(ItemStatus.AVAILABLE)).thenReturn(List.of(tent));
+        when(itemRepository.findById(tent.getId())).thenReturn(Optional.of(tent));
+        availabilityIndex = new ItemAvailabilityIndex(itemRepository, reservationRepository);
+        availabilityIndex.rebuild();
+
+        feed = new CatalogChangeFeed(
+                itemRepository,
+                reservationRepository,
+                accountRepository,
+                categoryRepository,
+                availabilityIndex,
+                searchIndex,
+                suggestIndex,
+                catalogReadModel,
+                facetIndex);
+        ReflectionTestUtils.setField(feed, "overlapMs", 10_000L);
+    }
+
+    @Test
+    void reservationMadeOnAnotherNodeReachesTheLocalIndex() {
+        assertEquals(
+                List.of(tent.getId()), availabilityIndex.findAvailable(today, today.plusDays(1), 1, null, null, null));
+
+        // node khác giữ hết 2 đơn vị cho hôm nay: chỉ có dòng trong DB, không có onReserved ở node này
+        when(reservationRepository.findItemIdsUpdatedSince(any())).thenReturn(List.of(tent.getId()));
+        when(reservationRepository.findAllByItemIdAndRentalDateBetweenOrderByRentalDate(eq(tent.getId()), any(), any()))
+                .thenReturn(List.of(ItemDayReservation.builder()
+                        .itemId(tent.getId())
+                        .rentalDate(today)
+                        .reserved(2)
+                        .build()));
+        feed.poll();
+
+        assertEquals(List.of(), availabilityIndex.findAvailable(today, today.plusDays(1), 1, null, null, null));
+        // item không đổi: các chỉ mục khác không phải nạp lại
+        verifyNoInteractions(searchIndex, suggestIndex, catalogReadModel, facetIndex);
+    }
+
+    @Test
+    void itemAndCategoryChangesAreAppliedToEveryIndex() {
+        Category category =
+                Category.builder().id(tent.getCategoryId()).name("Lều").build();
+        when(itemRepository.findIdsUpdatedSince(any())).thenReturn(List.of(tent.getId()));
+        when(categoryRepository.findAllByUpdatedAtGreaterThanEqual(any())).thenReturn(List.of(category));
+
+        feed.poll();
+
+        verify(searchIndex).refresh(tent.getId());
+        verify(suggestIndex).refresh(tent.getId());
+        verify(catalogReadModel).refresh(tent.getId());
+        verify(facetIndex).refresh(tent.getId());
+        verify(searchIndex).onCategoryChanged(category);
+        verify(suggestIndex).onCategoryChanged(category);
+        verify(catalogReadModel).onCategoryChanged(category);
+    }
+
+    @Test
+    void watermarkAdvancesOnlyAfterASuccessfulPollAndKeepsAnOverlap() {
+        LocalDateTime before = (LocalDateTime) ReflectionTestUtils.getField(feed, "watermark");
+        when(itemRepository.findIdsUpdatedSince(any())).thenThrow(new IllegalStateException("db down"));
+
+        feed.poll();
+        assertEquals(before, ReflectionTestUtils.getField(feed, "watermark"));
+
+        reset(itemRepository);
+        feed.poll();
+        LocalDateTime after = (LocalDateTime) ReflectionTestUtils.getField(feed, "watermark");
+        assertTrue(after.isAfter(before));
+        // lượt đầu đọc lùi overlap so với watermark ban đầu
+        verify(reservationRepository, atLeastOnce()).findItemIdsUpdatedSince(before.minusSeconds(10));
+    }
+}
@@ -0,0 +1,182 @@
+package org.camphub.be_camphub.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.camphub.be_camphub.dto.response.CursorPageResponse;
+import org.camphub.be_camphub.dto.response.item.ItemResponse;
+import org.camphub.be_camphub.entity.Account;
+import org.camphub.be_camphub.entity.Category;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemSort;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.mapper.ItemMapper;
+import org.camphub.be_camphub.repository.AccountRepository;
+import org.camphub.be_camphub.repository.CategoryRepository;
+import org.camphub.be_camphub.repository.ItemLogsRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class CatalogReadModelTest {
+    static final LocalDateTime T = LocalDateTime.of(2026, 7, 1, 10, 0);
+
+    ItemRepository itemRepository;
+    ItemLogsRepository itemLogsRepository;
+    CatalogSnapshotStore snapshotStore;
+    Account owner = Account.builder()
+            .id(UUID.randomUUID())
+            .firstname("An")
+            .lastname("Nguyễn")
+            .trustScore(90)
+            .build();
+    UUID categoryId = UUID.randomUUID();
+    CatalogReadModel model;
+
+    // cùng createdAt: Postgres xếp id theo byte không dấu nên 8000... đứng trước 7fff... khi giảm dần
+    Item high = item(new UUID(0x8000000000000000L, 1), T, 30.0, ItemStatus.AVAILABLE);
+    Item low = item(new UUID(0x7fffffffffffffffL, 1), T, 10.0, ItemStatus.RENTED);
+    Item older = item(UUID.randomUUID(), T.minusDays(1), null, ItemStatus.AVAILABLE);
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        itemLogsRepository = mock(ItemLogsRepository.class);
+        snapshotStore = mock(CatalogSnapshotStore.class);
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        ItemMapper itemMapper = mock(ItemMapper.class);
+        when(itemMapper.entityToResponse(any())).thenAnswer(inv -> {
+            Item item = inv.getArgument(0);
+            return ItemResponse.builder()
+                    .id(item.getId())
+                    .name(item.getName())
+                    .status(item.getStatus().name())
+                    .build();
+        });
+        when(accountRepository.findAllById(any())).thenReturn(List.of(owner));
+        when(accountRepository.findById(owner.getId())).thenReturn(Optional.of(owner));
+        when(categoryRepository.findAll())
+                .thenReturn(
+                        List.of(Category.builder().id(categoryId).name("Lều").build()));
+        when(itemRepository.findAllByStatusIn(CatalogReadModel.VISIBLE)).thenReturn(List.of(older, low, high));
+
+        model = new CatalogReadModel(
+                itemRepository,
+                accountRepository,
+                categoryRepository,
+                itemLogsRepository,
+                itemMapper,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                snapshotStore);
+        ReflectionTestUtils.setField(model, "maxItems", 100);
+        model.rebuild();
+    }
+
+    @Test
+    void pagesInTheSameOrderAsTheDatabaseAndCursorContinues() {
+        List<ItemStatus> statuses = List.of(ItemStatus.AVAILABLE, ItemStatus.RENTED);
+        assertTrue(model.covers(statuses));
+
+        CursorPageResponse<ItemResponse> first = model.page(statuses, null, ItemSort.NEWEST, null, 2);
+        assertEquals(List.of(high.getId(), low.getId()), ids(first));
+        assertTrue(first.isHasMore());
+
+        CursorPageResponse<ItemResponse> second = model.page(statuses, null, ItemSort.NEWEST, first.getNextCursor(), 2);
+        assertEquals(List.of(older.getId()), ids(second));
+        assertFalse(second.isHasMore());
+
+        // item không có giá không nằm trong danh sách sắp theo giá, giống điều kiện so sánh trong SQL
+        assertEquals(
+                List.of(low.getId(), high.getId()),
+                ids(model.page(statuses, categoryId, ItemSort.PRICE_ASC, null, 10)));
+        assertEquals(
+                List.of(high.getId()),
+                ids(model.page(List.of(ItemStatus.AVAILABLE), null, ItemSort.PRICE_DESC, null, 10)));
+    }
+
+    @Test
+    void onlyApprovedStatusFiltersAreServed() {
+        assertFalse(model.covers(null));
+        assertFalse(model.covers(List.of()));
+        assertFalse(model.covers(List.of(ItemStatus.AVAILABLE, ItemStatus.PENDING_APPROVAL)));
+    }
+
+    @Test
+    void detailIsComposedFromOwnerAndCategoryAndFollowsChanges() {
+        ItemResponse response = model.find(high.getId()).orElseThrow();
+        assertEquals("An Nguyễn", response.getOwnerName());
+        assertEquals("90", response.getOwnerTrustScore());
+        assertEquals("Lều", response.getCategoryName());
+
+        // response trả ra là bản sao
+        response.setName("changed");
+        assertEquals("item", model.find(high.getId()).orElseThrow().getName());
+
+        owner.setTrustScore(40);
+        model.onAccountChanged(owner);
+        model.onCategoryChanged(
+                Category.builder().id(categoryId).name("Lều trại").build());
+        response = model.find(high.getId()).orElseThrow();
+        assertEquals("40", response.getOwnerTrustScore());
+        assertEquals("Lều trại", response.getCategoryName());
+
+        high.setStatus(ItemStatus.BANNED);
+        when(itemRepository.findById(high.getId())).thenReturn(Optional.of(high));
+        model.refresh(high.getId());
+        assertTrue(model.find(high.getId()).isEmpty());
+        assertEquals(
+                List.of(low.getId(), older.getId()),
+                ids(model.page(List.of(ItemStatus.AVAILABLE, ItemStatus.RENTED), null, ItemSort.NEWEST, null, 10)));
+    }
+
+    @Test
+    void warmStartServesSnapshotAndReplaysOnlyChangesAfterWatermark() throws Exception {
+        ReflectionTestUtils.setField(model, "snapshotEnabled", true);
+        model.saveSnapshot();
+        ArgumentCaptor<CatalogReadModel.Snapshot> captor = ArgumentCaptor.forClass(CatalogReadModel.Snapshot.class);
+        verify(snapshotStore).write(captor.capture(), any());
+        LocalDateTime watermark = LocalDateTime.now().minusMinutes(5);
+        when(snapshotStore.read())
+                .thenReturn(Optional.of(new CatalogSnapshotStore.Stored(captor.getValue(), watermark)));
+
+        // sau snapshot: low bị khóa, có log
+        low.setStatus(ItemStatus.BANNED);
+        when(itemRepository.findById(low.getId())).thenReturn(Optional.of(low));
+        when(itemLogsRepository.findItemIdsLoggedSince(watermark)).thenReturn(List.of(low.getId()));
+        when(itemRepository.findIdsUpdatedSince(watermark)).thenReturn(List.of());
+        clearInvocations(itemRepository);
+
+        model.warmUp();
+
+        verify(itemRepository, never()).findAllByStatusIn(any());
+        assertTrue(model.find(high.getId()).isPresent());
+        assertTrue(model.find(low.getId()).isEmpty());
+    }
+
+    private Item item(UUID id, LocalDateTime createdAt, Double price, ItemStatus status) {
+        return Item.builder()
+                .id(id)
+                .ownerId(owner.getId())
+                .categoryId(categoryId)
+                .name("item")
+                .pricePerDay(price)
+                .status(status)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    private static List<UUID> ids(CursorPageResponse<ItemResponse> page) {
+        return page.getData().stream().map(ItemResponse::getId).toList();
+    }
+}
@@ -0,0 +1,85 @@
+package org.camphub.be_camphub.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.camphub.be_camphub.dto.response.MediaResourceResponse;
+import org.camphub.be_camphub.dto.response.item.ItemResponse;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CatalogSnapshotStoreTest {
+    @TempDir
+    Path dir;
+
+    Path file;
+    CatalogSnapshotStore store;
+
+    @BeforeEach
+    void setUp() {
+        file = dir.resolve("catalog.snapshot");
+        store = new CatalogSnapshotStore();
+        ReflectionTestUtils.setField(store, "path", file.toString());
+    }
+
+    @Test
+    void roundTripsEntriesOwnersAndCategories() throws Exception {
+        UUID ownerId = UUID.randomUUID();
+        UUID categoryId = UUID.randomUUID();
+        UUID itemId = UUID.randomUUID();
+        ItemResponse base = ItemResponse.builder()
+                .id(itemId)
+                .ownerId(ownerId.toString())
+                .categoryId(categoryId)
+                .name("Lều cắm trại")
+                .description("x".repeat(70_000))
+                .price(new BigDecimal("150000.0"))
+                .quantity(2)
+                .status("AVAILABLE")
+                .mediaUrls(List.of(new MediaResourceResponse("https://cdn/a.jpg", "IMAGE")))
+                .build();
+        LocalDateTime createdAt = LocalDateTime.of(2026, 7, 1, 10, 0, 0, 123_456_000);
+        CatalogReadModel.Snapshot snapshot = new CatalogReadModel.Snapshot(
+                List.of(new CatalogReadModel.Entry(
+                        itemId, ownerId, categoryId, ItemStatus.AVAILABLE, createdAt, 150000.0, base)),
+                Map.of(ownerId, new CatalogReadModel.Owner("An Nguyễn", null, "90")),
+                Map.of(categoryId, "Lều"),
+                true);
+        LocalDateTime watermark = LocalDateTime.of(2026, 7, 2, 8, 30);
+
+        store.write(snapshot, watermark);
+        CatalogSnapshotStore.Stored stored = store.read().orElseThrow();
+
+        assertEquals(watermark, stored.watermark());
+        assertTrue(stored.snapshot().complete());
+        assertEquals(snapshot.owners(), stored.snapshot().owners());
+        assertEquals(snapshot.categoryNames(), stored.snapshot().categoryNames());
+        CatalogReadModel.Entry entry = stored.snapshot().entries().get(0);
+        assertEquals(createdAt, entry.createdAt());
+        assertEquals(150000.0, entry.pricePerDay());
+        assertEquals(base, entry.base());
+    }
+
+    @Test
+    void missingOrCorruptFileIsIgnored() throws Exception {
+        assertTrue(store.read().isEmpty());
+
+        store.write(new CatalogReadModel.Snapshot(List.of(), Map.of(), Map.of(), true), LocalDateTime.now());
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[10] ^= 0x1;
+        Files.write(file, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+
+        assertTrue(store.read().isEmpty());
+    }
+}
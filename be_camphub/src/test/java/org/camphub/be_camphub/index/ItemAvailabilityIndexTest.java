@@ -0,0 +1,62 @@
+package org.camphub.be_camphub.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.repository.ItemDayReservationRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ItemAvailabilityIndexTest {
+    LocalDate d = LocalDate.now().plusDays(10);
+    Item tent = Item.builder()
+            .id(UUID.randomUUID())
+            .quantity(1)
+            .pricePerDay(50.0)
+            .status(ItemStatus.AVAILABLE)
+            .build();
+    ItemAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        ItemDayReservationRepository reservationRepository = mock(ItemDayReservationRepository.class);
+        when(itemRepository.findAllByStatus(ItemStatus.AVAILABLE)).thenReturn(List.of(tent));
+        when(reservationRepository.findAllByRentalDateBetween(any(), any())).thenReturn(List.of());
+        index = new ItemAvailabilityIndex(itemRepository, reservationRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void tripStartingOnAnotherBookingsReturnDayIsAvailable() {
+        index.onReserved(tent.getId(), d, d.plusDays(3), 1);
+
+        assertEquals(List.of(tent.getId()), index.findAvailable(d.plusDays(3), d.plusDays(5), 1, null, null, null));
+        assertEquals(List.of(tent.getId()), index.findAvailable(d.minusDays(2), d, 1, null, null, null));
+        assertEquals(List.of(), index.findAvailable(d.plusDays(2), d.plusDays(4), 1, null, null, null));
+    }
+
+    @Test
+    void releaseFreesExactlyTheReservedNights() {
+        index.onReserved(tent.getId(), d, d.plusDays(3), 1);
+        index.onReserved(tent.getId(), d.plusDays(3), d.plusDays(5), 1);
+
+        index.onReleased(tent.getId(), d, d.plusDays(3), 1);
+
+        assertEquals(List.of(tent.getId()), index.findAvailable(d, d.plusDays(3), 1, null, null, null));
+        assertEquals(List.of(), index.findAvailable(d, d.plusDays(4), 1, null, null, null));
+    }
+
+    @Test
+    void rangeWithoutANightIsOutsideTheIndex() {
+        assertNull(index.findAvailable(d, d, 1, null, null, null));
+    }
+}
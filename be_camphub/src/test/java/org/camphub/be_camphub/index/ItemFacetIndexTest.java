@@ -0,0 +1,91 @@
+package org.camphub.be_camphub.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ItemFacetIndexTest {
+    UUID tents = UUID.randomUUID();
+    UUID stoves = UUID.randomUUID();
+    Item cheapTent = item(tents, ItemStatus.AVAILABLE, 40_000.0, 0.0);
+    Item bigTent = item(tents, ItemStatus.RENTED, 250_000.0, 1_500_000.0);
+    Item stove = item(stoves, ItemStatus.AVAILABLE, 60_000.0, null);
+    ItemFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.findAll()).thenReturn(List.of(cheapTent, bigTent, stove));
+        index = new ItemFacetIndex(itemRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void eachFacetIsCountedWithTheOtherFiltersApplied() {
+        Map<String, Map<String, Integer>> facets = index.count(List.of(ItemStatus.AVAILABLE), tents, null, null);
+
+        // facet trạng thái bỏ qua bộ lọc trạng thái, chỉ áp danh mục
+        assertEquals(1, facets.get(ItemFacetIndex.STATUS).get("AVAILABLE"));
+        assertEquals(1, facets.get(ItemFacetIndex.STATUS).get("RENTED"));
+        // facet danh mục chỉ áp bộ lọc trạng thái
+        assertEquals(1, facets.get(ItemFacetIndex.CATEGORY).get(tents.toString()));
+        assertEquals(1, facets.get(ItemFacetIndex.CATEGORY).get(stoves.toString()));
+        assertEquals(1, facets.get(ItemFacetIndex.PRICE_BAND).get("0-50000"));
+        assertEquals(0, facets.get(ItemFacetIndex.PRICE_BAND).get("200000-500000"));
+        assertEquals(1, facets.get(ItemFacetIndex.DEPOSIT_BAND).get("0-200000"));
+
+        Map<String, Map<String, Integer>> unfiltered = index.count(null, null, null, null);
+        assertEquals(1, unfiltered.get(ItemFacetIndex.DEPOSIT_BAND).get("unknown"));
+        assertEquals(1, unfiltered.get(ItemFacetIndex.DEPOSIT_BAND).get("1000000-2000000"));
+        assertEquals(1, unfiltered.get(ItemFacetIndex.PRICE_BAND).get("50000-100000"));
+    }
+
+    @Test
+    void updatesMoveItemsBetweenBitmapsAndReuseDocIds() {
+        stove.setStatus(ItemStatus.BANNED);
+        stove.setPricePerDay(600_000.0);
+        index.onItemChanged(stove);
+
+        Map<String, Map<String, Integer>> facets = index.count(null, null, "500000+", null);
+        assertEquals(1, facets.get(ItemFacetIndex.STATUS).get("BANNED"));
+        assertEquals(0, facets.get(ItemFacetIndex.STATUS).get("AVAILABLE"));
+        assertEquals(
+                2,
+                index.count(null, null, null, null).get(ItemFacetIndex.CATEGORY).get(tents.toString()));
+
+        Item newTent = item(tents, ItemStatus.PENDING_APPROVAL, 40_000.0, 0.0);
+        index.onItemChanged(newTent);
+        assertEquals(
+                2,
+                index.count(null, tents, "0-50000", null)
+                        .get(ItemFacetIndex.DEPOSIT_BAND)
+                        .get("0-200000"));
+    }
+
+    @Test
+    void unknownBandIsRejected() {
+        AppException ex = assertThrows(AppException.class, () -> index.count(null, null, "cheap", null));
+        assertEquals(ErrorCode.INVALID_FACET_FILTER, ex.getErrorCode());
+    }
+
+    private Item item(UUID categoryId, ItemStatus status, Double price, Double deposit) {
+        return Item.builder()
+                .id(UUID.randomUUID())
+                .categoryId(categoryId)
+                .status(status)
+                .pricePerDay(price)
+                .depositAmount(deposit)
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package org.camphub.be_camphub.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.Category;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.repository.CategoryRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ItemSearchIndexTest {
+    static final Set<ItemStatus> AVAILABLE = Set.of(ItemStatus.AVAILABLE);
+
+    UUID tents = UUID.randomUUID();
+    UUID lights = UUID.randomUUID();
+    Item tent;
+    Item lamp;
+    Item stove;
+    ItemRepository itemRepository;
+    ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        tent = item("Lều cắm trại 4 người", "Chống nước, dựng nhanh", tents, 3);
+        lamp = item("Đèn pin siêu sáng", "Dùng được khi cắm trại trong lều", lights, 2);
+        stove = item("Bếp gas mini", "Nấu ăn ngoài trời", null, 1);
+        when(categoryRepository.findAll())
+                .thenReturn(List.of(
+                        Category.builder().id(tents).name("Lều trại").build(),
+                        Category.builder().id(lights).name("Đèn").build()));
+        when(itemRepository.findAll()).thenReturn(List.of(tent, lamp, stove));
+        index = new ItemSearchIndex(itemRepository, categoryRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void queryWithoutDiacriticsMatchesAccentedText() {
+        assertEquals(List.of(lamp.getId()), index.search("den pin", AVAILABLE, null));
+        assertEquals(List.of(stove.getId()), index.search("BEP GAS", AVAILABLE, null));
+    }
+
+    @Test
+    void nameMatchRanksAboveDescriptionMatch() {
+        assertEquals(List.of(tent.getId(), lamp.getId()), index.search("lều", AVAILABLE, null));
+        assertEquals(List.of(tent.getId()), index.search("leu", AVAILABLE, tents));
+    }
+
+    @Test
+    void lastTokenMatchesAsPrefixAndAllTokensAreRequired() {
+        assertEquals(List.of(tent.getId(), lamp.getId()), index.search("cắm tr", AVAILABLE, null));
+        assertTrue(index.search("den gas", AVAILABLE, null).isEmpty());
+    }
+
+    @Test
+    void incrementalUpdatesReplaceContentAndFilterByStatus() {
+        stove.setName("Bếp cồn");
+        index.onItemChanged(stove);
+        assertTrue(index.search("gas", AVAILABLE, null).isEmpty());
+        assertEquals(List.of(stove.getId()), index.search("bep con", AVAILABLE, null));
+
+        index.onStatusChanged(stove.getId(), ItemStatus.RENTED);
+        assertTrue(index.search("bep", AVAILABLE, null).isEmpty());
+        assertEquals(List.of(stove.getId()), index.search("bep", Set.of(ItemStatus.RENTED), null));
+
+        when(itemRepository.findAllById(List.of(lamp.getId()))).thenReturn(List.of(lamp));
+        index.onCategoryChanged(Category.builder().id(lights).name("Chiếu sáng").build());
+        assertEquals(List.of(lamp.getId()), index.search("chieu sang", AVAILABLE, null));
+    }
+
+    private Item item(String name, String description, UUID categoryId, int ageDays) {
+        return Item.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .description(description)
+                .categoryId(categoryId)
+                .status(ItemStatus.AVAILABLE)
+                .createdAt(LocalDateTime.now().minusDays(ageDays))
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package org.camphub.be_camphub.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.Category;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.enums.SuggestionType;
+import org.camphub.be_camphub.repository.BookingRepository;
+import org.camphub.be_camphub.repository.CategoryRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ItemSuggestIndexTest {
+    UUID tents = UUID.randomUUID();
+    Item bigTent;
+    Item smallTent;
+    Item pending;
+    ItemSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        bigTent = item("Lều cắm trại 6 người", ItemStatus.AVAILABLE);
+        smallTent = item("Lều đơn siêu nhẹ", ItemStatus.RENTED);
+        pending = item("Lều chờ duyệt", ItemStatus.PENDING_APPROVAL);
+        when(itemRepository.findAll()).thenReturn(List.of(bigTent, smallTent, pending));
+        when(categoryRepository.findAllByIsDeletedFalse())
+                .thenReturn(
+                        List.of(Category.builder().id(tents).name("Lều trại").build()));
+        when(bookingRepository.countPerItem()).thenReturn(List.<Object[]>of(new Object[] {smallTent.getId(), 5L}));
+        index = new ItemSuggestIndex(itemRepository, categoryRepository, bookingRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void foldedPrefixReturnsApprovedSuggestionsByPopularity() {
+        List<ItemSuggestIndex.Suggestion> suggestions = index.suggest("leu", 10);
+
+        assertEquals(
+                List.of("Lều trại", "Lều đơn siêu nhẹ", "Lều cắm trại 6 người"),
+                suggestions.stream().map(ItemSuggestIndex.Suggestion::text).toList());
+        assertEquals(SuggestionType.CATEGORY, suggestions.get(0).type());
+        assertEquals(7, suggestions.get(0).weight());
+    }
+
+    @Test
+    void prefixMatchesFromTheStartOfAnyWord() {
+        assertEquals(
+                List.of("Lều cắm trại 6 người"),
+                index.suggest("CAM TR", 10).stream()
+                        .map(ItemSuggestIndex.Suggestion::text)
+                        .toList());
+        assertEquals(1, index.suggest("leu", 1).size());
+        assertTrue(index.suggest("xyz", 10).isEmpty());
+    }
+
+    @Test
+    void statusChangesAddAndRemoveSuggestions() {
+        pending.setStatus(ItemStatus.AVAILABLE);
+        index.onItemChanged(pending);
+        assertEquals("Lều chờ duyệt", index.suggest("cho d", 10).get(0).text());
+
+        index.onStatusChanged(smallTent.getId(), ItemStatus.BANNED);
+        assertTrue(index.suggest("sieu", 10).isEmpty());
+        assertEquals(2, index.suggest("leu tr", 10).get(0).weight());
+
+        index.onCategoryChanged(
+                Category.builder().id(tents).name("Lều").isDeleted(true).build());
+        assertTrue(index.suggest("leu tr", 10).isEmpty());
+    }
+
+    private Item item(String name, ItemStatus status) {
+        return Item.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .categoryId(tents)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package org.camphub.be_camphub.job;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import org.camphub.be_camphub.dto.response.job.JobStatsResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class JobExecutorTest {
+    JobExecutor executor;
+    AtomicInteger openTransactions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        // mỗi việc một transaction riêng
+        doAnswer(inv -> {
+                    openTransactions.incrementAndGet();
+                    try {
+                        inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+                    } finally {
+                        openTransactions.decrementAndGet();
+                    }
+                    return null;
+                })
+                .when(transactionTemplate)
+                .executeWithoutResult(any());
+
+        executor = new JobExecutor(transactionTemplate);
+        ReflectionTestUtils.setField(executor, "workers", 4);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 8);
+        ReflectionTestUtils.setField(executor, "chunkSize", 50);
+        ReflectionTestUtils.setField(executor, "maxAttempts", 3);
+        ReflectionTestUtils.setField(executor, "retryBackoffMs", 10L);
+        executor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void batchRunsInParallelRetriesFailuresAndReportsStats() {
+        List<UUID> keys =
+                IntStream.range(0, 200).mapToObj(i -> UUID.randomUUID()).toList();
+        // mỗi key thứ 10 lỗi ở lần đầu, key đầu tiên lỗi mãi
+        Map<UUID, AtomicInteger> calls = new ConcurrentHashMap<>();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+
+        JobExecutor.BatchResult result = executor.runBatch("REFUND", keys, key -> {
+            maxConcurrent.accumulateAndGet(openTransactions.get(), Math::max);
+            sleep(2);
+            int call = calls.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+            int index = keys.indexOf(key);
+            if (index == 0 || (index % 10 == 0 && call == 1)) throw new IllegalStateException("boom " + index);
+        });
+
+        assertEquals(199, result.succeeded());
+        assertEquals(List.of(keys.get(0)), result.failed());
+        assertEquals(3, calls.get(keys.get(0)).get());
+        assertEquals(2, calls.get(keys.get(10)).get());
+        assertEquals(1, calls.get(keys.get(1)).get());
+        assertTrue(maxConcurrent.get() > 1, "work should run on several workers");
+        // chỉ worker chạy việc, luồng gửi không bao giờ tự chạy
+        assertTrue(maxConcurrent.get() <= 4);
+
+        JobStatsResponse stats = executor.getStats().get(0);
+        assertEquals("REFUND", stats.getJob());
+        assertEquals(199, stats.getSucceeded());
+        assertEquals(22, stats.getFailed()); // 20 lỗi lượt đầu + key 0 thêm 2 lượt
+        assertTrue(stats.getThroughputPerSecond() > 0);
+    }
+
+    @Test
+    void fullQueueRejectsInsteadOfRunningOnCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // 4 worker bận + 8 việc xếp hàng = đầy
+        for (int i = 0; i < 12; i++) {
+            executor.submit("BLOCK", () -> await(release));
+        }
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        CompletableFuture<Void> future = executor.submit("TIMER", () -> ranOn.set(Thread.currentThread()));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+        assertNull(ranOn.get());
+        release.countDown();
+        assertEquals(
+                1,
+                executor.getStats().stream()
+                        .filter(s -> s.getJob().equals("TIMER"))
+                        .findFirst()
+                        .orElseThrow()
+                        .getRejected());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.camphub.be_camphub.pricing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.camphub.be_camphub.entity.Booking;
+import org.camphub.be_camphub.exception.AppException;
+import org.junit.jupiter.api.Test;
+
+// Kiểm tra thuộc tính trên dữ liệu ngẫu nhiên có seed cố định để lỗi luôn tái hiện được
+class PricingEngineTest {
+    static final int RUNS = 10_000;
+    Random random = new Random(20260415L);
+
+    @Test
+    void rentalFeeMatchesDecimalArithmetic() {
+        for (int i = 0; i < RUNS; i++) {
+            double price = random.nextInt(10_000_000) / 100.0;
+            int quantity = 1 + random.nextInt(50);
+            int days = random.nextInt(365);
+
+            BigDecimal expected = BigDecimal.valueOf(price)
+                    .multiply(BigDecimal.valueOf(quantity))
+                    .multiply(BigDecimal.valueOf(days))
+                    .setScale(2, RoundingMode.HALF_UP);
+            long fee = PricingEngine.rentalFee(PricingEngine.toMinor(price), quantity, days);
+            assertEquals(0, expected.compareTo(PricingEngine.toDecimal(fee)), () -> price + " x" + quantity);
+        }
+    }
+
+    @Test
+    void extensionFeeAndExtendedRentalInHandComputedMinorUnits() {
+        // 33.33 coin/ngày x 3 đơn vị, nhận 01/03 trả 03/03 = 2 đêm; cọc lẻ 12.35 coin/đơn vị
+        Booking booking = Booking.builder()
+                .pricePerDay(33.33)
+                .depositAmount(12.35)
+                .quantity(3)
+                .startDate(LocalDate.of(2026, 3, 1))
+                .endDate(LocalDate.of(2026, 3, 3))
+                .build();
+        assertEquals(19_998, PricingEngine.rentalFee(booking)); // 3333 x 3 x 2
+        assertEquals(3_705, PricingEngine.deposit(booking)); // 1235 x 3
+        assertEquals(23_703, PricingEngine.totalPaid(booking));
+
+        // gia hạn 2 đêm rồi thêm 1 đêm: mỗi đêm 3333 x 3 = 9999
+        assertEquals(19_998, PricingEngine.extensionFee(booking, 2));
+        booking.setEndDate(LocalDate.of(2026, 3, 5));
+        assertEquals(9_999, PricingEngine.extensionFee(booking, 1));
+        booking.setEndDate(LocalDate.of(2026, 3, 6));
+
+        assertEquals(49_995, PricingEngine.rentalFee(booking)); // 5 đêm = 19998 + 19998 + 9999
+        assertEquals(53_700, PricingEngine.totalPaid(booking));
+    }
+
+    @Test
+    void oneCoinExtensionFeeIsExactlyOneHundredMinor() {
+        Booking booking = Booking.builder()
+                .pricePerDay(1.0)
+                .quantity(1)
+                .startDate(LocalDate.of(2026, 3, 1))
+                .endDate(LocalDate.of(2026, 3, 2))
+                .build();
+
+        long fee = PricingEngine.extensionFee(booking, 1);
+        assertEquals(100, fee);
+        // phí thu và hoàn qua ví (double coin) phải quay về đúng 100 minor
+        assertEquals(1.0, PricingEngine.toCoins(fee));
+        assertEquals(100, PricingEngine.toMinor(PricingEngine.toCoins(fee)));
+        // 0.01 coin/ngày: 1 minor mỗi đêm, không bị làm tròn mất
+        assertEquals(3, PricingEngine.extensionFee(PricingEngine.toMinor(0.01), 1, 3));
+    }
+
+    @Test
+    void penaltiesOnOddDepositsRoundHalfUp() {
+        // cọc 12.35 coin = 1235 minor
+        assertEquals(124, PricingEngine.latePenalty(1_235, 1)); // 10% = 123.5
+        assertEquals(309, PricingEngine.latePenalty(1_235, 2)); // 25% = 308.75
+        assertEquals(618, PricingEngine.latePenalty(1_235, 3)); // 50% = 617.5
+        assertEquals(1_235, PricingEngine.latePenalty(1_235, 4));
+        assertEquals(411, PricingEngine.compensation(1_235, 0.333)); // 33.3% = 411.255
+        // cọc 1 minor: 50% = 0.5 làm tròn lên, 10% = 0.1 làm tròn xuống
+        assertEquals(1, PricingEngine.latePenalty(1, 3));
+        assertEquals(0, PricingEngine.latePenalty(1, 1));
+        // cọc 1 coin
+        assertEquals(10, PricingEngine.latePenalty(100, 1));
+    }
+
+    @Test
+    void compensationAndPenaltySplitConserveDeposit() {
+        for (int i = 0; i < RUNS; i++) {
+            long deposit = random.nextInt(100_000_000);
+            double rate = random.nextDouble() * 1.5 - 0.25;
+
+            long compensation = PricingEngine.compensation(deposit, rate);
+            assertTrue(compensation >= 0 && compensation <= deposit);
+            assertEquals(deposit, compensation + (deposit - compensation));
+
+            long expected = BigDecimal.valueOf(deposit)
+                    .multiply(BigDecimal.valueOf(PricingEngine.toBps(rate)))
+                    .divide(BigDecimal.valueOf(PricingEngine.BPS_SCALE), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+            assertEquals(expected, compensation);
+
+            long penalty = PricingEngine.latePenalty(deposit, random.nextInt(10) - 2);
+            assertTrue(penalty >= 0 && penalty <= deposit);
+        }
+    }
+
+    @Test
+    void latePenaltySchedule() {
+        assertEquals(0, PricingEngine.latePenalty(10_000, 0));
+        assertEquals(1_000, PricingEngine.latePenalty(10_000, 1));
+        assertEquals(2_500, PricingEngine.latePenalty(10_000, 2));
+        assertEquals(5_000, PricingEngine.latePenalty(10_000, 3));
+        assertEquals(10_000, PricingEngine.latePenalty(10_000, 4));
+    }
+
+    @Test
+    void minorUnitsRoundTripThroughCoins() {
+        for (int i = 0; i < RUNS; i++) {
+            long minor = random.nextLong() % 1_000_000_000_000L;
+            assertEquals(minor, PricingEngine.toMinor(PricingEngine.toCoins(minor)));
+            assertEquals(minor, PricingEngine.toMinor(PricingEngine.toDecimal(minor)));
+        }
+    }
+
+    @Test
+    void bookingTotalIsRentalForBookedNightsPlusDeposit() {
+        Booking booking = Booking.builder()
+                .pricePerDay(120.5)
+                .depositAmount(300.0)
+                .quantity(2)
+                .startDate(LocalDate.of(2026, 3, 1))
+                .endDate(LocalDate.of(2026, 3, 4))
+                .build();
+
+        assertEquals(72_300, PricingEngine.rentalFee(booking));
+        assertEquals(60_000, PricingEngine.deposit(booking));
+        assertEquals(132_300, PricingEngine.totalPaid(booking));
+    }
+
+    @Test
+    void rejectsNegativeInputsAndOverflow() {
+        assertThrows(AppException.class, () -> PricingEngine.rentalFee(-1, 1, 1));
+        assertThrows(AppException.class, () -> PricingEngine.deposit(100, -1));
+        assertThrows(ArithmeticException.class, () -> PricingEngine.rentalFee(Long.MAX_VALUE / 2, 3, 1));
+    }
+}
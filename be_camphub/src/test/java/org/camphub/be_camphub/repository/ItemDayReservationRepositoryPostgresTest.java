@@ -0,0 +1,104 @@
+package org.camphub.be_camphub.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class ItemDayReservationRepositoryPostgresTest extends PostgresRepositoryTest {
+    static final int CAPACITY = 5;
+
+    @Autowired
+    ItemDayReservationRepository reservationRepository;
+
+    record Attempt(LocalDate from, LocalDate to, boolean reserved) {}
+
+    @Test
+    void concurrentReservationsNeverExceedCapacity() throws Exception {
+        UUID itemId = insertItem(CAPACITY);
+        LocalDate base = LocalDate.of(2030, 7, 1);
+
+        // các khoảng 4 đêm lệch nhau 0..3 ngày để tranh chấp cả dòng đã có lẫn INSERT ngày mới
+        List<Callable<Attempt>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            LocalDate from = base.plusDays(i % 4);
+            LocalDate to = from.plusDays(4);
+            tasks.add(() -> new Attempt(from, to, reserve(itemId, from, to)));
+        }
+        List<Attempt> attempts = runConcurrently(tasks);
+
+        // mỗi ngày: số đã giữ = tổng các lần giữ thành công phủ ngày đó (không mất cập nhật) và không vượt kho
+        Map<LocalDate, Integer> expected = new HashMap<>();
+        for (Attempt attempt : attempts) {
+            if (!attempt.reserved()) continue;
+            attempt.from().datesUntil(attempt.to()).forEach(d -> expected.merge(d, 1, Integer::sum));
+        }
+        assertFalse(expected.isEmpty());
+        for (LocalDate day = base; day.isBefore(base.plusDays(7)); day = day.plusDays(1)) {
+            int reserved = reservedOn(itemId, day);
+            assertTrue(reserved <= CAPACITY, "oversold " + day + ": " + reserved);
+            assertEquals(expected.getOrDefault(day, 0), reserved, day.toString());
+        }
+        // ngày chung của mọi khoảng phải được bán hết
+        assertEquals(CAPACITY, reservedOn(itemId, base.plusDays(3)));
+    }
+
+    @Test
+    void bookingsMeetingOnTheReturnDayDoNotCollide() {
+        UUID itemId = insertItem(1);
+        LocalDate base = LocalDate.of(2030, 8, 1);
+
+        // đơn A trả đồ ngày base+3, đơn B nhận đồ cùng ngày đó với đơn vị duy nhất
+        assertTrue(reserve(itemId, base, base.plusDays(3)));
+        assertTrue(reserve(itemId, base.plusDays(3), base.plusDays(5)));
+        // chồng một đêm với A thì hết chỗ
+        assertFalse(reserve(itemId, base.plusDays(2), base.plusDays(4)));
+        assertEquals(0, reservedOn(itemId, base.plusDays(5)));
+
+        // trả lịch của A chỉ giải phóng các đêm của A, ngày nhận đồ của B vẫn bị giữ
+        newTransaction()
+                .executeWithoutResult(tx -> reservationRepository.releaseRange(itemId, base, base.plusDays(3), 1));
+        assertEquals(0, reservedOn(itemId, base.plusDays(2)));
+        assertEquals(1, reservedOn(itemId, base.plusDays(3)));
+    }
+
+    // như ItemAvailabilityServiceImpl: thiếu ngày nào thì rollback cả khoảng [from, to)
+    boolean reserve(UUID itemId, LocalDate from, LocalDate to) {
+        long days = from.datesUntil(to).count();
+        return Boolean.TRUE.equals(newTransaction().execute(status -> {
+            if (reservationRepository.reserveRange(itemId, from, to, 1) < days) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        }));
+    }
+
+    int reservedOn(UUID itemId, LocalDate day) {
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT reserved FROM item_day_reservations WHERE item_id = ? AND rental_date = ?",
+                Integer.class,
+                itemId,
+                day);
+        return rows.isEmpty() ? 0 : rows.get(0);
+    }
+
+    UUID insertItem(int quantity) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update(
+                "INSERT INTO items (id, owner_id, name, quantity, status, version) VALUES (?, ?, ?, ?, 'AVAILABLE', 0)",
+                id,
+                UUID.randomUUID(),
+                "Lều 4 người",
+                quantity);
+        return id;
+    }
+}
@@ -0,0 +1,63 @@
+package org.camphub.be_camphub.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class WalletRepositoryPostgresTest extends PostgresRepositoryTest {
+    @Autowired
+    WalletRepository walletRepository;
+
+    @Test
+    void concurrentDebitsAndCreditsOnOneAccountLoseNoUpdate() throws Exception {
+        UUID accountId = insertAccount(1_000.0);
+
+        // 100 lần trừ 7 coin xen kẽ 100 lần cộng 3 coin; số dư không bao giờ thiếu nên mọi lần trừ đều thành công
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            boolean debit = i % 2 == 0;
+            tasks.add(() -> debit
+                    ? walletRepository.debit(accountId, 7.0).isPresent()
+                    : walletRepository.credit(accountId, 3.0).isPresent());
+        }
+        List<Boolean> results = runConcurrently(tasks);
+
+        assertTrue(results.stream().allMatch(Boolean::booleanValue));
+        assertEquals(
+                1_000.0 - 100 * 7.0 + 100 * 3.0,
+                walletRepository.findBalance(accountId).orElseThrow());
+    }
+
+    @Test
+    void concurrentDebitsNeverOverdraw() throws Exception {
+        UUID accountId = insertAccount(50.0);
+
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(() -> walletRepository.debit(accountId, 1.0).isPresent());
+        }
+        List<Boolean> results = runConcurrently(tasks);
+
+        // đúng 50 lần trừ thành công, các lần còn lại bị từ chối thay vì đẩy số dư xuống âm
+        assertEquals(50, results.stream().filter(Boolean::booleanValue).count());
+        assertEquals(0.0, walletRepository.findBalance(accountId).orElseThrow());
+    }
+
+    UUID insertAccount(double coinBalance) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update(
+                "INSERT INTO accounts (id, username, password, firstname, lastname, email, coin_balance)"
+                        + " VALUES (?, ?, 'x', 'Test', 'Wallet', ?, ?)",
+                id,
+                "wallet-" + id,
+                id + "@camphub.test",
+                coinBalance);
+        return id;
+    }
+}
@@ -0,0 +1,114 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.camphub.be_camphub.Utils.SecurityUtils;
+import org.camphub.be_camphub.dto.request.account.AccountPatchRequest;
+import org.camphub.be_camphub.entity.Account;
+import org.camphub.be_camphub.enums.TransactionType;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.mapper.AccountMapper;
+import org.camphub.be_camphub.repository.AccountRepository;
+import org.camphub.be_camphub.service.LedgerService;
+import org.camphub.be_camphub.service.WalletService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class AccountServiceImplTest {
+    AccountRepository accountRepository;
+    LedgerService ledgerService;
+    WalletService walletService;
+    AccountServiceImpl service;
+    Account account;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        ledgerService = mock(LedgerService.class);
+        walletService = mock(WalletService.class);
+        service = new AccountServiceImpl(
+                accountRepository, mock(AccountMapper.class), ledgerService, walletService, mock(SecurityUtils.class));
+        account = Account.builder().id(UUID.randomUUID()).coinBalance(100.0).build();
+        when(accountRepository.findById(account.getId())).thenReturn(Optional.of(account));
+        when(accountRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void adminBalanceChangeIsRecordedAsAdjustment() {
+        authenticate("ROLE_ADMIN");
+        when(walletService.credit(account.getId(), 25.5)).thenReturn(125.5);
+
+        service.patchAccount(
+                account.getId(),
+                AccountPatchRequest.builder().coinBalance(125.5).build());
+
+        verify(walletService).credit(account.getId(), 25.5);
+        verify(ledgerService)
+                .record(
+                        LedgerService.EXTERNAL_ACCOUNT_ID,
+                        account.getId(),
+                        25.5,
+                        TransactionType.ADMIN_ADJUSTMENT,
+                        List.of());
+        assertEquals(125.5, account.getCoinBalance());
+    }
+
+    @Test
+    void adminBalanceDecreaseDebitsTheDifference() {
+        authenticate("ROLE_ADMIN");
+        when(walletService.debit(account.getId(), 40.0)).thenReturn(60.0);
+
+        service.patchAccount(
+                account.getId(), AccountPatchRequest.builder().coinBalance(60.0).build());
+
+        verify(walletService).debit(account.getId(), 40.0);
+        verify(ledgerService)
+                .record(
+                        account.getId(),
+                        LedgerService.EXTERNAL_ACCOUNT_ID,
+                        40.0,
+                        TransactionType.ADMIN_ADJUSTMENT,
+                        List.of());
+    }
+
+    @Test
+    void unchangedBalanceIsNotAnAdjustment() {
+        service.patchAccount(
+                account.getId(),
+                AccountPatchRequest.builder().coinBalance(100.0).build());
+
+        verifyNoInteractions(walletService, ledgerService);
+    }
+
+    @Test
+    void nonAdminCannotChangeBalance() {
+        authenticate("ROLE_USER");
+
+        AppException ex = assertThrows(
+                AppException.class,
+                () -> service.patchAccount(
+                        account.getId(),
+                        AccountPatchRequest.builder().coinBalance(1_000.0).build()));
+        assertEquals(ErrorCode.UNAUTHORIZED, ex.getErrorCode());
+        verifyNoInteractions(walletService, ledgerService);
+    }
+
+    private static void authenticate(String authority) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("tester", null, authority));
+    }
+}
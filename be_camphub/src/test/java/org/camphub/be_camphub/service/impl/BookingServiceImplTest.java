@@ -0,0 +1,293 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import org.camphub.be_camphub.Utils.MediaUtils;
+import org.camphub.be_camphub.booking.BookingStateMachine;
+import org.camphub.be_camphub.dto.request.booking.OwnerConfirmationRequest;
+import org.camphub.be_camphub.dto.response.booking.OwnerDecisionResult;
+import org.camphub.be_camphub.entity.Account;
+import org.camphub.be_camphub.entity.Booking;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.BookingStatus;
+import org.camphub.be_camphub.enums.TimerType;
+import org.camphub.be_camphub.job.JobExecutor;
+import org.camphub.be_camphub.mapper.BookingMapperImpl;
+import org.camphub.be_camphub.repository.*;
+import org.camphub.be_camphub.repository.projection.BookingTransitionView;
+import org.camphub.be_camphub.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class BookingServiceImplTest {
+    BookingRepository bookingRepository;
+    ItemRepository itemRepository;
+    NotificationService notificationService;
+    AccountRepository accountRepository;
+    ItemLogsRepository itemLogRepository;
+    SystemWalletService systemWalletService;
+    WalletService walletService;
+    LedgerService ledgerService;
+    BookingEventRepository bookingEventRepository;
+    TimerService timerService;
+    BookingServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        itemRepository = mock(ItemRepository.class);
+        notificationService = mock(NotificationService.class);
+        accountRepository = mock(AccountRepository.class);
+        itemLogRepository = mock(ItemLogsRepository.class);
+        systemWalletService = mock(SystemWalletService.class);
+        walletService = mock(WalletService.class);
+        ledgerService = mock(LedgerService.class);
+        bookingEventRepository = mock(BookingEventRepository.class);
+        timerService = mock(TimerService.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(inv -> {
+                    inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+                    return null;
+                })
+                .when(transactionTemplate)
+                .executeWithoutResult(any());
+        JobExecutor jobExecutor = new JobExecutor(transactionTemplate);
+        ReflectionTestUtils.setField(jobExecutor, "workers", 2);
+        ReflectionTestUtils.setField(jobExecutor, "queueCapacity", 10);
+        ReflectionTestUtils.setField(jobExecutor, "chunkSize", 10);
+        ReflectionTestUtils.setField(jobExecutor, "maxAttempts", 1);
+        jobExecutor.init();
+
+        service = new BookingServiceImpl(
+                bookingRepository,
+                accountRepository,
+                itemRepository,
+                mock(CartItemRepository.class),
+                itemLogRepository,
+                mock(ReviewRepository.class),
+                new BookingMapperImpl(),
+                mock(MediaUtils.class),
+                notificationService,
+                mock(ItemAvailabilityService.class),
+                systemWalletService,
+                ledgerService,
+                walletService,
+                transactionTemplate,
+                timerService,
+                jobExecutor,
+                mock(CheckoutQuoteService.class),
+                new BookingStateMachine(bookingRepository, bookingEventRepository),
+                bookingEventRepository);
+        ReflectionTestUtils.setField(service, "lateReturnChunkSize", 2);
+        ReflectionTestUtils.setField(service, "maxOwnerBulkSize", 50);
+        when(bookingRepository.transitionDue(anyString(), anyString(), any(), anyInt()))
+                .thenReturn(List.of());
+    }
+
+    @Test
+    void lateReturnJobTransitionsInChunksWithOneItemLookupPerChunk() {
+        UUID itemId = UUID.randomUUID();
+        when(bookingRepository.transitionDue(eq("IN_USE"), eq("DUE_FOR_RETURN"), eq(LocalDate.now()), eq(2)))
+                .thenReturn(rows(2, itemId), rows(1, itemId));
+        Item item = new Item();
+        item.setId(itemId);
+        item.setName("Lều 4 người");
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+
+        service.checkAndUpdateLateReturns();
+
+        verify(bookingRepository, times(2)).transitionDue(eq("IN_USE"), eq("DUE_FOR_RETURN"), any(), eq(2));
+        verify(itemRepository, times(2)).findAllById(any());
+        verify(notificationService, times(3))
+                .enqueue(argThat(n -> n.getContent().contains("Lều 4 người")));
+        // không còn quét toàn bộ booking đang thuê
+        verify(bookingRepository, never()).findByStatus(any());
+        verify(bookingRepository, never()).findAllByStatus(any());
+        verify(itemRepository, never()).findById(any());
+    }
+
+    @Test
+    void overdueBookingAlreadyClaimedIsSkipped() {
+        var booking = Booking.builder()
+                .id(UUID.randomUUID())
+                .status(BookingStatus.LATE_RETURN)
+                .endDate(LocalDate.now().minusDays(5))
+                .build();
+        when(bookingRepository.findDueAfter(eq(BookingStatus.LATE_RETURN), any(), any(), any(), any()))
+                .thenReturn(List.of(booking));
+        when(bookingRepository.compareAndSetStatus(booking.getId(), BookingStatus.LATE_RETURN, BookingStatus.OVERDUE))
+                .thenReturn(0);
+
+        service.checkAndUpdateLateReturns();
+
+        // lượt khác đã chuyển sang OVERDUE: không chi trả lần hai, không đặt lại timer
+        verify(systemWalletService, never()).debit(any(), anyLong());
+        verify(timerService, never()).schedule(any(), any(), any());
+        assertEquals(BookingStatus.LATE_RETURN, booking.getStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void overdueTimerFiringBeforeLateReturnIsRearmedWithBackoff() {
+        var booking = Booking.builder()
+                .id(UUID.randomUUID())
+                .status(BookingStatus.DUE_FOR_RETURN)
+                .endDate(LocalDate.now().minusDays(TimerService.OVERDUE_AFTER_DAYS + 1))
+                .build();
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        service.registerTimerHandlers();
+        ArgumentCaptor<Consumer<UUID>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(timerService).registerHandler(eq(TimerType.BOOKING_OVERDUE), handler.capture());
+
+        LocalDateTime before = LocalDateTime.now();
+        handler.getValue().accept(booking.getId());
+
+        // trễ hạn OVERDUE đã một ngày -> chờ tối đa 1 giờ rồi thử lại, chưa xử lý mất đồ
+        ArgumentCaptor<LocalDateTime> dueAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(timerService).schedule(eq(TimerType.BOOKING_OVERDUE), eq(booking.getId()), dueAt.capture());
+        assertFalse(dueAt.getValue().isBefore(before.plusHours(1)));
+        assertTrue(dueAt.getValue().isBefore(LocalDateTime.now().plusHours(1).plusSeconds(1)));
+        verify(systemWalletService, never()).debit(any(), anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void overdueTimerForReturnedBookingIsDropped() {
+        var booking = Booking.builder()
+                .id(UUID.randomUUID())
+                .status(BookingStatus.COMPLETED)
+                .endDate(LocalDate.now().minusDays(10))
+                .build();
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        service.registerTimerHandlers();
+        ArgumentCaptor<Consumer<UUID>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(timerService).registerHandler(eq(TimerType.BOOKING_OVERDUE), handler.capture());
+
+        handler.getValue().accept(booking.getId());
+
+        verify(timerService, never()).schedule(any(), any(), any());
+    }
+
+    @Test
+    void bulkOwnerResponseBatchesLoadsAndRefundsPerLessee() {
+        UUID lessorId = UUID.randomUUID();
+        UUID lesseeId = UUID.randomUUID();
+        Item item = Item.builder().id(UUID.randomUUID()).name("Bếp gas").build();
+        Booking accept = booking(lessorId, lesseeId, item, BookingStatus.WAITING_DELIVERY);
+        Booking reject1 = booking(lessorId, lesseeId, item, BookingStatus.PAID_REJECTED);
+        Booking reject2 = booking(lessorId, lesseeId, item, BookingStatus.PAID_REJECTED);
+        Booking stale = booking(lessorId, lesseeId, item, BookingStatus.IN_USE);
+        Booking foreign = booking(UUID.randomUUID(), lesseeId, item, BookingStatus.PENDING_CONFIRM);
+
+        when(bookingRepository.transitionOwned(any(), eq(lessorId), eq("PENDING_CONFIRM"), eq("WAITING_DELIVERY")))
+                .thenReturn(List.of(accept.getId()));
+        when(bookingRepository.transitionOwned(any(), eq(lessorId), eq("PENDING_CONFIRM"), eq("PAID_REJECTED")))
+                .thenReturn(List.of(reject1.getId(), reject2.getId()));
+        when(bookingRepository.findAllById(any())).thenReturn(List.of(accept, reject1, reject2, stale, foreign));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+        when(accountRepository.findAllById(any())).thenReturn(List.of(account(lessorId, 100), account(lesseeId, 100)));
+
+        List<OwnerDecisionResult> results = service.ownerRespondBookings(
+                lessorId,
+                List.of(
+                        decision(accept, true),
+                        decision(reject1, false),
+                        decision(stale, true),
+                        decision(reject2, false),
+                        decision(foreign, false),
+                        decision(accept, false)));
+
+        assertEquals(
+                List.of(true, true, false, true, false, false),
+                results.stream().map(OwnerDecisionResult::getSuccess).toList());
+        assertEquals("INVALID_BOOKING_STATUS", results.get(2).getError());
+        assertEquals("UNAUTHORIZED", results.get(4).getError());
+        assertEquals("WAITING_DELIVERY", results.get(0).getBooking().getStatus());
+
+        // 2 đêm * 10 + cọc 5: rút ví hệ thống theo từng booking, hoàn một lần cho khách thuê
+        verify(systemWalletService).debit(reject1.getId(), 2_500L);
+        verify(systemWalletService).debit(reject2.getId(), 2_500L);
+        verify(walletService).credit(lesseeId, 50.0);
+        verify(ledgerService)
+                .record(any(), eq(lesseeId), eq(50.0), any(), eq(List.of(reject1.getId(), reject2.getId())));
+        verify(itemRepository, times(1)).findAllById(any());
+        verify(itemLogRepository, times(1)).saveAll(argThat(logs -> ((List<?>) logs).size() == 3));
+        verify(notificationService, times(1)).enqueueAll(argThat(list -> list.size() == 3));
+        verify(accountRepository).save(argThat(a -> a.getId().equals(lessorId) && a.getTrustScore() == 80));
+        // một sự kiện cho mỗi booking thực sự được chuyển
+        verify(bookingEventRepository, times(2)).saveAll(any());
+        verify(bookingEventRepository).saveAll(argThat(events -> ((List<?>) events).size() == 2));
+    }
+
+    private static Booking booking(UUID lessorId, UUID lesseeId, Item item, BookingStatus status) {
+        return Booking.builder()
+                .id(UUID.randomUUID())
+                .lessorId(lessorId)
+                .lesseeId(lesseeId)
+                .itemId(item.getId())
+                .quantity(1)
+                .pricePerDay(10.0)
+                .depositAmount(5.0)
+                .startDate(LocalDate.of(2026, 6, 1))
+                .endDate(LocalDate.of(2026, 6, 3))
+                .status(status)
+                .build();
+    }
+
+    private static OwnerConfirmationRequest decision(Booking booking, boolean accepted) {
+        return OwnerConfirmationRequest.builder()
+                .bookingId(booking.getId())
+                .isAccepted(accepted)
+                .build();
+    }
+
+    private static Account account(UUID id, int trustScore) {
+        return Account.builder()
+                .id(id)
+                .firstname("A")
+                .lastname("B")
+                .trustScore(trustScore)
+                .build();
+    }
+
+    private List<BookingTransitionView> rows(int count, UUID itemId) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> (BookingTransitionView) new BookingTransitionView() {
+                    final UUID id = UUID.randomUUID();
+
+                    public UUID getId() {
+                        return id;
+                    }
+
+                    public UUID getItemId() {
+                        return itemId;
+                    }
+
+                    public UUID getLesseeId() {
+                        return UUID.randomUUID();
+                    }
+
+                    public UUID getLessorId() {
+                        return UUID.randomUUID();
+                    }
+                })
+                .toList();
+    }
+}
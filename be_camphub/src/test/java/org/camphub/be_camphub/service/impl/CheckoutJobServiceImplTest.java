@@ -0,0 +1,106 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.camphub.be_camphub.dto.request.booking.BookingCreationRequest;
+import org.camphub.be_camphub.dto.response.booking.BookingResponse;
+import org.camphub.be_camphub.dto.response.booking.CheckoutJobResponse;
+import org.camphub.be_camphub.enums.CheckoutJobStatus;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.pricing.CheckoutQuote;
+import org.camphub.be_camphub.service.BookingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CheckoutJobServiceImplTest {
+    UUID lesseeId = UUID.randomUUID();
+    BookingService bookingService;
+    SimpMessagingTemplate messagingTemplate;
+    CheckoutJobServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        bookingService = mock(BookingService.class);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        service = new CheckoutJobServiceImpl(bookingService, messagingTemplate);
+        ReflectionTestUtils.setField(service, "workers", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 1);
+        ReflectionTestUtils.setField(service, "retentionSeconds", 900L);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void jobPushesProgressThenResultToTheLessee() {
+        CheckoutQuote quote = CheckoutQuote.builder()
+                .lines(List.of(CheckoutQuote.Line.builder().build()))
+                .totalRentalMinor(4_000)
+                .totalDepositMinor(1_050)
+                .build();
+        BookingResponse booking = new BookingResponse();
+        when(bookingService.rentSelectedCartItems(eq(lesseeId), any(), any())).thenAnswer(inv -> {
+            inv.<Consumer<CheckoutQuote>>getArgument(2).accept(quote);
+            return List.of(booking);
+        });
+
+        CheckoutJobResponse accepted = service.submit(lesseeId, new BookingCreationRequest());
+        assertEquals(CheckoutJobStatus.QUEUED, accepted.getStatus());
+
+        ArgumentCaptor<CheckoutJobResponse> pushed = ArgumentCaptor.forClass(CheckoutJobResponse.class);
+        verify(messagingTemplate, timeout(2000).times(3))
+                .convertAndSendToUser(eq(lesseeId.toString()), eq("/queue/checkout-jobs"), pushed.capture());
+        List<CheckoutJobResponse> states = pushed.getAllValues();
+        assertEquals(CheckoutJobStatus.PROCESSING, states.get(0).getStatus());
+        assertEquals(50.5, states.get(1).getTotalAmount());
+        assertEquals(CheckoutJobStatus.SUCCEEDED, states.get(2).getStatus());
+        assertEquals(List.of(booking), states.get(2).getBookings());
+
+        assertEquals(
+                CheckoutJobStatus.SUCCEEDED,
+                service.getJob(lesseeId, accepted.getJobId()).getStatus());
+        AppException ex =
+                assertThrows(AppException.class, () -> service.getJob(UUID.randomUUID(), accepted.getJobId()));
+        assertEquals(ErrorCode.CHECKOUT_JOB_NOT_FOUND, ex.getErrorCode());
+    }
+
+    @Test
+    void failedCheckoutReportsErrorCodeAndFullQueueIsRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookingService.rentSelectedCartItems(eq(lesseeId), any(), any())).thenAnswer(inv -> {
+            release.await(2, TimeUnit.SECONDS);
+            throw new AppException(ErrorCode.INSUFFICIENT_BALANCE);
+        });
+
+        UUID running = service.submit(lesseeId, new BookingCreationRequest()).getJobId();
+        verify(messagingTemplate, timeout(2000)).convertAndSendToUser(any(), any(), any(Object.class));
+        service.submit(lesseeId, new BookingCreationRequest()); // chiếm chỗ duy nhất trong hàng đợi
+
+        AppException busy =
+                assertThrows(AppException.class, () -> service.submit(lesseeId, new BookingCreationRequest()));
+        assertEquals(ErrorCode.CHECKOUT_BUSY, busy.getErrorCode());
+
+        release.countDown();
+        verify(messagingTemplate, timeout(2000).times(4)).convertAndSendToUser(any(), any(), any(Object.class));
+        CheckoutJobResponse failed = service.getJob(lesseeId, running);
+        assertEquals(CheckoutJobStatus.FAILED, failed.getStatus());
+        assertEquals("INSUFFICIENT_BALANCE", failed.getError());
+    }
+}
@@ -0,0 +1,169 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.camphub.be_camphub.dto.request.booking.BookingCreationRequest;
+import org.camphub.be_camphub.dto.request.booking.BookingItemRequest;
+import org.camphub.be_camphub.dto.response.booking.CheckoutQuoteResponse;
+import org.camphub.be_camphub.entity.Account;
+import org.camphub.be_camphub.entity.CartItem;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.pricing.CheckoutQuote;
+import org.camphub.be_camphub.repository.AccountRepository;
+import org.camphub.be_camphub.repository.CartItemRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class CheckoutQuoteServiceImplTest {
+    UUID lesseeId = UUID.randomUUID();
+    UUID lessorId = UUID.randomUUID();
+    CartItemRepository cartItemRepository;
+    ItemRepository itemRepository;
+    AccountRepository accountRepository;
+    Item item;
+    CartItem cartItem;
+
+    @BeforeEach
+    void setUp() {
+        cartItemRepository = mock(CartItemRepository.class);
+        itemRepository = mock(ItemRepository.class);
+        accountRepository = mock(AccountRepository.class);
+
+        item = Item.builder()
+                .id(UUID.randomUUID())
+                .ownerId(lessorId)
+                .name("Lều 4 người")
+                .pricePerDay(50.0)
+                .depositAmount(200.0)
+                .status(ItemStatus.AVAILABLE)
+                .build();
+        cartItem = CartItem.builder()
+                .id(UUID.randomUUID())
+                .itemId(item.getId())
+                .quantity(2)
+                .price(BigDecimal.valueOf(50))
+                .build();
+        when(cartItemRepository.findAllByCartIdInAndCartOwner(any(), eq(lesseeId)))
+                .thenReturn(List.of(cartItem));
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+        when(accountRepository.findAllById(any()))
+                .thenReturn(List.of(account(lesseeId, "An"), account(lessorId, "Bình")));
+    }
+
+    @Test
+    void quoteUsesServerPricesAndIsConsumedWithoutReloading() {
+        CheckoutQuoteServiceImpl service = newService();
+        BookingCreationRequest request = request(1.0, 0.0);
+
+        CheckoutQuoteResponse response = service.createQuote(lesseeId, request);
+        // 50 * 2 * 3 ngày + 200 * 2, bỏ qua giá client gửi lên
+        assertEquals(300.0, response.getTotalRental());
+        assertEquals(400.0, response.getTotalDeposit());
+        assertEquals(700.0, response.getTotalAmount());
+
+        request.setQuoteId(response.getQuoteId());
+        CheckoutQuote quote = service.resolve(lesseeId, request);
+
+        assertEquals(70_000, quote.getTotalMinor());
+        assertEquals("Nguyễn Bình", quote.getLines().get(0).getLessorName());
+        // lần hai chỉ để xem cart item còn của người thuê, không tính lại giá
+        verify(cartItemRepository, times(2)).findAllByCartIdInAndCartOwner(eq(List.of(cartItem.getId())), eq(lesseeId));
+        verify(itemRepository, times(1)).findAllById(any());
+        verify(itemRepository).existsByIdInAndStatusIn(eq(List.of(item.getId())), any());
+    }
+
+    @Test
+    void quoteCannotBeUsedByAnotherLesseeOrTampered() {
+        CheckoutQuoteServiceImpl service = newService();
+        String quoteId = service.createQuote(lesseeId, request(null, null)).getQuoteId();
+
+        BookingCreationRequest stolen = request(null, null);
+        stolen.setQuoteId(quoteId);
+        AppException ex = assertThrows(AppException.class, () -> service.resolve(UUID.randomUUID(), stolen));
+        assertEquals(ErrorCode.INVALID_QUOTE, ex.getErrorCode());
+
+        String[] parts = quoteId.split("\\.");
+        BookingCreationRequest tampered = request(null, null);
+        tampered.setQuoteId(parts[0] + "." + parts[1] + ".1." + parts[3]);
+        ex = assertThrows(AppException.class, () -> service.resolve(lesseeId, tampered));
+        assertEquals(ErrorCode.INVALID_QUOTE, ex.getErrorCode());
+    }
+
+    @Test
+    void cachedQuoteIsRejectedWhenCartItemWasRemoved() {
+        CheckoutQuoteServiceImpl service = newService();
+        BookingCreationRequest request = request(null, null);
+        request.setQuoteId(service.createQuote(lesseeId, request).getQuoteId());
+
+        // cart item bị xóa khỏi giỏ sau khi báo giá
+        when(cartItemRepository.findAllByCartIdInAndCartOwner(any(), eq(lesseeId)))
+                .thenReturn(List.of());
+        when(cartItemRepository.findAllByIdIn(any())).thenReturn(List.of());
+
+        AppException ex = assertThrows(AppException.class, () -> service.resolve(lesseeId, request));
+        assertEquals(ErrorCode.CART_ITEM_NOT_FOUND, ex.getErrorCode());
+    }
+
+    @Test
+    void otherNodeRepricesAndRejectsQuoteWhenPriceChanged() {
+        String quoteId = newService().createQuote(lesseeId, request(null, null)).getQuoteId();
+        CheckoutQuoteServiceImpl otherNode = newService();
+        BookingCreationRequest request = request(null, null);
+        request.setQuoteId(quoteId);
+
+        assertEquals(70_000, otherNode.resolve(lesseeId, request).getTotalMinor());
+
+        item.setPricePerDay(60.0);
+        AppException ex = assertThrows(AppException.class, () -> otherNode.resolve(lesseeId, request));
+        assertEquals(ErrorCode.QUOTE_EXPIRED, ex.getErrorCode());
+    }
+
+    @Test
+    void expiredQuoteIsRejected() {
+        CheckoutQuoteServiceImpl service = newService();
+        ReflectionTestUtils.setField(service, "ttlSeconds", 0L);
+        BookingCreationRequest request = request(null, null);
+        request.setQuoteId(service.createQuote(lesseeId, request).getQuoteId());
+
+        AppException ex = assertThrows(AppException.class, () -> service.resolve(lesseeId, request));
+        assertEquals(ErrorCode.QUOTE_EXPIRED, ex.getErrorCode());
+    }
+
+    private CheckoutQuoteServiceImpl newService() {
+        CheckoutQuoteServiceImpl service =
+                new CheckoutQuoteServiceImpl(cartItemRepository, itemRepository, accountRepository);
+        ReflectionTestUtils.setField(service, "signerKey", "test-signer-key-0123456789abcdef");
+        ReflectionTestUtils.setField(service, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(service, "cacheSize", 100);
+        service.init();
+        return service;
+    }
+
+    private BookingCreationRequest request(Double clientPrice, Double clientDeposit) {
+        return BookingCreationRequest.builder()
+                .items(List.of(BookingItemRequest.builder()
+                        .cartItemId(cartItem.getId())
+                        .startDate(LocalDate.of(2026, 5, 1))
+                        .endDate(LocalDate.of(2026, 5, 4))
+                        .pricePerDay(clientPrice)
+                        .depositAmount(clientDeposit)
+                        .build()))
+                .build();
+    }
+
+    private static Account account(UUID id, String firstname) {
+        return Account.builder().id(id).firstname(firstname).lastname("Nguyễn").build();
+    }
+}
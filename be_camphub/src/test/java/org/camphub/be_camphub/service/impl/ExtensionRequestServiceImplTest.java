@@ -0,0 +1,134 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.camphub.be_camphub.dto.request.extension_req.ExtensionResponseRequest;
+import org.camphub.be_camphub.entity.ExtensionRequest;
+import org.camphub.be_camphub.enums.ExtensionStatus;
+import org.camphub.be_camphub.enums.TransactionType;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.mapper.ExtensionRequestMapper;
+import org.camphub.be_camphub.repository.*;
+import org.camphub.be_camphub.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExtensionRequestServiceImplTest {
+    ExtensionRequestRepository extensionRequestRepository;
+    BookingRepository bookingRepository;
+    ItemAvailabilityService itemAvailabilityService;
+    SystemWalletService systemWalletService;
+    LedgerService ledgerService;
+    WalletService walletService;
+    TimerService timerService;
+    ExtensionRequestServiceImpl service;
+
+    UUID lessorId = UUID.randomUUID();
+    UUID lesseeId = UUID.randomUUID();
+    ExtensionRequest ext;
+
+    @BeforeEach
+    void setUp() {
+        extensionRequestRepository = mock(ExtensionRequestRepository.class);
+        bookingRepository = mock(BookingRepository.class);
+        itemAvailabilityService = mock(ItemAvailabilityService.class);
+        systemWalletService = mock(SystemWalletService.class);
+        ledgerService = mock(LedgerService.class);
+        walletService = mock(WalletService.class);
+        timerService = mock(TimerService.class);
+        service = new ExtensionRequestServiceImpl(
+                extensionRequestRepository,
+                bookingRepository,
+                mock(AccountRepository.class),
+                mock(ItemRepository.class),
+                mock(ExtensionRequestMapper.class),
+                mock(NotificationService.class),
+                itemAvailabilityService,
+                systemWalletService,
+                ledgerService,
+                walletService,
+                timerService);
+
+        ext = ExtensionRequest.builder()
+                .id(UUID.randomUUID())
+                .bookingId(UUID.randomUUID())
+                .lesseeId(lesseeId)
+                .lessorId(lessorId)
+                .oldEndDate(LocalDate.of(2025, 7, 3))
+                .requestedNewEndDate(LocalDate.of(2025, 7, 5))
+                .additionalFee(80.0)
+                .status(ExtensionStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build();
+        when(extensionRequestRepository.findById(ext.getId())).thenReturn(Optional.of(ext));
+    }
+
+    @Test
+    void expiryThatLosesTheClaimDoesNotRefund() {
+        // chủ đồ duyệt đúng lúc timer hết hạn chạy: dòng đã rời PENDING
+        when(extensionRequestRepository.compareAndSetStatus(
+                        ext.getId(), ExtensionStatus.PENDING, ExtensionStatus.EXPIRED))
+                .thenReturn(0);
+
+        service.expirePendingRequest(ext.getId());
+
+        verify(systemWalletService, never()).debit(any(), anyLong());
+        verify(walletService, never()).credit(any(), anyDouble());
+        verify(ledgerService, never()).record(any(), any(), anyDouble(), any(), any(UUID.class));
+    }
+
+    @Test
+    void expiryThatWinsTheClaimRefundsOnce() {
+        when(extensionRequestRepository.compareAndSetStatus(
+                        ext.getId(), ExtensionStatus.PENDING, ExtensionStatus.EXPIRED))
+                .thenReturn(1);
+
+        service.expirePendingRequest(ext.getId());
+
+        verify(systemWalletService).debit(ext.getBookingId(), 8_000L);
+        verify(walletService).credit(lesseeId, 80.0);
+        verify(ledgerService)
+                .record(any(), eq(lesseeId), eq(80.0), eq(TransactionType.REFUND_FULL), eq(ext.getBookingId()));
+    }
+
+    @Test
+    void approveThatLosesTheClaimNeitherExtendsNorRefunds() {
+        // timer hết hạn đã hoàn tiền trước: duyệt không được giữ thêm ngày cho khoản tiền đã trả lại
+        when(extensionRequestRepository.compareAndSetStatus(
+                        ext.getId(), ExtensionStatus.PENDING, ExtensionStatus.APPROVED))
+                .thenReturn(0);
+
+        AppException ex = assertThrows(
+                AppException.class,
+                () -> service.approveExtensionRequest(
+                        lessorId,
+                        ExtensionResponseRequest.builder()
+                                .requestId(ext.getId())
+                                .build()));
+
+        assertEquals(ErrorCode.INVALID_EXTENSION_STATUS, ex.getErrorCode());
+        verify(itemAvailabilityService, never()).extend(any(), any());
+        verify(bookingRepository, never()).save(any());
+        verify(extensionRequestRepository, never()).save(any());
+    }
+
+    @Test
+    void cancelThatLosesTheClaimDoesNotRefundTwice() {
+        when(extensionRequestRepository.compareAndSetStatus(
+                        ext.getId(), ExtensionStatus.PENDING, ExtensionStatus.CANCELLED))
+                .thenReturn(0);
+
+        assertThrows(AppException.class, () -> service.cancelExtensionRequest(lesseeId, ext.getId()));
+
+        verify(systemWalletService, never()).debit(any(), anyLong());
+        verify(walletService, never()).credit(any(), anyDouble());
+    }
+}
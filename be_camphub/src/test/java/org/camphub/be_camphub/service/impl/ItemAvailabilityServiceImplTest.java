@@ -0,0 +1,157 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.camphub.be_camphub.dto.response.item.ItemAvailabilityResponse;
+import org.camphub.be_camphub.entity.Booking;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.entity.ItemDayReservation;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.index.CatalogReadModel;
+import org.camphub.be_camphub.index.ItemAvailabilityIndex;
+import org.camphub.be_camphub.index.ItemFacetIndex;
+import org.camphub.be_camphub.index.ItemSearchIndex;
+import org.camphub.be_camphub.index.ItemSuggestIndex;
+import org.camphub.be_camphub.repository.BookingRepository;
+import org.camphub.be_camphub.repository.ItemDayReservationRepository;
+import org.camphub.be_camphub.repository.ItemRepository;
+import org.camphub.be_camphub.service.LeaseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ItemAvailabilityServiceImplTest {
+    static final LocalDate D1 = LocalDate.of(2026, 7, 1);
+
+    ItemDayReservationRepository reservationRepository;
+    ItemRepository itemRepository;
+    BookingRepository bookingRepository;
+    ItemAvailabilityServiceImpl service;
+    Item item;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository = mock(ItemDayReservationRepository.class);
+        itemRepository = mock(ItemRepository.class);
+        bookingRepository = mock(BookingRepository.class);
+        service = new ItemAvailabilityServiceImpl(
+                reservationRepository,
+                itemRepository,
+                bookingRepository,
+                mock(ItemAvailabilityIndex.class),
+                mock(ItemSearchIndex.class),
+                mock(ItemSuggestIndex.class),
+                mock(CatalogReadModel.class),
+                mock(ItemFacetIndex.class),
+                mock(LeaseService.class),
+                mock(TransactionTemplate.class));
+        item = Item.builder().id(UUID.randomUUID()).quantity(3).build();
+        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+    }
+
+    @Test
+    void calendarSubtractsReservedUnitsPerDay() {
+        when(reservationRepository.findAllByItemIdAndRentalDateBetweenOrderByRentalDate(
+                        item.getId(), D1, D1.plusDays(2)))
+                .thenReturn(List.of(ItemDayReservation.builder()
+                        .itemId(item.getId())
+                        .rentalDate(D1.plusDays(1))
+                        .reserved(2)
+                        .build()));
+
+        // [D1, D1+3): ngày D1+3 không nằm trong lịch
+        ItemAvailabilityResponse res = service.getAvailability(item.getId(), D1, D1.plusDays(3));
+
+        assertEquals(3, res.getDays().size());
+        assertEquals(3, res.getDays().get(0).getAvailable());
+        assertEquals(1, res.getDays().get(1).getAvailable());
+        assertEquals(1, res.getAvailableQuantity());
+    }
+
+    @Test
+    void reserveFailsWhenAnyDayIsFull() {
+        // chỉ 2/3 ngày giữ được chỗ
+        when(reservationRepository.reserveRange(any(), any(), any(), anyInt())).thenReturn(2);
+
+        AppException ex = assertThrows(AppException.class, () -> service.reserve(item.getId(), D1, D1.plusDays(3), 1));
+        assertEquals(ErrorCode.INSUFFICIENT_ITEM_QUANTITY, ex.getErrorCode());
+    }
+
+    @Test
+    void reserveSucceedsWhenEveryDayIsUpdated() {
+        // 3 đêm [D1, D1+3) = 3 dòng, ngày trả đồ không bị giữ
+        when(reservationRepository.reserveRange(item.getId(), D1, D1.plusDays(3), 2))
+                .thenReturn(3);
+
+        assertDoesNotThrow(() -> service.reserve(item.getId(), D1, D1.plusDays(3), 2));
+    }
+
+    @Test
+    void bookingStartingOnAnotherBookingsReturnDayNeedsOnlyItsOwnNights() {
+        // đơn trước trả đồ ngày D1+3, đơn sau nhận đồ cùng ngày đó: giữ đúng 2 đêm [D1+3, D1+5)
+        when(reservationRepository.reserveRange(item.getId(), D1.plusDays(3), D1.plusDays(5), 1))
+                .thenReturn(2);
+
+        assertDoesNotThrow(() -> service.reserve(item.getId(), D1.plusDays(3), D1.plusDays(5), 1));
+    }
+
+    @Test
+    void extensionReservesFromTheOldReturnDay() {
+        Booking booking = Booking.builder()
+                .itemId(item.getId())
+                .quantity(1)
+                .startDate(D1)
+                .endDate(D1.plusDays(3))
+                .build();
+        when(reservationRepository.reserveRange(item.getId(), D1.plusDays(3), D1.plusDays(5), 1))
+                .thenReturn(2);
+
+        service.extend(booking, D1.plusDays(5));
+
+        verify(reservationRepository).reserveRange(item.getId(), D1.plusDays(3), D1.plusDays(5), 1);
+    }
+
+    @Test
+    void releaseRunsOncePerBooking() {
+        Booking booking = Booking.builder()
+                .id(UUID.randomUUID())
+                .itemId(item.getId())
+                .quantity(2)
+                .startDate(D1)
+                .endDate(D1.plusDays(2))
+                .build();
+        when(bookingRepository.markReservationReleased(booking.getId())).thenReturn(1, 0);
+
+        service.release(booking);
+        service.release(booking);
+
+        verify(reservationRepository, times(1)).releaseRange(item.getId(), D1, D1.plusDays(2), 2);
+    }
+
+    @Test
+    void writeOffMissingItemFails() {
+        when(itemRepository.writeOffQuantity(any(), anyInt(), any(), any())).thenReturn(0);
+
+        AppException ex = assertThrows(AppException.class, () -> service.writeOffLostUnits(item.getId(), 1));
+        assertEquals(ErrorCode.ITEM_NOT_FOUND, ex.getErrorCode());
+    }
+
+    @Test
+    void rejectsInvertedRange() {
+        assertThrows(AppException.class, () -> service.getAvailability(item.getId(), D1, D1.minusDays(1)));
+    }
+
+    @Test
+    void rejectsRangeWithoutANight() {
+        assertThrows(AppException.class, () -> service.reserve(item.getId(), D1, D1, 1));
+        verify(reservationRepository, never()).reserveRange(any(), any(), any(), anyInt());
+    }
+}
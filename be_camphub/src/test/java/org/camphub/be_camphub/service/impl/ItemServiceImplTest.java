@@ -0,0 +1,115 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.camphub.be_camphub.Utils.ItemCursor;
+import org.camphub.be_camphub.dto.response.CursorPageResponse;
+import org.camphub.be_camphub.dto.response.item.ItemResponse;
+import org.camphub.be_camphub.entity.Item;
+import org.camphub.be_camphub.enums.ItemSort;
+import org.camphub.be_camphub.enums.ItemStatus;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.index.CatalogReadModel;
+import org.camphub.be_camphub.index.ItemAvailabilityIndex;
+import org.camphub.be_camphub.index.ItemFacetIndex;
+import org.camphub.be_camphub.index.ItemSearchIndex;
+import org.camphub.be_camphub.index.ItemSuggestIndex;
+import org.camphub.be_camphub.mapper.ItemMapper;
+import org.camphub.be_camphub.repository.*;
+import org.camphub.be_camphub.repository.projection.ItemListView;
+import org.camphub.be_camphub.service.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ItemServiceImplTest {
+    ItemRepository itemRepository;
+    AccountRepository accountRepository;
+    ItemServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        accountRepository = mock(AccountRepository.class);
+        ItemMapper itemMapper = mock(ItemMapper.class);
+        when(itemMapper.entityToResponse(any())).thenAnswer(inv -> ItemResponse.builder()
+                .id(inv.<Item>getArgument(0).getId())
+                .build());
+        service = new ItemServiceImpl(
+                itemRepository,
+                mock(ItemLogsRepository.class),
+                accountRepository,
+                mock(CategoryRepository.class),
+                itemMapper,
+                mock(NotificationService.class),
+                mock(ItemAvailabilityIndex.class),
+                mock(ItemSearchIndex.class),
+                mock(ItemSuggestIndex.class),
+                mock(CatalogReadModel.class),
+                mock(ItemFacetIndex.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pendingItemsComeFirstThenPageContinuesIntoTheRest() {
+        ItemListView pending =
+                row(ItemStatus.PENDING_APPROVAL, LocalDateTime.now().minusDays(3));
+        ItemListView newest = row(ItemStatus.AVAILABLE, LocalDateTime.now().minusDays(1));
+        ItemListView older = row(ItemStatus.RENTED, LocalDateTime.now().minusDays(2));
+        when(itemRepository.findPageNewest(any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> inv.<Set<ItemStatus>>getArgument(0).equals(EnumSet.of(ItemStatus.PENDING_APPROVAL))
+                        ? List.of(pending)
+                        : List.of(newest, older));
+
+        CursorPageResponse<ItemResponse> page = service.getItems(null, null, null, null, 2);
+
+        assertEquals(
+                List.of(pending.item().getId(), newest.item().getId()),
+                page.getData().stream().map(ItemResponse::getId).toList());
+        assertEquals("A B", page.getData().get(0).getOwnerName());
+        assertEquals("Lều", page.getData().get(0).getCategoryName());
+        assertTrue(page.isHasMore());
+        // phần còn lại chỉ cần 2 dòng (1 cho trang + 1 để biết còn trang sau)
+        verify(itemRepository)
+                .findPageNewest(
+                        argThat(s -> !((Set<ItemStatus>) s).contains(ItemStatus.PENDING_APPROVAL)),
+                        isNull(),
+                        any(),
+                        any(),
+                        argThat(p -> p.getPageSize() == 2));
+        // không còn tải owner/category riêng cho từng item
+        verifyNoInteractions(accountRepository);
+
+        ItemCursor next = ItemCursor.decode(page.getNextCursor(), ItemSort.NEWEST);
+        assertEquals(1, next.phase());
+        assertEquals(newest.item().getId(), next.id());
+        assertEquals(newest.item().getCreatedAt(), next.createdAt());
+    }
+
+    @Test
+    void cursorOfAnotherSortIsRejected() {
+        String cursor = ItemCursor.start(ItemSort.PRICE_ASC, 0).encode();
+
+        AppException ex =
+                assertThrows(AppException.class, () -> service.getItems(null, null, ItemSort.NEWEST, cursor, 20));
+        assertEquals(ErrorCode.INVALID_CURSOR, ex.getErrorCode());
+    }
+
+    private static ItemListView row(ItemStatus status, LocalDateTime createdAt) {
+        Item item = Item.builder()
+                .id(UUID.randomUUID())
+                .status(status)
+                .createdAt(createdAt)
+                .pricePerDay(10.0)
+                .build();
+        return new ItemListView(item, "B", "A", null, 90, "Lều");
+    }
+}
@@ -0,0 +1,164 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.camphub.be_camphub.repository.JobLeaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class LeaseServiceImplTest {
+    static final long TTL = 30;
+
+    JobLeaseRepository leaseRepository;
+
+    // bảng job_leases giả lập với đồng hồ của "Postgres" tính bằng giây; mỗi câu lệnh là nguyên tử
+    Map<String, Lease> table = new HashMap<>();
+    double now = 0;
+
+    record Lease(String owner, double expiresAt, double acquiredAt) {}
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        leaseRepository = mock(JobLeaseRepository.class);
+        when(leaseRepository.tryAcquire(anyString(), anyString(), anyDouble())).thenAnswer(inv -> {
+            String name = inv.getArgument(0);
+            String owner = inv.getArgument(1);
+            double ttl = inv.getArgument(2);
+            synchronized (table) {
+                Lease current = table.get(name);
+                if (current != null
+                        && current.expiresAt() >= now
+                        && !current.owner().equals(owner)) {
+                    return Optional.empty();
+                }
+                boolean kept = current != null && current.owner().equals(owner) && current.expiresAt() >= now;
+                table.put(name, new Lease(owner, now + ttl, kept ? current.acquiredAt() : now));
+                return Optional.of(owner);
+            }
+        });
+        when(leaseRepository.renew(anyString(), anyCollection(), anyDouble())).thenAnswer(inv -> {
+            String owner = inv.getArgument(0);
+            Collection<String> names = inv.getArgument(1);
+            double ttl = inv.getArgument(2);
+            List<String> renewed = new ArrayList<>();
+            synchronized (table) {
+                for (String name : names) {
+                    Lease current = table.get(name);
+                    if (current != null && current.owner().equals(owner) && current.expiresAt() >= now) {
+                        table.put(name, new Lease(owner, now + ttl, current.acquiredAt()));
+                        renewed.add(name);
+                    }
+                }
+            }
+            return renewed;
+        });
+        when(leaseRepository.release(anyString(), anyString(), anyDouble())).thenAnswer(inv -> {
+            String name = inv.getArgument(0);
+            String owner = inv.getArgument(1);
+            double hold = inv.getArgument(2);
+            synchronized (table) {
+                Lease current = table.get(name);
+                if (current == null || !current.owner().equals(owner)) return 0;
+                table.put(name, new Lease(owner, current.acquiredAt() + hold, current.acquiredAt()));
+                return 1;
+            }
+        });
+        when(leaseRepository.countLive(anyString())).thenAnswer(inv -> {
+            String prefix = inv.getArgument(0);
+            synchronized (table) {
+                return table.entrySet().stream()
+                        .filter(e ->
+                                e.getKey().startsWith(prefix) && e.getValue().expiresAt() >= now)
+                        .count();
+            }
+        });
+    }
+
+    LeaseServiceImpl node() {
+        LeaseServiceImpl node = new LeaseServiceImpl(leaseRepository);
+        ReflectionTestUtils.setField(node, "ttlSeconds", TTL);
+        return node;
+    }
+
+    @Test
+    void exclusiveJobRunsOnOneNodeAndBlocksUntilMinInterval() {
+        LeaseServiceImpl a = node();
+        LeaseServiceImpl b = node();
+        AtomicBoolean bRan = new AtomicBoolean();
+
+        assertTrue(a.runExclusive("ledger:snapshots", Duration.ofMinutes(30), () -> {
+            // đang chạy trên a: b bỏ qua
+            assertFalse(b.runExclusive("ledger:snapshots", Duration.ofMinutes(30), () -> bRan.set(true)));
+        }));
+        now += 60;
+        assertFalse(b.runExclusive("ledger:snapshots", Duration.ofMinutes(30), () -> bRan.set(true)));
+        assertFalse(bRan.get());
+
+        now += 30 * 60;
+        assertTrue(b.runExclusive("ledger:snapshots", Duration.ofMinutes(30), () -> bRan.set(true)));
+        assertTrue(bRan.get());
+    }
+
+    @Test
+    void shardsAreSplitBetweenLiveNodesAndFailOverWhenOneDies() {
+        LeaseServiceImpl a = node();
+        LeaseServiceImpl b = node();
+        List<Set<Integer>> bChanges = new ArrayList<>();
+
+        a.joinShardGroup("timers", 16, owned -> {});
+        assertEquals(16, a.ownedShards("timers").size());
+
+        b.joinShardGroup("timers", 16, bChanges::add);
+        assertTrue(b.ownedShards("timers").isEmpty());
+
+        // a thấy có hai node sống và trả bớt, b nhận phần còn trống ở heartbeat kế tiếp
+        now += 10;
+        a.heartbeat();
+        b.heartbeat();
+        Set<Integer> ownedByA = a.ownedShards("timers");
+        Set<Integer> ownedByB = b.ownedShards("timers");
+        assertEquals(8, ownedByA.size());
+        assertEquals(8, ownedByB.size());
+        Set<Integer> all = new HashSet<>(ownedByA);
+        all.addAll(ownedByB);
+        assertEquals(16, all.size());
+        assertEquals(ownedByB, bChanges.get(bChanges.size() - 1));
+
+        // a chết (không còn heartbeat): sau TTL b giữ toàn bộ
+        now += TTL + 1;
+        b.heartbeat();
+        assertEquals(16, b.ownedShards("timers").size());
+    }
+
+    @Test
+    void leaseLostDuringPauseIsDroppedOnNextHeartbeat() {
+        LeaseServiceImpl a = node();
+        LeaseServiceImpl b = node();
+        a.joinShardGroup("timers", 4, owned -> {});
+
+        // a bị treo quá TTL, b tiếp quản
+        now += TTL + 1;
+        b.joinShardGroup("timers", 4, owned -> {});
+        assertEquals(4, b.ownedShards("timers").size());
+
+        a.heartbeat();
+        Set<Integer> overlap = new HashSet<>(a.ownedShards("timers"));
+        overlap.retainAll(b.ownedShards("timers"));
+        assertTrue(overlap.isEmpty());
+    }
+}
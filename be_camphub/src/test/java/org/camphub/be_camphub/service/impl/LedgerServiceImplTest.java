@@ -0,0 +1,199 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.camphub.be_camphub.entity.Account;
+import org.camphub.be_camphub.entity.BalanceSnapshot;
+import org.camphub.be_camphub.entity.LedgerEntry;
+import org.camphub.be_camphub.entity.Transaction;
+import org.camphub.be_camphub.enums.TransactionType;
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.repository.AccountRepository;
+import org.camphub.be_camphub.repository.BalanceSnapshotRepository;
+import org.camphub.be_camphub.repository.LedgerEntryRepository;
+import org.camphub.be_camphub.repository.SystemWalletShardRepository;
+import org.camphub.be_camphub.repository.TransactionBookingRepository;
+import org.camphub.be_camphub.repository.TransactionRepository;
+import org.camphub.be_camphub.service.LeaseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class LedgerServiceImplTest {
+    LedgerEntryRepository ledgerEntryRepository;
+    BalanceSnapshotRepository snapshotRepository;
+    TransactionRepository transactionRepository;
+    AccountRepository accountRepository;
+    SystemWalletShardRepository shardRepository;
+    LeaseService leaseService;
+    LedgerServiceImpl service;
+
+    UUID lessee = UUID.randomUUID();
+    UUID system = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        ledgerEntryRepository = mock(LedgerEntryRepository.class);
+        snapshotRepository = mock(BalanceSnapshotRepository.class);
+        transactionRepository = mock(TransactionRepository.class);
+        accountRepository = mock(AccountRepository.class);
+        shardRepository = mock(SystemWalletShardRepository.class);
+        leaseService = mock(LeaseService.class);
+        when(leaseService.runExclusive(any(), any(), any())).thenAnswer(inv -> {
+            inv.<Runnable>getArgument(2).run();
+            return true;
+        });
+        service = new LedgerServiceImpl(
+                ledgerEntryRepository,
+                snapshotRepository,
+                transactionRepository,
+                mock(TransactionBookingRepository.class),
+                accountRepository,
+                shardRepository,
+                leaseService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        when(transactionRepository.save(any())).thenAnswer(inv -> {
+            Transaction tx = inv.getArgument(0);
+            tx.setId(UUID.randomUUID());
+            return tx;
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordWritesBalancedEntryPair() {
+        service.record(lessee, system, 40.0, TransactionType.RENTAL_PAYMENT, UUID.randomUUID());
+
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository).saveAll(captor.capture());
+        List<LedgerEntry> entries = captor.getValue();
+        assertEquals(2, entries.size());
+        assertEquals(-4_000L, entries.get(0).getAmountMinor());
+        assertEquals(4_000L, entries.get(1).getAmountMinor());
+        assertEquals(entries.get(0).getTransactionId(), entries.get(1).getTransactionId());
+    }
+
+    @Test
+    void balanceIsSnapshotPlusDeltaReadFromDbEachTime() {
+        when(snapshotRepository.findFirstByAccountIdOrderByAsOfDesc(lessee))
+                .thenReturn(Optional.of(BalanceSnapshot.builder()
+                        .accountId(lessee)
+                        .balanceMinor(10_000L)
+                        .asOf(LocalDateTime.now().minusHours(1))
+                        .txHorizon(500L)
+                        .build()));
+        when(ledgerEntryRepository.sumFrom(lessee, 500L)).thenReturn(-1_010L, -4_010L);
+
+        assertEquals(8_990L, service.getBalanceMinor(lessee));
+        // bút toán ghi ở node khác cũng thấy ngay ở lần đọc sau, không có cache trong JVM
+        assertEquals(5_990L, service.getBalanceMinor(lessee));
+        verify(ledgerEntryRepository, times(2)).sumFrom(lessee, 500L);
+        verify(ledgerEntryRepository, never()).sumSince(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void snapshotCoversTransactionsSincePreviousHorizonNotTheAppClock() {
+        when(snapshotRepository.findLatestTxHorizon()).thenReturn(Optional.of(500L));
+        when(ledgerEntryRepository.currentTxHorizon()).thenReturn(800L);
+        when(ledgerEntryRepository.sumByAccountInTxRange(500L, 800L))
+                .thenReturn(List.<Object[]>of(new Object[] {lessee, -2_550L}));
+        when(snapshotRepository.findLatestPerAccount())
+                .thenReturn(List.of(BalanceSnapshot.builder()
+                        .accountId(lessee)
+                        .balanceMinor(10_000L)
+                        .txHorizon(500L)
+                        .build()));
+
+        service.takeSnapshots();
+
+        ArgumentCaptor<List<BalanceSnapshot>> captor = ArgumentCaptor.forClass(List.class);
+        verify(snapshotRepository).saveAll(captor.capture());
+        BalanceSnapshot snapshot = captor.getValue().get(0);
+        assertEquals(7_450L, snapshot.getBalanceMinor());
+        // bút toán của transaction >= 800 (có thể chưa commit) được cộng lúc đọc, không nằm trong snapshot
+        assertEquals(800L, snapshot.getTxHorizon());
+    }
+
+    @Test
+    void noSnapshotWhileTheOldestOpenTransactionHasNotMoved() {
+        when(snapshotRepository.findLatestTxHorizon()).thenReturn(Optional.of(800L));
+        when(ledgerEntryRepository.currentTxHorizon()).thenReturn(800L);
+
+        service.takeSnapshots();
+
+        verify(ledgerEntryRepository, never()).sumByAccountInTxRange(anyLong(), anyLong());
+        verify(snapshotRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void openingSnapshotExcludesEntriesAlreadyInCoinBalance() {
+        when(snapshotRepository.count()).thenReturn(0L);
+        when(ledgerEntryRepository.currentTxHorizon()).thenReturn(900L);
+        // bút toán tx 905 đã commit và đã nằm trong coin_balance đọc được; getBalance sẽ cộng lại nó từ mốc 900
+        when(ledgerEntryRepository.sumByAccountFrom(900L))
+                .thenReturn(List.<Object[]>of(new Object[] {lessee, -2_000L}));
+        when(accountRepository.findAll())
+                .thenReturn(List.of(Account.builder()
+                        .id(lessee)
+                        .username("lessee")
+                        .coinBalance(80.0)
+                        .build()));
+
+        service.openLedger();
+
+        ArgumentCaptor<List<BalanceSnapshot>> captor = ArgumentCaptor.forClass(List.class);
+        verify(snapshotRepository).saveAll(captor.capture());
+        BalanceSnapshot opening = captor.getValue().get(0);
+        assertEquals(10_000L, opening.getBalanceMinor());
+        assertEquals(900L, opening.getTxHorizon());
+    }
+
+    @Test
+    void legacyClockSnapshotsAreMovedToTransactionHorizonOnce() {
+        when(snapshotRepository.count()).thenReturn(3L);
+        when(snapshotRepository.existsByTxHorizonIsNotNull()).thenReturn(false, true);
+        when(ledgerEntryRepository.currentTxHorizon()).thenReturn(700L);
+
+        service.openLedger();
+        service.openLedger();
+
+        verify(snapshotRepository, times(1)).migrateLegacySnapshots(700L);
+        verify(snapshotRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void balanceWithoutSnapshotSumsAllEntries() {
+        when(snapshotRepository.findFirstByAccountIdOrderByAsOfDesc(lessee)).thenReturn(Optional.empty());
+        when(ledgerEntryRepository.sumAll(lessee)).thenReturn(30L);
+
+        assertEquals(30L, service.getBalanceMinor(lessee));
+    }
+
+    @Test
+    void walletLedgerMismatchesAreCheckedInOneDbSnapshot() {
+        when(ledgerEntryRepository.findWalletLedgerMismatches())
+                .thenReturn(List.<Object[]>of(new Object[] {lessee, 10_000L, 9_950L}));
+
+        service.reconcileWallets();
+
+        verify(leaseService).runExclusive(eq("ledger:reconcile"), any(), any());
+        verify(ledgerEntryRepository).findWalletLedgerMismatches();
+    }
+
+    @Test
+    void rejectsNonPositiveAmount() {
+        assertThrows(
+                AppException.class, () -> service.record(lessee, system, 0, TransactionType.REFUND_FULL, List.of()));
+    }
+}
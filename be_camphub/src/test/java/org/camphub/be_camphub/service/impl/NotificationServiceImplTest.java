@@ -0,0 +1,136 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.camphub.be_camphub.dto.request.notification.NotificationCreationRequest;
+import org.camphub.be_camphub.entity.Notification;
+import org.camphub.be_camphub.entity.NotificationOutbox;
+import org.camphub.be_camphub.enums.NotificationType;
+import org.camphub.be_camphub.job.JobExecutor;
+import org.camphub.be_camphub.mapper.NotificationMapperImpl;
+import org.camphub.be_camphub.repository.NotificationOutboxRepository;
+import org.camphub.be_camphub.repository.NotificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class NotificationServiceImplTest {
+    NotificationRepository notificationRepository;
+    NotificationOutboxRepository outboxRepository;
+    SimpMessagingTemplate messagingTemplate;
+    JobExecutor jobExecutor;
+    NotificationServiceImpl service;
+
+    // outbox giả lập: claimBatch lấy và xóa từ đầu hàng như DELETE ... RETURNING
+    Deque<NotificationOutbox> outbox = new ArrayDeque<>();
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        outboxRepository = mock(NotificationOutboxRepository.class);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(inv -> {
+                    inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+                    return null;
+                })
+                .when(transactionTemplate)
+                .executeWithoutResult(any());
+        jobExecutor = new JobExecutor(transactionTemplate);
+        ReflectionTestUtils.setField(jobExecutor, "workers", 2);
+        ReflectionTestUtils.setField(jobExecutor, "queueCapacity", 10);
+        jobExecutor.init();
+
+        when(outboxRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<NotificationOutbox> rows = inv.getArgument(0);
+            synchronized (outbox) {
+                rows.forEach(row -> {
+                    row.setId(UUID.randomUUID());
+                    outbox.add(row);
+                });
+            }
+            return rows;
+        });
+        when(outboxRepository.claimBatch(anyInt(), anyInt())).thenAnswer(inv -> {
+            int limit = inv.getArgument(1);
+            List<NotificationOutbox> batch = new ArrayList<>();
+            synchronized (outbox) {
+                while (batch.size() < limit && !outbox.isEmpty()) batch.add(outbox.poll());
+            }
+            return batch;
+        });
+        when(notificationRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Notification> rows = inv.getArgument(0);
+            rows.forEach(row -> row.setId(UUID.randomUUID()));
+            return rows;
+        });
+
+        service = new NotificationServiceImpl(
+                notificationRepository, new NotificationMapperImpl(), outboxRepository, jobExecutor, messagingTemplate);
+        ReflectionTestUtils.setField(service, "outboxBatchSize", 2);
+        ReflectionTestUtils.setField(service, "outboxMaxAttempts", 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobExecutor.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enqueuedNotificationsAreRelayedInBatchesAndPushed() {
+        List<UUID> receivers = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        List<NotificationCreationRequest> requests = receivers.stream()
+                .map(receiver -> NotificationCreationRequest.builder()
+                        .receiverId(receiver)
+                        .type(NotificationType.BOOKING_CREATED)
+                        .title("Đơn thuê mới")
+                        .build())
+                .toList();
+
+        service.enqueueAll(requests.subList(0, 3));
+        service.enqueue(requests.get(3));
+
+        for (UUID receiver : receivers) {
+            verify(messagingTemplate, timeout(2000))
+                    .convertAndSendToUser(eq(receiver.toString()), eq(NotificationServiceImpl.USER_QUEUE), any());
+        }
+        ArgumentCaptor<List<Notification>> saved = ArgumentCaptor.forClass(List.class);
+        verify(notificationRepository, atLeast(2)).saveAll(saved.capture());
+        assertTrue(saved.getAllValues().stream().allMatch(batch -> batch.size() <= 2));
+        assertEquals(4, saved.getAllValues().stream().mapToInt(List::size).sum());
+        assertTrue(outbox.isEmpty());
+    }
+
+    @Test
+    void failedBatchIsReturnedToOutboxWithAttemptCounted() {
+        NotificationOutbox row = NotificationOutbox.builder()
+                .id(UUID.randomUUID())
+                .receiverId(UUID.randomUUID())
+                .type(NotificationType.BOOKING_CREATED)
+                .createdAt(LocalDateTime.now())
+                .build();
+        when(outboxRepository.claimBatch(anyInt(), anyInt())).thenReturn(List.of(row));
+        when(notificationRepository.saveAll(anyList())).thenThrow(new IllegalStateException("db down"));
+
+        service.pollOutbox();
+
+        verify(outboxRepository, timeout(2000)).markFailed(List.of(row.getId()));
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any());
+    }
+}
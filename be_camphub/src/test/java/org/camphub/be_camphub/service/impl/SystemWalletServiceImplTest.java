@@ -0,0 +1,67 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.UUID;
+
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.repository.AccountRepository;
+import org.camphub.be_camphub.repository.SystemWalletShardRepository;
+import org.camphub.be_camphub.repository.WalletRepository;
+import org.camphub.be_camphub.service.LeaseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SystemWalletServiceImplTest {
+    SystemWalletShardRepository shardRepository;
+    SystemWalletServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        shardRepository = mock(SystemWalletShardRepository.class);
+        service = new SystemWalletServiceImpl(
+                mock(AccountRepository.class), shardRepository, mock(WalletRepository.class), mock(LeaseService.class));
+        when(shardRepository.count()).thenReturn(4L);
+    }
+
+    @Test
+    void debitFallsBackToAnotherShardWhenHomeShardIsShort() {
+        UUID key = UUID.randomUUID();
+        int home = Math.floorMod(key.hashCode(), 4);
+        int next = (home + 1) % 4;
+        when(shardRepository.debitIfSufficient(anyInt(), eq(10_000L))).thenReturn(0);
+        when(shardRepository.debitIfSufficient(next, 10_000L)).thenReturn(1);
+
+        assertTrue(service.tryDebit(key, 10_000L));
+        verify(shardRepository).debitIfSufficient(home, 10_000L);
+        verify(shardRepository, never()).sumBalanceMinor();
+    }
+
+    @Test
+    void debitSplitsAcrossShardsWhenNoSingleShardIsEnough() {
+        UUID key = UUID.randomUUID();
+        int home = Math.floorMod(key.hashCode(), 4);
+        when(shardRepository.debitIfSufficient(anyInt(), eq(10_000L))).thenReturn(0);
+        when(shardRepository.sumBalanceMinor()).thenReturn(12_000L);
+        when(shardRepository.findBalanceMinorByShardIndex(anyInt())).thenReturn(3_000L);
+        when(shardRepository.debitIfSufficient(anyInt(), eq(3_000L))).thenReturn(1);
+        when(shardRepository.debitIfSufficient(anyInt(), eq(1_000L))).thenReturn(1);
+
+        assertTrue(service.tryDebit(key, 10_000L));
+        verify(shardRepository).debitIfSufficient(home, 3_000L);
+        verify(shardRepository).debitIfSufficient((home + 3) % 4, 1_000L);
+    }
+
+    @Test
+    void debitThrowsWhenTotalIsInsufficient() {
+        when(shardRepository.debitIfSufficient(anyInt(), anyLong())).thenReturn(0);
+        when(shardRepository.sumBalanceMinor()).thenReturn(5_000L);
+
+        AppException ex = assertThrows(AppException.class, () -> service.debit(UUID.randomUUID(), 10_000L));
+        assertEquals(ErrorCode.SYSTEM_WALLET_INSUFFICIENT, ex.getErrorCode());
+        verify(shardRepository, never()).findBalanceMinorByShardIndex(anyInt());
+    }
+}
@@ -0,0 +1,181 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.camphub.be_camphub.enums.TimerType;
+import org.camphub.be_camphub.job.JobExecutor;
+import org.camphub.be_camphub.repository.LifecycleTimerRepository;
+import org.camphub.be_camphub.service.LeaseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class TimerServiceImplTest {
+    LifecycleTimerRepository timerRepository;
+    JobExecutor jobExecutor;
+    TimerServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        timerRepository = mock(LifecycleTimerRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(inv -> {
+                    inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+                    return null;
+                })
+                .when(transactionTemplate)
+                .executeWithoutResult(any());
+        when(timerRepository.findByShardInAndDueAtBeforeOrderByDueAtAsc(any(), any(), any()))
+                .thenReturn(List.of());
+        // node duy nhất: giữ mọi shard
+        LeaseService leaseService = mock(LeaseService.class);
+        when(leaseService.ownedShards(TimerServiceImpl.SHARD_GROUP)).thenReturn(Set.of(0, 1, 2, 3));
+
+        jobExecutor = new JobExecutor(transactionTemplate);
+        ReflectionTestUtils.setField(jobExecutor, "workers", 2);
+        ReflectionTestUtils.setField(jobExecutor, "queueCapacity", 10);
+        jobExecutor.init();
+
+        service = new TimerServiceImpl(timerRepository, transactionTemplate, jobExecutor, leaseService);
+        ReflectionTestUtils.setField(service, "horizonMinutes", 10L);
+        service.start();
+        // đợi lần nạp đầu tiên trên luồng timer xong để không tranh với việc stub mock trong test
+        verify(timerRepository, timeout(2000)).findByShardInAndDueAtBeforeOrderByDueAtAsc(any(), any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+        jobExecutor.shutdown();
+    }
+
+    @Test
+    void timerFiresOnceWhenDueNotBefore() throws Exception {
+        UUID timerId = UUID.randomUUID();
+        UUID bookingId = UUID.randomUUID();
+        when(timerRepository.upsert(eq("BOOKING_DUE"), eq(bookingId), any(), eq(TimerServiceImpl.SHARDS)))
+                .thenReturn(timerId);
+        // chỉ lần giành quyền đầu tiên xóa được dòng
+        AtomicInteger rows = new AtomicInteger(1);
+        when(timerRepository.claim(eq(timerId), any())).thenAnswer(inv -> rows.getAndSet(0));
+
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicLong firedAt = new AtomicLong();
+        AtomicInteger calls = new AtomicInteger();
+        service.registerHandler(TimerType.BOOKING_DUE, id -> {
+            assertEquals(bookingId, id);
+            calls.incrementAndGet();
+            firedAt.set(System.nanoTime());
+            fired.countDown();
+        });
+
+        long scheduledAt = System.nanoTime();
+        LocalDateTime dueAt = LocalDateTime.now().plus(Duration.ofMillis(300));
+        service.schedule(TimerType.BOOKING_DUE, bookingId, dueAt);
+        // đặt lại cùng hạn chót không tạo lần bắn thứ hai
+        service.schedule(TimerType.BOOKING_DUE, bookingId, dueAt);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(Duration.ofNanos(firedAt.get() - scheduledAt).toMillis() >= 250);
+        Thread.sleep(200);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void failedHandlerIsRetriedLater() throws Exception {
+        UUID timerId = UUID.randomUUID();
+        UUID requestId = UUID.randomUUID();
+        when(timerRepository.upsert(eq("EXTENSION_EXPIRY"), eq(requestId), any(), eq(TimerServiceImpl.SHARDS)))
+                .thenReturn(timerId);
+        when(timerRepository.claim(eq(timerId), any())).thenReturn(1);
+        CountDownLatch retried = new CountDownLatch(1);
+        when(timerRepository.retryAt(eq(timerId), any())).thenAnswer(inv -> {
+            retried.countDown();
+            return 1;
+        });
+        service.registerHandler(TimerType.EXTENSION_EXPIRY, id -> {
+            throw new IllegalStateException("boom");
+        });
+
+        service.schedule(TimerType.EXTENSION_EXPIRY, requestId, LocalDateTime.now());
+
+        assertTrue(retried.await(5, TimeUnit.SECONDS));
+        verify(timerRepository).retryAt(eq(timerId), argThat(at -> at.isAfter(LocalDateTime.now())));
+    }
+
+    @Test
+    void timerBacksOffWhenJobQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // 2 worker bận + 10 việc xếp hàng = đầy
+        for (int i = 0; i < 12; i++) {
+            jobExecutor.submit("BLOCK", () -> {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        UUID timerId = UUID.randomUUID();
+        UUID bookingId = UUID.randomUUID();
+        when(timerRepository.upsert(eq("BOOKING_LATE"), eq(bookingId), any(), eq(TimerServiceImpl.SHARDS)))
+                .thenReturn(timerId);
+        when(timerRepository.claim(eq(timerId), any())).thenReturn(1);
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicReference<String> firedOn = new AtomicReference<>();
+        service.registerHandler(TimerType.BOOKING_LATE, id -> {
+            firedOn.set(Thread.currentThread().getName());
+            fired.countDown();
+        });
+
+        service.schedule(TimerType.BOOKING_LATE, bookingId, LocalDateTime.now());
+
+        // bị từ chối: không chạy trên luồng hẹn giờ, không tính là một lần lỗi
+        assertFalse(fired.await(500, TimeUnit.MILLISECONDS));
+        verify(timerRepository, never()).retryAt(any(), any());
+        release.countDown();
+        assertTrue(fired.await(TimerServiceImpl.QUEUE_FULL_BACKOFF.toSeconds() + 5, TimeUnit.SECONDS));
+        assertTrue(firedOn.get().startsWith("job-worker-"));
+    }
+
+    @Test
+    void cancelledTimerDoesNotRunHandler() throws Exception {
+        UUID timerId = UUID.randomUUID();
+        UUID bookingId = UUID.randomUUID();
+        when(timerRepository.upsert(eq("BOOKING_REFUND"), eq(bookingId), any(), eq(TimerServiceImpl.SHARDS)))
+                .thenReturn(timerId);
+        CountDownLatch claimed = new CountDownLatch(1);
+        when(timerRepository.claim(eq(timerId), any())).thenAnswer(inv -> {
+            claimed.countDown();
+            return 0; // dòng timer đã bị xóa bởi cancel
+        });
+        Consumer<UUID> handler = mock(Consumer.class);
+        service.registerHandler(TimerType.BOOKING_REFUND, handler);
+
+        service.schedule(TimerType.BOOKING_REFUND, bookingId, LocalDateTime.now());
+        service.cancel(TimerType.BOOKING_REFUND, bookingId);
+
+        assertTrue(claimed.await(5, TimeUnit.SECONDS));
+        verify(handler, never()).accept(any());
+    }
+}
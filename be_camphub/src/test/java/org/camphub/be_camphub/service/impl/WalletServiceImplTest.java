@@ -0,0 +1,52 @@
+package org.camphub.be_camphub.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.camphub.be_camphub.exception.AppException;
+import org.camphub.be_camphub.exception.ErrorCode;
+import org.camphub.be_camphub.repository.WalletRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class WalletServiceImplTest {
+    UUID accountId = UUID.randomUUID();
+    WalletRepository walletRepository;
+    WalletServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        walletRepository = mock(WalletRepository.class);
+        service = new WalletServiceImpl(walletRepository);
+    }
+
+    @Test
+    void debitReturnsNewBalanceFromTheUpdate() {
+        when(walletRepository.debit(accountId, 15.0)).thenReturn(Optional.of(85.0));
+
+        assertEquals(85.0, service.debit(accountId, 15));
+    }
+
+    @Test
+    void debitOnShortBalanceIsInsufficientBalance() {
+        when(walletRepository.debit(eq(accountId), anyDouble())).thenReturn(Optional.empty());
+        when(walletRepository.findBalance(accountId)).thenReturn(Optional.of(10.0));
+
+        AppException ex = assertThrows(AppException.class, () -> service.debit(accountId, 15));
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, ex.getErrorCode());
+    }
+
+    @Test
+    void debitOnUnknownAccountIsUserNotFound() {
+        UUID unknown = UUID.randomUUID();
+        when(walletRepository.debit(eq(unknown), anyDouble())).thenReturn(Optional.empty());
+        when(walletRepository.findBalance(unknown)).thenReturn(Optional.empty());
+
+        AppException ex = assertThrows(AppException.class, () -> service.debit(unknown, 5));
+        assertEquals(ErrorCode.USER_NOT_FOUND, ex.getErrorCode());
+    }
+}
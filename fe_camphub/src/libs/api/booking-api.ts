@@ -1,6 +1,7 @@
 import { api } from "@/libs/configuration";
 import { Booking } from "../core/types";
-import { BookingResponse, ApiResponse } from "../core/dto/response";
+import { BookingResponse, ApiResponse, CursorPageResponse } from "../core/dto/response";
+import { BookingStatus } from "../core/constants";
 import { BookingCreationRequest, LesseeReturnRequest, OwnerConfirmationRequest } from "../core/dto/request";
 import { bookingMap } from "../core/mapping";
 
@@ -93,11 +94,7 @@ export const processRefund = async (bookingId: string): Promise<void> => {
 // Danh sách lịch sử thuê (mình là khách thuê)
 export const getBookingsByLessee = async (): Promise<Booking[]> => {
     try {
-        const response = await api.get<ApiResponse<BookingResponse[]>>(
-            `/bookings/lessee`
-        );
-
-        return response.data.result.map(bookingMap.fromResponse);
+        return await fetchAllBookingPages(`/bookings/lessee`);
     } catch (error) {
         throw error;
     }
@@ -106,16 +103,40 @@ export const getBookingsByLessee = async (): Promise<Booking[]> => {
 // Dấnh sách lịch sử cho thuê (mình là chủ sở hữu)
 export const getBookingsByLessor = async (): Promise<Booking[]> => {
     try {
-        const response = await api.get<ApiResponse<BookingResponse[]>>(
-            `/bookings/lessor`
-        );
-
-        return response.data.result.map(bookingMap.fromResponse);
+        return await fetchAllBookingPages(`/bookings/lessor`);
     } catch (error) {
         throw error;
     }
 };
 
+// Một trang booking theo cursor (createdAt, id); status rỗng = mọi trạng thái
+export const getBookingPage = async (
+    url: string,
+    params: { status?: BookingStatus[]; cursor?: string | null; size?: number } = {}
+): Promise<CursorPageResponse<Booking>> => {
+    const response = await api.get<ApiResponse<CursorPageResponse<BookingResponse>>>(url, {
+        params: {
+            status: params.status?.length ? params.status.join(",") : undefined,
+            cursor: params.cursor ?? undefined,
+            size: params.size,
+        },
+    });
+    const page = response.data.result;
+    return { ...page, data: page.data.map(bookingMap.fromResponse) };
+};
+
+// Các màn hình hiện tại lọc/phân trang phía client nên vẫn cần toàn bộ danh sách: đi lần lượt từng trang lớn
+const fetchAllBookingPages = async (url: string): Promise<Booking[]> => {
+    const bookings: Booking[] = [];
+    let cursor: string | null = null;
+    do {
+        const page: CursorPageResponse<Booking> = await getBookingPage(url, { cursor, size: 100 });
+        bookings.push(...page.data);
+        cursor = page.hasMore ? page.nextCursor : null;
+    } while (cursor);
+    return bookings;
+};
+
 // lấy tất cả booking 
 export const getAllBookings = async (): Promise<Booking[]> => {
     try {
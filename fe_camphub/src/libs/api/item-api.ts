@@ -1,6 +1,6 @@
 // item-api.ts
 import { api } from "@/libs/configuration";
-import { ApiResponse, ItemResponse } from "../core/dto/response";
+import { ApiResponse, CursorPageResponse, ItemResponse, PageResponse } from "../core/dto/response";
 import { Item } from "../core/types";
 import { mapItem } from "../core/mapping/item.mapper";
 
@@ -33,18 +33,87 @@ export const getItemById = async (id: string): Promise<Item> => {
     return mapItem.fromResponse(response.data.result);
 };
 
+export type ItemSort = "NEWEST" | "PRICE_ASC" | "PRICE_DESC";
+
+// Một trang item theo cursor; sort mặc định NEWEST (PENDING_APPROVAL đứng đầu)
+export const getItemPage = async (
+    params: { status?: string; categoryId?: string; sort?: ItemSort; cursor?: string | null; size?: number; facets?: boolean } = {}
+): Promise<CursorPageResponse<Item>> => {
+    const response = await api.get<ApiResponse<CursorPageResponse<ItemResponse>>>("/items", {
+        params: {
+            status: params.status || undefined,
+            categoryId: params.categoryId || undefined,
+            sort: params.sort,
+            cursor: params.cursor ?? undefined,
+            size: params.size,
+            facets: params.facets || undefined,
+        },
+    });
+    const page = response.data.result;
+    return { ...page, data: page.data.map(mapItem.fromResponse) };
+};
+
+// Số item theo trạng thái/danh mục/khoảng giá/khoảng cọc cho bộ lọc đang chọn
+export const getItemFacets = async (
+    params: { status?: string; categoryId?: string; priceBand?: string; depositBand?: string } = {}
+): Promise<Record<string, Record<string, number>>> => {
+    const response = await api.get<ApiResponse<Record<string, Record<string, number>>>>("/items/facets", {
+        params: {
+            status: params.status || undefined,
+            categoryId: params.categoryId || undefined,
+            priceBand: params.priceBand || undefined,
+            depositBand: params.depositBand || undefined,
+        },
+    });
+    return response.data.result;
+};
+
+// Tìm kiếm toàn văn theo tên/mô tả/danh mục, gõ có dấu hay không dấu đều được; kết quả xếp theo độ liên quan
+export const searchItems = async (
+    q: string,
+    params: { status?: string; categoryId?: string; page?: number; size?: number } = {}
+): Promise<PageResponse<Item>> => {
+    const response = await api.get<ApiResponse<PageResponse<ItemResponse>>>("/items/search", {
+        params: {
+            q,
+            status: params.status || undefined,
+            categoryId: params.categoryId || undefined,
+            page: params.page,
+            size: params.size,
+        },
+    });
+    const page = response.data.result;
+    return { ...page, data: page.data.map(mapItem.fromResponse) };
+};
+
+export interface ItemSuggestion {
+    text: string;
+    type: "ITEM" | "CATEGORY";
+    categoryId: string | null;
+    weight: number;
+}
+
+// Gợi ý khi gõ ô tìm kiếm (tên sản phẩm và danh mục), dùng kèm debounce phía UI
+export const suggestItems = async (q: string, limit = 8): Promise<ItemSuggestion[]> => {
+    const response = await api.get<ApiResponse<ItemSuggestion[]>>("/items/suggest", { params: { q, limit } });
+    return response.data.result;
+};
+
 // Get all items with optional filters
+// Các màn hình hiện tại lọc/phân trang phía client nên vẫn cần toàn bộ danh sách: đi lần lượt từng trang lớn
 export const getAllItems = async (
     status?: string,
     categoryId?: string
 ): Promise<Item[]> => {
     try {
-        const params: Record<string, any> = {};
-        if (status) params.status = status;
-        if (categoryId) params.categoryId = categoryId;
-
-        const response = await api.get<ApiResponse<ItemResponse[]>>("/items", { params });
-        return response.data.result.map(mapItem.fromResponse);
+        const items: Item[] = [];
+        let cursor: string | null = null;
+        do {
+            const page: CursorPageResponse<Item> = await getItemPage({ status, categoryId, cursor, size: 100 });
+            items.push(...page.data);
+            cursor = page.hasMore ? page.nextCursor : null;
+        } while (cursor);
+        return items;
     } catch (error) {
         throw error;
     }
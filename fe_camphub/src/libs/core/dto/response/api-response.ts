@@ -3,3 +3,22 @@ export interface ApiResponse<T> {
     message: string;
     result: T;
 }
+
+// Trang theo cursor: truyền nextCursor vào lần gọi sau, null khi đã hết
+export interface CursorPageResponse<T> {
+    pageSize: number;
+    hasMore: boolean;
+    nextCursor: string | null;
+    data: T[];
+    // tên facet -> giá trị -> số bản ghi, chỉ có khi gọi với facets=true
+    facets?: Record<string, Record<string, number>>;
+}
+
+// Trang theo số trang (page bắt đầu từ 0)
+export interface PageResponse<T> {
+    page: number;
+    pageSize: number;
+    totalPages: number;
+    totalElements: number;
+    data: T[];
+}